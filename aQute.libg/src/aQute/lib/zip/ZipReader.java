@@ -0,0 +1,407 @@
+package aQute.lib.zip;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.channels.FileChannel;
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import aQute.lib.io.IO;
+
+/**
+ * A read only ZIP file which reads the central directory directly instead of
+ * using {@link java.util.zip.ZipFile}.
+ * <p>
+ * The central directory and the local headers of all entries are read and
+ * checked when the file is opened. The data of an entry is read with a
+ * positional read of the file channel into a heap buffer, so a file which is
+ * changed while it is open only causes an {@link IOException}. The data of a
+ * DEFLATED entry is inflated using a pooled {@link Inflater}. Encrypted
+ * entries and other compression methods are not supported.
+ */
+public class ZipReader implements Closeable {
+	private static final int				LOCSIG				= 0x04034b50;
+	private static final int				CENSIG				= 0x02014b50;
+	private static final int				ENDSIG				= 0x06054b50;
+	private static final int				ZIP64_ENDSIG		= 0x06064b50;
+	private static final int				ZIP64_LOCSIG		= 0x07064b50;
+	private static final int				LOCHDR				= 30;
+	private static final int				CENHDR				= 46;
+	private static final int				ENDHDR				= 22;
+	private static final int				ZIP64_ENDHDR		= 56;
+	private static final int				ZIP64_LOCHDR		= 20;
+	private static final int				EXTID_ZIP64			= 0x0001;
+	private static final int				ZIP64_MAGICCOUNT	= 0xFFFF;
+	private static final long				ZIP64_MAGICVAL		= 0xFFFFFFFFL;
+	private static final int				MAX_POOLED			= 16;
+
+	private static final Queue<Inflater>	inflaters			= new ConcurrentLinkedQueue<>();
+	private static final AtomicInteger		pooled				= new AtomicInteger();
+
+	private final File						file;
+	private volatile FileChannel			channel;
+	private final List<ZipEntry>			entries;
+	private volatile boolean				closed;
+
+	/**
+	 * Open the specified ZIP file.
+	 *
+	 * @param file The ZIP file.
+	 * @throws ZipException If the file is not a ZIP file or uses features not
+	 *             supported by this class.
+	 * @throws IOException If the file cannot be read.
+	 */
+	public ZipReader(File file) throws IOException {
+		this.file = file;
+		this.channel = IO.readChannel(file.toPath());
+		try {
+			this.entries = Collections.unmodifiableList(readCentralDirectory());
+		} catch (IOException | RuntimeException e) {
+			IO.close(channel);
+			throw e;
+		}
+	}
+
+	public String getName() {
+		return file.getPath();
+	}
+
+	/**
+	 * The entries of the ZIP file in central directory order.
+	 *
+	 * @return An unmodifiable list of the entries.
+	 */
+	public List<ZipEntry> entries() {
+		return entries;
+	}
+
+	/**
+	 * Return the uncompressed data of an entry of this ZIP file.
+	 *
+	 * @param entry An entry returned by {@link #entries()}.
+	 * @return A buffer holding the uncompressed data of the entry.
+	 * @throws IOException If the entry data is corrupt or the file changed.
+	 * @throws IllegalStateException If this ZIP file is closed.
+	 */
+	public ByteBuffer getData(ZipEntry entry) throws IOException {
+		ByteBuffer raw = getRawData(entry);
+		if (entry.getMethod() == ZipEntry.STORED) {
+			return raw;
+		}
+		long size = entry.getSize();
+		if (size > Integer.MAX_VALUE - 8) {
+			throw new ZipException("Entry too large to inflate: " + entry.getName());
+		}
+		ByteBuffer data = ByteBuffer.allocate((int) size);
+		Inflater inflater = inflater();
+		try {
+			inflater.setInput(raw);
+			while (data.hasRemaining() && !inflater.finished()) {
+				if (inflater.inflate(data) == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					throw new ZipException("Unexpected end of ZLIB input stream: " + entry.getName());
+				}
+			}
+		} catch (DataFormatException e) {
+			throw new ZipException(e.getMessage() + ": " + entry.getName());
+		} finally {
+			release(inflater);
+		}
+		if (data.hasRemaining()) {
+			throw new ZipException("Invalid entry size: " + entry.getName());
+		}
+		data.flip();
+		return data;
+	}
+
+	/**
+	 * Return the data of an entry of this ZIP file as stored in the file. For
+	 * a DEFLATED entry, this is the compressed data.
+	 *
+	 * @param entry An entry returned by {@link #entries()}.
+	 * @return A buffer holding the stored data of the entry.
+	 * @throws IOException If the entry is corrupt or the file changed.
+	 * @throws IllegalStateException If this ZIP file is closed.
+	 */
+	public ByteBuffer getRawData(ZipEntry entry) throws IOException {
+		if (!(entry instanceof LocatedEntry located)) {
+			throw new IllegalArgumentException("Entry not from this zip file: " + entry.getName());
+		}
+		long length = entry.getCompressedSize();
+		if (length > Integer.MAX_VALUE - 8) {
+			throw new ZipException("Entry too large to read: " + entry.getName());
+		}
+		ByteBuffer data = read(located.data, (int) length);
+		data.flip();
+		return data;
+	}
+
+	@Override
+	public void close() throws IOException {
+		closed = true;
+		channel.close();
+	}
+
+	@Override
+	public String toString() {
+		return getName();
+	}
+
+	/*
+	 * Read length bytes at the position of the file. A channel is closed when
+	 * a thread reading it is interrupted, it is then opened again for the
+	 * other readers of this file.
+	 */
+	private ByteBuffer read(long position, int length) throws IOException {
+		if (closed) {
+			throw new IllegalStateException("zip file closed");
+		}
+		ByteBuffer bb = ByteBuffer.allocate(length)
+			.order(ByteOrder.LITTLE_ENDIAN);
+		FileChannel fc = channel;
+		try {
+			while (bb.hasRemaining()) {
+				if (fc.read(bb, position + bb.position()) < 0) {
+					throw new EOFException("Unexpected end of ZIP file, the file has changed: " + getName());
+				}
+			}
+		} catch (ClosedByInterruptException e) {
+			reopen(fc);
+			throw e;
+		}
+		return bb;
+	}
+
+	private synchronized void reopen(FileChannel closedChannel) throws IOException {
+		if (!closed && (channel == closedChannel)) {
+			boolean interrupted = Thread.interrupted();
+			try {
+				channel = IO.readChannel(file.toPath());
+			} finally {
+				if (interrupted) {
+					Thread.currentThread()
+						.interrupt();
+				}
+			}
+		}
+	}
+
+	private List<ZipEntry> readCentralDirectory() throws IOException {
+		long fileSize = channel.size();
+		if (fileSize < ENDHDR) {
+			throw new ZipException("zip END header not found: " + getName());
+		}
+		int tailLength = (int) Math.min(fileSize, ENDHDR + 0xFFFF);
+		long tailPosition = fileSize - tailLength;
+		ByteBuffer tail = read(tailPosition, tailLength);
+		int endIndex = findEnd(tail);
+		long end = tailPosition + endIndex;
+		long count = Short.toUnsignedLong(tail.getShort(endIndex + 10));
+		long cenSize = Integer.toUnsignedLong(tail.getInt(endIndex + 12));
+		long cenOffset = Integer.toUnsignedLong(tail.getInt(endIndex + 16));
+		long cenEnd = end;
+		if ((count == ZIP64_MAGICCOUNT || cenSize == ZIP64_MAGICVAL || cenOffset == ZIP64_MAGICVAL)
+			&& (end >= ZIP64_LOCHDR)) {
+			ByteBuffer locator = read(end - ZIP64_LOCHDR, ZIP64_LOCHDR);
+			if (locator.getInt(0) == ZIP64_LOCSIG) {
+				long end64 = locator.getLong(8);
+				if ((end64 < 0L) || (end64 + ZIP64_ENDHDR > end - ZIP64_LOCHDR)) {
+					throw new ZipException("Invalid ZIP64 end header: " + getName());
+				}
+				ByteBuffer header = read(end64, ZIP64_ENDHDR);
+				if (header.getInt(0) != ZIP64_ENDSIG) {
+					throw new ZipException("Invalid ZIP64 end header: " + getName());
+				}
+				count = header.getLong(32);
+				cenSize = header.getLong(40);
+				cenOffset = header.getLong(48);
+				cenEnd = end64;
+			}
+		}
+		// like ZipFile, allow data before the ZIP file, e.g. a launch script
+		long cenPosition = cenEnd - cenSize;
+		long prefix = cenPosition - cenOffset;
+		if ((cenOffset < 0L) || (cenSize < 0L) || (prefix < 0L) || (cenSize > Integer.MAX_VALUE - 8)
+			|| (count > cenSize / CENHDR)) {
+			throw new ZipException("Invalid central directory: " + getName());
+		}
+
+		ByteBuffer cen = read(cenPosition, (int) cenSize);
+		List<ZipEntry> result = new ArrayList<>((int) count);
+		int position = 0;
+		int limit = cen.capacity();
+		for (long i = 0; i < count; i++) {
+			if ((position + CENHDR > limit) || (cen.getInt(position) != CENSIG)) {
+				throw new ZipException("Invalid CEN header (bad signature): " + getName());
+			}
+			int flags = Short.toUnsignedInt(cen.getShort(position + 8));
+			int method = Short.toUnsignedInt(cen.getShort(position + 10));
+			long dostime = Integer.toUnsignedLong(cen.getInt(position + 12));
+			long crc = Integer.toUnsignedLong(cen.getInt(position + 16));
+			long csize = Integer.toUnsignedLong(cen.getInt(position + 20));
+			long size = Integer.toUnsignedLong(cen.getInt(position + 24));
+			int nameLength = Short.toUnsignedInt(cen.getShort(position + 28));
+			int extraLength = Short.toUnsignedInt(cen.getShort(position + 30));
+			int commentLength = Short.toUnsignedInt(cen.getShort(position + 32));
+			long offset = Integer.toUnsignedLong(cen.getInt(position + 42));
+			int next = position + CENHDR + nameLength + extraLength + commentLength;
+			if (next > limit) {
+				throw new ZipException("Invalid CEN header (bad header size): " + getName());
+			}
+			if ((flags & 1) != 0) {
+				throw new ZipException("Encrypted entries are not supported: " + getName());
+			}
+			if ((method != ZipEntry.STORED) && (method != ZipEntry.DEFLATED)) {
+				throw new ZipException("Unsupported compression method " + method + ": " + getName());
+			}
+
+			byte[] bytes = new byte[nameLength];
+			cen.get(position + CENHDR, bytes);
+			String entryName = new String(bytes, UTF_8);
+			byte[] extra = null;
+			if (extraLength > 0) {
+				extra = new byte[extraLength];
+				cen.get(position + CENHDR + nameLength, extra);
+				ByteBuffer zip64 = findZip64(extra);
+				if (zip64 != null) {
+					if ((size == ZIP64_MAGICVAL) && (zip64.remaining() >= 8)) {
+						size = zip64.getLong();
+					}
+					if ((csize == ZIP64_MAGICVAL) && (zip64.remaining() >= 8)) {
+						csize = zip64.getLong();
+					}
+					if ((offset == ZIP64_MAGICVAL) && (zip64.remaining() >= 8)) {
+						offset = zip64.getLong();
+					}
+				}
+			}
+			if ((offset < 0L) || (offset + LOCHDR > cenOffset) || (csize < 0L) || (size < 0L)) {
+				throw new ZipException("Invalid CEN header (bad entry offset or size): " + entryName);
+			}
+
+			LocatedEntry entry = new LocatedEntry(entryName, prefix + offset);
+			entry.setMethod(method);
+			entry.setTime(dosToJavaTime(dostime));
+			entry.setCrc(crc);
+			entry.setSize(size);
+			entry.setCompressedSize(csize);
+			if (extra != null) {
+				entry.setExtra(extra);
+			}
+			if (commentLength > 0) {
+				bytes = new byte[commentLength];
+				cen.get(position + CENHDR + nameLength + extraLength, bytes);
+				entry.setComment(new String(bytes, UTF_8));
+			}
+			locate(entry, cenPosition);
+			result.add(entry);
+			position = next;
+		}
+		return result;
+	}
+
+	/*
+	 * Check the local header of an entry and set the position of its data
+	 */
+	private void locate(LocatedEntry entry, long cenPosition) throws IOException {
+		ByteBuffer loc = read(entry.header, LOCHDR);
+		if (loc.getInt(0) != LOCSIG) {
+			throw new ZipException("Invalid LOC header (bad signature): " + entry.getName());
+		}
+		entry.data = entry.header + LOCHDR + Short.toUnsignedInt(loc.getShort(26))
+			+ Short.toUnsignedInt(loc.getShort(28));
+		if (entry.data + entry.getCompressedSize() > cenPosition) {
+			throw new ZipException("Invalid entry compressed size: " + entry.getName());
+		}
+	}
+
+	private int findEnd(ByteBuffer tail) throws IOException {
+		int capacity = tail.capacity();
+		for (int end = capacity - ENDHDR; end >= 0; end--) {
+			if ((tail.getInt(end) == ENDSIG)
+				&& (end + ENDHDR + Short.toUnsignedInt(tail.getShort(end + 20)) == capacity)) {
+				return end;
+			}
+		}
+		throw new ZipException("zip END header not found: " + getName());
+	}
+
+	private static ByteBuffer findZip64(byte[] extra) {
+		ByteBuffer bb = ByteBuffer.wrap(extra)
+			.order(ByteOrder.LITTLE_ENDIAN);
+		while (bb.remaining() >= 4) {
+			int id = Short.toUnsignedInt(bb.getShort());
+			int length = Short.toUnsignedInt(bb.getShort());
+			if (length > bb.remaining()) {
+				return null;
+			}
+			if (id == EXTID_ZIP64) {
+				return bb.slice()
+					.limit(length)
+					.order(ByteOrder.LITTLE_ENDIAN);
+			}
+			bb.position(bb.position() + length);
+		}
+		return null;
+	}
+
+	private static long dosToJavaTime(long dostime) {
+		try {
+			LocalDateTime ldt = LocalDateTime.of((int) (((dostime >> 25) & 0x7f) + 1980),
+				(int) ((dostime >> 21) & 0x0f), (int) ((dostime >> 16) & 0x1f), (int) ((dostime >> 11) & 0x1f),
+				(int) ((dostime >> 5) & 0x3f), (int) ((dostime << 1) & 0x3e));
+			return ldt.atZone(ZoneId.systemDefault())
+				.toInstant()
+				.toEpochMilli();
+		} catch (DateTimeException e) {
+			return 0L;
+		}
+	}
+
+	private static Inflater inflater() {
+		Inflater inflater = inflaters.poll();
+		if (inflater == null) {
+			return new Inflater(true);
+		}
+		pooled.decrementAndGet();
+		return inflater;
+	}
+
+	private static void release(Inflater inflater) {
+		if (pooled.incrementAndGet() > MAX_POOLED) {
+			pooled.decrementAndGet();
+			inflater.end();
+			return;
+		}
+		inflater.reset();
+		inflaters.offer(inflater);
+	}
+
+	static final class LocatedEntry extends ZipEntry {
+		final long	header;
+		long		data;
+
+		LocatedEntry(String name, long header) {
+			super(requireNonNull(name));
+			this.header = header;
+		}
+	}
+}
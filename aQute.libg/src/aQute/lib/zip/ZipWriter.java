@@ -0,0 +1,591 @@
+package aQute.lib.zip;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+
+import aQute.lib.io.ByteBufferOutputStream;
+import aQute.lib.io.IO;
+import aQute.lib.io.IOConstants;
+
+/**
+ * A ZIP writer which, unlike {@link java.util.zip.ZipOutputStream}, can copy
+ * already compressed entry data byte for byte and can compress the entries in
+ * parallel.
+ * <p>
+ * Entries are always written in the order they are put. When an
+ * {@link Executor} is specified, the data of the entries is compressed by the
+ * executor while the following entries are put. The number and the size of
+ * the entries waiting to be written is bounded. Large entries can be written
+ * through a stream, they are compressed in the calling thread.
+ * <p>
+ * Entry names are UTF-8 encoded, the sizes are always written in the local
+ * header and ZIP64 extensions are used when needed. The writer never closes
+ * the output stream.
+ */
+public class ZipWriter {
+	private static final int				LOCSIG				= 0x04034b50;
+	private static final int				CENSIG				= 0x02014b50;
+	private static final int				ENDSIG				= 0x06054b50;
+	private static final int				ZIP64_ENDSIG		= 0x06064b50;
+	private static final int				ZIP64_LOCSIG		= 0x07064b50;
+	private static final int				EXTSIG				= 0x08074b50;
+	private static final int				LOCHDR				= 30;
+	private static final int				CENHDR				= 46;
+	private static final int				ENDHDR				= 22;
+	private static final int				ZIP64_ENDHDR		= 56;
+	private static final int				ZIP64_LOCHDR		= 20;
+	private static final int				EXTID_ZIP64			= 0x0001;
+	private static final int				EXTID_JAR			= 0xCAFE;
+	private static final int				ZIP64_MAGICCOUNT	= 0xFFFF;
+	private static final long				ZIP64_MAGICVAL		= 0xFFFFFFFFL;
+	private static final int				USE_UTF8			= 0x800;
+	private static final int				DATA_DESCRIPTOR		= 0x8;
+	private static final int				MAX_POOLED			= 16;
+	private static final int				MAX_PENDING			= 256;
+	private static final long				MAX_PENDING_BYTES	= 64L * 1024L * 1024L;
+	// 1980-01-01T00:00:00, the earliest DOS time
+	private static final long				DOSTIME_1980		= (1 << 21) | (1 << 16);
+
+	private static final Queue<Deflater>	deflaters			= new ConcurrentLinkedQueue<>();
+	private static final AtomicInteger		pooled				= new AtomicInteger();
+
+	private final OutputStream				out;
+	private final boolean					jar;
+	private final Executor					executor;
+	private final Queue<Pending>			pending				= new ArrayDeque<>();
+	private final List<Written>				written				= new ArrayList<>();
+	private final Set<String>				names				= new HashSet<>();
+	private long							pendingBytes;
+	private long							position;
+	private boolean							finished;
+	private EntryOutputStream				open;
+
+	/**
+	 * Create a writer which compresses the entries in the calling thread.
+	 *
+	 * @param out The output stream.
+	 * @param jar If {@code true}, the JAR magic extra field is added to the
+	 *            first entry like {@link java.util.jar.JarOutputStream} does.
+	 */
+	public ZipWriter(OutputStream out, boolean jar) {
+		this(out, jar, null);
+	}
+
+	/**
+	 * Create a writer.
+	 *
+	 * @param out The output stream.
+	 * @param jar If {@code true}, the JAR magic extra field is added to the
+	 *            first entry like {@link java.util.jar.JarOutputStream} does.
+	 * @param executor The executor used to compress the entries. May be
+	 *            {@code null} to compress the entries in the calling thread.
+	 */
+	public ZipWriter(OutputStream out, boolean jar, Executor executor) {
+		this.out = requireNonNull(out);
+		this.jar = jar;
+		this.executor = executor;
+	}
+
+	/**
+	 * Put an entry with uncompressed data.
+	 * <p>
+	 * The data is compressed if the method of the entry is
+	 * {@link ZipEntry#DEFLATED}, which is the default. The CRC and the sizes
+	 * of the entry are computed from the data. The data must not be modified
+	 * until the entry is written.
+	 *
+	 * @param entry The entry.
+	 * @param data The uncompressed data of the entry.
+	 * @throws IOException If an earlier entry could not be written.
+	 */
+	public void putEntry(ZipEntry entry, ByteBuffer data) throws IOException {
+		ByteBuffer input = data.duplicate();
+		if (entry.getMethod() == ZipEntry.STORED || input.remaining() == 0) {
+			entry.setMethod(ZipEntry.STORED);
+			entry.setCrc(crc(input));
+			entry.setSize(input.remaining());
+			entry.setCompressedSize(input.remaining());
+			put(entry, CompletableFuture.completedFuture(input), input.remaining());
+			return;
+		}
+		entry.setMethod(ZipEntry.DEFLATED);
+		entry.setSize(input.remaining());
+		if (executor == null) {
+			put(entry, CompletableFuture.completedFuture(deflate(entry, input)), input.remaining());
+			return;
+		}
+		put(entry, CompletableFuture.supplyAsync(() -> deflate(entry, input), executor), input.remaining());
+	}
+
+	/**
+	 * Put an entry with data as it will be stored in the ZIP file.
+	 * <p>
+	 * The method, CRC, size and compressed size of the entry must be set and
+	 * match the data. This is used to copy the compressed data of an entry of
+	 * another ZIP file.
+	 *
+	 * @param entry The entry.
+	 * @param raw The stored data of the entry. For a {@link ZipEntry#DEFLATED}
+	 *            entry, this is the compressed data.
+	 * @throws IOException If an earlier entry could not be written.
+	 */
+	public void putRawEntry(ZipEntry entry, ByteBuffer raw) throws IOException {
+		ByteBuffer data = raw.duplicate();
+		if ((entry.getMethod() != ZipEntry.STORED) && (entry.getMethod() != ZipEntry.DEFLATED)) {
+			throw new ZipException("Unsupported compression method: " + entry.getName());
+		}
+		if ((entry.getCrc() == -1L) || (entry.getSize() == -1L) || (entry.getCompressedSize() != data.remaining())) {
+			throw new ZipException("Invalid raw entry sizes or CRC: " + entry.getName());
+		}
+		put(entry, CompletableFuture.completedFuture(data), 0L);
+	}
+
+	/**
+	 * Put an entry with data that is written to the returned stream.
+	 * <p>
+	 * The pending entries are written first and the data is compressed in the
+	 * calling thread while it is written, so the data is never held in memory.
+	 * The entry is always {@link ZipEntry#DEFLATED}, its CRC and sizes are
+	 * written after the data. The entry is complete when the stream is closed,
+	 * no other entry can be put before.
+	 *
+	 * @param entry The entry.
+	 * @return The stream to write the uncompressed data of the entry to.
+	 * @throws IOException If an earlier entry could not be written.
+	 */
+	public OutputStream putEntry(ZipEntry entry) throws IOException {
+		check(entry);
+		while (!pending.isEmpty()) {
+			writePending();
+		}
+		entry.setMethod(ZipEntry.DEFLATED);
+		writeLocalHeader(entry, USE_UTF8 | DATA_DESCRIPTOR);
+		return open = new EntryOutputStream(entry);
+	}
+
+	/**
+	 * Write the pending entries and the central directory.
+	 *
+	 * @throws IOException If an entry or the central directory could not be
+	 *             written.
+	 */
+	public void finish() throws IOException {
+		if (finished) {
+			return;
+		}
+		if (open != null) {
+			open.close();
+		}
+		while (!pending.isEmpty()) {
+			writePending();
+		}
+		finished = true;
+		writeCentralDirectory();
+		out.flush();
+	}
+
+	private void put(ZipEntry entry, CompletableFuture<ByteBuffer> data, long size) throws IOException {
+		check(entry);
+		while (!pending.isEmpty() && ((pending.size() >= MAX_PENDING) || (pendingBytes + size > MAX_PENDING_BYTES))) {
+			writePending();
+		}
+		pending.add(new Pending(entry, data, size));
+		pendingBytes += size;
+	}
+
+	private void check(ZipEntry entry) throws IOException {
+		if (finished) {
+			throw new IOException("ZIP writer finished");
+		}
+		if (open != null) {
+			throw new IOException("ZIP entry not closed: " + open.entry.getName());
+		}
+		if (!names.add(entry.getName())) {
+			throw new ZipException("duplicate entry: " + entry.getName());
+		}
+	}
+
+	private void writePending() throws IOException {
+		Pending next = pending.remove();
+		pendingBytes -= next.size;
+		ByteBuffer data;
+		try {
+			data = next.data.join();
+		} catch (CompletionException e) {
+			Throwable cause = e.getCause();
+			if (cause instanceof UncheckedIOException unchecked) {
+				throw unchecked.getCause();
+			}
+			if (cause instanceof RuntimeException runtime) {
+				throw runtime;
+			}
+			throw new IOException(cause);
+		}
+		write(next.entry, data);
+	}
+
+	private void write(ZipEntry entry, ByteBuffer data) throws IOException {
+		writeLocalHeader(entry, USE_UTF8);
+		IO.copy(data, out);
+		position += entry.getCompressedSize();
+	}
+
+	/**
+	 * Write the local header. With a data descriptor, the CRC and the sizes
+	 * are written after the data and are zero in the header.
+	 */
+	private void writeLocalHeader(ZipEntry entry, int flag) throws IOException {
+		byte[] name = entry.getName()
+			.getBytes(UTF_8);
+		byte[] extra = extra(entry.getExtra(), written.isEmpty() && jar);
+		boolean descriptor = (flag & DATA_DESCRIPTOR) != 0;
+		long crc = descriptor ? 0L : entry.getCrc();
+		long size = descriptor ? 0L : entry.getSize();
+		long csize = descriptor ? 0L : entry.getCompressedSize();
+		boolean zip64 = (size >= ZIP64_MAGICVAL) || (csize >= ZIP64_MAGICVAL);
+		int version = zip64 ? 45 : (entry.getMethod() == ZipEntry.DEFLATED) ? 20 : 10;
+		long dostime = dosTime(entry.getTime());
+		if (name.length + extra.length + (zip64 ? 20 : 0) > 0xFFFF) {
+			throw new ZipException("Entry name or extra field too long: " + entry.getName());
+		}
+
+		ByteBuffer header = ByteBuffer.allocate(LOCHDR + name.length + extra.length + (zip64 ? 20 : 0))
+			.order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(LOCSIG)
+			.putShort((short) version)
+			.putShort((short) flag)
+			.putShort((short) entry.getMethod())
+			.putInt((int) dostime)
+			.putInt((int) crc)
+			.putInt((int) (zip64 ? ZIP64_MAGICVAL : csize))
+			.putInt((int) (zip64 ? ZIP64_MAGICVAL : size))
+			.putShort((short) name.length)
+			.putShort((short) (extra.length + (zip64 ? 20 : 0)))
+			.put(name);
+		if (zip64) {
+			header.putShort((short) EXTID_ZIP64)
+				.putShort((short) 16)
+				.putLong(size)
+				.putLong(csize);
+		}
+		header.put(extra)
+			.flip();
+
+		written.add(new Written(entry, name, extra, flag, version, dostime, position));
+		IO.copy(header, out);
+		position += header.limit();
+	}
+
+	private void writeCentralDirectory() throws IOException {
+		long cenOffset = position;
+		for (Written w : written) {
+			ZipEntry entry = w.entry;
+			long size = entry.getSize();
+			long csize = entry.getCompressedSize();
+			int zip64 = 0;
+			if (size >= ZIP64_MAGICVAL) {
+				zip64 += 8;
+			}
+			if (csize >= ZIP64_MAGICVAL) {
+				zip64 += 8;
+			}
+			if (w.offset >= ZIP64_MAGICVAL) {
+				zip64 += 8;
+			}
+			byte[] comment = (entry.getComment() != null) ? entry.getComment()
+				.getBytes(UTF_8) : new byte[0];
+			int extraLength = w.extra.length + ((zip64 > 0) ? zip64 + 4 : 0);
+			if ((extraLength > 0xFFFF) || (comment.length > 0xFFFF)) {
+				throw new ZipException("Entry extra field or comment too long: " + entry.getName());
+			}
+			int version = (zip64 > 0) ? 45 : w.version;
+
+			ByteBuffer header = ByteBuffer.allocate(CENHDR + w.name.length + extraLength + comment.length)
+				.order(ByteOrder.LITTLE_ENDIAN);
+			header.putInt(CENSIG)
+				.putShort((short) version)
+				.putShort((short) version)
+				.putShort((short) w.flag)
+				.putShort((short) entry.getMethod())
+				.putInt((int) w.dostime)
+				.putInt((int) entry.getCrc())
+				.putInt((int) Math.min(csize, ZIP64_MAGICVAL))
+				.putInt((int) Math.min(size, ZIP64_MAGICVAL))
+				.putShort((short) w.name.length)
+				.putShort((short) extraLength)
+				.putShort((short) comment.length)
+				.putShort((short) 0) // disk number
+				.putShort((short) 0) // internal attributes
+				.putInt(0) // external attributes
+				.putInt((int) Math.min(w.offset, ZIP64_MAGICVAL))
+				.put(w.name);
+			if (zip64 > 0) {
+				header.putShort((short) EXTID_ZIP64)
+					.putShort((short) zip64);
+				if (size >= ZIP64_MAGICVAL) {
+					header.putLong(size);
+				}
+				if (csize >= ZIP64_MAGICVAL) {
+					header.putLong(csize);
+				}
+				if (w.offset >= ZIP64_MAGICVAL) {
+					header.putLong(w.offset);
+				}
+			}
+			header.put(w.extra)
+				.put(comment)
+				.flip();
+			IO.copy(header, out);
+			position += header.limit();
+		}
+
+		long cenSize = position - cenOffset;
+		long count = written.size();
+		boolean zip64 = (count >= ZIP64_MAGICCOUNT) || (cenOffset >= ZIP64_MAGICVAL) || (cenSize >= ZIP64_MAGICVAL);
+		ByteBuffer end = ByteBuffer.allocate((zip64 ? ZIP64_ENDHDR + ZIP64_LOCHDR : 0) + ENDHDR)
+			.order(ByteOrder.LITTLE_ENDIAN);
+		if (zip64) {
+			end.putInt(ZIP64_ENDSIG)
+				.putLong(ZIP64_ENDHDR - 12)
+				.putShort((short) 45)
+				.putShort((short) 45)
+				.putInt(0) // number of this disk
+				.putInt(0) // disk with the central directory
+				.putLong(count)
+				.putLong(count)
+				.putLong(cenSize)
+				.putLong(cenOffset);
+			end.putInt(ZIP64_LOCSIG)
+				.putInt(0) // disk with the zip64 end record
+				.putLong(position)
+				.putInt(1); // total number of disks
+		}
+		end.putInt(ENDSIG)
+			.putShort((short) 0) // number of this disk
+			.putShort((short) 0) // disk with the central directory
+			.putShort((short) Math.min(count, ZIP64_MAGICCOUNT))
+			.putShort((short) Math.min(count, ZIP64_MAGICCOUNT))
+			.putInt((int) Math.min(cenSize, ZIP64_MAGICVAL))
+			.putInt((int) Math.min(cenOffset, ZIP64_MAGICVAL))
+			.putShort((short) 0) // comment length
+			.flip();
+		IO.copy(end, out);
+		position += end.limit();
+	}
+
+	/**
+	 * Remove any ZIP64 extra field, it is written when needed, and add the JAR
+	 * magic extra field if requested.
+	 */
+	private static byte[] extra(byte[] extra, boolean magic) {
+		ByteBufferOutputStream result = new ByteBufferOutputStream(64);
+		boolean hasMagic = false;
+		if (extra != null) {
+			ByteBuffer bb = ByteBuffer.wrap(extra)
+				.order(ByteOrder.LITTLE_ENDIAN);
+			while (bb.remaining() >= 4) {
+				int start = bb.position();
+				int id = Short.toUnsignedInt(bb.getShort());
+				int length = Short.toUnsignedInt(bb.getShort());
+				if (length > bb.remaining()) {
+					// malformed, keep the remainder as is
+					bb.position(start);
+					break;
+				}
+				bb.position(bb.position() + length);
+				if (id == EXTID_ZIP64) {
+					continue;
+				}
+				hasMagic |= (id == EXTID_JAR);
+				result.write(bb.duplicate()
+					.position(start)
+					.limit(start + 4 + length));
+			}
+			result.write(bb);
+		}
+		if (magic && !hasMagic) {
+			ByteBuffer bb = ByteBuffer.allocate(4)
+				.order(ByteOrder.LITTLE_ENDIAN)
+				.putShort((short) EXTID_JAR)
+				.putShort((short) 0)
+				.flip();
+			ByteBufferOutputStream withMagic = new ByteBufferOutputStream(64);
+			withMagic.write(bb);
+			withMagic.write(result.toByteBuffer());
+			return withMagic.toByteArray();
+		}
+		return result.toByteArray();
+	}
+
+	private static long dosTime(long time) {
+		if (time == -1L) {
+			time = System.currentTimeMillis();
+		}
+		LocalDateTime ldt = LocalDateTime.ofInstant(Instant.ofEpochMilli(time), ZoneId.systemDefault());
+		int year = ldt.getYear() - 1980;
+		if (year < 0) {
+			return DOSTIME_1980;
+		}
+		if (year > 0x7f) {
+			// 2107-12-31T23:59:58, the latest DOS time
+			return (0x7fL << 25) | (12 << 21) | (31 << 16) | (23 << 11) | (59 << 5) | (58 >> 1);
+		}
+		return ((long) year << 25) | (ldt.getMonthValue() << 21) | (ldt.getDayOfMonth() << 16) | (ldt.getHour() << 11)
+			| (ldt.getMinute() << 5) | (ldt.getSecond() >> 1);
+	}
+
+	private static long crc(ByteBuffer data) {
+		CRC32 crc = new CRC32();
+		crc.update(data.duplicate());
+		return crc.getValue();
+	}
+
+	private static ByteBuffer deflate(ZipEntry entry, ByteBuffer data) {
+		entry.setCrc(crc(data));
+		ByteBufferOutputStream result = new ByteBufferOutputStream(Math.max(64, data.remaining() / 2));
+		byte[] buffer = new byte[IOConstants.PAGE_SIZE * 16];
+		Deflater deflater = deflater();
+		try {
+			deflater.setInput(data.duplicate());
+			deflater.finish();
+			while (!deflater.finished()) {
+				int n = deflater.deflate(buffer);
+				result.write(buffer, 0, n);
+			}
+		} finally {
+			release(deflater);
+		}
+		ByteBuffer compressed = result.toByteBuffer();
+		entry.setCompressedSize(compressed.remaining());
+		return compressed;
+	}
+
+	private static Deflater deflater() {
+		Deflater deflater = deflaters.poll();
+		if (deflater == null) {
+			return new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+		}
+		pooled.decrementAndGet();
+		return deflater;
+	}
+
+	private static void release(Deflater deflater) {
+		if (pooled.incrementAndGet() > MAX_POOLED) {
+			pooled.decrementAndGet();
+			deflater.end();
+			return;
+		}
+		deflater.reset();
+		deflaters.offer(deflater);
+	}
+
+	private record Pending(ZipEntry entry, CompletableFuture<ByteBuffer> data, long size) {}
+
+	private record Written(ZipEntry entry, byte[] name, byte[] extra, int flag, int version, long dostime,
+		long offset) {}
+
+	/**
+	 * Compresses the data of an entry to the output stream and writes the data
+	 * descriptor when closed.
+	 */
+	private final class EntryOutputStream extends OutputStream {
+		private final ZipEntry	entry;
+		private final Deflater	deflater	= deflater();
+		private final CRC32		crc			= new CRC32();
+		private final byte[]	buffer		= new byte[IOConstants.PAGE_SIZE * 16];
+		private long			size;
+		private long			csize;
+		private boolean			closed;
+
+		EntryOutputStream(ZipEntry entry) {
+			this.entry = entry;
+		}
+
+		@Override
+		public void write(int b) throws IOException {
+			write(new byte[] {
+				(byte) b
+			}, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException {
+			if (closed) {
+				throw new IOException("ZIP entry closed: " + entry.getName());
+			}
+			crc.update(b, off, len);
+			size += len;
+			deflater.setInput(b, off, len);
+			while (!deflater.needsInput()) {
+				deflate();
+			}
+		}
+
+		private void deflate() throws IOException {
+			int n = deflater.deflate(buffer);
+			if (n > 0) {
+				out.write(buffer, 0, n);
+				csize += n;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			open = null;
+			try {
+				deflater.finish();
+				while (!deflater.finished()) {
+					deflate();
+				}
+			} finally {
+				release(deflater);
+			}
+			entry.setCrc(crc.getValue());
+			entry.setSize(size);
+			entry.setCompressedSize(csize);
+			boolean zip64 = (size >= ZIP64_MAGICVAL) || (csize >= ZIP64_MAGICVAL);
+			ByteBuffer descriptor = ByteBuffer.allocate(zip64 ? 24 : 16)
+				.order(ByteOrder.LITTLE_ENDIAN)
+				.putInt(EXTSIG)
+				.putInt((int) crc.getValue());
+			if (zip64) {
+				descriptor.putLong(csize)
+					.putLong(size);
+			} else {
+				descriptor.putInt((int) csize)
+					.putInt((int) size);
+			}
+			descriptor.flip();
+			IO.copy(descriptor, out);
+			position += csize + descriptor.limit();
+		}
+	}
+}
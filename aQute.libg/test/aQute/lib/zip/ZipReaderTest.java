@@ -0,0 +1,136 @@
+package aQute.lib.zip;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+import static org.assertj.core.api.Assertions.assertThatIOException;
+import static org.assertj.core.api.Assertions.assertThatIllegalStateException;
+
+import java.io.File;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.Test;
+
+import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
+import aQute.lib.io.IO;
+
+public class ZipReaderTest {
+
+	@Test
+	public void sameAsZipFile() throws Exception {
+		File file = IO.getFile("testresources/osgi-3.0.0.jar");
+		try (ZipFile zip = new ZipFile(file); ZipReader reader = new ZipReader(file)) {
+			List<ZipEntry> entries = reader.entries();
+			assertThat(entries).hasSize(zip.size());
+			for (ZipEntry entry : entries) {
+				ZipEntry expected = zip.getEntry(entry.getName());
+				assertThat(expected).as(entry.getName())
+					.isNotNull();
+				assertThat(entry.getMethod()).isEqualTo(expected.getMethod());
+				assertThat(entry.getSize()).isEqualTo(expected.getSize());
+				assertThat(entry.getCompressedSize()).isEqualTo(expected.getCompressedSize());
+				assertThat(entry.getCrc()).isEqualTo(expected.getCrc());
+				assertThat(entry.getTime()).isEqualTo(expected.getTime());
+				assertThat(entry.getExtra()).isEqualTo(expected.getExtra());
+				if (!entry.isDirectory()) {
+					ByteBuffer data = reader.getData(entry);
+					assertThat(IO.read(data)).isEqualTo(IO.read(zip.getInputStream(expected)));
+				}
+			}
+		}
+	}
+
+	@Test
+	public void storedAndDeflated(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		byte[] content = "Hello World".getBytes();
+		File file = new File(tmp, "stored.zip");
+		write(file, content);
+
+		ZipReader reader = new ZipReader(file);
+		List<ZipEntry> entries = reader.entries();
+		assertThat(entries).extracting(ZipEntry::getName)
+			.containsExactly("hello.txt", "deflated.txt");
+
+		ByteBuffer stored = reader.getData(entries.get(0));
+		assertThat(IO.read(stored)).isEqualTo(content);
+
+		ByteBuffer deflated = reader.getData(entries.get(1));
+		assertThat(IO.read(deflated)).isEqualTo(content);
+		assertThat(reader.getRawData(entries.get(1))
+			.remaining()).isEqualTo(entries.get(1)
+				.getCompressedSize());
+
+		reader.close();
+		assertThatIllegalStateException().isThrownBy(() -> reader.getData(entries.get(0)));
+	}
+
+	@Test
+	public void changedFile(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		byte[] content = new byte[100_000];
+		File file = new File(tmp, "changed.zip");
+		write(file, content);
+
+		try (ZipReader reader = new ZipReader(file)) {
+			List<ZipEntry> entries = reader.entries();
+			IO.store("smaller", file);
+			assertThatIOException().isThrownBy(() -> reader.getData(entries.get(0)));
+		}
+	}
+
+	@Test
+	public void prefixed(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		byte[] content = "Hello World".getBytes();
+		File file = new File(tmp, "plain.zip");
+		write(file, content);
+		File prefixed = new File(tmp, "prefixed.zip");
+		try (OutputStream out = IO.outputStream(prefixed)) {
+			out.write("#!/bin/sh\nexec java -jar \"$0\" \"$@\"\n".getBytes());
+			IO.copy(file, out);
+		}
+
+		try (ZipReader reader = new ZipReader(prefixed)) {
+			List<ZipEntry> entries = reader.entries();
+			assertThat(IO.read(reader.getData(entries.get(0)))).isEqualTo(content);
+			assertThat(IO.read(reader.getData(entries.get(1)))).isEqualTo(content);
+		}
+	}
+
+	@Test
+	public void invalidLocalHeader(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		File file = new File(tmp, "invalid.zip");
+		write(file, "Hello World".getBytes());
+		byte[] bytes = IO.read(file);
+		bytes[0] = 0;
+		IO.write(bytes, file);
+
+		assertThatExceptionOfType(ZipException.class).isThrownBy(() -> new ZipReader(file))
+			.withMessageContaining("LOC");
+	}
+
+	private static void write(File file, byte[] content) throws Exception {
+		try (OutputStream out = IO.outputStream(file); ZipOutputStream zout = new ZipOutputStream(out)) {
+			ZipEntry entry = new ZipEntry("hello.txt");
+			entry.setMethod(ZipEntry.STORED);
+			entry.setSize(content.length);
+			CRC32 crc = new CRC32();
+			crc.update(content);
+			entry.setCrc(crc.getValue());
+			zout.putNextEntry(entry);
+			zout.write(content);
+			zout.closeEntry();
+			zout.putNextEntry(new ZipEntry("deflated.txt"));
+			zout.write(content);
+			zout.closeEntry();
+		}
+	}
+}
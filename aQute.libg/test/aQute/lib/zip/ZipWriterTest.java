@@ -0,0 +1,210 @@
+package aQute.lib.zip;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.jar.JarInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+
+import org.junit.jupiter.api.Test;
+
+import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
+import aQute.lib.io.IO;
+
+public class ZipWriterTest {
+	private static final long TIME = 1_600_000_000_000L;
+
+	@Test
+	public void parallelSameAsSerial(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		Random random = new Random(1);
+		byte[][] contents = new byte[500][];
+		for (int i = 0; i < contents.length; i++) {
+			// compressible content of various sizes
+			contents[i] = new byte[random.nextInt(20_000)];
+			for (int j = 0; j < contents[i].length; j++) {
+				contents[i][j] = (byte) ('a' + random.nextInt(4));
+			}
+		}
+
+		File serial = new File(tmp, "serial.zip");
+		File parallel = new File(tmp, "parallel.zip");
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try (OutputStream s = IO.outputStream(serial); OutputStream p = IO.outputStream(parallel)) {
+			ZipWriter sw = new ZipWriter(s, false);
+			ZipWriter pw = new ZipWriter(p, false, executor);
+			for (int i = 0; i < contents.length; i++) {
+				sw.putEntry(entry("entry" + i), ByteBuffer.wrap(contents[i]));
+				pw.putEntry(entry("entry" + i), ByteBuffer.wrap(contents[i]));
+			}
+			sw.finish();
+			pw.finish();
+		} finally {
+			executor.shutdown();
+		}
+
+		assertThat(IO.read(parallel)).isEqualTo(IO.read(serial));
+		try (ZipFile zip = new ZipFile(parallel)) {
+			assertThat(zip.size()).isEqualTo(contents.length);
+			for (int i = 0; i < contents.length; i++) {
+				ZipEntry entry = zip.getEntry("entry" + i);
+				assertThat(entry.getMethod()).isEqualTo(contents[i].length == 0 ? ZipEntry.STORED : ZipEntry.DEFLATED);
+				assertThat(IO.read(zip.getInputStream(entry))).isEqualTo(contents[i]);
+			}
+		}
+		// readable as a stream too since the sizes are in the local headers
+		try (ZipInputStream zin = new ZipInputStream(IO.stream(parallel))) {
+			for (int i = 0; i < contents.length; i++) {
+				assertThat(zin.getNextEntry()
+					.getName()).isEqualTo("entry" + i);
+				assertThat(zin.readAllBytes()).isEqualTo(contents[i]);
+			}
+			assertThat(zin.getNextEntry()).isNull();
+		}
+	}
+
+	@Test
+	public void rawCopy(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		File source = IO.getFile("testresources/osgi-3.0.0.jar");
+		File copy = new File(tmp, "copy.jar");
+		try (ZipReader reader = new ZipReader(source); OutputStream out = IO.outputStream(copy)) {
+			ZipWriter writer = new ZipWriter(out, true);
+			for (ZipEntry entry : reader.entries()) {
+				writer.putRawEntry(entry, reader.getRawData(entry));
+			}
+			writer.finish();
+		}
+
+		try (ZipFile zip = new ZipFile(source); ZipReader reader = new ZipReader(copy)) {
+			assertThat(reader.entries()).hasSize(zip.size());
+			for (ZipEntry entry : reader.entries()) {
+				ZipEntry expected = zip.getEntry(entry.getName());
+				assertThat(entry.getMethod()).isEqualTo(expected.getMethod());
+				assertThat(entry.getCompressedSize()).isEqualTo(expected.getCompressedSize());
+				assertThat(entry.getCrc()).isEqualTo(expected.getCrc());
+				assertThat(IO.read(reader.getData(entry))).isEqualTo(IO.read(zip.getInputStream(expected)));
+			}
+		}
+		try (JarInputStream jin = new JarInputStream(IO.stream(copy))) {
+			assertThat(jin.getManifest()).isNotNull();
+		}
+	}
+
+	@Test
+	public void stored() throws Exception {
+		byte[] content = "Hello World".getBytes();
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		ZipWriter writer = new ZipWriter(bout, false);
+		ZipEntry entry = entry("hello.txt");
+		entry.setMethod(ZipEntry.STORED);
+		writer.putEntry(entry, ByteBuffer.wrap(content));
+		writer.finish();
+
+		try (ZipInputStream zin = new ZipInputStream(new ByteArrayInputStream(bout.toByteArray()))) {
+			ZipEntry read = zin.getNextEntry();
+			assertThat(read.getMethod()).isEqualTo(ZipEntry.STORED);
+			assertThat(read.getSize()).isEqualTo(content.length);
+			assertThat(zin.readAllBytes()).isEqualTo(content);
+		}
+	}
+
+	@Test
+	public void zip64(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		File file = new File(tmp, "many.zip");
+		try (OutputStream out = IO.outputStream(file)) {
+			ZipWriter writer = new ZipWriter(out, false);
+			for (int i = 0; i < 70_000; i++) {
+				writer.putEntry(entry("entry" + i), ByteBuffer.allocate(0));
+			}
+			writer.finish();
+		}
+		try (ZipFile zip = new ZipFile(file); ZipReader reader = new ZipReader(file)) {
+			assertThat(zip.size()).isEqualTo(70_000);
+			assertThat(reader.entries()).hasSize(70_000);
+		}
+	}
+
+	@Test
+	public void streamed(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		Random random = new Random(1);
+		byte[] large = new byte[3 * 1024 * 1024];
+		for (int i = 0; i < large.length; i++) {
+			large[i] = (byte) ('a' + random.nextInt(4));
+		}
+		byte[] small = "Hello World".getBytes();
+
+		File file = new File(tmp, "streamed.zip");
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try (OutputStream out = IO.outputStream(file)) {
+			ZipWriter writer = new ZipWriter(out, true, executor);
+			writer.putEntry(entry("before"), ByteBuffer.wrap(small));
+			OutputStream entry = writer.putEntry(entry("large"));
+			for (int offset = 0; offset < large.length; offset += 100_000) {
+				entry.write(large, offset, Math.min(100_000, large.length - offset));
+			}
+			assertThatExceptionOfType(IOException.class)
+				.isThrownBy(() -> writer.putEntry(entry("open"), ByteBuffer.wrap(small)));
+			entry.close();
+			writer.putEntry(entry("after"), ByteBuffer.wrap(small));
+			writer.finish();
+		} finally {
+			executor.shutdown();
+		}
+
+		try (ZipFile zip = new ZipFile(file)) {
+			assertThat(zip.size()).isEqualTo(3);
+			ZipEntry entry = zip.getEntry("large");
+			assertThat(entry.getMethod()).isEqualTo(ZipEntry.DEFLATED);
+			assertThat(entry.getSize()).isEqualTo(large.length);
+			assertThat(IO.read(zip.getInputStream(entry))).isEqualTo(large);
+			assertThat(IO.read(zip.getInputStream(zip.getEntry("after")))).isEqualTo(small);
+		}
+		try (ZipReader reader = new ZipReader(file)) {
+			ZipEntry entry = reader.entries()
+				.get(1);
+			assertThat(entry.getName()).isEqualTo("large");
+			assertThat(IO.read(reader.getData(entry))).isEqualTo(large);
+		}
+		// the sizes of the streamed entry follow its data
+		try (ZipInputStream zin = new ZipInputStream(IO.stream(file))) {
+			assertThat(zin.getNextEntry()
+				.getName()).isEqualTo("before");
+			assertThat(zin.readAllBytes()).isEqualTo(small);
+			assertThat(zin.getNextEntry()
+				.getName()).isEqualTo("large");
+			assertThat(zin.readAllBytes()).isEqualTo(large);
+			assertThat(zin.getNextEntry()
+				.getName()).isEqualTo("after");
+			assertThat(zin.readAllBytes()).isEqualTo(small);
+			assertThat(zin.getNextEntry()).isNull();
+		}
+	}
+
+	@Test
+	public void duplicate() throws Exception {
+		ZipWriter writer = new ZipWriter(new ByteArrayOutputStream(), false);
+		writer.putEntry(entry("a"), ByteBuffer.allocate(1));
+		assertThatExceptionOfType(ZipException.class).isThrownBy(() -> writer.putEntry(entry("a"), ByteBuffer.allocate(1)));
+	}
+
+	private static ZipEntry entry(String name) {
+		ZipEntry entry = new ZipEntry(name);
+		entry.setTime(TIME);
+		return entry;
+	}
+}
@@ -41,6 +41,12 @@ public class IndexCommand extends Processor {
 
 		@Description("The name of the index (default: name of the output file directory)")
 		String name();
+
+		@Description("The number of bundles to index at the same time (default: the number of available processors)")
+		int parallelism();
+
+		@Description("Reuse the entries of the existing repository index file for the bundles with the same size and SHA-256")
+		boolean incremental();
 	}
 
 	public void _index(indexOptions opts) throws Exception {
@@ -86,11 +92,15 @@ public class IndexCommand extends Processor {
 			return;
 		}
 
-		new SimpleIndexer().reporter(bnd)
+		SimpleIndexer indexer = new SimpleIndexer().reporter(bnd)
 			.files(files)
 			.base(base)
 			.name(name)
 			.compress(compress)
-			.index(repositoryFile);
+			.parallelism(opts.parallelism());
+		if (opts.incremental()) {
+			indexer.incremental(repositoryFile);
+		}
+		indexer.index(repositoryFile);
 	}
 }
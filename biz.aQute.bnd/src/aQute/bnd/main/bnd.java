@@ -74,6 +74,7 @@ import aQute.bnd.build.Project;
 import aQute.bnd.build.ProjectBuilder;
 import aQute.bnd.build.ProjectLauncher;
 import aQute.bnd.build.ProjectLauncher.LiveCoding;
+import aQute.bnd.build.ProjectScheduler;
 import aQute.bnd.build.ProjectTester;
 import aQute.bnd.build.Run;
 import aQute.bnd.build.Workspace;
@@ -978,12 +979,30 @@ public class bnd extends Processor {
 
 		@Description("Force non-incremental")
 		boolean force();
+
+		@Description("Build projects that do not depend on each other concurrently on this number of threads. A negative number uses the number of processors.")
+		int threads();
 	}
 
 	@Description("Build a project. This will create the jars defined in the bnd.bnd and sub-builders.")
 	public void _build(final buildoptions opts) throws Exception {
+		if (opts.threads() == 0) {
+			perProject(opts, p -> p.build(opts.test()));
+			return;
+		}
 
-		perProject(opts, p -> p.build(opts.test()));
+		List<Project> projects = getFilteredProjects(opts);
+		if (projects.isEmpty()) {
+			return;
+		}
+		ProjectScheduler scheduler = new ProjectScheduler(projects.get(0)
+			.getWorkspace(), opts.threads());
+		scheduler.run(projects, p -> {
+			p.build(opts.test());
+			synchronized (this) {
+				getInfo(p, p + ": ");
+			}
+		});
 	}
 
 	interface CompileOptions extends ProjectWorkspaceOptions {
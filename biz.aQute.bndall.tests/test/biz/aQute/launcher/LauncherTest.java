@@ -105,6 +105,27 @@ public class LauncherTest {
 			.containsPattern("startlevel: notified reached final level 22");
 	}
 
+	@Test
+	public void testRunOrder_1_parallel() throws Exception {
+		File file = buildPackage("order-01.bndrun", run -> {
+			run.setProperty("-runoptions", "parallel");
+		});
+
+		System.setProperty("test.cmd", "quit.no.exit");
+
+		String result = runFramework(file);
+
+		softly.assertThat(result)
+			.containsPattern("managed=all")
+			.containsPattern("Startlevel\\s+22")
+			.containsPattern("0\\s+ACTIV\\s+<>\\s+System Bundle")
+			.containsPattern("21\\s+ACTIV\\s+<>\\s+jar/.?org.apache.felix.log")
+			.containsPattern("10\\s+ACTIV\\s+<>\\s+jar/.?demo.jar")
+			.containsPattern("20\\s+ACTIV\\s+<>\\s+jar/.?org.apache.servicemix.bundles.junit")
+			.containsPattern("5\\s+ACTIV\\s+<>\\s+jar/.?org.apache.felix.configadmin")
+			.containsPattern("startlevel: notified reached final level 22");
+	}
+
 	@Test
 	public void testRunOrder_1_basic_manage_none() throws Exception {
 		File file = buildPackage("order-01.bndrun", run -> {
@@ -0,0 +1,58 @@
+package aQute.bnd.benchmarks;
+
+import java.io.File;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import aQute.bnd.osgi.Analyzer;
+import aQute.bnd.osgi.Constants;
+import aQute.bnd.osgi.Jar;
+
+/**
+ * Calculate the manifest of a jar which imports and exports all its packages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AnalyzerBenchmark {
+
+	@Param({
+		Fixtures.EQUINOX_JAR, Fixtures.ECJ_JAR
+	})
+	public String	fixture;
+
+	private File	jar;
+	private File	classpath;
+
+	@Setup
+	public void setup() throws Exception {
+		jar = Fixtures.file(fixture);
+		classpath = Fixtures.file(Fixtures.OSGI_JAR);
+	}
+
+	@Benchmark
+	public Object calcManifest() throws Exception {
+		try (Analyzer analyzer = new Analyzer(new Jar(jar))) {
+			analyzer.addClasspath(classpath);
+			analyzer.setProperty(Constants.NOEXTRAHEADERS, "true");
+			analyzer.setProperty(Constants.BUNDLE_SYMBOLICNAME, "benchmark");
+			analyzer.setProperty(Constants.EXPORT_PACKAGE, "*");
+			analyzer.setProperty(Constants.IMPORT_PACKAGE, "*");
+			return analyzer.calcManifest();
+		}
+	}
+}
@@ -0,0 +1,55 @@
+package aQute.bnd.benchmarks;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import aQute.bnd.osgi.Analyzer;
+import aQute.bnd.osgi.Clazz;
+import aQute.bnd.osgi.Resource;
+
+/**
+ * Parse all the class files of a jar.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ClazzBenchmark {
+
+	@Param({
+		Fixtures.OSGI_JAR, Fixtures.ECJ_JAR
+	})
+	public String				fixture;
+
+	private Map<String, Resource>	classes;
+
+	@Setup
+	public void setup() throws Exception {
+		classes = Fixtures.classes(fixture);
+	}
+
+	@Benchmark
+	public void parseClassFile(Blackhole blackhole) throws Exception {
+		try (Analyzer analyzer = new Analyzer()) {
+			for (Map.Entry<String, Resource> entry : classes.entrySet()) {
+				Clazz clazz = new Clazz(analyzer, entry.getKey(), entry.getValue());
+				blackhole.consume(clazz.parseClassFile());
+			}
+		}
+	}
+}
@@ -0,0 +1,110 @@
+package aQute.bnd.benchmarks;
+
+import static java.util.stream.Collectors.toList;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.osgi.framework.Filter;
+import org.osgi.framework.namespace.PackageNamespace;
+import org.osgi.resource.Capability;
+import org.osgi.resource.Namespace;
+import org.osgi.resource.Requirement;
+import org.osgi.resource.Resource;
+
+import aQute.bnd.osgi.repository.XMLResourceParser;
+import aQute.bnd.osgi.resource.CompiledFilter;
+import aQute.bnd.osgi.resource.ResourceUtils;
+
+/**
+ * Match the package requirements of a repository index against its package
+ * capabilities. The filters are compiled by {@link ResourceUtils}, the
+ * interpreted benchmark matches with the parsed filters instead.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FilterBenchmark {
+	private static final int						REQUIREMENTS	= 100;
+
+	private List<String>							filters;
+	private List<Predicate<Map<String, Object>>>	predicates;
+	private List<Filter>							interpreted;
+	private List<Map<String, Object>>				attributes;
+
+	@Setup
+	public void setup() throws Exception {
+		List<Resource> resources = XMLResourceParser.getResources(Fixtures.file(Fixtures.BIG_INDEX));
+		filters = resources.stream()
+			.flatMap(r -> r.getRequirements(PackageNamespace.PACKAGE_NAMESPACE)
+				.stream())
+			.map(Requirement::getDirectives)
+			.map(d -> d.get(Namespace.REQUIREMENT_FILTER_DIRECTIVE))
+			.filter(f -> f != null)
+			.limit(REQUIREMENTS)
+			.collect(toList());
+		predicates = filters.stream()
+			.map(ResourceUtils::filterPredicate)
+			.collect(toList());
+		interpreted = new ArrayList<>();
+		for (String filter : filters) {
+			interpreted.add(CompiledFilter.compile(filter)
+				.getFilter());
+		}
+		attributes = resources.stream()
+			.flatMap(r -> r.getCapabilities(PackageNamespace.PACKAGE_NAMESPACE)
+				.stream())
+			.map(Capability::getAttributes)
+			.collect(toList());
+	}
+
+	@Benchmark
+	public void parse(Blackhole blackhole) {
+		for (String filter : filters) {
+			blackhole.consume(ResourceUtils.filterPredicate(filter));
+		}
+	}
+
+	@Benchmark
+	public int matches() {
+		int matches = 0;
+		for (Predicate<Map<String, Object>> predicate : predicates) {
+			for (Map<String, Object> map : attributes) {
+				if (predicate.test(map)) {
+					matches++;
+				}
+			}
+		}
+		return matches;
+	}
+
+	@Benchmark
+	public int interpreted() {
+		int matches = 0;
+		for (Filter filter : interpreted) {
+			for (Map<String, Object> map : attributes) {
+				if (filter.matches(map)) {
+					matches++;
+				}
+			}
+		}
+		return matches;
+	}
+}
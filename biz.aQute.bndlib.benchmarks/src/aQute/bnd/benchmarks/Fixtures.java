@@ -0,0 +1,54 @@
+package aQute.bnd.benchmarks;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import aQute.bnd.osgi.EmbeddedResource;
+import aQute.bnd.osgi.Jar;
+import aQute.bnd.osgi.Resource;
+import aQute.lib.io.IO;
+
+/**
+ * The benchmarks use the test data of other projects in the workspace as
+ * representative fixtures.
+ */
+final class Fixtures {
+	static final String	OSGI_JAR		= "biz.aQute.bndlib.tests/jar/osgi.jar";
+	static final String	ASM_JAR			= "biz.aQute.bndlib.tests/jar/asm.jar";
+	static final String	EQUINOX_JAR		= "biz.aQute.bndlib.tests/jar/org.eclipse.osgi-3.5.0.jar";
+	static final String	ECJ_JAR			= "biz.aQute.bndlib.tests/jar/ecj-4.16.jar";
+	static final String	BIG_INDEX		= "biz.aQute.resolve/testdata/big-index.xml";
+	static final String	LARGER_INDEX	= "biz.aQute.resolve/testdata/larger-repo.xml";
+
+	private Fixtures() {}
+
+	static File file(String path) {
+		File workspace = IO.getFile(System.getProperty("bnd.benchmarks.workspace", ".."));
+		File file = IO.getFile(workspace, path);
+		if (!file.isFile()) {
+			throw new IllegalStateException("Missing benchmark fixture " + file);
+		}
+		return file;
+	}
+
+	/**
+	 * Read the class files of a jar into memory so that the benchmarks do not
+	 * measure the file system.
+	 */
+	static Map<String, Resource> classes(String path) throws Exception {
+		Map<String, Resource> classes = new LinkedHashMap<>();
+		try (Jar jar = new Jar(file(path))) {
+			for (Map.Entry<String, Resource> entry : jar.getResources()
+				.entrySet()) {
+				String name = entry.getKey();
+				if (name.endsWith(".class") && !name.startsWith("META-INF/")) {
+					byte[] data = IO.read(entry.getValue()
+						.openInputStream());
+					classes.put(name, new EmbeddedResource(data, 0L));
+				}
+			}
+		}
+		return classes;
+	}
+}
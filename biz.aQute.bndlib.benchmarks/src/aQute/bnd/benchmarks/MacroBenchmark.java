@@ -0,0 +1,63 @@
+package aQute.bnd.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import aQute.bnd.osgi.Macro;
+import aQute.bnd.osgi.Processor;
+
+/**
+ * Expand macros typical for bnd files.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MacroBenchmark {
+
+	@Param({
+		"${Bundle-Version}", //
+		"${replace;${packages};$;.*}", //
+		"${if;${def;-snapshot};${versionmask;===;${base.version}};${versionmask;===s;${base.version}}}", //
+		"${sort;${filter;${packages};.*\\.impl}}", //
+		"${range;[==,+);${base.version}}"
+	})
+	public String		line;
+
+	private Processor	processor;
+	private Macro		macro;
+
+	@Setup
+	public void setup() {
+		processor = new Processor();
+		processor.setProperty("base.version", "7.1.0");
+		processor.setProperty("Bundle-Version", "${base.version}.${tstamp;yyyyMMddHHmm}-SNAPSHOT");
+		processor.setProperty("packages",
+			"aQute.bnd.osgi,aQute.bnd.osgi.impl,aQute.bnd.build,aQute.bnd.build.model,aQute.bnd.header,aQute.bnd.service.impl");
+		macro = processor.getReplacer();
+	}
+
+	@TearDown
+	public void tearDown() throws Exception {
+		processor.close();
+	}
+
+	@Benchmark
+	public String process() {
+		return macro.process(line);
+	}
+}
@@ -0,0 +1,60 @@
+package aQute.bnd.benchmarks;
+
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.osgi.resource.Resource;
+
+import aQute.bnd.osgi.repository.ResourcesSnapshot;
+import aQute.bnd.osgi.repository.XMLResourceParser;
+
+/**
+ * Load an OSGi repository index by parsing the XML or by reading a binary
+ * snapshot of the parsed resources.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class XMLResourceParserBenchmark {
+
+	@Param({
+		Fixtures.LARGER_INDEX, Fixtures.BIG_INDEX
+	})
+	public String	fixture;
+
+	private File	index;
+	private File	snapshot;
+
+	@Setup
+	public void setup() throws Exception {
+		index = Fixtures.file(fixture);
+		snapshot = File.createTempFile("index", ".snapshot");
+		snapshot.deleteOnExit();
+		ResourcesSnapshot.write(XMLResourceParser.getResources(index), fixture, snapshot);
+	}
+
+	@Benchmark
+	public List<Resource> getResources() throws Exception {
+		return XMLResourceParser.getResources(index);
+	}
+
+	@Benchmark
+	public List<Resource> readSnapshot() throws Exception {
+		return ResourcesSnapshot.read(snapshot, fixture);
+	}
+}
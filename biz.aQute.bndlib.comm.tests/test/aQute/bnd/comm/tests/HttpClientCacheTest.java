@@ -2,6 +2,7 @@ package aQute.bnd.comm.tests;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 import java.io.File;
@@ -16,12 +17,16 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import aQute.bnd.http.HttpClient;
+import aQute.bnd.http.URLCache.InfoDTO;
 import aQute.bnd.service.url.State;
 import aQute.bnd.service.url.TaggedData;
 import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
 import aQute.http.testservers.HttpTestServer.Config;
 import aQute.http.testservers.Httpbin;
 import aQute.lib.io.IO;
+import aQute.libg.cryptography.MD5;
+import aQute.libg.cryptography.SHA1;
+import aQute.libg.cryptography.SHA256;
 
 public class HttpClientCacheTest {
 
@@ -189,4 +194,40 @@ public class HttpClientCacheTest {
 		}
 	}
 
+	@Test
+	public void testDigests() throws Exception {
+		try (HttpClient client = new HttpClient();) {
+			client.setCache(new File(tmp, "cache"));
+			etag = "1234";
+			File t1 = new File(tmp, "abc.txt");
+			assertNull(client.cache()
+				.getDigests(t1));
+
+			client.build()
+				.useCache(t1)
+				.go(new URI(httpServer.getBaseURI() + "/testetag"));
+			InfoDTO digests = client.cache()
+				.getDigests(t1);
+			assertEquals(SHA1.digest(t1)
+				.asHex(), digests.sha_1);
+			assertEquals(SHA256.digest(t1)
+				.asHex(), digests.sha_256);
+			assertEquals(MD5.digest(t1)
+				.asHex(), digests.md5);
+
+			// recorded digests survive a new client
+			try (HttpClient other = new HttpClient()) {
+				other.setCache(new File(tmp, "cache"));
+				assertEquals(digests.sha_256, other.cache()
+					.getDigests(t1).sha_256);
+			}
+
+			// the file was changed after it was cached
+			IO.store("5678", t1);
+			t1.setLastModified(digests.modified + 10000);
+			assertNull(client.cache()
+				.getDigests(t1));
+		}
+	}
+
 }
@@ -0,0 +1,319 @@
+package aQute.bnd.comm.tests;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.osgi.util.promise.Promise;
+
+import aQute.bnd.http.HttpClient;
+import aQute.bnd.osgi.Constants;
+import aQute.bnd.osgi.Processor;
+import aQute.bnd.service.url.State;
+import aQute.bnd.service.url.TaggedData;
+import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
+import aQute.bnd.url.BasicAuthentication;
+import aQute.http.testservers.HttpTestServer.Config;
+import aQute.http.testservers.Httpbin;
+import aQute.lib.io.IO;
+
+public class HttpClientHttp2Test {
+	@InjectTemporaryDirectory
+	File			tmp;
+	private Httpbin	httpServer;
+	private HttpClient	client;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		Config config = new Config();
+		config.https = false;
+		httpServer = new Httpbin(config);
+		httpServer.start();
+
+		client = new HttpClient();
+		try (Processor p = new Processor()) {
+			p.setProperty(Constants.CONNECTION_HTTP2, "true");
+			p.setProperty(Constants.CONNECTION_SETTINGS, "false");
+			client.readSettings(p);
+		}
+		client.setCache(new File(tmp, "cache"));
+	}
+
+	@AfterEach
+	public void tearDown() throws Exception {
+		IO.close(client);
+		IO.close(httpServer);
+	}
+
+	@Test
+	public void testGet() throws Exception {
+		assertThat(client.isHttp2()).isTrue();
+		String agent = client.build()
+			.get(String.class)
+			.go(uri("/user-agent"));
+		// sent by the java.net.http client
+		assertThat(agent).contains("Java-http-client");
+	}
+
+	@Test
+	public void testNotFound() throws Exception {
+		assertThat(client.build()
+			.get(String.class)
+			.go(uri("/status/404"))).isNull();
+
+		TaggedData tag = client.build()
+			.asTag()
+			.go(uri("/status/404"));
+		assertThat(tag.getState()).isEqualTo(State.NOT_FOUND);
+	}
+
+	@Test
+	public void testRedirect() throws Exception {
+		TaggedData tag = client.build()
+			.asTag()
+			.go(uri("/redirect/3/200"));
+		assertThat(tag.getResponseCode()).isEqualTo(200);
+		assertThat(tag.getUrl()).isEqualTo(uri("/redirect/0/200"));
+	}
+
+	@Test
+	public void testGzip() throws Exception {
+		String content = client.build()
+			.get(String.class)
+			.go(uri("/gzip"));
+		try (HttpClient http1 = new HttpClient()) {
+			assertThat(content).isNotEmpty()
+				.isEqualTo(http1.build()
+					.get(String.class)
+					.go(uri("/gzip")));
+		}
+	}
+
+	@Test
+	public void testCache() throws Exception {
+		File file = client.build()
+			.useCache()
+			.go(uri("/etag/1234/0"));
+		assertThat(file).hasContent("1234");
+		file.setLastModified(1000);
+
+		TaggedData tag = client.build()
+			.useCache()
+			.asTag()
+			.go(uri("/etag/1234/0"));
+		assertThat(tag.getState()).isEqualTo(State.UNMODIFIED);
+		assertThat(file).hasContent("1234");
+		assertThat(file.lastModified()).isEqualTo(1000);
+
+		file = client.build()
+			.useCache()
+			.go(uri("/etag/5678/0"));
+		assertThat(file).hasContent("5678");
+	}
+
+	@Test
+	public void testURLConnectionHandler() throws Exception {
+		TaggedData tag = client.build()
+			.asTag()
+			.go(uri("/basic-auth/user/good"));
+		assertThat(tag.getResponseCode()).isEqualTo(401);
+
+		client.addURLConnectionHandler(new BasicAuthentication("user", "good", null));
+		tag = client.build()
+			.asTag()
+			.go(uri("/basic-auth/user/good"));
+		assertThat(tag.getResponseCode()).isEqualTo(200);
+	}
+
+	@Test
+	public void testConcurrent() throws Exception {
+		List<Promise<String>> promises = new ArrayList<>();
+		for (int i = 0; i < 20; i++) {
+			promises.add(client.build()
+				.get(String.class)
+				.async(uri("/get?n=" + i)));
+		}
+		for (int i = 0; i < promises.size(); i++) {
+			assertThat(promises.get(i)
+				.getValue()).contains("\"n\":\"" + i + "\"");
+		}
+	}
+
+	@Test
+	public void testHttp2Negotiated() throws Exception {
+		try (H2cServer server = new H2cServer()) {
+			assertThat(client.build()
+				.get(String.class)
+				.go(server.uri("/first"))).isEqualTo("HTTP/2 stream 1");
+
+			List<Promise<String>> promises = new ArrayList<>();
+			for (int i = 0; i < 10; i++) {
+				promises.add(client.build()
+					.get(String.class)
+					.async(server.uri("/get?n=" + i)));
+			}
+			for (Promise<String> promise : promises) {
+				assertThat(promise.getValue()).startsWith("HTTP/2 stream ");
+			}
+			// all requests are streams of the upgraded connection
+			assertThat(server.streams).hasValue(11);
+			assertThat(server.connections).hasValue(1);
+		}
+	}
+
+	private URI uri(String path) throws Exception {
+		return new URI(httpServer.getBaseURI() + path);
+	}
+
+	/**
+	 * A minimal server that upgrades HTTP/1.1 requests to HTTP/2 over plain
+	 * text (h2c) and answers every stream with its number. Requests without
+	 * an upgrade are answered over HTTP/1.1.
+	 */
+	static class H2cServer implements Closeable {
+		final ServerSocket		server		= new ServerSocket(0, 50, InetAddress.getByName("127.0.0.1"));
+		final ExecutorService	executor	= Executors.newCachedThreadPool();
+		final AtomicInteger		connections	= new AtomicInteger();
+		final AtomicInteger		streams		= new AtomicInteger();
+
+		H2cServer() throws IOException {
+			executor.execute(this::accept);
+		}
+
+		URI uri(String path) throws Exception {
+			return new URI("http://127.0.0.1:" + server.getLocalPort() + path);
+		}
+
+		void accept() {
+			try {
+				while (true) {
+					Socket socket = server.accept();
+					connections.incrementAndGet();
+					executor.execute(() -> serve(socket));
+				}
+			} catch (IOException e) {
+				// closed
+			}
+		}
+
+		void serve(Socket socket) {
+			try (Socket s = socket) {
+				DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+				OutputStream out = new BufferedOutputStream(s.getOutputStream());
+				boolean upgrade = false;
+				for (String line; !(line = readLine(in)).isEmpty();) {
+					String lower = line.toLowerCase(Locale.ROOT);
+					upgrade |= lower.startsWith("upgrade:") && lower.contains("h2c");
+				}
+				if (!upgrade) {
+					byte[] body = "HTTP/1.1".getBytes(UTF_8);
+					out.write(("HTTP/1.1 200 OK\r\nContent-Length: " + body.length + "\r\nConnection: close\r\n\r\n")
+						.getBytes(US_ASCII));
+					out.write(body);
+					out.flush();
+					return;
+				}
+				out.write("HTTP/1.1 101 Switching Protocols\r\nConnection: Upgrade\r\nUpgrade: h2c\r\n\r\n"
+					.getBytes(US_ASCII));
+				frame(out, 4, 0, 0, new byte[0]); // SETTINGS
+				respond(out, 1); // the upgraded request
+				in.readFully(new byte[24]); // connection preface
+				while (true) {
+					int length = (in.readUnsignedByte() << 16) | in.readUnsignedShort();
+					int type = in.readUnsignedByte();
+					int flags = in.readUnsignedByte();
+					int stream = in.readInt() & 0x7FFFFFFF;
+					byte[] payload = new byte[length];
+					in.readFully(payload);
+					switch (type) {
+						case 1 : // HEADERS
+							respond(out, stream);
+							break;
+						case 4 : // SETTINGS
+							if ((flags & 1) == 0) {
+								frame(out, 4, 1, 0, new byte[0]);
+								out.flush();
+							}
+							break;
+						case 6 : // PING
+							if ((flags & 1) == 0) {
+								frame(out, 6, 1, 0, payload);
+								out.flush();
+							}
+							break;
+						case 7 : // GOAWAY
+							return;
+						default :
+							break;
+					}
+				}
+			} catch (IOException e) {
+				// closed
+			}
+		}
+
+		void respond(OutputStream out, int stream) throws IOException {
+			streams.incrementAndGet();
+			// END_HEADERS with the indexed :status 200 from the static table
+			frame(out, 1, 4, stream, new byte[] {
+				(byte) 0x88
+			});
+			// END_STREAM
+			frame(out, 0, 1, stream, ("HTTP/2 stream " + stream).getBytes(UTF_8));
+			out.flush();
+		}
+
+		static void frame(OutputStream out, int type, int flags, int stream, byte[] payload) throws IOException {
+			out.write(payload.length >>> 16);
+			out.write(payload.length >>> 8);
+			out.write(payload.length);
+			out.write(type);
+			out.write(flags);
+			out.write(stream >>> 24);
+			out.write(stream >>> 16);
+			out.write(stream >>> 8);
+			out.write(stream);
+			out.write(payload);
+		}
+
+		static String readLine(DataInputStream in) throws IOException {
+			StringBuilder sb = new StringBuilder();
+			for (int c; (c = in.read()) != '\n';) {
+				if (c < 0) {
+					throw new IOException("closed");
+				}
+				if (c != '\r') {
+					sb.append((char) c);
+				}
+			}
+			return sb.toString();
+		}
+
+		@Override
+		public void close() throws IOException {
+			server.close();
+			executor.shutdownNow();
+		}
+	}
+}
@@ -0,0 +1,103 @@
+package aQute.bnd.comm.tests;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.net.URI;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import aQute.bnd.http.HttpClient;
+import aQute.bnd.osgi.Constants;
+import aQute.bnd.osgi.Processor;
+import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
+import aQute.http.testservers.HttpTestServer.Config;
+import aQute.http.testservers.Httpbin;
+import aQute.lib.io.IO;
+
+public class HttpClientRevalidateTest {
+	private static final long	HOUR	= TimeUnit.HOURS.toMillis(1);
+	@InjectTemporaryDirectory
+	File						tmp;
+	private Httpbin				httpServer;
+	private HttpClient			client;
+	private File				file;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		Config config = new Config();
+		config.https = false;
+		httpServer = new Httpbin(config);
+		httpServer.start();
+
+		client = new HttpClient();
+		try (Processor p = new Processor()) {
+			p.setProperty(Constants.CONNECTION_STALE_WHILE_REVALIDATE, "86400");
+			p.setProperty(Constants.CONNECTION_SETTINGS, "false");
+			client.readSettings(p);
+		}
+		client.setCache(new File(tmp, "cache"));
+		file = new File(tmp, "index.xml");
+	}
+
+	@AfterEach
+	public void tearDown() throws Exception {
+		IO.close(client);
+		IO.close(httpServer);
+	}
+
+	@Test
+	public void testServeWhileRevalidate() throws Exception {
+		assertThat(get("/etag/1234/0")).hasContent("1234");
+		// validated 2 hours ago, stale after 1 hour
+		validated(2 * HOUR);
+
+		assertThat(get("/etag/5678/0")).hasContent("1234");
+		assertThat(client.getRevalidations()
+			.getValue()).containsExactly(file);
+		assertThat(file).hasContent("5678");
+
+		assertThat(get("/etag/9999/0")).hasContent("5678");
+		assertThat(client.getRevalidations()
+			.getValue()).isEmpty();
+	}
+
+	@Test
+	public void testOutsideWindow() throws Exception {
+		assertThat(get("/etag/1234/0")).hasContent("1234");
+		validated(HOUR + TimeUnit.DAYS.toMillis(2));
+
+		assertThat(get("/etag/5678/0")).hasContent("5678");
+		assertThat(client.getRevalidations()
+			.getValue()).isEmpty();
+	}
+
+	@Test
+	public void testAlwaysRevalidate() throws Exception {
+		assertThat(get("/etag/1234/0")).hasContent("1234");
+		validated(2 * HOUR);
+
+		assertThat(client.build()
+			.useCache(file, -1)
+			.go(uri("/etag/5678/0"))).hasContent("5678");
+	}
+
+	private File get(String path) throws Exception {
+		return client.build()
+			.useCache(file, HOUR)
+			.go(uri(path));
+	}
+
+	private void validated(long ago) {
+		File json = new File(file.getParentFile(), file.getName() + ".json");
+		assertThat(json).isFile();
+		json.setLastModified(System.currentTimeMillis() - ago);
+	}
+
+	private URI uri(String path) throws Exception {
+		return new URI(httpServer.getBaseURI() + path);
+	}
+}
@@ -1,9 +1,12 @@
 package aQute.bnd.build.classindex;
 
 import java.io.File;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.assertj.core.api.SoftAssertions;
 import org.assertj.core.api.junit.jupiter.InjectSoftAssertions;
@@ -12,12 +15,15 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.osgi.resource.Capability;
+import org.osgi.resource.Requirement;
 
 import aQute.bnd.build.Project;
 import aQute.bnd.build.Workspace;
 import aQute.bnd.build.classindex.pa.Abc;
 import aQute.bnd.osgi.BundleId;
 import aQute.bnd.osgi.Descriptors;
+import aQute.bnd.osgi.repository.BaseRepository;
 import aQute.bnd.repository.maven.provider.MavenBndRepository;
 import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
 import aQute.lib.collections.MultiMap;
@@ -29,6 +35,7 @@ public class ClassIndexTest {
 	@InjectTemporaryDirectory
 	File						testDir;
 	private Workspace			ws;
+	private MavenBndRepository	mbr;
 	@InjectSoftAssertions
 	SoftAssertions				softly;
 
@@ -38,7 +45,7 @@ public class ClassIndexTest {
 
 		ws = Workspace.getWorkspace(testDir);
 
-		MavenBndRepository mbr = new MavenBndRepository();
+		mbr = new MavenBndRepository();
 		Map<String, String> map = Map.of("releaseUrl", "https://repo.maven.apache.org/maven2/", //
 			"readOnly", "true", //
 			"source", IO.collect(IO.getFile(home, "test-1.mvn")));
@@ -171,6 +178,9 @@ public class ClassIndexTest {
 
 		pr.setExportPackage(Abc.class.getPackage()
 			.getName());
+		softly.assertThat(search("aQute.bnd.build.classindex.pa", "Abc"))
+			.as("not built yet")
+			.isEmpty();
 		pr.build();
 
 		String bsn = pr.getBsns()
@@ -196,4 +206,90 @@ public class ClassIndexTest {
 			.as("simple name")
 			.isEqualTo(expected);
 	}
+
+	@Test
+	public void classIndex_persistent_Test() throws Exception {
+		Map<String, List<BundleId>> fqn = search("org.osgi.framework.BundleContext");
+		softly.assertThat(fqn)
+			.as("with fqn")
+			.isNotEmpty();
+
+		File cache = ws.getCache("classindex");
+		softly.assertThat(cache.list())
+			.as("class index of the bundles is stored")
+			.isNotEmpty();
+
+		ws.refresh();
+		softly.assertThat(search("org.osgi.framework.BundleContext"))
+			.as("same result from the stored index")
+			.isEqualTo(fqn);
+		softly.assertThat(search("org.osgi.framework.FooBar"))
+			.as("missing class")
+			.isEmpty();
+	}
+
+	@Test
+	public void classIndex_singleProbe_Test() throws Exception {
+		AtomicInteger queries = new AtomicInteger();
+		ws.addBasicPlugin(new BaseRepository() {
+			@Override
+			public Map<Requirement, Collection<Capability>> findProviders(
+				Collection<? extends Requirement> requirements) {
+				queries.incrementAndGet();
+				Map<Requirement, Collection<Capability>> result = new HashMap<>();
+				for (Requirement requirement : requirements) {
+					result.put(requirement, Collections.emptyList());
+				}
+				return result;
+			}
+		});
+
+		Map<String, List<BundleId>> fqn = search("org.osgi.framework.BundleContext");
+		softly.assertThat(fqn)
+			.as("with fqn")
+			.isNotEmpty();
+		softly.assertThat(search("BundleContext"))
+			.as("with simple name")
+			.isEqualTo(fqn);
+		softly.assertThat(search("org.osgi.frame"))
+			.as("fuzzy match")
+			.isNotEmpty();
+		softly.assertThat(queries)
+			.as("the repositories are queried once to build the index")
+			.hasValue(1);
+
+		ws.refresh(mbr);
+		softly.assertThat(search("org.osgi.framework.BundleContext"))
+			.as("same result after a refresh")
+			.isEqualTo(fqn);
+		softly.assertThat(queries)
+			.as("the index is built again after a refresh")
+			.hasValue(2);
+	}
+
+	@Test
+	public void classIndex_hashes_Test() throws Exception {
+		long exporters = search("", null).values()
+			.stream()
+			.flatMap(List::stream)
+			.distinct()
+			.count();
+		File cache = ws.getCache("classindex");
+		String[] onDisk = cache.list();
+
+		softly.assertThat(search("org.osgi.framework.FooBar"))
+			.as("missing class")
+			.isEmpty();
+		softly.assertThat(cache.list())
+			.as("no bundle is read when no hash matches")
+			.containsExactlyInAnyOrder(onDisk);
+
+		softly.assertThat(search("org.osgi.framework.BundleContext"))
+			.as("with fqn")
+			.isNotEmpty();
+		softly.assertThat(cache.list())
+			.as("only the bundles that match the hash are read")
+			.hasSizeGreaterThan(onDisk.length)
+			.hasSizeLessThan((int) exporters);
+	}
 }
@@ -0,0 +1,123 @@
+package aQute.bnd.osgi.repository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import aQute.bnd.osgi.resource.ResourceUtils;
+import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
+import aQute.lib.io.IO;
+import aQute.libg.cryptography.SHA256;
+
+public class SimpleIndexerTest {
+	private static final String[]	JARS	= {
+		"asm.jar", "ds.jar", "mina.jar", "minax.jar", "osgi.jar"
+	};
+
+	@InjectTemporaryDirectory
+	File							tmp;
+	File							repo;
+	List<File>						files;
+
+	@BeforeEach
+	public void setUp() throws Exception {
+		repo = new File(tmp, "repo");
+		IO.mkdirs(repo);
+		files = new ArrayList<>();
+		for (String jar : JARS) {
+			files.add(IO.copy(IO.getFile("jar/" + jar), new File(repo, jar)));
+		}
+	}
+
+	@Test
+	public void testParallel() throws Exception {
+		File sequential = new File(tmp, "sequential.xml");
+		indexer().index(sequential);
+		File parallel = new File(tmp, "parallel.xml");
+		indexer().parallelism(4)
+			.index(parallel);
+
+		assertThat(XMLResourceParser.getResources(sequential)).hasSizeGreaterThan(1);
+		assertThat(parallel).hasSameTextualContentAs(sequential);
+	}
+
+	@Test
+	public void testIncremental() throws Exception {
+		AtomicInteger analyzed = new AtomicInteger();
+		File index = new File(tmp, "index.xml");
+		indexer().analyzer((file, resourceBuilder) -> analyzed.incrementAndGet())
+			.index(index);
+		int bundles = analyzed.get();
+		assertThat(bundles).isGreaterThan(1);
+		String first = IO.collect(index);
+
+		// nothing changed
+		analyzed.set(0);
+		indexer().analyzer((file, resourceBuilder) -> analyzed.incrementAndGet())
+			.incremental(index)
+			.parallelism(0)
+			.index(index);
+		assertThat(analyzed).hasValue(0);
+		assertThat(IO.collect(index)).isEqualTo(first);
+
+		// touched but the same content
+		File touched = files.get(0);
+		touched.setLastModified(index.lastModified() + 10_000L);
+		indexer().analyzer((file, resourceBuilder) -> analyzed.incrementAndGet())
+			.incremental(index)
+			.index(index);
+		assertThat(analyzed).hasValue(0);
+		assertThat(IO.collect(index)).isEqualTo(first);
+
+		// a changed file is indexed again
+		File changed = files.get(1);
+		IO.copy(files.get(2), changed);
+		changed.setLastModified(index.lastModified() + 10_000L);
+		indexer().analyzer((file, resourceBuilder) -> analyzed.incrementAndGet())
+			.incremental(index)
+			.index(index);
+		assertThat(analyzed).hasValue(1);
+		String sha = SHA256.digest(changed)
+			.asHex();
+		assertThat(XMLResourceParser.getResources(index, repo.toURI())).anySatisfy(resource -> {
+			assertThat(ResourceUtils.getContentCapability(resource)
+				.osgi_content()).isEqualToIgnoringCase(sha);
+			assertThat(ResourceUtils.getContentCapability(resource)
+				.url()).isEqualTo(changed.toURI());
+		});
+
+		// a file replaced with the same size and an older time, like a copy
+		// that keeps the time of the original
+		File replaced = files.get(3);
+		byte[] bytes = IO.read(replaced);
+		bytes[10] ^= 1; // the modification time of the first entry
+		IO.write(bytes, replaced);
+		replaced.setLastModified(index.lastModified() - 10_000L);
+		analyzed.set(0);
+		indexer().analyzer((file, resourceBuilder) -> analyzed.incrementAndGet())
+			.incremental(index)
+			.index(index);
+		assertThat(analyzed).hasValue(1);
+		String replacedSha = SHA256.digest(replaced)
+			.asHex();
+		assertThat(XMLResourceParser.getResources(index, repo.toURI())).anySatisfy(resource -> {
+			assertThat(ResourceUtils.getContentCapability(resource)
+				.osgi_content()).isEqualToIgnoringCase(replacedSha);
+			assertThat(ResourceUtils.getContentCapability(resource)
+				.url()).isEqualTo(replaced.toURI());
+		});
+	}
+
+	private SimpleIndexer indexer() {
+		return new SimpleIndexer().files(files)
+			.base(repo.toURI())
+			.name("test")
+			.increment(1000L);
+	}
+}
@@ -0,0 +1,77 @@
+package aQute.bnd.osgi.resource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.framework.Version;
+
+public class CompiledFilterTest {
+
+	@Test
+	public void sameAsInterpreted() throws Exception {
+		List<String> filters = Arrays.asList("(osgi.wiring.package=foo.bar)",
+			"(&(osgi.wiring.package=foo.bar)(version>=1.0.0)(!(version>=2.0.0)))",
+			"(&(!(version>=2.0.0))(version>=1.2)(osgi.wiring.package=foo.bar))", "(&(version<=1.2.3))",
+			"(|(osgi.wiring.package=foo.bar)(osgi.wiring.package=foo.baz))", "(osgi.wiring.package=foo.*)",
+			"(osgi.wiring.package=*)", "(osgi.wiring.package~=FOO. bar)", "(version=1.2.3)", "(version=x.y)",
+			"(&(count>=3)(count<=5))", "(flag=true)", "(objectClass=java.lang.Runnable)", "(!(flag=*))",
+			"(&(osgi.wiring.package=foo.bar)(version>=1.2.3.qualifier))", "(letter=b)", "(doubles>=1.5)");
+
+		List<Map<String, Object>> maps = Arrays.asList(map(), map("osgi.wiring.package", "foo.bar"),
+			map("osgi.wiring.package", "foo.bar", "version", new Version(1, 2, 3)),
+			map("osgi.wiring.package", "foo.bar", "version", new Version(2, 0, 0)),
+			map("osgi.wiring.package", "foo.baz", "version", "1.2.3"),
+			map("osgi.wiring.package", "foo.bar", "version", new aQute.bnd.version.Version(1, 5, 0)),
+			map("count", 4L, "flag", Boolean.TRUE), map("count", 6, "flag", Boolean.FALSE),
+			map("objectClass", Arrays.asList("java.lang.Runnable", "java.io.Closeable")),
+			map("objectClass", new String[] {
+				"java.lang.Runnable"
+			}), map("letter", 'b', "doubles", new double[] {
+				1.0, 2.0
+			}));
+
+		for (String filterString : filters) {
+			CompiledFilter filter = CompiledFilter.compile(filterString);
+			for (Map<String, Object> map : maps) {
+				assertThat(filter.test(map)).as("%s %s", filterString, map)
+					.isEqualTo(filter.getFilter()
+						.matches(map));
+			}
+		}
+	}
+
+	@Test
+	public void matches() throws Exception {
+		CompiledFilter filter = CompiledFilter
+			.compile("(&(osgi.wiring.package=foo.bar)(version>=1.0.0)(!(version>=2.0.0)))");
+		assertThat(filter.test(map("osgi.wiring.package", "foo.bar", "version", new Version(1, 2, 3)))).isTrue();
+		assertThat(filter.test(map("osgi.wiring.package", "foo.bar", "version", new Version(2, 0, 0)))).isFalse();
+		assertThat(filter.test(map("osgi.wiring.package", "foo.baz", "version", new Version(1, 2, 3)))).isFalse();
+		assertThat(filter.test(null)).isFalse();
+		assertThat(filter).hasToString("(&(osgi.wiring.package=foo.bar)(version>=1.0.0)(!(version>=2.0.0)))");
+	}
+
+	@Test
+	public void invalid() throws Exception {
+		assertThatExceptionOfType(InvalidSyntaxException.class).isThrownBy(() -> CompiledFilter.compile("(a=b"));
+		assertThat(ResourceUtils.filterPredicate("(a=b")
+			.test(map("a", "b"))).isFalse();
+		assertThat(ResourceUtils.filterPredicate("(a=b)")
+			.test(map("a", "b"))).isTrue();
+	}
+
+	private static Map<String, Object> map(Object... keyValues) {
+		Map<String, Object> map = new HashMap<>();
+		for (int i = 0; i < keyValues.length; i += 2) {
+			map.put((String) keyValues[i], keyValues[i + 1]);
+		}
+		return map;
+	}
+}
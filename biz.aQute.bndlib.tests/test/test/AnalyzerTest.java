@@ -7,8 +7,10 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
@@ -28,12 +30,14 @@ import aQute.bnd.osgi.About;
 import aQute.bnd.osgi.Analyzer;
 import aQute.bnd.osgi.Builder;
 import aQute.bnd.osgi.Clazz;
+import aQute.bnd.osgi.ClazzCache;
 import aQute.bnd.osgi.Constants;
 import aQute.bnd.osgi.Domain;
 import aQute.bnd.osgi.FileResource;
 import aQute.bnd.osgi.Jar;
 import aQute.bnd.osgi.Packages;
 import aQute.bnd.osgi.Processor;
+import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
 import aQute.lib.io.IO;
 
 class T0 {}
@@ -442,6 +446,92 @@ public class AnalyzerTest {
 
 	}
 
+	/**
+	 * Parallel class parsing must calculate the same manifest as the serial
+	 * analysis.
+	 */
+
+	@Test
+	public void testParallelAnalysis() throws Exception {
+		Manifest serial = calcManifest(false, null);
+		Manifest parallel = calcManifest(true, null);
+		assertThat(parallel.getMainAttributes()).isEqualTo(serial.getMainAttributes());
+	}
+
+	@Test
+	public void testClazzCache(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		File file = new File(tmp, "clazz.cache");
+		Manifest expected = calcManifest(false, null);
+
+		int classes;
+		try (ClazzCache cache = new ClazzCache(file)) {
+			Manifest cold = calcManifest(false, cache);
+			assertThat(cold.getMainAttributes()).isEqualTo(expected.getMainAttributes());
+			classes = cache.getParsedCount();
+			assertThat(classes).isGreaterThan(0);
+		}
+		assertThat(file).isFile();
+		long length = file.length();
+
+		// nothing is parsed again
+		try (ClazzCache cache = new ClazzCache(file)) {
+			Manifest warm = calcManifest(true, cache);
+			assertThat(warm.getMainAttributes()).isEqualTo(expected.getMainAttributes());
+			assertThat(cache.getParsedCount()).isZero();
+		}
+		assertThat(file).hasSize(length);
+
+		// a cache written by another version of bnd is discarded
+		byte[] content = IO.read(file);
+		int header = Integer.BYTES + Short.BYTES + ByteBuffer.wrap(content)
+			.getShort(Integer.BYTES);
+		try (DataOutputStream out = new DataOutputStream(IO.outputStream(file))) {
+			out.write(content, 0, Integer.BYTES); // the magic number
+			out.writeUTF("1.0.0"); // the bnd version
+			out.write(content, header, content.length - header);
+		}
+		try (ClazzCache cache = new ClazzCache(file)) {
+			Manifest other = calcManifest(false, cache);
+			assertThat(other.getMainAttributes()).isEqualTo(expected.getMainAttributes());
+			assertThat(cache.getParsedCount()).isEqualTo(classes);
+		}
+		assertThat(file).hasSize(length);
+
+		try (ClazzCache cache = new ClazzCache(file); Analyzer analyzer = new Analyzer()) {
+			analyzer.addBasicPlugin(cache);
+			analyzer.setJar(IO.getFile("jar/asm.jar"));
+			analyzer.analyze();
+			Clazz clazz = analyzer.findClass(analyzer.getTypeRef("org/objectweb/asm/ClassReader"));
+			assertThat(clazz).isNotNull();
+			assertThat(clazz.getFQN()).isEqualTo("org.objectweb.asm.ClassReader");
+			assertThat(clazz.isPublic()).isTrue();
+			assertThat(clazz.getReferred()).contains(analyzer.getPackageRef("java/io"));
+			// the class file is parsed when details are needed
+			assertThat(clazz.methods()).isNotEmpty();
+		}
+	}
+
+	private Manifest calcManifest(boolean parallel, ClazzCache cache) throws Exception {
+		try (Analyzer analyzer = new Analyzer()) {
+			if (cache != null) {
+				analyzer.addBasicPlugin(cache);
+			}
+			Jar bin = new Jar(IO.getFile("jar/asm.jar"));
+			bin.setManifest(new Manifest());
+			analyzer.setJar(bin);
+			analyzer.addClasspath(IO.getFile("jar/osgi.jar"));
+			analyzer.setProperty(Constants.PARALLELANALYSIS, Boolean.toString(parallel));
+			analyzer.setProperty(Constants.NOEXTRAHEADERS, "true");
+			analyzer.setProperty("Bundle-SymbolicName", "asm");
+			analyzer.setProperty("Export-Package", "*");
+			analyzer.setProperty("Import-Package", "*");
+			Manifest manifest = analyzer.calcManifest();
+			assertTrue(analyzer.check());
+			return manifest;
+		}
+	}
+
 	/**
 	 * Make sure packages from embedded directories referenced from
 	 * Bundle-Classpath are considered during import/export calculation.
@@ -10,6 +10,8 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.Serializable;
 import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
 import java.lang.annotation.Target;
 import java.util.ArrayList;
 import java.util.EnumSet;
@@ -32,6 +34,7 @@ import aQute.bnd.osgi.Clazz.MethodDef;
 import aQute.bnd.osgi.Clazz.QUERY;
 import aQute.bnd.osgi.Descriptors;
 import aQute.bnd.osgi.Descriptors.PackageRef;
+import aQute.bnd.osgi.Descriptors.TypeRef;
 import aQute.bnd.osgi.FileResource;
 import aQute.bnd.osgi.Instruction;
 import aQute.bnd.osgi.Jar;
@@ -1107,4 +1110,84 @@ public class ClazzTest {
 		}
 	}
 
+	@Retention(RetentionPolicy.CLASS)
+	@interface Marker {
+		String[] value();
+	}
+
+	@Marker({
+		"a", "b"
+	})
+	public static class Replayed {
+		@Marker("f")
+		String field;
+
+		@Marker("m")
+		public String method(@Marker("p") String s) {
+			return s.trim();
+		}
+	}
+
+	static class EventCollector extends ClassDataCollector {
+		final List<String> events = new ArrayList<>();
+
+		@Override
+		public void annotation(Annotation annotation) {
+			events.add("annotation " + annotation);
+			// a collector may change the annotation
+			annotation.put("value", new Object[] {
+				"changed"
+			});
+		}
+
+		@Override
+		public void field(FieldDef field) {
+			events.add("field " + field);
+		}
+
+		@Override
+		public void method(MethodDef method) {
+			events.add("method " + method);
+		}
+
+		@Override
+		public void parameter(int p) {
+			events.add("parameter " + p);
+		}
+
+		@Override
+		public void referenceMethod(int access, TypeRef className, String method, String descriptor) {
+			events.add("reference " + className + "." + method + descriptor);
+		}
+
+		@Override
+		public void memberEnd() {
+			events.add("memberEnd");
+		}
+
+		@Override
+		public void classEnd() {
+			events.add("classEnd");
+		}
+	}
+
+	@Test
+	public void testReplayedVisit() throws Exception {
+		File file = IO.getFile("bin_test/test/ClazzTest$Replayed.class");
+		try (Analyzer analyzer = new Analyzer()) {
+			Clazz clazz = new Clazz(analyzer, file.getPath(), new FileResource(file));
+			EventCollector first = new EventCollector();
+			clazz.parseClassFileWithCollector(first);
+			assertThat(first.events).contains("annotation test.ClazzTest$Marker:TYPE:CLASS:{value=[a, b]}",
+				"annotation test.ClazzTest$Marker:PARAMETER:CLASS:{value=[p]}",
+				"reference java.lang.String.trim()Ljava/lang/String;", "classEnd");
+
+			// the second collector is replayed and sees the same unchanged
+			// events
+			EventCollector second = new EventCollector();
+			clazz.parseClassFileWithCollector(second);
+			assertThat(second.events).isEqualTo(first.events);
+		}
+	}
+
 }
@@ -2,6 +2,12 @@ package test;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import org.assertj.core.api.SoftAssertions;
 import org.assertj.core.api.junit.jupiter.SoftAssertionsExtension;
 import org.junit.jupiter.api.Test;
@@ -35,6 +41,62 @@ public class DescriptorsTest {
 
 	}
 
+	@Test
+	public void testSharedPool(SoftAssertions softly) {
+		Descriptors.Pool pool = new Descriptors.Pool();
+		Descriptors a = new Descriptors(pool);
+		Descriptors b = new Descriptors(pool);
+
+		TypeRef ra = a.getTypeRef("java/lang/String");
+		TypeRef rb = b.getTypeRefFromFQN("java.lang.String");
+		softly.assertThat(rb)
+			.isSameAs(ra);
+		softly.assertThat(rb.getPackageRef())
+			.isSameAs(a.getPackageRef("java.lang"));
+		softly.assertThat(b.getTypeRef("[Ljava/lang/String;"))
+			.isEqualTo(a.getTypeRef("[Ljava/lang/String;"));
+		softly.assertThat(b.getMethodSignature("<T:Ljava/lang/Object;>(TT;)V"))
+			.isSameAs(a.getMethodSignature("<T:Ljava/lang/Object;>(TT;)V"));
+		softly.assertThat(b.getDescriptor("(Ljava/lang/String;)V")
+			.getPrototype()[0])
+			.isSameAs(ra);
+
+		softly.assertThat(new Descriptors().getTypeRef("java/lang/String"))
+			.isNotSameAs(ra);
+	}
+
+	@Test
+	public void testSharedPoolConcurrent() throws Exception {
+		Descriptors.Pool pool = new Descriptors.Pool();
+		ExecutorService executor = Executors.newFixedThreadPool(8);
+		try {
+			List<Future<List<TypeRef>>> futures = new ArrayList<>();
+			for (int i = 0; i < 8; i++) {
+				futures.add(executor.submit(() -> {
+					Descriptors d = new Descriptors(pool);
+					List<TypeRef> refs = new ArrayList<>();
+					for (int j = 0; j < 1000; j++) {
+						refs.add(d.getTypeRef("p" + (j % 10) + "/C" + j));
+					}
+					return refs;
+				}));
+			}
+			List<TypeRef> first = futures.get(0)
+				.get();
+			for (Future<List<TypeRef>> future : futures) {
+				List<TypeRef> refs = future.get();
+				for (int j = 0; j < refs.size(); j++) {
+					assertThat(refs.get(j)).isSameAs(first.get(j));
+					assertThat(refs.get(j)
+						.getPackageRef()).isSameAs(first.get(j)
+							.getPackageRef());
+				}
+			}
+		} finally {
+			executor.shutdown();
+		}
+	}
+
 	@Test
 	public void testDetermine(SoftAssertions softly) {
 		softly.assertThat(Descriptors.determine("simple")
@@ -13,11 +13,15 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.jar.JarFile;
 import java.util.jar.JarInputStream;
 import java.util.jar.Manifest;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
 
 import org.junit.jupiter.api.Test;
@@ -28,6 +32,7 @@ import aQute.bnd.osgi.EmbeddedResource;
 import aQute.bnd.osgi.FileResource;
 import aQute.bnd.osgi.Jar;
 import aQute.bnd.osgi.Resource;
+import aQute.bnd.osgi.WriteResource;
 import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
 import aQute.lib.io.IO;
 import aQute.libg.cryptography.SHA256;
@@ -316,6 +321,95 @@ public class JarTest {
 		}
 	}
 
+	@Test
+	public void testCopyCompressedEntries(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		File source = IO.getFile("jar/osgi.jar");
+		File out = new File(tmp, "out.jar");
+		try (Jar jar = new Jar(source); Jar copy = new Jar("copy")) {
+			copy.addAll(jar);
+			copy.putResource("new/resource.txt", new EmbeddedResource("a new resource which is compressed", 0L));
+			copy.setManifest(jar.getManifest());
+			copy.write(out);
+		}
+		try (ZipFile in = new ZipFile(source); ZipFile zip = new ZipFile(out)) {
+			in.stream()
+				.filter(entry -> entry.getMethod() == ZipEntry.DEFLATED && !entry.getName()
+					.equals(JarFile.MANIFEST_NAME))
+				.forEach(entry -> {
+					ZipEntry copied = zip.getEntry(entry.getName());
+					assertThat(copied).as(entry.getName())
+						.isNotNull();
+					assertThat(copied.getMethod()).isEqualTo(ZipEntry.DEFLATED);
+					assertThat(copied.getCompressedSize()).as(entry.getName())
+						.isEqualTo(entry.getCompressedSize());
+					assertThat(copied.getCrc()).isEqualTo(entry.getCrc());
+				});
+			ZipEntry added = zip.getEntry("new/resource.txt");
+			assertThat(added.getMethod()).isEqualTo(ZipEntry.DEFLATED);
+			assertThat(IO.collect(zip.getInputStream(added))).isEqualTo("a new resource which is compressed");
+		}
+		try (Jar jar = new Jar(out)) {
+			assertThat(jar.getManifest()).isNotNull();
+			assertThat(jar.getResource("new/resource.txt")).isNotNull();
+		}
+	}
+
+	@Test
+	public void testFileChangedWhileOpen(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		File file = new File(tmp, "changed.jar");
+		IO.copy(IO.getFile("jar/asm.jar"), file);
+		try (Jar jar = new Jar(file)) {
+			Resource resource = jar.getResource("org/objectweb/asm/Label.class");
+			assertNotNull(resource);
+			IO.store("smaller", file);
+			assertThat(catchThrowable(resource::buffer)).isInstanceOf(IOException.class);
+		}
+	}
+
+	@Test
+	public void testStreamLargeResources(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		byte[] content = new byte[4 * 1024 * 1024];
+		for (int i = 0; i < content.length; i++) {
+			content[i] = (byte) ('a' + (i % 7));
+		}
+		File file = new File(tmp, "large.txt");
+		IO.write(content, file);
+		File out = new File(tmp, "out.jar");
+		try (Jar jar = new Jar("large")) {
+			jar.putResource("large/file.txt", new FileResource(file));
+			jar.putResource("large/write.txt", new WriteResource() {
+				@Override
+				public void write(OutputStream out) throws Exception {
+					out.write(content);
+				}
+
+				@Override
+				public long lastModified() {
+					return 0L;
+				}
+
+				@Override
+				public ByteBuffer buffer() throws Exception {
+					throw new AssertionError("a resource is not buffered to be written");
+				}
+			});
+			jar.write(out);
+		}
+		try (ZipFile zip = new ZipFile(out)) {
+			for (String name : new String[] {
+				"large/file.txt", "large/write.txt"
+			}) {
+				ZipEntry entry = zip.getEntry(name);
+				assertThat(entry.getMethod()).isEqualTo(ZipEntry.DEFLATED);
+				assertThat(IO.read(zip.getInputStream(entry))).as(name)
+					.isEqualTo(content);
+			}
+		}
+	}
+
 	@Test
 	public void testZipSlip(@InjectTemporaryDirectory
 	File tmp) throws Exception {
@@ -2164,4 +2164,77 @@ public class MacroTest {
 				.process("${format;%,6d;100000}"));
 		}
 	}
+
+	@Test
+	public void testCachedResultInvalidated() throws IOException {
+		try (Processor parent = new Processor(); Processor p = new Processor(parent)) {
+			parent.setProperty("base", "a,b");
+			p.setProperty("list", "${base},c");
+			Macro macro = p.getReplacer();
+			String line = "${sort;${replace;${list};(.+);$1x}}";
+
+			assertThat(macro.process(line)).isEqualTo("ax,bx,cx");
+			Macro.CacheStatistics before = Macro.getCacheStatistics();
+			assertThat(macro.process(line)).isEqualTo("ax,bx,cx");
+			assertThat(Macro.getCacheStatistics()
+				.resultHits()).isGreaterThan(before.resultHits());
+
+			p.setProperty("list", "${base},d");
+			assertThat(macro.process(line)).isEqualTo("ax,bx,dx");
+			parent.setProperty("base", "e");
+			assertThat(macro.process(line)).isEqualTo("dx,ex");
+			p.setProperty("base", "f");
+			assertThat(macro.process(line)).isEqualTo("dx,fx");
+			p.unsetProperty("base");
+			assertThat(macro.process(line)).isEqualTo("dx,ex");
+		}
+	}
+
+	@Test
+	public void testCachedMacroWithArguments() throws IOException {
+		try (Processor p = new Processor()) {
+			p.setProperty("greet", "${prefix} ${1}");
+			p.setProperty("prefix", "Hello");
+			Macro macro = p.getReplacer();
+
+			assertThat(macro.process("${greet;World}")).isEqualTo("Hello World");
+			assertThat(macro.process("${greet;World}")).isEqualTo("Hello World");
+			p.setProperty("prefix", "Bye");
+			assertThat(macro.process("${greet;World}")).isEqualTo("Bye World");
+		}
+	}
+
+	@Test
+	public void testImpureNotCached() throws Exception {
+		try (Processor p = new Processor()) {
+			Macro macro = p.getReplacer();
+			String first = macro.process("${tstamp;SSS}-${random}");
+			Thread.sleep(5);
+			String second = macro.process("${tstamp;SSS}-${random}");
+			assertThat(second).isNotEqualTo(first);
+
+			// the warning is reported again
+			assertThat(macro.process("${unknown.macro}")).isEqualTo("${unknown.macro}");
+			assertThat(p.getWarnings()).hasSize(1);
+			p.clear();
+			assertThat(macro.process("${unknown.macro}")).isEqualTo("${unknown.macro}");
+			assertThat(p.getWarnings()).hasSize(1);
+		}
+	}
+
+	@Test
+	public void testTemplatesSameAsInterpreted() throws IOException {
+		try (Processor p = new Processor()) {
+			p.setProperty("a", "A");
+			p.setProperty("b", "B;C");
+			Macro macro = p.getReplacer();
+			Macro.CacheStatistics before = Macro.getCacheStatistics();
+			assertThat(macro.process("x ${a} $(a) $[a] $<a> $«a» $‹a› y")).isEqualTo("x A A A A A A y");
+			assertThat(macro.process("\\${a} \\; ${a")).isEqualTo("${a} ; ${a");
+			assertThat(macro.process("${if;${a};${b}}")).isEqualTo("B;C");
+			assertThat(macro.process("${a}${a}$")).isEqualTo("AA$");
+			assertThat(Macro.getCacheStatistics()
+				.templateMisses()).isGreaterThan(before.templateMisses());
+		}
+	}
 }
@@ -1,6 +1,7 @@
 package test;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatExceptionOfType;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -14,9 +15,11 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.jar.Manifest;
 import java.util.regex.Pattern;
 
@@ -25,6 +28,7 @@ import org.junit.jupiter.api.Test;
 import aQute.bnd.build.Container;
 import aQute.bnd.build.Project;
 import aQute.bnd.build.ProjectBuilder;
+import aQute.bnd.build.ProjectScheduler;
 import aQute.bnd.build.Workspace;
 import aQute.bnd.osgi.About;
 import aQute.bnd.osgi.Builder;
@@ -608,6 +612,31 @@ public class ProjectTest {
 
 	}
 
+	@Test
+	public void testSubBuildersSharedDescriptors() throws Exception {
+		Workspace ws = getWorkspace("testresources/ws");
+		try (Project project = ws.getProject("p4-sub")) {
+			project.setProperty(Constants.SHAREDDESCRIPTORS, "true");
+			try (ProjectBuilder pb = project.getBuilder(null)) {
+				List<Builder> bs = pb.getSubBuilders();
+				assertThat(bs).hasSize(3);
+				assertThat(bs.get(1)
+					.getTypeRef("java/lang/String")).isSameAs(bs.get(0)
+						.getTypeRef("java/lang/String"));
+				assertThat(bs.get(2)
+					.getPackageRef("java/lang")).isSameAs(bs.get(0)
+						.getPackageRef("java/lang"));
+			}
+
+			File[] files = project.build();
+			assertTrue(project.check());
+			assertThat(files).hasSize(3);
+			// the same packages are exported by all sub-bundles
+			assertThat(project.getExports()).hasSize(4);
+			assertThat(project.getContained()).hasSize(4);
+		}
+	}
+
 	/**
 	 * Tests the handling of the -sub facility
 	 *
@@ -1072,6 +1101,43 @@ public class ProjectTest {
 		return getWorkspace(new File(dir));
 	}
 
+	@Test
+	public void testProjectScheduler() throws Exception {
+		Workspace ws = getWorkspace("testresources/ws");
+		Project all = ws.getProject("build-all");
+		all.setProperty("-dependson", "p*");
+		Collection<Project> dependson = all.getDependson();
+		assertThat(dependson).hasSize(12);
+
+		List<Project> done = Collections.synchronizedList(new ArrayList<>());
+		AtomicInteger running = new AtomicInteger();
+		AtomicInteger maxRunning = new AtomicInteger();
+		new ProjectScheduler(ws, 4).run(Collections.singleton(all), p -> {
+			maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+			assertThat(done).containsAll(p.getDependson());
+			Thread.sleep(20);
+			running.decrementAndGet();
+			done.add(p);
+		});
+		assertThat(done).hasSize(dependson.size() + 1)
+			.doesNotHaveDuplicates()
+			.endsWith(all);
+		assertThat(maxRunning.get()).isGreaterThan(1)
+			.isLessThanOrEqualTo(4);
+
+		done.clear();
+		assertThatExceptionOfType(IOException.class)
+			.isThrownBy(() -> new ProjectScheduler(ws, 4).run(Collections.singleton(all), p -> {
+				if (p.getName()
+					.equals("p-stale-dep")) {
+					throw new IOException("failed");
+				}
+				done.add(p);
+			}))
+			.withMessage("failed");
+		assertThat(done).doesNotContain(ws.getProject("p-stale"), all);
+	}
+
 	private Project testBuildAll(String dependsOn, int count) throws Exception {
 		Workspace ws = new Workspace(IO.getFile("testresources/ws"));
 		Project all = ws.getProject("build-all");
@@ -3,9 +3,15 @@ package test;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
+import java.io.File;
+import java.io.IOException;
 import java.net.URL;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -16,10 +22,15 @@ import org.osgi.resource.Capability;
 import org.osgi.resource.Requirement;
 import org.osgi.resource.Resource;
 
+import aQute.bnd.header.Attrs;
 import aQute.bnd.osgi.repository.ResourcesRepository;
+import aQute.bnd.osgi.repository.ResourcesSnapshot;
 import aQute.bnd.osgi.repository.XMLResourceParser;
 import aQute.bnd.osgi.resource.RequirementBuilder;
+import aQute.bnd.osgi.resource.ResourceBuilder;
 import aQute.bnd.osgi.resource.ResourceUtils;
+import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
+import aQute.lib.io.IO;
 
 /**
  * Test the repository classes
@@ -102,6 +113,71 @@ public class RepositoryTest {
 		}
 	}
 
+	@Test
+	public void testIndexedFindProviders() throws Exception {
+		URL url = RepositoryTest.class.getResource("larger-repo.xml");
+		try (XMLResourceParser xrp = new XMLResourceParser(url.toURI());) {
+			List<Resource> resources = xrp.parse();
+			assertTrue(xrp.check());
+			ResourcesRepository repository = getResourcesRepository(resources);
+
+			int found = 0;
+			for (Resource resource : resources) {
+				for (Requirement requirement : resource.getRequirements(null)) {
+					List<Capability> expected = resources.stream()
+						.flatMap(r -> ResourceUtils.capabilityStream(r, requirement.getNamespace()))
+						.filter(ResourceUtils.matcher(requirement))
+						.collect(ResourceUtils.toCapabilities());
+					assertEquals(expected, repository.findProvider(requirement), requirement.toString());
+					found += expected.size();
+				}
+			}
+			assertTrue(found > 0);
+
+			Requirement requirement = new RequirementBuilder("osgi.wiring.package")
+				.addDirective("filter", "(&(osgi.wiring.package=foo.bar)(version>=1.0.0))")
+				.buildSyntheticRequirement();
+			assertTrue(repository.findProvider(requirement)
+				.isEmpty());
+			// the index is rebuilt when a resource is added
+			ResourceBuilder rb = new ResourceBuilder();
+			Attrs attrs = new Attrs();
+			attrs.put("version", "1.2.0");
+			rb.addExportPackage("foo.bar", attrs);
+			repository.add(rb.build());
+			assertEquals(1, repository.findProvider(requirement)
+				.size());
+		}
+	}
+
+	@Test
+	public void testResourcesSnapshot(@InjectTemporaryDirectory
+	File tmp) throws Exception {
+		URL url = RepositoryTest.class.getResource("larger-repo.xml");
+		List<Resource> resources = XMLResourceParser.getResources(url.toURI());
+		File snapshot = new File(tmp, "index.snapshot");
+		ResourcesSnapshot.write(resources, "key", snapshot);
+
+		assertNull(ResourcesSnapshot.read(snapshot, "other"));
+		assertNull(ResourcesSnapshot.read(new File(tmp, "missing"), "key"));
+
+		List<Resource> restored = ResourcesSnapshot.read(snapshot, "key");
+		assertEquals(resources.size(), restored.size());
+		for (int i = 0; i < resources.size(); i++) {
+			Resource expected = resources.get(i);
+			Resource actual = restored.get(i);
+			assertEquals(expected, actual);
+			List<Capability> capabilities = actual.getCapabilities(null);
+			assertEquals(expected.getCapabilities(null), capabilities);
+			capabilities.forEach(c -> assertSame(actual, c.getResource()));
+			assertEquals(expected.getRequirements(null), actual.getRequirements(null));
+		}
+
+		// a corrupted snapshot is rejected
+		IO.write(Arrays.copyOf(IO.read(snapshot), 1000), snapshot);
+		assertThrows(IOException.class, () -> ResourcesSnapshot.read(snapshot, "key"));
+	}
+
 	public ResourcesRepository getResourcesRepository(List<Resource> resources) throws Exception {
 		return new ResourcesRepository(resources);
 	}
@@ -21,6 +21,7 @@ import aQute.bnd.build.Project;
 import aQute.bnd.build.Workspace;
 import aQute.bnd.header.Attrs;
 import aQute.bnd.osgi.About;
+import aQute.bnd.osgi.ClazzCache;
 import aQute.bnd.osgi.Constants;
 import aQute.bnd.osgi.Processor;
 import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
@@ -47,6 +48,19 @@ public class WorkspaceTest {
 		}
 	}
 
+	@Test
+	public void testNoClassCache() throws Exception {
+		IO.copy(IO.getFile("testresources/ws"), testDir);
+		try (Workspace ws = new Workspace(testDir)) {
+			assertThat(ws.getPlugin(ClazzCache.class)).isNotNull();
+		}
+
+		IO.store(Constants.NOCLASSCACHE + ": true\n", IO.getFile(testDir, "cnf/build.bnd"));
+		try (Workspace ws = new Workspace(testDir)) {
+			assertThat(ws.getPlugin(ClazzCache.class)).isNull();
+		}
+	}
+
 	@Test
 	public void testVersionDefaultsWithDefaultWorkspace() throws Exception {
 		try (Workspace ws = Workspace.createDefaultWorkspace()) {
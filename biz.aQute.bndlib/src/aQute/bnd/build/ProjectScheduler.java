@@ -0,0 +1,186 @@
+package aQute.bnd.build;
+
+import static java.util.Objects.requireNonNull;
+
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+import org.osgi.util.promise.Deferred;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import aQute.bnd.exceptions.ConsumerWithException;
+import aQute.bnd.exceptions.Exceptions;
+import aQute.bnd.osgi.Processor;
+
+/**
+ * Runs an action, like a build, on a set of projects and the projects they
+ * depend on.
+ * <p>
+ * A project is started when all the projects it depends on, see
+ * {@link Project#getDependson()}, have completed. Projects which do not depend
+ * on each other therefore run concurrently, on up to the specified number of
+ * threads. Each action runs while holding the read lock of the workspace so it
+ * cannot be refreshed while the projects are built.
+ * <p>
+ * If an action throws an exception then no more projects are started and the
+ * exception is thrown once the running actions have completed.
+ */
+public class ProjectScheduler {
+	private final static Logger	logger	= LoggerFactory.getLogger(ProjectScheduler.class);
+
+	private final Workspace		workspace;
+	private final int			threads;
+
+	/**
+	 * Create a scheduler.
+	 *
+	 * @param workspace The workspace of the projects.
+	 * @param threads The maximum number of projects to run concurrently. If
+	 *            less than 1, the number of available processors is used.
+	 */
+	public ProjectScheduler(Workspace workspace, int threads) {
+		this.workspace = requireNonNull(workspace);
+		this.threads = (threads < 1) ? Runtime.getRuntime()
+			.availableProcessors() : threads;
+	}
+
+	/**
+	 * Run the action on the specified projects and all the projects they
+	 * depend on. The action is called once for each project, after it has
+	 * completed for the projects it depends on.
+	 *
+	 * @param projects The projects to run the action on.
+	 * @param action The action to run.
+	 * @throws Exception The first exception thrown by the action.
+	 */
+	public void run(Collection<Project> projects, ConsumerWithException<Project> action) throws Exception {
+		Map<Project, Set<Project>> dependencies = new LinkedHashMap<>();
+		Deque<Project> queue = new ArrayDeque<>(projects);
+		while (!queue.isEmpty()) {
+			Project project = queue.removeFirst();
+			if (dependencies.containsKey(project)) {
+				continue;
+			}
+			Set<Project> dependson = new LinkedHashSet<>(project.getDependson());
+			dependson.remove(project);
+			dependencies.put(project, dependson);
+			queue.addAll(dependson);
+		}
+		logger.debug("Running {} projects on {} threads", dependencies.size(), threads);
+
+		Schedule schedule = new Schedule(dependencies, action);
+		schedule.next();
+		try {
+			schedule.done.getPromise()
+				.getValue();
+		} catch (InvocationTargetException e) {
+			throw Exceptions.duck(Exceptions.unrollCause(e, InvocationTargetException.class));
+		}
+	}
+
+	private class Schedule {
+		final Map<Project, Set<Project>>		waiting;
+		final Map<Project, List<Project>>		dependents	= new HashMap<>();
+		final Deque<Project>					ready		= new ArrayDeque<>();
+		final ConsumerWithException<Project>	action;
+		final Executor							executor	= Processor.getExecutor();
+		final Deferred<Void>					done;
+		int										running;
+		Throwable								failure;
+		boolean									completed;
+
+		Schedule(Map<Project, Set<Project>> waiting, ConsumerWithException<Project> action) {
+			this.waiting = waiting;
+			this.action = action;
+			this.done = Processor.getPromiseFactory()
+				.deferred();
+			waiting.forEach((project, dependson) -> {
+				if (dependson.isEmpty()) {
+					ready.addLast(project);
+				}
+				for (Project dependency : dependson) {
+					dependents.computeIfAbsent(dependency, k -> new ArrayList<>())
+						.add(project);
+				}
+			});
+			ready.forEach(waiting::remove);
+		}
+
+		void next() {
+			List<Project> start = new ArrayList<>();
+			Throwable result = null;
+			boolean complete = false;
+			synchronized (this) {
+				while ((failure == null) && (running < threads) && !ready.isEmpty()) {
+					start.add(ready.removeFirst());
+					running++;
+				}
+				if ((running == 0) && !completed) {
+					if (failure != null) {
+						result = failure;
+						complete = true;
+					} else if (waiting.isEmpty()) {
+						complete = true;
+					} else if (ready.isEmpty()) {
+						result = new IllegalStateException(
+							"Circular dependencies between the projects " + waiting.keySet());
+						complete = true;
+					}
+					completed = complete;
+				}
+			}
+			if (complete) {
+				if (result != null) {
+					done.fail(result);
+				} else {
+					done.resolve(null);
+				}
+			}
+			for (Project project : start) {
+				executor.execute(() -> run(project));
+			}
+		}
+
+		void run(Project project) {
+			Throwable t = null;
+			try {
+				logger.debug("Starting {}", project);
+				workspace.readLocked(() -> {
+					action.accept(project);
+					return null;
+				});
+			} catch (Throwable e) {
+				t = e;
+			}
+			synchronized (this) {
+				running--;
+				if (t != null) {
+					if (failure == null) {
+						failure = t;
+					}
+				} else {
+					for (Project dependent : dependents.getOrDefault(project, List.of())) {
+						Set<Project> dependson = waiting.get(dependent);
+						dependson.remove(project);
+						if (dependson.isEmpty()) {
+							waiting.remove(dependent);
+							ready.addLast(dependent);
+						}
+					}
+				}
+			}
+			next();
+		}
+	}
+}
@@ -72,6 +72,7 @@ import aQute.bnd.memoize.CloseableMemoize;
 import aQute.bnd.memoize.Memoize;
 import aQute.bnd.osgi.About;
 import aQute.bnd.osgi.BundleId;
+import aQute.bnd.osgi.ClazzCache;
 import aQute.bnd.osgi.Constants;
 import aQute.bnd.osgi.Descriptors;
 import aQute.bnd.osgi.Jar;
@@ -794,6 +795,11 @@ public class Workspace extends Processor {
 				pluginsContainer.add(repo);
 			}
 
+			if (!isTrue(getProperty(NOCLASSCACHE))) {
+				pluginsContainer.add(new ClazzCache(getCache("classes/clazz.cache")));
+			}
+			pluginsContainer.add(new Descriptors.Pool());
+
 			resourceRepositoryImpl = new ResourceRepositoryImpl();
 			String cachedir = getProperty(CACHEDIR);
 			if (cachedir == null) {
@@ -1094,6 +1100,7 @@ public class Workspace extends Processor {
 		}
 
 		projects.close();
+		logger.debug("Macro caches {}", Macro.getCacheStatistics());
 
 		try {
 			super.close();
@@ -1651,6 +1658,7 @@ public class Workspace extends Processor {
 	}
 
 	public void refresh(RepositoryPlugin repo) {
+		data.classIndex.ifPresent(WorkspaceClassIndex::refreshed);
 		for (RepositoryListenerPlugin listener : getPlugins(RepositoryListenerPlugin.class)) {
 			try {
 				listener.repositoryRefreshed(repo);
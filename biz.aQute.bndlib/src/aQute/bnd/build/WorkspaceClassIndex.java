@@ -2,40 +2,82 @@ package aQute.bnd.build;
 
 import static aQute.bnd.classindex.ClassIndexerAnalyzer.BND_HASHES;
 
+import static java.util.stream.Collectors.toList;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.net.URI;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Objects;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.osgi.framework.namespace.PackageNamespace;
 import org.osgi.resource.Capability;
 import org.osgi.resource.Requirement;
 import org.osgi.resource.Resource;
 import org.osgi.service.repository.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import aQute.bnd.build.Workspace.ResourceRepositoryStrategy;
 import aQute.bnd.classindex.ClassIndexerAnalyzer;
-import aQute.bnd.exceptions.Exceptions;
 import aQute.bnd.osgi.BundleId;
 import aQute.bnd.osgi.Descriptors;
 import aQute.bnd.osgi.resource.RequirementBuilder;
 import aQute.bnd.osgi.resource.ResourceUtils;
+import aQute.bnd.osgi.resource.ResourceUtils.ContentCapability;
 import aQute.bnd.result.Result;
 import aQute.bnd.version.Version;
 import aQute.lib.collections.MultiMap;
-import aQute.lib.hierarchy.Hierarchy;
 import aQute.lib.hierarchy.NamedNode;
+import aQute.lib.io.IO;
 import aQute.lib.zip.JarIndex;
-
+import aQute.libg.cryptography.SHA256;
+
+/**
+ * Finds the bundles in the workspace that export a package or a class.
+ * <p>
+ * The bundles are found in an index of the exported packages of the
+ * repositories and one of the bundles of the workspace projects. The
+ * repository index is built once from the package capabilities of all
+ * repository resources and is built again when a repository is refreshed. The
+ * project index is built again when a project has been built.
+ * <p>
+ * A class is found with a single probe for the hash of its simple name in the
+ * {@code bnd.hashes} of the package capabilities. Since a hash can match more
+ * than one class, only the bundles of the matching packages are opened to
+ * check that they contain the class. The classes of bundles without
+ * {@code bnd.hashes} that are already on disk are listed when the index is
+ * built. Other bundles without {@code bnd.hashes} are only opened when the
+ * package of the class is known.
+ * <p>
+ * The class names of an opened bundle are kept in memory and in the workspace
+ * cache keyed by the SHA-256 of the bundle, so a bundle is only read once.
+ */
 class WorkspaceClassIndex implements AutoCloseable {
-	final Workspace workspace;
+	private final static Logger					logger				= LoggerFactory.getLogger(WorkspaceClassIndex.class);
+	final Workspace								workspace;
+	private final File							cacheDir;
+	private final Map<String, BundleClasses>	bundles				= new ConcurrentHashMap<>();
+	private Index								repositories;
+	private Index								projects;
+	private List<Resource>						projectResources	= Collections.emptyList();
 
 	WorkspaceClassIndex(Workspace workspace) {
 		this.workspace = workspace;
+		this.cacheDir = workspace.getCache("classindex");
 	}
 
 	/**
@@ -85,167 +127,394 @@ class WorkspaceClassIndex implements AutoCloseable {
 	 */
 	public Result<Map<String, List<BundleId>>> search(String packageName, String className) throws Exception {
 
-		String filter = createFilter(packageName, className);
-
-		Map<Resource, List<Capability>> index = getMatchingResources(filter);
+		assert packageName != null || className != null : "Only 3 case, cannot both be null";
 
 		MultiMap<BundleId, String> result = new MultiMap<>();
-
-		nextResource: for (Entry<Resource, List<Capability>> e : index.entrySet()) {
-
-			Resource resource = e.getKey();
-			BundleId bundle = ResourceUtils.getBundleId(resource);
-			if (bundle == null)
-				continue nextResource;
-
-			if (packageName != null && className == null) {
-				addLongestMatchingPackagePrefix(packageName, e.getValue(), bundle, result);
-				continue nextResource;
+		for (Index index : getIndexes()) {
+			if (className == null) {
+				index.addLongestMatchingPackagePrefix(packageName, result);
+			} else {
+				addClass(index, packageName, className, result);
 			}
+		}
+		return Result.ok(result.transpose(true));
+	}
 
-			assert className != null : "we handle pack !class, class || package class left";
+	/*
+	 * Add the bundles that export the class, from any package when
+	 * packageName is null
+	 */
+	private void addClass(Index index, String packageName, String className, MultiMap<BundleId, String> result) {
+		String binaryClassName = Descriptors.classToPath(className);
+
+		// classes listed from bundles without hashes
+		Map<String, Set<BundleId>> listed = index.classes.get(binaryClassName);
+		if (listed != null) {
+			listed.forEach((foundPackage, bundles) -> {
+				if (packageName == null || packageName.equals(foundPackage)) {
+					for (BundleId bundle : bundles) {
+						result.add(bundle, toFQN(foundPackage, binaryClassName));
+					}
+				}
+			});
+		}
 
-			String binaryClassPath = Descriptors.classToPath(className);
+		// the hashes are of the simple name of the top level class
+		int n = className.indexOf('.');
+		int hash = ClassIndexerAnalyzer.hash((n < 0) ? className : className.substring(0, n));
+		Map<String, Set<Candidate>> hashed = index.hashes.get(hash);
+		if (hashed != null) {
+			hashed.forEach((foundPackage, candidates) -> {
+				if (packageName == null || packageName.equals(foundPackage)) {
+					addCandidates(candidates, foundPackage, binaryClassName, result);
+				}
+			});
+		}
 
-			String error = matchClassNameAgainstResource(binaryClassPath, e.getValue(), bundle, result);
-			if (error != null) {
-				return Result.err(error);
-			}
+		if (packageName != null) {
+			addCandidates(index.unhashed.getOrDefault(packageName, Collections.emptySet()), packageName,
+				binaryClassName, result);
 		}
-		return Result.ok(result.transpose(true));
 	}
 
 	/*
-	 * we have a set of package capabilities and a class name. These caps were
-	 * found via the hashes or the package prefix. We try to find the class name
-	 * in the package directory of the resource
+	 * Open the candidate bundles to check that they contain the class
 	 */
-	private String matchClassNameAgainstResource(String binaryClassName, List<Capability> caps, BundleId bundle,
+	private void addCandidates(Set<Candidate> candidates, String packageName, String binaryClassName,
 		MultiMap<BundleId, String> result) {
-		try {
-
-			Result<File> r = workspace.getBundle(bundle.getBsn(), Version.valueOf(bundle.getVersion()), null);
-			if (r.isErr()) {
-				return r.error()
-					.get();
+		for (Candidate candidate : candidates) {
+			try {
+				if (getClasses(candidate.resource(), candidate.bundle()).getClasses(packageName)
+					.contains(binaryClassName)) {
+					result.add(candidate.bundle(), toFQN(packageName, binaryClassName));
+				}
+			} catch (Exception e) {
+				logger.debug("Cannot read the classes of {}", candidate.bundle(), e);
 			}
+		}
+	}
 
-			Hierarchy zipIndex = new JarIndex(r.unwrap());
+	private static String toFQN(String packageName, String binaryClassName) {
+		String path = packageName.isEmpty() ? binaryClassName
+			: Descriptors.fqnToBinary(packageName) + "/" + binaryClassName;
+		return Descriptors.binaryClassToFQN(path);
+	}
+
+	/*
+	 * Get the repository and the project index, building them when they are
+	 * missing or out of date.
+	 */
+	private synchronized List<Index> getIndexes() throws Exception {
+		if (repositories == null) {
+			repositories = index(workspace.getResourceRepository(ResourceRepositoryStrategy.REPOS));
+		}
+		List<Resource> resources = workspace.getAllProjects()
+			.stream()
+			.map(Project::getResources)
+			.flatMap(Collection::stream)
+			.collect(toList());
+		if (projects == null || !isSame(resources, projectResources)) {
+			Map<Resource, List<Capability>> index = new LinkedHashMap<>();
+			for (Resource resource : resources) {
+				index.put(resource, resource.getCapabilities(PackageNamespace.PACKAGE_NAMESPACE));
+			}
+			projects = index(index);
+			projectResources = resources;
+		}
+		return List.of(repositories, projects);
+	}
 
-			caps: for (Capability cap : caps) {
+	/*
+	 * A project replaces its resources when it is built.
+	 */
+	private static boolean isSame(List<Resource> a, List<Resource> b) {
+		if (a.size() != b.size()) {
+			return false;
+		}
+		for (int i = 0; i < a.size(); i++) {
+			if (a.get(i) != b.get(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
 
-				String foundPackage = (String) cap.getAttributes()
-					.get(PackageNamespace.PACKAGE_NAMESPACE);
-				if (foundPackage == null)
-					continue caps;
+	/**
+	 * Forget the repository index so that it is built again on the next search.
+	 * Called when a repository is refreshed.
+	 */
+	synchronized void refreshed() {
+		repositories = null;
+	}
 
-				String[] foundPath = foundPackage.split("\\.");
+	private Index index(Repository repository) throws Exception {
+		Requirement requirement = new RequirementBuilder(PackageNamespace.PACKAGE_NAMESPACE)
+			.filter("(" + PackageNamespace.PACKAGE_NAMESPACE + "=*)")
+			.buildSyntheticRequirement();
+		Collection<Capability> caps = repository.findProviders(Collections.singleton(requirement))
+			.get(requirement);
+		return index(ResourceUtils.getIndexedByResource(caps));
+	}
 
-				zipIndex.findFolder(foundPath)
-					.ifPresent(folder -> {
+	private Index index(Map<Resource, List<Capability>> resources) {
+		Index index = new Index();
+		nextResource: for (Entry<Resource, List<Capability>> e : resources.entrySet()) {
+			Resource resource = e.getKey();
+			BundleId bundle = ResourceUtils.getBundleId(resource);
+			if (bundle == null)
+				continue nextResource;
 
-						NamedNode clazz = folder.get(binaryClassName)
-							.orElse(null);
-						if (clazz != null) {
-							String path = clazz.path();
-							String fqn = Descriptors.binaryClassToFQN(path);
-							result.add(bundle, fqn);
-							return;
+			Candidate candidate = new Candidate(bundle, resource);
+			Set<String> unhashed = new LinkedHashSet<>();
+			for (Capability cap : e.getValue()) {
+				Map<String, Object> attrs = cap.getAttributes();
+				if (!(attrs.get(PackageNamespace.PACKAGE_NAMESPACE) instanceof String packageName))
+					continue;
+
+				index.packages.computeIfAbsent(packageName, k -> new LinkedHashSet<>())
+					.add(bundle);
+				if (attrs.get(BND_HASHES) instanceof Collection<?> hashes) {
+					for (Object hash : hashes) {
+						if (hash instanceof Number number) {
+							index.hashes.computeIfAbsent(number.intValue(), k -> new LinkedHashMap<>())
+								.computeIfAbsent(packageName, k -> new LinkedHashSet<>())
+								.add(candidate);
 						}
+					}
+				} else {
+					unhashed.add(packageName);
+				}
+			}
+			if (unhashed.isEmpty())
+				continue nextResource;
 
-					});
+			BundleClasses classes = null;
+			try {
+				classes = getLocalClasses(resource);
+			} catch (Exception ex) {
+				logger.debug("Cannot read the classes of {}", bundle, ex);
+			}
+			for (String packageName : unhashed) {
+				if (classes != null) {
+					for (String binaryClassName : classes.getClasses(packageName)) {
+						index.classes.computeIfAbsent(binaryClassName, k -> new LinkedHashMap<>())
+							.computeIfAbsent(packageName, k -> new LinkedHashSet<>())
+							.add(bundle);
+					}
+				} else {
+					index.unhashed.computeIfAbsent(packageName, k -> new LinkedHashSet<>())
+						.add(candidate);
+				}
 			}
-		} catch (IOException e1) {
-			return Exceptions.causes(e1);
 		}
-		return null;
+		return index;
 	}
 
 	/*
-	 * We used a wildcard for the package name, we've got a number of potential
-	 * packages. We will look for the longest package
+	 * Get the classes of a bundle, fetching the bundle when it is not on disk.
 	 */
-	private void addLongestMatchingPackagePrefix(String packageName, List<Capability> caps, BundleId bundle,
-		MultiMap<BundleId, String> result) {
-		caps.stream()
-			.map(cap -> cap.getAttributes()
-				.get(PackageNamespace.PACKAGE_NAMESPACE))
-			.filter(Objects::nonNull)
-			.map(String.class::cast)
-			.filter(s -> s.startsWith(packageName))
-			.sorted((a, b) -> Integer.compare(a.length(), b.length()))
-			.findFirst()
-			.ifPresent(s -> {
-				result.add(bundle, s);
-			});
+	private BundleClasses getClasses(Resource resource, BundleId bundle) throws Exception {
+		BundleClasses classes = getLocalClasses(resource);
+		if (classes != null) {
+			return classes;
+		}
+		File file = workspace.getBundle(bundle.getBsn(), Version.valueOf(bundle.getVersion()), null)
+			.orElseThrow(IOException::new);
+		return getClasses(getSHA(resource), file);
 	}
 
 	/*
-	 * Find the resources in the workspace repo that match the filter.
+	 * Get the classes of a bundle which were read before or which is on disk,
+	 * null otherwise.
 	 */
-	private Map<Resource, List<Capability>> getMatchingResources(String filter) throws Exception {
-		RequirementBuilder rb = new RequirementBuilder(PackageNamespace.PACKAGE_NAMESPACE);
-		rb.filter(filter);
-		Requirement requirement = rb.buildSyntheticRequirement();
+	private BundleClasses getLocalClasses(Resource resource) throws Exception {
+		String sha = getSHA(resource);
+		if (sha != null) {
+			BundleClasses classes = getCachedClasses(sha);
+			if (classes != null) {
+				return classes;
+			}
+		}
+		URI url = ResourceUtils.getURI(resource)
+			.orElse(null);
+		if (url == null || !"file".equals(url.getScheme())) {
+			return null;
+		}
+		File file = new File(url);
+		if (!file.exists()) {
+			return null;
+		}
+		return getClasses(sha, file);
+	}
 
-		Repository repository = workspace.getResourceRepository(ResourceRepositoryStrategy.ALL);
-		Collection<Capability> caps = repository.findProviders(Collections.singleton(requirement))
-			.get(requirement);
-		Map<Resource, List<Capability>> index = ResourceUtils.getIndexedByResource(caps);
-		return index;
+	private static String getSHA(Resource resource) {
+		ContentCapability content = ResourceUtils.getContentCapability(resource);
+		return (content != null) ? content.osgi_content() : null;
 	}
 
 	/*
-	 * Create a filter. <pre> package -> prefix match on package name class ->
-	 * on hashes package class -> on exact package name </pre>
+	 * Read the classes of a bundle file. The classes are kept in memory and in
+	 * the workspace cache keyed by the SHA-256 of the bundle.
 	 */
-	private String createFilter(String packageName, String className) {
-		StringBuilder sb = new StringBuilder();
+	private BundleClasses getClasses(String sha, File file) throws Exception {
+		if (file.isDirectory()) {
+			// a directory has no hash to key its content
+			return BundleClasses.index(file);
+		}
+		if (sha == null) {
+			sha = SHA256.digest(file)
+				.asHex();
+			BundleClasses classes = getCachedClasses(sha);
+			if (classes != null) {
+				return classes;
+			}
+		}
+		logger.debug("Indexing the classes of {}", file);
+		BundleClasses classes = BundleClasses.index(file);
+		File cache = new File(cacheDir, sha);
+		try {
+			classes.write(cache);
+		} catch (IOException e) {
+			logger.debug("Cannot store the class index of {} in {}", file, cache, e);
+			IO.delete(cache);
+		}
+		bundles.put(sha, classes);
+		return classes;
+	}
 
-		assert packageName != null || className != null : "Only 3 case, cannot both be null";
+	private BundleClasses getCachedClasses(String sha) {
+		return bundles.computeIfAbsent(sha, k -> BundleClasses.read(new File(cacheDir, k)));
+	}
 
-		if (className != null) {
-			if (packageName == null) {
+	@Override
+	public synchronized void close() {
+		bundles.clear();
+		repositories = null;
+		projects = null;
+		projectResources = Collections.emptyList();
+	}
 
-				// assert className != null && packageName == null : "class";
+	/*
+	 * A bundle which may export a class.
+	 */
+	record Candidate(BundleId bundle, Resource resource) {}
 
-				int hash = ClassIndexerAnalyzer.hash(className);
-				sb.append('(')
-					.append(BND_HASHES)
-					.append('=')
-					.append(hash)
-					.append(')');
-			} else {
+	/*
+	 * The index of the exported packages and their classes.
+	 */
+	static class Index {
+		/*
+		 * package -> bundles, sorted for the prefix search
+		 */
+		final NavigableMap<String, Set<BundleId>>			packages	= new TreeMap<>();
+		/*
+		 * hash of the simple class name -> package -> candidate bundles
+		 */
+		final Map<Integer, Map<String, Set<Candidate>>>		hashes		= new HashMap<>();
+		/*
+		 * class file name -> package -> bundles, for the packages without
+		 * hashes of bundles on disk
+		 */
+		final Map<String, Map<String, Set<BundleId>>>		classes		= new HashMap<>();
+		/*
+		 * package -> candidate bundles, for the packages without hashes of
+		 * bundles not on disk
+		 */
+		final Map<String, Set<Candidate>>					unhashed	= new HashMap<>();
+
+		/*
+		 * The package name can be a prefix, add the shortest matching package
+		 * of each bundle
+		 */
+		void addLongestMatchingPackagePrefix(String packageName, MultiMap<BundleId, String> result) {
+			Map<BundleId, String> shortest = new LinkedHashMap<>();
+			packages.subMap(packageName, true, packageName + Character.MAX_VALUE, false)
+				.forEach((foundPackage, bundles) -> {
+					for (BundleId bundle : bundles) {
+						shortest.merge(bundle, foundPackage, (a, b) -> (b.length() < a.length()) ? b : a);
+					}
+				});
+			shortest.forEach(result::add);
+		}
+	}
+
+	/*
+	 * The class names of a bundle indexed by package.
+	 */
+	static class BundleClasses {
+		final static BundleClasses				EMPTY	= new BundleClasses(Collections.emptyMap());
+		private final static int				VERSION	= 2;
+		private final Map<String, Set<String>>	packages;
 
-				// assert packageName != null : "package class";
+		private BundleClasses(Map<String, Set<String>> packages) {
+			this.packages = packages;
+		}
 
-				//
-				// We could actually add the hash to the check, however,
-				// as long as the hashes are not ubiquitous for XML
-				// repos, we should play it safe
-				//
+		static BundleClasses index(File file) throws IOException {
+			Map<String, Set<String>> packages = new HashMap<>();
+			for (NamedNode node : new JarIndex(file)) {
+				if (node.isLeaf() && node.name()
+					.endsWith(".class")) {
+					String path = node.path();
+					int n = path.lastIndexOf('/');
+					String packageName = (n < 0) ? "" : Descriptors.binaryToFQN(path.substring(0, n));
+					packages.computeIfAbsent(packageName, k -> new HashSet<>())
+						.add(node.name());
+				}
+			}
+			return new BundleClasses(packages);
+		}
 
-				sb.append('(')
-					.append(PackageNamespace.PACKAGE_NAMESPACE)
-					.append('=')
-					.append(packageName)
-					.append(')');
+		static BundleClasses read(File cache) {
+			if (!cache.isFile()) {
+				return null;
+			}
+			try (DataInputStream in = new DataInputStream(IO.stream(cache))) {
+				if (in.readInt() != VERSION) {
+					return null;
+				}
+				int size = in.readInt();
+				Map<String, Set<String>> packages = new HashMap<>(size * 2);
+				for (int i = 0; i < size; i++) {
+					String packageName = in.readUTF();
+					int count = in.readInt();
+					Set<String> classes = new HashSet<>(count * 2);
+					for (int j = 0; j < count; j++) {
+						classes.add(in.readUTF());
+					}
+					packages.put(packageName, classes);
+				}
+				return new BundleClasses(packages);
+			} catch (IOException e) {
+				logger.debug("Cannot read the class index {}", cache, e);
+				return null;
 			}
-		} else {
+		}
 
-			assert packageName != null && className == null : "lonely package, use wildcard, could be prefix";
+		void write(File cache) throws IOException {
+			IO.mkdirs(cache.getParentFile());
+			File tmp = IO.createTempFile(cache.getParentFile(), cache.getName(), ".tmp");
+			try {
+				try (DataOutputStream out = new DataOutputStream(IO.outputStream(tmp))) {
+					out.writeInt(VERSION);
+					out.writeInt(packages.size());
+					for (Entry<String, Set<String>> e : packages.entrySet()) {
+						out.writeUTF(e.getKey());
+						out.writeInt(e.getValue()
+							.size());
+						for (String name : e.getValue()) {
+							out.writeUTF(name);
+						}
+					}
+				}
+				IO.rename(tmp, cache);
+			} finally {
+				IO.delete(tmp);
+			}
+		}
 
-			sb.append('(')
-				.append(PackageNamespace.PACKAGE_NAMESPACE)
-				.append('=')
-				.append(packageName)
-				.append('*')
-				.append(')'); // not sure if we got the full package
+		Set<String> getClasses(String packageName) {
+			return packages.getOrDefault(packageName, Collections.emptySet());
 		}
-		return sb.toString();
 	}
-
-	@Override
-	public void close() {}
-
 }
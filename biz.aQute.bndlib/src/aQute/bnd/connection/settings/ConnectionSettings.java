@@ -83,6 +83,16 @@ public class ConnectionSettings {
 				.mkdirs();
 			this.client.setLog(file);
 		}
+		this.client.http2(processor.is(Constants.CONNECTION_HTTP2));
+		String staleWhileRevalidate = processor.getProperty(Constants.CONNECTION_STALE_WHILE_REVALIDATE);
+		if (Strings.nonNullOrEmpty(staleWhileRevalidate)) {
+			try {
+				this.client.staleWhileRevalidate(Long.parseLong(staleWhileRevalidate.trim()));
+			} catch (NumberFormatException e) {
+				processor.error("%s must be a number of seconds: %s", Constants.CONNECTION_STALE_WHILE_REVALIDATE,
+					staleWhileRevalidate);
+			}
+		}
 		mavenMasterPassphrase = new MasterPassphrase(processor);
 	}
 
@@ -628,6 +638,9 @@ public class ConnectionSettings {
 
 	public void report(Formatter f) {
 		f.format("-connection-settings          %s%n", processor.getProperty(CONNECTION_SETTINGS, "<>"));
+		f.format("-connection-http2             %s%n", client.isHttp2());
+		f.format("-connection-stale-while-revalidate %s%n",
+			processor.getProperty(Constants.CONNECTION_STALE_WHILE_REVALIDATE, "<>"));
 		f.format("Parsed files:%n");
 
 		getParsedFiles().forEach(file -> f.format("   %s%n", file));
@@ -563,6 +563,15 @@ public class Syntax implements Constants {
 		new Syntax(NOCLASSFORNAME, "Do not calculate " + IMPORT_PACKAGE
 			+ " references for 'Class.forName(\"some.Class\")' usage found in method bodies during class processing.",
 			NOCLASSFORNAME + "=true", "true,false", Verifier.TRUEORFALSEPATTERN),
+		new Syntax(NOCLASSCACHE,
+			"Do not keep the analysis of class files in the workspace cache, all class files are parsed on every build.",
+			NOCLASSCACHE + "=true", "true,false", Verifier.TRUEORFALSEPATTERN),
+		new Syntax(PARALLELANALYSIS,
+			"Parse the class files of the bundle classpath concurrently. The resulting manifest is identical to the one calculated serially.",
+			PARALLELANALYSIS + "=true", "true,false", Verifier.TRUEORFALSEPATTERN),
+		new Syntax(SHAREDDESCRIPTORS,
+			"Share the type and package references of the analyzed class files with the other builders of the workspace which use this instruction.",
+			SHAREDDESCRIPTORS + "=true", "true,false", Verifier.TRUEORFALSEPATTERN),
 		new Syntax(NOIMPORTJAVA, "Do not calculate " + IMPORT_PACKAGE + " references for java.* packages.",
 			NOIMPORTJAVA + "=true", "true,false", Verifier.TRUEORFALSEPATTERN),
 
@@ -602,6 +611,10 @@ public class Syntax implements Constants {
 		new Syntax(REPRODUCIBLE, "Use a fixed timestamp for all jar entries.", REPRODUCIBLE + "=true", "true,false",
 			Verifier.TRUEORFALSEPATTERN),
 
+		new Syntax(RESOLVE_CACHE,
+			"Cache the wiring calculated by the resolver in the workspace cache. The cached wiring is used as long as the resolve instructions and the resources in the repositories do not change. The default is true.",
+			RESOLVE_CACHE + "=false", "true,false", Verifier.TRUEORFALSEPATTERN),
+
 		new Syntax(RESOLVE_EFFECTIVE,
 			"Each requirement and capability has an effective or is effective=resolve. An effective of resolve is always processed by the resolver.",
 			RESOLVE_EFFECTIVE + "=resolve,active", "qname (',' qname )", null),
@@ -51,9 +51,12 @@ public interface LauncherInstructions {
 	Executable executable();
 
 	enum RunOption {
-		eager
+		eager,
+		parallel
 	}
 
-	@SyntaxAnnotation(lead = "Options for the launch", example = "-runoptions eager")
+	@SyntaxAnnotation(lead = "Options for the launch. The eager option starts the bundles without honoring "
+		+ "their activation policy. The parallel option installs the bundles concurrently and starts the "
+		+ "bundles with the same start level concurrently.", example = "-runoptions eager,parallel")
 	Set<RunOption> runoptions();
 }
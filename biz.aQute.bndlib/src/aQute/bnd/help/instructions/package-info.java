@@ -1,2 +1,2 @@
-@org.osgi.annotation.versioning.Version("1.7.0")
+@org.osgi.annotation.versioning.Version("1.8.0")
 package aQute.bnd.help.instructions;
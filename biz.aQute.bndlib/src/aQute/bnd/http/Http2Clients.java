@@ -0,0 +1,51 @@
+package aQute.bnd.http;
+
+import java.net.InetSocketAddress;
+import java.net.Proxy;
+import java.net.ProxySelector;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The {@link java.net.http.HttpClient}s used by the {@link Http2Connection}s.
+ * The clients are shared by all requests so they can share their connections.
+ * Since the connect timeout and the proxy can only be set on the client, there
+ * is one client per proxy and connect timeout.
+ */
+final class Http2Clients {
+	private record Key(Proxy proxy, int connectTimeout) {}
+
+	private final Map<Key, HttpClient> clients = new ConcurrentHashMap<>();
+
+	/**
+	 * Return the client for a proxy and connect timeout.
+	 *
+	 * @param proxy the proxy, {@link Proxy#NO_PROXY} or a HTTP proxy
+	 * @param connectTimeout the connect timeout in milliseconds, 0 for no
+	 *            timeout
+	 * @return the client
+	 */
+	HttpClient get(Proxy proxy, int connectTimeout) {
+		return clients.computeIfAbsent(new Key(proxy, connectTimeout), key -> {
+			HttpClient.Builder builder = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_2)
+				.followRedirects(HttpClient.Redirect.NEVER);
+			if (key.connectTimeout() > 0) {
+				builder.connectTimeout(Duration.ofMillis(key.connectTimeout()));
+			}
+			if (key.proxy()
+				.type() == Proxy.Type.HTTP
+				&& key.proxy()
+					.address() instanceof InetSocketAddress address) {
+				builder.proxy(ProxySelector.of(address));
+			}
+			return builder.build();
+		});
+	}
+
+	void clear() {
+		clients.clear();
+	}
+}
@@ -0,0 +1,220 @@
+package aQute.bnd.http;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.net.HttpURLConnection;
+import java.net.Proxy;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.security.cert.Certificate;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.net.ssl.HttpsURLConnection;
+import javax.net.ssl.SSLPeerUnverifiedException;
+import javax.net.ssl.SSLSession;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import aQute.lib.io.IO;
+
+/**
+ * An {@link HttpURLConnection} that sends its request with a
+ * {@link java.net.http.HttpClient}. A request to a server that supports
+ * HTTP/2 then shares a single connection with the other requests to this
+ * server.
+ * <p>
+ * The connection is configured like any other connection, including by the
+ * {@link aQute.bnd.service.url.URLConnectionHandler} plugins, and the request
+ * is sent when the response is needed. Redirects are not followed. It is an
+ * {@link HttpsURLConnection} so that a plugin can change its TLS settings,
+ * these cannot be used by the client so the caller must check
+ * {@link #hasDefaultTLS()} before using the connection. The client is chosen
+ * when the request is sent so that it uses the connect timeout of this
+ * connection.
+ */
+class Http2Connection extends HttpsURLConnection {
+	private final static Logger			logger		= LoggerFactory.getLogger(Http2Connection.class);
+	// headers that are set by the java.net.http client itself
+	private final static Set<String>	RESTRICTED	= Set.of("connection", "content-length", "expect", "host",
+		"upgrade");
+	private final Http2Clients			clients;
+	private final Proxy					proxy;
+	private HttpResponse<InputStream>	response;
+
+	Http2Connection(Http2Clients clients, Proxy proxy, URL url) {
+		super(url);
+		this.clients = clients;
+		this.proxy = proxy;
+	}
+
+	/**
+	 * The TLS settings were not changed, the client can handle this request.
+	 */
+	boolean hasDefaultTLS() {
+		return getSSLSocketFactory() == getDefaultSSLSocketFactory()
+			&& getHostnameVerifier() == getDefaultHostnameVerifier();
+	}
+
+	@Override
+	public synchronized void connect() throws IOException {
+		if (connected) {
+			return;
+		}
+		HttpRequest.Builder builder;
+		try {
+			builder = HttpRequest.newBuilder(getURL().toURI())
+				.method(method, BodyPublishers.noBody());
+		} catch (URISyntaxException | IllegalArgumentException e) {
+			throw new IOException("Invalid request " + method + " " + getURL(), e);
+		}
+		if (getReadTimeout() > 0) {
+			builder.timeout(Duration.ofMillis(getReadTimeout()));
+		}
+		getRequestProperties().forEach((key, values) -> {
+			if (key == null || RESTRICTED.contains(key.toLowerCase(Locale.ROOT))) {
+				return;
+			}
+			for (String value : values) {
+				try {
+					builder.header(key, value);
+				} catch (IllegalArgumentException e) {
+					logger.debug("Header {} not sent: {}", key, e.getMessage());
+				}
+			}
+		});
+		HttpClient client = clients.get(proxy, getConnectTimeout());
+		try {
+			response = client.send(builder.build(), BodyHandlers.ofInputStream());
+		} catch (InterruptedException e) {
+			Thread.currentThread()
+				.interrupt();
+			throw new InterruptedIOException("Interrupted while sending " + method + " " + getURL());
+		}
+		responseCode = response.statusCode();
+		connected = true;
+		logger.debug("{} {} {} {}", response.version(), method, getURL(), responseCode);
+		if (responseCode / 100 == 1 || responseCode / 100 == 3) {
+			// nobody reads the body, release the stream
+			IO.close(response.body());
+		}
+	}
+
+	@Override
+	public int getResponseCode() throws IOException {
+		connect();
+		return responseCode;
+	}
+
+	@Override
+	public String getHeaderField(String name) {
+		HttpResponse<InputStream> response = response();
+		if (response == null || name == null) {
+			return null;
+		}
+		return response.headers()
+			.firstValue(name)
+			.orElse(null);
+	}
+
+	@Override
+	public Map<String, List<String>> getHeaderFields() {
+		HttpResponse<InputStream> response = response();
+		if (response == null) {
+			return Map.of();
+		}
+		Map<String, List<String>> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+		headers.putAll(response.headers()
+			.map());
+		return headers;
+	}
+
+	@Override
+	public String getHeaderFieldKey(int n) {
+		return null;
+	}
+
+	@Override
+	public String getHeaderField(int n) {
+		return null;
+	}
+
+	@Override
+	public InputStream getInputStream() throws IOException {
+		connect();
+		if (responseCode == HTTP_NOT_FOUND || responseCode == HTTP_GONE) {
+			throw new FileNotFoundException(getURL().toString());
+		}
+		if (responseCode >= 400) {
+			throw new IOException("Server returned HTTP response code: " + responseCode + " for URL: " + getURL());
+		}
+		return response.body();
+	}
+
+	@Override
+	public InputStream getErrorStream() {
+		HttpResponse<InputStream> response = response();
+		if (response == null || responseCode < 400) {
+			return null;
+		}
+		return response.body();
+	}
+
+	@Override
+	public void disconnect() {
+		HttpResponse<InputStream> response = this.response;
+		if (response != null) {
+			IO.close(response.body());
+		}
+	}
+
+	@Override
+	public boolean usingProxy() {
+		return proxy.type() != Proxy.Type.DIRECT;
+	}
+
+	@Override
+	public String getCipherSuite() {
+		return sslSession().getCipherSuite();
+	}
+
+	@Override
+	public Certificate[] getLocalCertificates() {
+		return sslSession().getLocalCertificates();
+	}
+
+	@Override
+	public Certificate[] getServerCertificates() throws SSLPeerUnverifiedException {
+		return sslSession().getPeerCertificates();
+	}
+
+	private SSLSession sslSession() {
+		HttpResponse<InputStream> response = response();
+		if (response == null) {
+			throw new IllegalStateException("Not connected " + getURL());
+		}
+		return response.sslSession()
+			.orElseThrow(() -> new IllegalStateException("Not a TLS connection " + getURL()));
+	}
+
+	private HttpResponse<InputStream> response() {
+		try {
+			connect();
+			return response;
+		} catch (IOException e) {
+			return null;
+		}
+	}
+}
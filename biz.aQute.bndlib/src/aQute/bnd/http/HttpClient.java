@@ -22,6 +22,7 @@ import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.PasswordAuthentication;
 import java.net.ProtocolException;
+import java.net.Proxy;
 import java.net.SocketTimeoutException;
 import java.net.URI;
 import java.net.URISyntaxException;
@@ -35,6 +36,7 @@ import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -95,6 +97,10 @@ public class HttpClient implements Closeable, URLConnector {
 	int											retries					= 3;
 	long										retryDelay				= 0L;
 	final Map<URLConnectionHandler, Semaphore>	blocker					= new HashMap<>();
+	private volatile boolean					http2;
+	private volatile long						staleWhileRevalidate;
+	private final Map<URI, Promise<File>>		revalidations			= new ConcurrentHashMap<>();
+	private final Http2Clients					http2Clients			= new Http2Clients();
 
 	public HttpClient() {
 		promiseFactory = Processor.getPromiseFactory();
@@ -118,6 +124,7 @@ public class HttpClient implements Closeable, URLConnector {
 	@Override
 	public void close() {
 		Authenticator.setDefault(null);
+		http2Clients.clear();
 	}
 
 	@Override
@@ -367,6 +374,88 @@ public class HttpClient implements Closeable, URLConnector {
 		return this;
 	}
 
+	/**
+	 * Send the requests over HTTP/2 when the server supports it. Concurrent
+	 * requests to the same server then share a single connection. Requests
+	 * that upload data, that are decorated with their own TLS settings by a
+	 * {@link URLConnectionHandler}, or that go through a SOCKS proxy or a
+	 * proxy that requires authentication are still sent over
+	 * {@link HttpURLConnection}.
+	 *
+	 * @param http2 {@code true} to use HTTP/2
+	 * @return this
+	 */
+	public HttpClient http2(boolean http2) {
+		this.http2 = http2;
+		return this;
+	}
+
+	public boolean isHttp2() {
+		return http2;
+	}
+
+	/**
+	 * Serve a stale cached file while it is revalidated in the background. A
+	 * request that uses the cache with a maximum stale period, see
+	 * {@link HttpRequest#useCache(long)}, normally blocks on a conditional
+	 * request to the server when the cached file is older than this period.
+	 * Within the given window after the period, it returns the cached file
+	 * immediately and the file is revalidated in the background, concurrently
+	 * with the other revalidations. Requests that must always revalidate are
+	 * not affected.
+	 *
+	 * @param staleWhileRevalidate the window in seconds, 0 to always block
+	 * @return this
+	 */
+	public HttpClient staleWhileRevalidate(long staleWhileRevalidate) {
+		this.staleWhileRevalidate = TimeUnit.SECONDS.toMillis(staleWhileRevalidate);
+		return this;
+	}
+
+	/**
+	 * Get the revalidations that are running in the background.
+	 *
+	 * @return a promise that is resolved with the revalidated files when the
+	 *         revalidations that are running now are done
+	 */
+	public Promise<List<File>> getRevalidations() {
+		return promiseFactory().all(new ArrayList<>(revalidations.values()));
+	}
+
+	/*
+	 * Revalidate a cached file in the background, at most once at a time for
+	 * a URI. The revalidation always checks the server, it is not served stale
+	 * itself.
+	 */
+	private void revalidate(HttpRequest<?> request, URI uri) {
+		Promise<File> promise = revalidations.computeIfAbsent(uri, u -> {
+			logger.debug("Revalidating {} in the background", u);
+			return build().useCache(request.useCacheFile, -1)
+				.headers(request.headers)
+				.timeout(request.timeout)
+				.report(request.reporter)
+				.async(request.url);
+		});
+		promise.onResolve(() -> revalidations.remove(uri, promise));
+	}
+
+	/*
+	 * Returns the proxy to use for a request over HTTP/2, or null if the URL
+	 * or the proxy is not supported.
+	 */
+	private static Proxy getHttp2Proxy(URL url, ProxySetup proxySetup) {
+		String protocol = url.getProtocol()
+			.toLowerCase(Locale.ROOT);
+		if (!protocol.equals("http") && !protocol.equals("https")) {
+			return null;
+		}
+		Proxy proxy = (proxySetup != null) ? proxySetup.proxy : Proxy.NO_PROXY;
+		if (proxy.type() == Proxy.Type.SOCKS || (proxySetup != null && proxySetup.authentication != null)) {
+			return null;
+		}
+		return proxy;
+	}
+
 	class HttpConnection<T> implements Callable<T> {
 		// These are not in HttpURLConnection
 		private static final int		HTTP_TEMPORARY_REDIRECT			= 307;	// https://developer.mozilla.org/en-US/docs/Web/HTTP/Status/307
@@ -482,8 +571,20 @@ public class HttpClient implements Closeable, URLConnector {
 					// our accepted stale period
 					//
 
-					if (!isOffline() && (request.maxStale < 0
-						|| info.jsonFile.lastModified() + request.maxStale < System.currentTimeMillis())) {
+					long validated = info.jsonFile.lastModified();
+					long now = System.currentTimeMillis();
+					if (!isOffline() && request.maxStale >= 0 && validated + request.maxStale < now
+						&& validated + request.maxStale + staleWhileRevalidate >= now) {
+						//
+						// Stale but within the window, serve the file we have
+						// and check the server in the background
+						//
+
+						revalidate(request, uri);
+						return new TaggedData(uri, HTTP_NOT_MODIFIED, info.file);
+					}
+
+					if (!isOffline() && (request.maxStale < 0 || validated + request.maxStale < now)) {
 						//
 						// Ok, expired. So check if there is a newer one on the
 						// server
@@ -546,7 +647,7 @@ public class HttpClient implements Closeable, URLConnector {
 			final URLConnectionHandler matching = findMatchingHandler(request.url);
 			Semaphore semaphore = getConnectionBlocker(matching);
 
-			final URLConnection con = getProxiedAndConfiguredConnection(request.url, proxy, matching);
+			final URLConnection con = getConfiguredConnection(request.url, proxy, matching);
 			final HttpURLConnection hcon = (con instanceof HttpURLConnection hc) ? hc : null;
 
 			if (request.ifNoneMatch != null) {
@@ -581,6 +682,28 @@ public class HttpClient implements Closeable, URLConnector {
 			}
 		}
 
+		/*
+		 * Use a connection that sends the request over HTTP/2 if this is
+		 * enabled and supported for this request
+		 */
+		private URLConnection getConfiguredConnection(URL url, ProxySetup proxy, URLConnectionHandler matching)
+			throws Exception {
+			if (http2 && request.upload == null) {
+				Proxy http2Proxy = getHttp2Proxy(url, proxy);
+				if (http2Proxy != null) {
+					Http2Connection con = new Http2Connection(http2Clients, http2Proxy, url);
+					if (matching != null) {
+						matching.handle(con);
+					}
+					if (con.hasDefaultTLS()) {
+						return con;
+					}
+					logger.debug("Not using HTTP/2 for {}, {} has its own TLS settings", url, matching);
+				}
+			}
+			return getProxiedAndConfiguredConnection(url, proxy, matching);
+		}
+
 		/*
 		 * Returns a blocker for the connections created from this
 		 * URLConnectionHandler. If this connection handler is not blocking we
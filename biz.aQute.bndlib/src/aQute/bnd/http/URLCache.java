@@ -4,6 +4,7 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.time.Instant;
@@ -20,6 +21,8 @@ import org.slf4j.LoggerFactory;
 import aQute.bnd.exceptions.Exceptions;
 import aQute.lib.io.IO;
 import aQute.lib.json.JSONCodec;
+import aQute.libg.cryptography.Digester;
+import aQute.libg.cryptography.MD5;
 import aQute.libg.cryptography.SHA1;
 import aQute.libg.cryptography.SHA256;
 
@@ -37,6 +40,7 @@ public class URLCache {
 		public long		modified;
 		public URI		uri;
 		public String	sha_256;
+		public String	md5;
 	}
 
 	public class Info implements Closeable {
@@ -73,18 +77,40 @@ public class URLCache {
 
 		public void update(InputStream inputStream, String etag, long modified) throws Exception {
 			IO.mkdirs(this.file.getParentFile());
-			IO.copy(inputStream, this.file);
+			// calculate the digests while the file is written so it
+			// does not have to be read again
+			try (OutputStream out = IO.outputStream(this.file)) {
+				Digester<MD5> md5 = MD5.getDigester(out);
+				Digester<SHA256> sha256 = SHA256.getDigester(md5);
+				Digester<SHA1> sha1 = SHA1.getDigester(sha256);
+				IO.copy(inputStream, sha1);
+				this.dto.sha_1 = sha1.digest()
+					.asHex();
+				this.dto.sha_256 = sha256.digest()
+					.asHex();
+				this.dto.md5 = md5.digest()
+					.asHex();
+			}
 			if (modified > 0) {
 				this.file.setLastModified(modified);
 			}
-			update(etag);
+			save(etag);
 		}
 
 		public void update(String etag) throws Exception {
-			this.dto.sha_1 = SHA1.digest(file)
+			Digester<MD5> md5 = MD5.getDigester();
+			Digester<SHA256> sha256 = SHA256.getDigester(md5);
+			this.dto.sha_1 = SHA1.getDigester(sha256)
+				.from(file)
+				.asHex();
+			this.dto.sha_256 = sha256.digest()
 				.asHex();
-			this.dto.sha_256 = SHA256.digest(file)
+			this.dto.md5 = md5.digest()
 				.asHex();
+			save(etag);
+		}
+
+		private void save(String etag) throws Exception {
 			this.dto.etag = etag;
 			this.dto.modified = file.lastModified();
 			codec.enc()
@@ -111,6 +137,14 @@ public class URLCache {
 			return dto.modified;
 		}
 
+		/**
+		 * Answer if the digests in the info are those of the file, i.e. the
+		 * file was not changed since it was stored.
+		 */
+		boolean isCurrent() {
+			return dto.sha_1 != null && file.isFile() && file.lastModified() == dto.modified;
+		}
+
 		@Override
 		public String toString() {
 			return "Info [file=" + file + ", etag=" + dto.etag + ", modified=" + Instant.ofEpochMilli(dto.modified)
@@ -160,6 +194,34 @@ public class URLCache {
 		return info;
 	}
 
+	/**
+	 * Get the digests of a cached file that were calculated when it was
+	 * stored. A repository can use these to verify a download or identify its
+	 * content without reading the file again.
+	 *
+	 * @param file the cached file
+	 * @return the info of the file or {@code null} if nothing is recorded for
+	 *         the file or it was changed since it was stored. Older entries
+	 *         do not have an MD5 digest.
+	 */
+	public InfoDTO getDigests(File file) throws Exception {
+		Info info = infos.get(file);
+		if (info == null) {
+			info = new Info(file, null);
+		}
+		if (!info.isCurrent()) {
+			return null;
+		}
+		InfoDTO dto = new InfoDTO();
+		dto.etag = info.dto.etag;
+		dto.modified = info.dto.modified;
+		dto.uri = info.dto.uri;
+		dto.sha_1 = info.dto.sha_1;
+		dto.sha_256 = info.dto.sha_256;
+		dto.md5 = info.dto.md5;
+		return dto;
+	}
+
 	public static String toName(URI uri) throws Exception {
 		return SHA1.digest(uri.toASCIIString()
 			.getBytes(StandardCharsets.UTF_8))
@@ -40,6 +40,8 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.StringJoiner;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Predicate;
 import java.util.jar.Attributes;
 import java.util.jar.Attributes.Name;
@@ -50,6 +52,8 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import org.osgi.framework.namespace.ExecutionEnvironmentNamespace;
+import org.osgi.util.promise.Promise;
+import org.osgi.util.promise.PromiseFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -62,6 +66,7 @@ import aQute.bnd.header.Attrs;
 import aQute.bnd.header.OSGiHeader;
 import aQute.bnd.header.Parameters;
 import aQute.bnd.http.HttpClient;
+import aQute.bnd.memoize.Memoize;
 import aQute.bnd.osgi.Clazz.JAVA;
 import aQute.bnd.osgi.Clazz.QUERY;
 import aQute.bnd.osgi.Descriptors.Descriptor;
@@ -133,7 +138,8 @@ public class Analyzer extends Processor {
 		PackageRef.class, true);
 	private final Contracts							contracts				= new Contracts(this);
 	private final Packages							classpathExports		= new Packages();
-	private final Descriptors						descriptors				= new Descriptors();
+	private final Memoize<Descriptors>				descriptors				= Memoize
+		.supplier(() -> new Descriptors(is(SHAREDDESCRIPTORS) ? getPlugin(Descriptors.Pool.class) : null));
 	private final List<Jar>							classpath				= list();
 	private final Map<TypeRef, Clazz>				classspace				= map();
 	private final Map<TypeRef, Clazz>				importedClassesCache	= map();
@@ -147,8 +153,10 @@ public class Analyzer extends Processor {
 	private Set<PackageRef>							nonClassReferences		= new HashSet<>();
 	private Set<Check>								checks;
 	private final Map<TypeRef, String>				bcpTypes				= map();
-	final TypeRef									providerType			= getTypeRef(
-		"org/osgi/annotation/versioning/ProviderType");
+	final Memoize<TypeRef>							providerType			= Memoize
+		.supplier(() -> getTypeRef("org/osgi/annotation/versioning/ProviderType"));
+	private final Memoize<ClazzCache>				clazzCache				= Memoize
+		.supplier(() -> getPlugin(ClazzCache.class));
 
 	public enum Check {
 		ALL,
@@ -395,7 +403,7 @@ public class Analyzer extends Processor {
 
 			// Check for use of the deprecated bnd @Export annotation
 
-			TypeRef bndAnnotation = descriptors.getTypeRefFromFQN(aQute.bnd.annotation.Export.class.getName());
+			TypeRef bndAnnotation = descriptors.get().getTypeRefFromFQN(aQute.bnd.annotation.Export.class.getName());
 			contained.keySet()
 				.stream()
 				.map(this::getPackageInfo)
@@ -553,7 +561,7 @@ public class Analyzer extends Processor {
 	private final static String STATUS_PROPERTY = "status";
 
 	private Parameters getExportedByAnnotation() {
-		TypeRef exportAnnotation = descriptors.getTypeRef("org/osgi/annotation/bundle/Export");
+		TypeRef exportAnnotation = descriptors.get().getTypeRef("org/osgi/annotation/bundle/Export");
 		Parameters exportedByAnnotation = getContained().keySet()
 			.stream()
 			.map(this::getPackageInfo)
@@ -573,7 +581,7 @@ public class Analyzer extends Processor {
 		}
 
 		Instructions instructions = new Instructions(headerAPIGuardian);
-		TypeRef apiAnnotation = descriptors.getTypeRef("org/apiguardian/api/API");
+		TypeRef apiAnnotation = descriptors.get().getTypeRef("org/apiguardian/api/API");
 		Parameters exportedByAPIGuardian = new Parameters(false);
 
 		MapStream.of(getClassspace().values()
@@ -609,7 +617,7 @@ public class Analyzer extends Processor {
 
 	// Handle org.osgi.annotation.bundle.Referenced annotation
 	private Set<PackageRef> referencesByAnnotation(Clazz clazz) {
-		TypeRef referencedAnnotation = descriptors.getTypeRef("org/osgi/annotation/bundle/Referenced");
+		TypeRef referencedAnnotation = descriptors.get().getTypeRef("org/osgi/annotation/bundle/Referenced");
 		if (clazz.annotations()
 			.contains(referencedAnnotation)) {
 			Set<PackageRef> referenced = clazz.annotations(referencedAnnotation.getBinary())
@@ -622,7 +630,7 @@ public class Analyzer extends Processor {
 	}
 
 	public Clazz getPackageInfo(PackageRef packageRef) {
-		TypeRef tr = descriptors.getPackageInfo(packageRef);
+		TypeRef tr = descriptors.get().getPackageInfo(packageRef);
 		try {
 			return findClass(tr);
 		} catch (Exception e) {
@@ -2185,7 +2193,7 @@ public class Analyzer extends Processor {
 			Clazz c = findClass(t);
 
 			return c.annotations()
-				.contains(providerType) || isProvider(c.superClass);
+				.contains(providerType.get()) || isProvider(c.superClass);
 		} catch (Exception e) {
 			return false;
 		}
@@ -2197,7 +2205,7 @@ public class Analyzer extends Processor {
 		TypeRef packageInfo = getTypeRef(packageRef.binaryName.concat("/package-info"));
 		Clazz c = findClass(packageInfo);
 		return c != null && c.annotations()
-			.contains(providerType);
+			.contains(providerType.get());
 	}
 
 	/**
@@ -2479,6 +2487,10 @@ public class Analyzer extends Processor {
 			}
 		}
 
+		ClazzCache cache = clazzCache.peek();
+		if (cache != null) {
+			cache.flush();
+		}
 		super.close();
 	}
 
@@ -2683,6 +2695,9 @@ public class Analyzer extends Processor {
 			.map(Domain::getImportPackage)
 			.orElseGet(() -> new Parameters());
 
+		Map<String, Clazz> parsed = is(PARALLELANALYSIS) ? parseClassesInParallel(jar, prefix)
+			: Collections.emptyMap();
+
 		next: for (String path : jar.getResources()
 			.keySet()) {
 			if (path.startsWith(prefix)) {
@@ -2707,8 +2722,11 @@ public class Analyzer extends Processor {
 					Clazz clazz;
 
 					try {
-						clazz = new Clazz(this, path, resource);
-						clazz.parseClassFile();
+						clazz = parsed.get(path);
+						if (clazz == null) {
+							clazz = new Clazz(this, path, resource);
+						}
+						parseClass(clazz);
 					} catch (Exception e) {
 						exception(e, "Invalid class file %s (%s)", relativePath, e);
 						continue next;
@@ -2759,6 +2777,61 @@ public class Analyzer extends Processor {
 		return true;
 	}
 
+	/**
+	 * Parse the class files in the jar under the prefix concurrently. Only the
+	 * class files which parsed successfully are returned so that analyzeJar can
+	 * process them in the jar's order and report any failures itself. This
+	 * keeps the calculated manifest identical to the serial analysis.
+	 */
+	private Map<String, Clazz> parseClassesInParallel(Jar jar, String prefix) throws Exception {
+		List<Clazz> classes = jar.getResources()
+			.entrySet()
+			.stream()
+			.filter(e -> {
+				String path = e.getKey();
+				return path.startsWith(prefix) && path.endsWith(".class")
+					&& !path.startsWith("META-INF/", prefix.length());
+			})
+			.map(e -> new Clazz(this, e.getKey(), e.getValue()))
+			.collect(toList());
+
+		int workers = Math.min(Runtime.getRuntime()
+			.availableProcessors(), classes.size());
+		if (workers < 2) {
+			return Collections.emptyMap();
+		}
+
+		// the workers must not read the properties, Processor is not thread
+		// safe
+		ClazzCache cache = clazzCache.get();
+		boolean noClassForName = is(NOCLASSFORNAME);
+		Map<String, Clazz> parsed = new ConcurrentHashMap<>(classes.size());
+		AtomicInteger next = new AtomicInteger();
+		PromiseFactory promiseFactory = getPromiseFactory();
+		List<Promise<Void>> promises = new ArrayList<>(workers);
+		for (int i = 0; i < workers; i++) {
+			promises.add(promiseFactory.submit(() -> {
+				for (int n; (n = next.getAndIncrement()) < classes.size();) {
+					Clazz clazz = classes.get(n);
+					try {
+						parseClass(clazz, cache, noClassForName);
+						parsed.put(clazz.getAbsolutePath(), clazz);
+					} catch (Exception e) {
+						// reported when analyzeJar parses the class again
+						logger.debug("Failed to parse {} in parallel", clazz.getAbsolutePath(), e);
+					}
+				}
+				return null;
+			}));
+		}
+		Throwable failure = promiseFactory.all(promises)
+			.getFailure();
+		if (failure != null) {
+			throw Exceptions.duck(failure);
+		}
+		return parsed;
+	}
+
 	/**
 	 * Clean up version parameters. Other builders use more fuzzy definitions of
 	 * the version syntax. This method cleans up such a version to match an OSGi
@@ -2977,7 +3050,7 @@ public class Analyzer extends Processor {
 		for (Entry<PackageRef, Attrs> entry : scope.entrySet()) {
 			PackageRef pkg = entry.getKey();
 
-			TypeRef pkgInfoTypeRef = descriptors.getPackageInfo(pkg);
+			TypeRef pkgInfoTypeRef = descriptors.get().getPackageInfo(pkg);
 			Clazz pkgInfo = classspace.get(pkgInfoTypeRef);
 			boolean accept = false;
 			if (queryType != null) {
@@ -3104,12 +3177,32 @@ public class Analyzer extends Processor {
 		}
 		if (r != null) {
 			c = new Clazz(this, typeRef.getPath(), r);
-			c.parseClassFile();
+			parseClass(c);
 			importedClassesCache.put(typeRef, c);
 		}
 		return c;
 	}
 
+	/**
+	 * Parse the class file or, if a {@link ClazzCache} plugin is available,
+	 * restore the analysis of an identical class file parsed before.
+	 */
+	private void parseClass(Clazz clazz) throws Exception {
+		parseClass(clazz, clazzCache.get(), is(NOCLASSFORNAME));
+	}
+
+	/*
+	 * Does not read the properties of the analyzer so that it can be called
+	 * by the workers of parseClassesInParallel.
+	 */
+	private static void parseClass(Clazz clazz, ClazzCache cache, boolean noClassForName) throws Exception {
+		if (cache != null) {
+			cache.parse(clazz, noClassForName);
+		} else {
+			clazz.parseClassFile(noClassForName);
+		}
+	}
+
 	/**
 	 * Answer the bundle version.
 	 */
@@ -3137,7 +3230,7 @@ public class Analyzer extends Processor {
 	}
 
 	public void referToByBinaryName(String binaryClassName) {
-		TypeRef ref = descriptors.getTypeRef(binaryClassName);
+		TypeRef ref = descriptors.get().getTypeRef(binaryClassName);
 		referTo(ref);
 	}
 
@@ -3213,39 +3306,39 @@ public class Analyzer extends Processor {
 	}
 
 	public Descriptor getDescriptor(String descriptor) {
-		return descriptors.getDescriptor(descriptor);
+		return descriptors.get().getDescriptor(descriptor);
 	}
 
 	public TypeRef getTypeRef(String binaryClassName) {
-		return descriptors.getTypeRef(binaryClassName);
+		return descriptors.get().getTypeRef(binaryClassName);
 	}
 
 	public PackageRef getPackageRef(String binaryName) {
-		return descriptors.getPackageRef(binaryName);
+		return descriptors.get().getPackageRef(binaryName);
 	}
 
 	public TypeRef getTypeRefFrom(Class<?> clazz) {
-		return descriptors.getTypeRefFromFQN(clazz.getName());
+		return descriptors.get().getTypeRefFromFQN(clazz.getName());
 	}
 
 	public TypeRef getTypeRefFromFQN(String fqn) {
-		return descriptors.getTypeRefFromFQN(fqn);
+		return descriptors.get().getTypeRefFromFQN(fqn);
 	}
 
 	public TypeRef getTypeRefFromPath(String path) {
-		return descriptors.getTypeRefFromPath(path);
+		return descriptors.get().getTypeRefFromPath(path);
 	}
 
 	public ClassSignature getClassSignature(String signature) {
-		return descriptors.getClassSignature(signature);
+		return descriptors.get().getClassSignature(signature);
 	}
 
 	public MethodSignature getMethodSignature(String signature) {
-		return descriptors.getMethodSignature(signature);
+		return descriptors.get().getMethodSignature(signature);
 	}
 
 	public FieldSignature getFieldSignature(String signature) {
-		return descriptors.getFieldSignature(signature);
+		return descriptors.get().getFieldSignature(signature);
 	}
 
 	public boolean isImported(PackageRef packageRef) {
@@ -16,6 +16,8 @@ import aQute.service.reporter.Reporter;
  * looking for annotations and other stuff. In the early days, the parser tried
  * to not do full parsing to minimize the cost but basically we are now parsing
  * more than necessary because different places began parsing on their own.
+ * A class records its visit the first time so the visits of the other places
+ * are replayed from memory.
  */
 class ClassDataCollectors implements Closeable {
 	final List<ClassDataCollector>	delegates	= new ArrayList<>();
@@ -19,12 +19,14 @@ import static java.util.stream.Collectors.toSet;
 
 import java.io.DataInput;
 import java.io.DataInputStream;
+import java.io.DataOutput;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.annotation.RetentionPolicy;
 import java.lang.reflect.Modifier;
 import java.nio.ByteBuffer;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
@@ -43,6 +45,7 @@ import java.util.Spliterators.AbstractSpliterator;
 import java.util.function.Consumer;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
 
@@ -462,6 +465,22 @@ public class Clazz {
 			type = analyzer.getTypeRef(classFile.this_class);
 		}
 
+		/**
+		 * A class definition restored from a summary. The attributes are only
+		 * available after the class file has been parsed so we parse it on
+		 * demand.
+		 */
+		ClassDef(int access, TypeRef type) {
+			super(access, null);
+			this.type = type;
+		}
+
+		@Override
+		Attribute[] attributes() {
+			Attribute[] attributes = super.attributes();
+			return (attributes != null) ? attributes : classFile().attributes;
+		}
+
 		String getSourceFile() {
 			return attribute(SourceFileAttribute.class).map(a -> a.sourcefile)
 				.orElse(null);
@@ -746,16 +765,22 @@ public class Clazz {
 	}
 
 	public static final Comparator<Clazz>	NAME_COMPARATOR					= (Clazz a,
-		Clazz b) -> a.classFile.this_class.compareTo(b.classFile.this_class);
+		Clazz b) -> a.classDef.getType()
+			.getBinary()
+			.compareTo(b.classDef.getType()
+				.getBinary());
 
 	private boolean							hasRuntimeAnnotations;
 	private boolean							hasClassAnnotations;
 	private boolean							hasDefaultConstructor;
+	private int								minorVersion;
+	private int								majorVersion;
 
 	private Set<PackageRef>					imports							= Create.set();
 	private Set<TypeRef>					xref							= new HashSet<>();
 	private Set<TypeRef>					annotations;
 	private int								forName							= 0;
+	private boolean							noClassForName;
 	private int								class$							= 0;
 	private Set<PackageRef>					api;
 
@@ -766,6 +791,7 @@ public class Clazz {
 	ClassDef								classDef;
 
 	private Map<TypeRef, Integer>			referred						= null;
+	private volatile Visit[]				visits							= null;
 
 	final Analyzer							analyzer;
 	final String							path;
@@ -788,36 +814,85 @@ public class Clazz {
 		return parseClassFile(in, null);
 	}
 
+	/**
+	 * Parse the class file with the value of {@link Constants#NOCLASSFORNAME}
+	 * read by the caller, so that the properties of the analyzer are not read
+	 * when classes are parsed concurrently.
+	 */
+	Set<TypeRef> parseClassFile(boolean noClassForName) throws Exception {
+		return parseClassFileWithCollector(null, noClassForName);
+	}
+
 	public Set<TypeRef> parseClassFileWithCollector(ClassDataCollector cd) throws Exception {
+		return parseClassFileWithCollector(cd, analyzer.is(Constants.NOCLASSFORNAME));
+	}
+
+	private Set<TypeRef> parseClassFileWithCollector(ClassDataCollector cd, boolean noClassForName)
+		throws Exception {
+		if (classDef != null) {
+			// parsed or restored from a summary
+			visitClassFile(cd);
+			return xref;
+		}
 		ByteBuffer bb = resource.buffer();
 		if (bb != null) {
-			return parseClassFileData(ByteBufferDataInput.wrap(bb), cd);
+			return parseClassFileData(ByteBufferDataInput.wrap(bb), cd, noClassForName);
+		}
+		try (DataInputStream din = new DataInputStream(resource.openInputStream())) {
+			return parseClassFileData(din, cd, noClassForName);
+		}
+	}
+
+	/**
+	 * Return the parsed class file. A Clazz restored from a summary is parsed
+	 * when details of the class file are needed.
+	 */
+	private ClassFile classFile() {
+		ClassFile cf = classFile;
+		if (cf != null) {
+			return cf;
+		}
+		try {
+			ByteBuffer bb = resource.buffer();
+			if (bb != null) {
+				parseClassFileData(ByteBufferDataInput.wrap(bb), noClassForName);
+			} else {
+				try (DataInputStream din = new DataInputStream(resource.openInputStream())) {
+					parseClassFileData(din, noClassForName);
+				}
+			}
+		} catch (Exception e) {
+			throw Exceptions.duck(e);
 		}
-		return parseClassFile(resource.openInputStream(), cd);
+		return classFile;
 	}
 
 	public Set<TypeRef> parseClassFile(InputStream in, ClassDataCollector cd) throws Exception {
 		try (DataInputStream din = new DataInputStream(in)) {
-			return parseClassFileData(din, cd);
+			return parseClassFileData(din, cd, analyzer.is(Constants.NOCLASSFORNAME));
 		}
 	}
 
-	private Set<TypeRef> parseClassFileData(DataInput in, ClassDataCollector cd) throws Exception {
-		Set<TypeRef> xref = parseClassFileData(in);
+	private Set<TypeRef> parseClassFileData(DataInput in, ClassDataCollector cd, boolean noClassForName)
+		throws Exception {
+		Set<TypeRef> xref = parseClassFileData(in, noClassForName);
 		visitClassFile(cd);
 		return xref;
 	}
 
-	private synchronized Set<TypeRef> parseClassFileData(DataInput in) throws Exception {
+	private synchronized Set<TypeRef> parseClassFileData(DataInput in, boolean noClassForName) throws Exception {
 		if (classFile != null) {
 			return xref;
 		}
+		this.noClassForName = noClassForName;
 
 		logger.debug("parseClassFile(): path={} resource={}", path, resource);
 
 		classFile = ClassFile.parseClassFile(in);
 		classDef = new ClassDef(classFile);
 		constantPool = classFile.constant_pool;
+		minorVersion = classFile.minor_version;
+		majorVersion = classFile.major_version;
 		referred = new HashMap<>(constantPool.size());
 
 		if (classDef.isPublic()) {
@@ -886,7 +961,7 @@ public class Clazz {
 		//
 		// We calculate the method reference index so we can do this
 		// efficiently during code inspection.
-		forName = analyzer.is(Constants.NOCLASSFORNAME) ? -1
+		forName = noClassForName ? -1
 			: findMethodReference("java/lang/Class", "forName", "(Ljava/lang/String;)Ljava/lang/Class;");
 		class$ = findMethodReference(classFile.this_class, "class$", "(Ljava/lang/String;)Ljava/lang/Class;");
 
@@ -905,6 +980,14 @@ public class Clazz {
 		return xref;
 	}
 
+	/**
+	 * A call on a collector that was recorded when the class was visited.
+	 */
+	@FunctionalInterface
+	private interface Visit {
+		void accept(ClassDataCollector cd) throws Exception;
+	}
+
 	private void visitClassFile(ClassDataCollector cd) throws Exception {
 		if (cd == null) {
 			return;
@@ -915,46 +998,98 @@ public class Clazz {
 			return;
 		}
 		try {
-			cd.version(classFile.minor_version, classFile.major_version);
-			if (superClass != null) {
-				cd.extendsClass(superClass);
+			for (Visit visit : visits()) {
+				visit.accept(cd);
 			}
-			if (interfaces != null) {
-				cd.implementsInterfaces(interfaces);
+		} finally {
+			cd.classEnd();
+		}
+	}
+
+	/**
+	 * Return the calls to make on a collector that visits this class. They
+	 * are recorded from the class file by the first visit, later collectors
+	 * are replayed from memory and do not decode the attributes and crawl the
+	 * byte code again.
+	 */
+	private Visit[] visits() throws Exception {
+		Visit[] v = visits;
+		if (v == null) {
+			synchronized (this) {
+				v = visits;
+				if (v == null) {
+					visits = v = recordVisits();
+				}
 			}
+		}
+		return v;
+	}
 
-			referred.forEach((typeRef, access) -> {
-				cd.addReference(typeRef);
-				cd.referTo(typeRef, access.intValue());
-			});
+	private Visit[] recordVisits() throws Exception {
+		ClassFile classFile = classFile();
+		List<Visit> visits = new ArrayList<>();
+		visits.add(cd -> cd.version(minorVersion, majorVersion));
+		if (superClass != null) {
+			visits.add(cd -> cd.extendsClass(superClass));
+		}
+		if (interfaces != null) {
+			visits.add(cd -> cd.implementsInterfaces(interfaces));
+		}
 
-			for (FieldInfo fieldInfo : classFile.fields) {
-				FieldDef fieldDef = new FieldDef(fieldInfo);
-				cd.field(fieldDef);
-				visitAttributes(cd, fieldDef);
-			}
+		visits.add(cd -> referred.forEach((typeRef, access) -> {
+			cd.addReference(typeRef);
+			cd.referTo(typeRef, access.intValue());
+		}));
 
-			for (MethodInfo methodInfo : classFile.methods) {
-				MethodDef methodDef = new MethodDef(methodInfo);
-				cd.method(methodDef);
-				visitAttributes(cd, methodDef);
-			}
+		for (FieldInfo fieldInfo : classFile.fields) {
+			FieldDef fieldDef = new FieldDef(fieldInfo);
+			visits.add(cd -> cd.field(fieldDef));
+			recordAttributes(visits, fieldDef);
+		}
 
-			cd.memberEnd();
+		for (MethodInfo methodInfo : classFile.methods) {
+			MethodDef methodDef = new MethodDef(methodInfo);
+			visits.add(cd -> cd.method(methodDef));
+			recordAttributes(visits, methodDef);
+		}
 
-			visitAttributes(cd, classDef);
-		} finally {
-			cd.classEnd();
+		visits.add(ClassDataCollector::memberEnd);
+
+		recordAttributes(visits, classDef);
+		return visits.toArray(new Visit[0]);
+	}
+
+	/**
+	 * Collectors can change the annotations they receive so each gets its own
+	 * copy of a recorded annotation or element value.
+	 */
+	private static Object copy(Object value) {
+		if (value instanceof Annotation annotation) {
+			Map<String, Object> elements = new LinkedHashMap<>();
+			for (Map.Entry<String, Object> entry : annotation.entrySet()) {
+				elements.put(entry.getKey(), copy(entry.getValue()));
+			}
+			return new Annotation(annotation.getName(), elements, annotation.elementType(),
+				annotation.getRetentionPolicy());
+		} else if (value instanceof Object[] array) {
+			int num_values = array.length;
+			Object[] result = new Object[num_values];
+			for (int i = 0; i < num_values; i++) {
+				result[i] = copy(array[i]);
+			}
+			return result;
+		} else {
+			return value;
 		}
 	}
 
 	public Stream<FieldDef> fields() {
-		return Arrays.stream(classFile.fields)
+		return Arrays.stream(classFile().fields)
 			.map(FieldDef::new);
 	}
 
 	public Stream<MethodDef> methods() {
-		return Arrays.stream(classFile.methods)
+		return Arrays.stream(classFile().methods)
 			.map(MethodDef::new);
 	}
 
@@ -1046,58 +1181,58 @@ public class Clazz {
 	/**
 	 * Called for the attributes in the class, field, or method.
 	 */
-	private void visitAttributes(ClassDataCollector cd, ElementDef elementDef) throws Exception {
+	private void recordAttributes(List<Visit> visits, ElementDef elementDef) throws Exception {
 		int access_flags = elementDef.getAccess();
 		ElementType elementType = elementDef.elementType();
 		if (elementDef.isDeprecated()) {
-			cd.deprecated();
+			visits.add(ClassDataCollector::deprecated);
 		}
 		for (Attribute attribute : elementDef.attributes()) {
 			switch (attribute.name()) {
 				case RuntimeVisibleAnnotationsAttribute.NAME :
-					visitAnnotations(cd, (AnnotationsAttribute) attribute, elementType, RetentionPolicy.RUNTIME,
+					recordAnnotations(visits, (AnnotationsAttribute) attribute, elementType, RetentionPolicy.RUNTIME,
 						access_flags);
 					break;
 				case RuntimeInvisibleAnnotationsAttribute.NAME :
-					visitAnnotations(cd, (AnnotationsAttribute) attribute, elementType, RetentionPolicy.CLASS,
+					recordAnnotations(visits, (AnnotationsAttribute) attribute, elementType, RetentionPolicy.CLASS,
 						access_flags);
 					break;
 				case RuntimeVisibleParameterAnnotationsAttribute.NAME :
-					visitParameterAnnotations(cd, (ParameterAnnotationsAttribute) attribute, ElementType.PARAMETER,
+					recordParameterAnnotations(visits, (ParameterAnnotationsAttribute) attribute, ElementType.PARAMETER,
 						RetentionPolicy.RUNTIME, access_flags);
 					break;
 				case RuntimeInvisibleParameterAnnotationsAttribute.NAME :
-					visitParameterAnnotations(cd, (ParameterAnnotationsAttribute) attribute, ElementType.PARAMETER,
+					recordParameterAnnotations(visits, (ParameterAnnotationsAttribute) attribute, ElementType.PARAMETER,
 						RetentionPolicy.CLASS, access_flags);
 					break;
 				case RuntimeVisibleTypeAnnotationsAttribute.NAME :
-					visitTypeAnnotations(cd, (TypeAnnotationsAttribute) attribute, ElementType.TYPE_USE,
+					recordTypeAnnotations(visits, (TypeAnnotationsAttribute) attribute, ElementType.TYPE_USE,
 						RetentionPolicy.RUNTIME, access_flags);
 					break;
 				case RuntimeInvisibleTypeAnnotationsAttribute.NAME :
-					visitTypeAnnotations(cd, (TypeAnnotationsAttribute) attribute, ElementType.TYPE_USE,
+					recordTypeAnnotations(visits, (TypeAnnotationsAttribute) attribute, ElementType.TYPE_USE,
 						RetentionPolicy.CLASS, access_flags);
 					break;
 				case InnerClassesAttribute.NAME :
-					visitInnerClasses(cd, (InnerClassesAttribute) attribute);
+					recordInnerClasses(visits, (InnerClassesAttribute) attribute);
 					break;
 				case EnclosingMethodAttribute.NAME :
-					visitEnclosingMethod(cd, (EnclosingMethodAttribute) attribute);
+					recordEnclosingMethod(visits, (EnclosingMethodAttribute) attribute);
 					break;
 				case CodeAttribute.NAME :
-					visitCode(cd, (CodeAttribute) attribute, elementType);
+					recordCode(visits, (CodeAttribute) attribute, elementType);
 					break;
 				case SignatureAttribute.NAME :
-					visitSignature(cd, (SignatureAttribute) attribute);
+					recordSignature(visits, (SignatureAttribute) attribute);
 					break;
 				case ConstantValueAttribute.NAME :
-					visitConstantValue(cd, (ConstantValueAttribute) attribute);
+					recordConstantValue(visits, (ConstantValueAttribute) attribute);
 					break;
 				case AnnotationDefaultAttribute.NAME :
-					visitAnnotationDefault(cd, (AnnotationDefaultAttribute) attribute, elementDef);
+					recordAnnotationDefault(visits, (AnnotationDefaultAttribute) attribute, elementDef);
 					break;
 				case MethodParametersAttribute.NAME :
-					visitMethodParameters(cd, (MethodParametersAttribute) attribute, elementDef);
+					recordMethodParameters(visits, (MethodParametersAttribute) attribute, elementDef);
 					break;
 				default :
 					break;
@@ -1109,12 +1244,12 @@ public class Clazz {
 		classConstRef(attribute.class_name);
 	}
 
-	private void visitEnclosingMethod(ClassDataCollector cd, EnclosingMethodAttribute attribute) {
+	private void recordEnclosingMethod(List<Visit> visits, EnclosingMethodAttribute attribute) {
 		TypeRef cName = analyzer.getTypeRef(attribute.class_name);
-		cd.enclosingMethod(cName, attribute.method_name, attribute.method_descriptor);
+		visits.add(cd -> cd.enclosingMethod(cName, attribute.method_name, attribute.method_descriptor));
 	}
 
-	private void visitInnerClasses(ClassDataCollector cd, InnerClassesAttribute attribute) throws Exception {
+	private void recordInnerClasses(List<Visit> visits, InnerClassesAttribute attribute) {
 		for (InnerClass innerClassInfo : attribute.classes) {
 			TypeRef innerClass = analyzer.getTypeRef(innerClassInfo.inner_class);
 			TypeRef outerClass;
@@ -1125,7 +1260,8 @@ public class Clazz {
 				outerClass = null;
 			}
 
-			cd.innerClass(innerClass, outerClass, innerClassInfo.inner_name, innerClassInfo.inner_access);
+			visits.add(
+				cd -> cd.innerClass(innerClass, outerClass, innerClassInfo.inner_name, innerClassInfo.inner_access));
 		}
 	}
 
@@ -1148,9 +1284,9 @@ public class Clazz {
 		}
 	}
 
-	private void visitSignature(ClassDataCollector cd, SignatureAttribute attribute) {
+	private void recordSignature(List<Visit> visits, SignatureAttribute attribute) {
 		String signature = attribute.signature;
-		cd.signature(signature);
+		visits.add(cd -> cd.signature(signature));
 	}
 
 	private void processAnnotationDefault(AnnotationDefaultAttribute attribute, ElementType elementType,
@@ -1159,11 +1295,11 @@ public class Clazz {
 		processElementValue(value, elementType, RetentionPolicy.RUNTIME, access_flags);
 	}
 
-	private void visitAnnotationDefault(ClassDataCollector cd, AnnotationDefaultAttribute attribute,
+	private void recordAnnotationDefault(List<Visit> visits, AnnotationDefaultAttribute attribute,
 		ElementDef elementDef) {
 		MethodDef methodDef = (MethodDef) elementDef;
 		Object value = annotationDefault(attribute, methodDef.getAccess());
-		cd.annotationDefault(methodDef, value);
+		visits.add(cd -> cd.annotationDefault(methodDef, copy(value)));
 	}
 
 	static ElementType elementType(FieldInfo fieldInfo) {
@@ -1192,9 +1328,9 @@ public class Clazz {
 		}
 	}
 
-	private void visitConstantValue(ClassDataCollector cd, ConstantValueAttribute attribute) {
+	private void recordConstantValue(List<Visit> visits, ConstantValueAttribute attribute) {
 		Object value = attribute.value;
-		cd.constant(value);
+		visits.add(cd -> cd.constant(value));
 	}
 
 	private void processExceptions(ExceptionsAttribute attribute, int access_flags) {
@@ -1204,10 +1340,11 @@ public class Clazz {
 		}
 	}
 
-	private void visitMethodParameters(ClassDataCollector cd, MethodParametersAttribute attribute,
+	private void recordMethodParameters(List<Visit> visits, MethodParametersAttribute attribute,
 		ElementDef elementDef) {
 		MethodDef method = (MethodDef) elementDef;
-		cd.methodParameters(method, MethodParameter.parameters(attribute));
+		MethodParameter[] parameters = MethodParameter.parameters(attribute);
+		visits.add(cd -> cd.methodParameters(method, parameters.clone()));
 	}
 
 	private void processCode(CodeAttribute attribute, ElementType elementType) {
@@ -1301,7 +1438,8 @@ public class Clazz {
 		processAttributes(attribute.attributes, elementType, 0);
 	}
 
-	private void visitCode(ClassDataCollector cd, CodeAttribute attribute, ElementType elementType) throws Exception {
+	private void recordCode(List<Visit> visits, CodeAttribute attribute, ElementType elementType) throws Exception {
+		IntStream.Builder methodRefs = IntStream.builder();
 		ByteBuffer code = attribute.code.duplicate();
 		code.rewind();
 		while (code.hasRemaining()) {
@@ -1309,23 +1447,23 @@ public class Clazz {
 			switch (instruction) {
 				case OpCodes.invokespecial : {
 					int method_ref_index = Short.toUnsignedInt(code.getShort());
-					visitReferenceMethod(cd, method_ref_index);
+					methodRefs.add(method_ref_index);
 					break;
 				}
 				case OpCodes.invokevirtual : {
 					int method_ref_index = Short.toUnsignedInt(code.getShort());
-					visitReferenceMethod(cd, method_ref_index);
+					methodRefs.add(method_ref_index);
 					break;
 				}
 				case OpCodes.invokeinterface : {
 					int method_ref_index = Short.toUnsignedInt(code.getShort());
-					visitReferenceMethod(cd, method_ref_index);
+					methodRefs.add(method_ref_index);
 					code.position(code.position() + 2);
 					break;
 				}
 				case OpCodes.invokestatic : {
 					int method_ref_index = Short.toUnsignedInt(code.getShort());
-					visitReferenceMethod(cd, method_ref_index);
+					methodRefs.add(method_ref_index);
 					break;
 				}
 				case OpCodes.wide : {
@@ -1363,8 +1501,18 @@ public class Clazz {
 			}
 		}
 
+		int[] method_ref_indexes = methodRefs.build()
+			.toArray();
+		if (method_ref_indexes.length > 0) {
+			visits.add(cd -> {
+				for (int method_ref_index : method_ref_indexes) {
+					visitReferenceMethod(cd, method_ref_index);
+				}
+			});
+		}
+
 		CodeDef codeDef = new CodeDef(attribute, elementType);
-		visitAttributes(cd, codeDef);
+		recordAttributes(visits, codeDef);
 	}
 
 	/**
@@ -1389,14 +1537,15 @@ public class Clazz {
 		}
 	}
 
-	private void visitParameterAnnotations(ClassDataCollector cd, ParameterAnnotationsAttribute attribute,
-		ElementType elementType, RetentionPolicy policy, int access_flags) throws Exception {
+	private void recordParameterAnnotations(List<Visit> visits, ParameterAnnotationsAttribute attribute,
+		ElementType elementType, RetentionPolicy policy, int access_flags) {
 		for (ParameterAnnotationInfo parameterAnnotationInfo : attribute.parameter_annotations) {
 			if (parameterAnnotationInfo.annotations.length > 0) {
-				cd.parameter(parameterAnnotationInfo.parameter);
+				int parameter = parameterAnnotationInfo.parameter;
+				visits.add(cd -> cd.parameter(parameter));
 				for (AnnotationInfo annotationInfo : parameterAnnotationInfo.annotations) {
 					Annotation annotation = newAnnotation(annotationInfo, elementType, policy, access_flags);
-					cd.annotation(annotation);
+					visits.add(cd -> cd.annotation((Annotation) copy(annotation)));
 				}
 			}
 		}
@@ -1409,13 +1558,13 @@ public class Clazz {
 		}
 	}
 
-	private void visitTypeAnnotations(ClassDataCollector cd, TypeAnnotationsAttribute attribute,
-		ElementType elementType, RetentionPolicy policy, int access_flags) throws Exception {
+	private void recordTypeAnnotations(List<Visit> visits, TypeAnnotationsAttribute attribute,
+		ElementType elementType, RetentionPolicy policy, int access_flags) {
 		for (TypeAnnotationInfo typeAnnotationInfo : attribute.type_annotations) {
-			cd.typeuse(typeAnnotationInfo.target_type, typeAnnotationInfo.target_index, typeAnnotationInfo.target_info,
-				typeAnnotationInfo.type_path);
+			visits.add(cd -> cd.typeuse(typeAnnotationInfo.target_type, typeAnnotationInfo.target_index,
+				typeAnnotationInfo.target_info, typeAnnotationInfo.type_path));
 			Annotation annotation = newAnnotation(typeAnnotationInfo, elementType, policy, access_flags);
-			cd.annotation(annotation);
+			visits.add(cd -> cd.annotation((Annotation) copy(annotation)));
 		}
 	}
 
@@ -1426,11 +1575,11 @@ public class Clazz {
 		}
 	}
 
-	private void visitAnnotations(ClassDataCollector cd, AnnotationsAttribute attribute, ElementType elementType,
-		RetentionPolicy policy, int access_flags) throws Exception {
+	private void recordAnnotations(List<Visit> visits, AnnotationsAttribute attribute, ElementType elementType,
+		RetentionPolicy policy, int access_flags) {
 		for (AnnotationInfo annotationInfo : attribute.annotations) {
 			Annotation annotation = newAnnotation(annotationInfo, elementType, policy, access_flags);
-			cd.annotation(annotation);
+			visits.add(cd -> cd.annotation((Annotation) copy(annotation)));
 		}
 	}
 
@@ -1794,7 +1943,7 @@ public class Clazz {
 			}
 			case VERSION -> {
 				requireNonNull(instr);
-				String v = classFile.major_version + "." + classFile.minor_version;
+				String v = majorVersion + "." + minorVersion;
 				yield instr.matches(v) ^ instr.isNegated();
 			}
 			case IMPLEMENTS -> {
@@ -1906,7 +2055,7 @@ public class Clazz {
 	}
 
 	public JAVA getFormat() {
-		return JAVA.format(classFile.major_version);
+		return JAVA.format(majorVersion);
 
 	}
 
@@ -2085,6 +2234,102 @@ public class Clazz {
 		return resource;
 	}
 
+	/**
+	 * Write a summary of the analysis of this class. The summary holds the
+	 * information gathered by parsing the class file so that it can be
+	 * restored with {@link #readSummary(DataInput, boolean)} without parsing the class
+	 * file again.
+	 */
+	void writeSummary(DataOutput out) throws IOException {
+		out.writeUTF(classDef.getType()
+			.getBinary());
+		out.writeInt(classDef.getAccess());
+		out.writeShort(minorVersion);
+		out.writeShort(majorVersion);
+		out.writeUTF((superClass != null) ? superClass.getBinary() : "");
+		writeTypes(out, interfaces());
+		out.writeByte((hasRuntimeAnnotations ? 1 : 0) | (hasClassAnnotations ? 2 : 0) | (hasDefaultConstructor ? 4 : 0));
+		writeTypes(out, xref);
+		writePackages(out, imports);
+		out.writeBoolean(annotations != null);
+		if (annotations != null) {
+			writeTypes(out, annotations);
+		}
+		out.writeBoolean(api != null);
+		if (api != null) {
+			writePackages(out, api);
+		}
+	}
+
+	/**
+	 * Restore the analysis of this class from a summary written by
+	 * {@link #writeSummary(DataOutput)}. The class file is only parsed later
+	 * if information is needed which is not part of the summary.
+	 *
+	 * @param noClassForName the value of {@link Constants#NOCLASSFORNAME} the
+	 *            summary was written with
+	 */
+	void readSummary(DataInput in, boolean noClassForName) throws IOException {
+		TypeRef type = analyzer.getTypeRef(in.readUTF());
+		int access = in.readInt();
+		int minor = in.readUnsignedShort();
+		int major = in.readUnsignedShort();
+		String superName = in.readUTF();
+		List<TypeRef> interfaceRefs = readTypes(in, new ArrayList<>());
+		int flags = in.readUnsignedByte();
+		Set<TypeRef> xrefs = readTypes(in, new HashSet<>());
+		Set<PackageRef> importRefs = readPackages(in, Create.set());
+		Set<TypeRef> annotationRefs = in.readBoolean() ? readTypes(in, new HashSet<>()) : null;
+		Set<PackageRef> apiRefs = in.readBoolean() ? readPackages(in, new HashSet<>()) : null;
+
+		synchronized (this) {
+			if (classDef != null) {
+				return;
+			}
+			minorVersion = minor;
+			majorVersion = major;
+			superClass = superName.isEmpty() ? null : analyzer.getTypeRef(superName);
+			interfaces = interfaceRefs.isEmpty() ? null : interfaceRefs.toArray(new TypeRef[0]);
+			hasRuntimeAnnotations = (flags & 1) != 0;
+			hasClassAnnotations = (flags & 2) != 0;
+			hasDefaultConstructor = (flags & 4) != 0;
+			xref.addAll(xrefs);
+			imports.addAll(importRefs);
+			annotations = annotationRefs;
+			api = apiRefs;
+			classDef = new ClassDef(access, type);
+			this.noClassForName = noClassForName;
+		}
+	}
+
+	private static void writeTypes(DataOutput out, Collection<TypeRef> types) throws IOException {
+		out.writeInt(types.size());
+		for (TypeRef type : types) {
+			out.writeUTF(type.getBinary());
+		}
+	}
+
+	private <C extends Collection<TypeRef>> C readTypes(DataInput in, C types) throws IOException {
+		for (int n = in.readInt(); n > 0; n--) {
+			types.add(analyzer.getTypeRef(in.readUTF()));
+		}
+		return types;
+	}
+
+	private static void writePackages(DataOutput out, Collection<PackageRef> packages) throws IOException {
+		out.writeInt(packages.size());
+		for (PackageRef packageRef : packages) {
+			out.writeUTF(packageRef.getBinary());
+		}
+	}
+
+	private <C extends Collection<PackageRef>> C readPackages(DataInput in, C packages) throws IOException {
+		for (int n = in.readInt(); n > 0; n--) {
+			packages.add(analyzer.getPackageRef(in.readUTF()));
+		}
+		return packages;
+	}
+
 	/**
 	 * Convenience method to parse a class file from a Resource
 	 */
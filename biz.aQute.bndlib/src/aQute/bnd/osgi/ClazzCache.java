@@ -0,0 +1,268 @@
+package aQute.bnd.osgi;
+
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.security.MessageDigest;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import aQute.lib.io.ByteBufferDataInput;
+import aQute.lib.io.ByteBufferOutputStream;
+import aQute.lib.io.IO;
+import aQute.libg.cryptography.SHA256;
+
+/**
+ * A persistent cache of the analysis of class files. The summary of a parsed
+ * {@link Clazz}, its references, annotations and API uses, is stored keyed by
+ * the SHA-256 digest of the class file. An Analyzer that finds this cache as a
+ * plugin restores a Clazz from its summary instead of parsing the class file.
+ * <p>
+ * The cache is a single file of digest and summary records. It is loaded
+ * once and new summaries are appended to it on {@link #flush()} while holding
+ * a file lock so that builds in different processes can share the cache. The
+ * file starts with the bnd version that wrote it, a cache written by another
+ * version of bnd is discarded since the parsing of the class files may have
+ * changed.
+ */
+public class ClazzCache implements Closeable {
+	private final static Logger			logger		= LoggerFactory.getLogger(ClazzCache.class);
+	private final static int			MAGIC		= 0xBDCA0002;
+	private final static int			DIGEST_SIZE	= 32;
+	private final static long			MAX_SIZE	= 64L * 1024L * 1024L;
+	private final static int			MAX_SUMMARY	= 1024 * 1024;
+
+	private final File					file;
+	private final Map<SHA256, byte[]>	summaries	= new ConcurrentHashMap<>();
+	private final Map<SHA256, byte[]>	pending		= new ConcurrentHashMap<>();
+	private final AtomicInteger			parsed		= new AtomicInteger();
+	private volatile boolean			loaded;
+
+	public ClazzCache(File file) {
+		this.file = file;
+	}
+
+	/**
+	 * Parse the class or restore it from the cache if a class file with the
+	 * same digest was parsed before.
+	 */
+	public void parse(Clazz clazz) throws Exception {
+		parse(clazz, clazz.analyzer.is(Constants.NOCLASSFORNAME));
+	}
+
+	/**
+	 * Parse the class or restore it from the cache with the value of
+	 * {@link Constants#NOCLASSFORNAME} read by the caller.
+	 */
+	void parse(Clazz clazz, boolean noClassForName) throws Exception {
+		if (clazz.classDef != null) {
+			return;
+		}
+		SHA256 key = key(clazz, noClassForName);
+		byte[] summary = summaries().get(key);
+		if (summary != null) {
+			try {
+				clazz.readSummary(ByteBufferDataInput.wrap(summary), noClassForName);
+				return;
+			} catch (Exception e) {
+				logger.debug("Unable to restore {} from the cache", clazz.getAbsolutePath(), e);
+				summaries.remove(key);
+			}
+		}
+		clazz.parseClassFile(noClassForName);
+		parsed.incrementAndGet();
+		ByteBufferOutputStream bout = new ByteBufferOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bout)) {
+			clazz.writeSummary(out);
+		}
+		summary = bout.toByteArray();
+		summaries.put(key, summary);
+		pending.put(key, summary);
+	}
+
+	/**
+	 * Return the number of class files this cache parsed because their
+	 * analysis was not cached.
+	 */
+	public int getParsedCount() {
+		return parsed.get();
+	}
+
+	/**
+	 * The key is the digest of the class file bytes and the settings of the
+	 * analyzer which influence the parsing.
+	 */
+	private static SHA256 key(Clazz clazz, boolean noClassForName) throws Exception {
+		MessageDigest md = MessageDigest.getInstance(SHA256.ALGORITHM);
+		ByteBuffer bb = clazz.resource.buffer();
+		if (bb != null) {
+			md.update(bb.duplicate());
+		} else {
+			md.update(IO.read(clazz.resource.openInputStream()));
+		}
+		md.update((byte) (noClassForName ? 1 : 0));
+		return new SHA256(md.digest());
+	}
+
+	private Map<SHA256, byte[]> summaries() {
+		if (!loaded) {
+			synchronized (this) {
+				if (!loaded) {
+					load();
+					loaded = true;
+				}
+			}
+		}
+		return summaries;
+	}
+
+	private void load() {
+		if (!file.isFile()) {
+			return;
+		}
+		if (file.length() > MAX_SIZE) {
+			logger.debug("Discarding class cache {} since it is too large", file);
+			IO.delete(file);
+			return;
+		}
+		boolean discard = false;
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(IO.stream(file)))) {
+			if (!readHeader(in)) {
+				logger.debug("Discarding class cache {} written by another version of bnd", file);
+				discard = true;
+			} else {
+				discard = !readSummaries(in);
+			}
+		} catch (EOFException e) {
+			// end of the cache or a partially written record
+		} catch (Exception e) {
+			logger.debug("Failed to read class cache {}", file, e);
+		}
+		if (discard) {
+			summaries.clear();
+			IO.delete(file);
+		}
+	}
+
+	private static boolean readHeader(DataInputStream in) throws IOException {
+		return (in.readInt() == MAGIC) && in.readUTF()
+			.equals(About.getBndVersion());
+	}
+
+	private boolean readSummaries(DataInputStream in) throws IOException {
+		byte[] digest = new byte[DIGEST_SIZE];
+		while (true) {
+			in.readFully(digest);
+			int length = in.readInt();
+			if ((length < 0) || (length > MAX_SUMMARY)) {
+				logger.debug("Discarding corrupted class cache {}", file);
+				return false;
+			}
+			byte[] summary = new byte[length];
+			in.readFully(summary);
+			summaries.put(new SHA256(digest.clone()), summary);
+		}
+	}
+
+	/**
+	 * Append the summaries which were added since the last flush to the cache
+	 * file.
+	 */
+	public synchronized void flush() {
+		if (pending.isEmpty()) {
+			return;
+		}
+		ByteBufferOutputStream bout = new ByteBufferOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bout)) {
+			for (Iterator<Map.Entry<SHA256, byte[]>> iter = pending.entrySet()
+				.iterator(); iter.hasNext();) {
+				Map.Entry<SHA256, byte[]> entry = iter.next();
+				iter.remove();
+				out.write(entry.getKey()
+					.digest());
+				out.writeInt(entry.getValue().length);
+				out.write(entry.getValue());
+			}
+		} catch (IOException e) {
+			throw new AssertionError(e); // cannot happen writing to memory
+		}
+
+		try {
+			IO.mkdirs(file.getParentFile());
+			try (FileChannel channel = FileChannel.open(file.toPath(), CREATE, READ, WRITE)) {
+				FileLock lock = channel.lock();
+				try {
+					ByteBuffer header = header();
+					if (!hasHeader(channel, header)) {
+						// new or written by another version of bnd
+						channel.truncate(0L);
+						write(channel, header);
+					}
+					channel.position(channel.size());
+					write(channel, bout.toByteBuffer());
+				} finally {
+					lock.release();
+				}
+			}
+		} catch (Exception e) {
+			logger.debug("Failed to write class cache {}", file, e);
+		}
+	}
+
+	private static ByteBuffer header() {
+		ByteBufferOutputStream bout = new ByteBufferOutputStream();
+		try (DataOutputStream out = new DataOutputStream(bout)) {
+			out.writeInt(MAGIC);
+			out.writeUTF(About.getBndVersion());
+		} catch (IOException e) {
+			throw new AssertionError(e); // cannot happen writing to memory
+		}
+		return bout.toByteBuffer();
+	}
+
+	private static boolean hasHeader(FileChannel channel, ByteBuffer header) throws IOException {
+		if (channel.size() < header.remaining()) {
+			return false;
+		}
+		ByteBuffer bb = ByteBuffer.allocate(header.remaining());
+		while (bb.hasRemaining()) {
+			if (channel.read(bb, bb.position()) < 0) {
+				return false;
+			}
+		}
+		return bb.flip()
+			.equals(header);
+	}
+
+	private static void write(FileChannel channel, ByteBuffer bb) throws IOException {
+		while (bb.hasRemaining()) {
+			channel.write(bb);
+		}
+	}
+
+	@Override
+	public void close() {
+		flush();
+	}
+
+	@Override
+	public String toString() {
+		return "ClazzCache[" + file + "]";
+	}
+}
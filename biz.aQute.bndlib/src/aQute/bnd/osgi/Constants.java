@@ -118,6 +118,8 @@ public interface Constants {
 	String		CONDITIONALPACKAGE							= "-conditionalpackage";
 	String		CONNECTION_SETTINGS							= "-connection-settings";
 	String		CONNECTION_LOG								= "-connection-log";
+	String		CONNECTION_HTTP2							= "-connection-http2";
+	String		CONNECTION_STALE_WHILE_REVALIDATE			= "-connection-stale-while-revalidate";
 
 	String		COMPRESSION									= "-compression";
 	String		DIFFIGNORE									= "-diffignore";
@@ -195,8 +197,11 @@ public interface Constants {
 	String		MANIFEST_NAME								= "-manifest-name";
 	String		NOUSES										= "-nouses";
 	String		NOCLASSFORNAME								= "-noclassforname";
+	String		NOCLASSCACHE								= "-noclasscache";
 	String		NOIMPORTJAVA								= "-noimportjava";
 	String		NOBUNDLES									= "-nobundles";
+	String		PARALLELANALYSIS							= "-parallelanalysis";
+	String		SHAREDDESCRIPTORS							= "-shareddescriptors";
 	String		OUTPUTMASK									= "-outputmask";																																						// default
 																																																									// ${@bsn}.jar
 
@@ -231,6 +236,10 @@ public interface Constants {
 	String		RESOLVE_EXCLUDESYSTEM						= "-resolve.excludesystem";
 	String		RESOLVE_EFFECTIVE							= "-resolve.effective";
 	String		RESOLVE_PREFERENCES							= "-resolve.preferences";
+	/**
+	 * Cache the calculated wiring in the workspace cache. The default is true
+	 */
+	String		RESOLVE_CACHE								= "-resolve.cache";
 
 	String		RUNNOREFERENCES								= "-runnoreferences";
 	String		RUNFRAMEWORKRESTART							= "-runframeworkrestart";
@@ -322,7 +331,8 @@ public interface Constants {
 		CONNECTION_SETTINGS, RUNPROVIDEDCAPABILITIES, WORKINGSET, RUNSTORAGE, REPRODUCIBLE, INCLUDEPACKAGE,
 		CDIANNOTATIONS, REMOTEWORKSPACE, MAVEN_DEPENDENCIES, BUILDERIGNORE, STALECHECK, MAVEN_SCOPE, RUNSTARTLEVEL,
 		RUNOPTIONS, NOCLASSFORNAME, EXPORT_APIGUARDIAN, RESOLVE, DEFINE_CONTRACT, GENERATE, RUNFRAMEWORKRESTART,
-		NOIMPORTJAVA, VERSIONDEFAULTS, LIBRARY);
+		NOIMPORTJAVA, VERSIONDEFAULTS, LIBRARY, PARALLELANALYSIS, RESOLVE_CACHE,
+		SHAREDDESCRIPTORS, NOCLASSCACHE);
 
 	// Ignore bundle specific headers. These headers do not make a lot of sense
 	// to inherit
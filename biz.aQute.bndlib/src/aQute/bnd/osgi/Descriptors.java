@@ -2,11 +2,15 @@ package aQute.bnd.osgi;
 
 import static java.util.Objects.requireNonNull;
 
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.util.Arrays;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 import org.osgi.annotation.versioning.ProviderType;
 
@@ -17,12 +21,13 @@ import aQute.bnd.signatures.MethodSignature;
 import aQute.libg.generics.Create;
 
 public class Descriptors {
-	private final Map<String, TypeRef>			typeRefCache			= new HashMap<>();
-	private final Map<String, Descriptor>		descriptorCache			= new HashMap<>();
-	private final Map<String, PackageRef>		packageRefCache			= new HashMap<>();
-	private final Map<String, ClassSignature>	classSignatureCache		= new HashMap<>();
-	private final Map<String, MethodSignature>	methodSignatureCache	= new HashMap<>();
-	private final Map<String, FieldSignature>	fieldSignatureCache		= new HashMap<>();
+	private final Map<String, TypeRef>			typeRefCache			= new ConcurrentHashMap<>();
+	private final Map<String, Descriptor>		descriptorCache			= new ConcurrentHashMap<>();
+	private final Map<String, PackageRef>		packageRefCache			= new ConcurrentHashMap<>();
+	private final Map<String, ClassSignature>	classSignatureCache		= new ConcurrentHashMap<>();
+	private final Map<String, MethodSignature>	methodSignatureCache	= new ConcurrentHashMap<>();
+	private final Map<String, FieldSignature>	fieldSignatureCache		= new ConcurrentHashMap<>();
+	private final Pool							pool;
 
 	// MUST BE BEFORE PRIMITIVES, THEY USE THE DEFAULT PACKAGE!!
 	final static PackageRef						DEFAULT_PACKAGE			= new PackageRef();
@@ -48,9 +53,102 @@ public class Descriptors {
 		PRIMITIVE_PACKAGE);
 
 	public Descriptors() {
+		this(null);
+	}
+
+	/**
+	 * Create descriptors that intern their type and package references and
+	 * their signatures in a pool. All descriptors created with the same pool
+	 * return the same reference for the same name, so the references can be
+	 * compared across analyzers.
+	 *
+	 * @param pool the pool to share, or {@code null} to not share any
+	 *            references
+	 */
+	public Descriptors(Pool pool) {
+		this.pool = pool;
 		packageRefCache.put(DEFAULT_PACKAGE.getBinary(), DEFAULT_PACKAGE);
 	}
 
+	/**
+	 * A thread safe pool of type and package references and signatures shared
+	 * by several {@link Descriptors}. The pool only holds weak references, an
+	 * entry is removed when no descriptors use it anymore. Since a reference
+	 * stays in the pool as long as it is used, there is never more than one
+	 * reference for a name.
+	 */
+	public static final class Pool {
+		final Interner<TypeRef>			typeRefs			= new Interner<>();
+		final Interner<PackageRef>		packageRefs			= new Interner<>();
+		final Interner<ClassSignature>	classSignatures		= new Interner<>();
+		final Interner<MethodSignature>	methodSignatures	= new Interner<>();
+		final Interner<FieldSignature>	fieldSignatures		= new Interner<>();
+
+		/**
+		 * Return the number of entries in this pool, including entries which
+		 * are no longer used but not yet removed.
+		 */
+		public int size() {
+			return typeRefs.size() + packageRefs.size() + classSignatures.size() + methodSignatures.size()
+				+ fieldSignatures.size();
+		}
+
+		@Override
+		public String toString() {
+			return "Descriptors.Pool[" + size() + "]";
+		}
+	}
+
+	static final class Interner<T> {
+		private final Map<String, Entry<T>>	entries	= new ConcurrentHashMap<>();
+		private final ReferenceQueue<T>		queue	= new ReferenceQueue<>();
+
+		static final class Entry<T> extends WeakReference<T> {
+			final String key;
+
+			Entry(String key, T value, ReferenceQueue<T> queue) {
+				super(value, queue);
+				this.key = key;
+			}
+		}
+
+		T intern(String key, Function<String, T> factory) {
+			expunge();
+			Entry<T> entry = entries.get(key);
+			T value;
+			if ((entry != null) && ((value = entry.get()) != null)) {
+				return value;
+			}
+			T created = factory.apply(key);
+			Entry<T> fresh = new Entry<>(key, created, queue);
+			for (;;) {
+				entry = entries.putIfAbsent(key, fresh);
+				if (entry == null) {
+					return created;
+				}
+				if ((value = entry.get()) != null) {
+					return value;
+				}
+				if (entries.replace(key, entry, fresh)) {
+					return created;
+				}
+			}
+		}
+
+		int size() {
+			expunge();
+			return entries.size();
+		}
+
+		private void expunge() {
+			for (Reference<? extends T> ref; (ref = queue.poll()) != null;) {
+				@SuppressWarnings("unchecked")
+				Entry<T> entry = (Entry<T>) ref;
+				entries.remove(entry.key, entry);
+			}
+		}
+	}
+
 	@ProviderType
 	public interface TypeRef extends Comparable<TypeRef> {
 		String getBinary();
@@ -471,7 +569,10 @@ public class Descriptors {
 			TypeRef ref = typeRefCache.get(binaryClassName);
 			if (ref == null) {
 				ref = new ArrayRef(getTypeRef(binaryClassName.substring(1)));
-				typeRefCache.put(binaryClassName, ref);
+				TypeRef existing = typeRefCache.putIfAbsent(binaryClassName, ref);
+				if (existing != null) {
+					ref = existing;
+				}
 			}
 			return ref;
 		}
@@ -505,7 +606,12 @@ public class Descriptors {
 		}
 		int n = binaryClassName.lastIndexOf('/');
 		PackageRef pref = (n < 0) ? DEFAULT_PACKAGE : getPackageRef(binaryClassName.substring(0, n));
-		return new ConcreteRef(pref, binaryClassName);
+		if (pool == null) {
+			return new ConcreteRef(pref, binaryClassName);
+		}
+		// a pooled reference keeps its package reference in the pool, so it
+		// refers to the same package reference we just got
+		return pool.typeRefs.intern(binaryClassName, name -> new ConcreteRef(pref, name));
 	}
 
 	public TypeRef getPackageInfo(PackageRef packageRef) {
@@ -522,7 +628,14 @@ public class Descriptors {
 		// not com.example.Foo.
 		//
 
-		return packageRefCache.computeIfAbsent(binaryPackName, PackageRef::new);
+		return packageRefCache.computeIfAbsent(binaryPackName, this::createPackageRef);
+	}
+
+	private PackageRef createPackageRef(String binaryPackName) {
+		if (pool == null) {
+			return new PackageRef(binaryPackName);
+		}
+		return pool.packageRefs.intern(binaryPackName, PackageRef::new);
 	}
 
 	public Descriptor getDescriptor(String descriptor) {
@@ -530,15 +643,18 @@ public class Descriptors {
 	}
 
 	public ClassSignature getClassSignature(String signature) {
-		return classSignatureCache.computeIfAbsent(signature.replace('$', '.'), ClassSignature::of);
+		return classSignatureCache.computeIfAbsent(signature.replace('$', '.'),
+			s -> (pool == null) ? ClassSignature.of(s) : pool.classSignatures.intern(s, ClassSignature::of));
 	}
 
 	public MethodSignature getMethodSignature(String signature) {
-		return methodSignatureCache.computeIfAbsent(signature.replace('$', '.'), MethodSignature::of);
+		return methodSignatureCache.computeIfAbsent(signature.replace('$', '.'),
+			s -> (pool == null) ? MethodSignature.of(s) : pool.methodSignatures.intern(s, MethodSignature::of));
 	}
 
 	public FieldSignature getFieldSignature(String signature) {
-		return fieldSignatureCache.computeIfAbsent(signature.replace('$', '.'), FieldSignature::of);
+		return fieldSignatureCache.computeIfAbsent(signature.replace('$', '.'),
+			s -> (pool == null) ? FieldSignature.of(s) : pool.fieldSignatures.intern(s, FieldSignature::of));
 	}
 
 	public static class NamedDescriptor implements Comparable<NamedDescriptor> {
@@ -37,23 +37,24 @@ import java.util.Set;
 import java.util.Spliterator;
 import java.util.Spliterators.AbstractSpliterator;
 import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
 import java.util.function.Predicate;
 import java.util.jar.Attributes;
 import java.util.jar.JarEntry;
 import java.util.jar.JarFile;
-import java.util.jar.JarOutputStream;
 import java.util.jar.Manifest;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 import java.util.stream.Stream;
 import java.util.stream.StreamSupport;
-import java.util.zip.CRC32;
 import java.util.zip.ZipEntry;
 import java.util.zip.ZipException;
 import java.util.zip.ZipFile;
 import java.util.zip.ZipInputStream;
-import java.util.zip.ZipOutputStream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import aQute.bnd.exceptions.Exceptions;
 import aQute.bnd.stream.MapStream;
@@ -65,13 +66,15 @@ import aQute.lib.io.ByteBufferOutputStream;
 import aQute.lib.io.IO;
 import aQute.lib.io.IOConstants;
 import aQute.lib.manifest.ManifestUtil;
+import aQute.lib.zip.ZipReader;
 import aQute.lib.zip.ZipUtil;
+import aQute.lib.zip.ZipWriter;
 import aQute.libg.cryptography.Digester;
 import aQute.libg.cryptography.SHA256;
 import aQute.libg.glob.PathSet;
 
 public class Jar implements Closeable {
-	private static final int	BUFFER_SIZE				= IOConstants.PAGE_SIZE * 16;
+	private static final int		BUFFER_SIZE				= IOConstants.PAGE_SIZE * 16;
 	/**
 	 * Note that setting the January 1st 1980 (or even worse, "0", as time)
 	 * won't work due to Java 8 doing some interesting time processing: It
@@ -87,7 +90,19 @@ public class Jar implements Closeable {
 	 * {@link java.util.zip.ZipUtils}#javaToDosTime() so we must use default
 	 * timezone and locale. The date is 1980-02-01T00:00:00Z.
 	 */
-	private static final long	ZIP_ENTRY_CONSTANT_TIME	= 318211200000L;
+	private static final long		ZIP_ENTRY_CONSTANT_TIME	= 318211200000L;
+	/**
+	 * JAR files are read with {@link ZipReader} unless disabled by the
+	 * {@code bnd.jar.zipreader} system property, then {@link ZipFile} is used.
+	 */
+	private static final boolean	READ_ZIP_FILES			= Boolean
+		.parseBoolean(System.getProperty("bnd.jar.zipreader", "true"));
+	private static final Logger		logger					= LoggerFactory.getLogger(Jar.class);
+	/**
+	 * Files up to this size are read in memory to be deflated in parallel,
+	 * larger files are deflated while they are written.
+	 */
+	private static final long		PARALLEL_DEFLATE_SIZE	= 1024L * 1024L;
 
 	public enum Compression {
 		DEFLATE,
@@ -105,7 +120,7 @@ public class Jar implements Closeable {
 	private String												manifestName			= JarFile.MANIFEST_NAME;
 	private String												name;
 	private File												source;
-	private ZipFile												zipFile;
+	private Closeable											zipFile;
 	private long												lastModified;
 	private String												lastModifiedReason;
 	private boolean												doNotTouchManifest;
@@ -296,8 +311,29 @@ public class Jar implements Closeable {
 	}
 
 	private Jar buildFromZip(File file) throws IOException {
+		if (READ_ZIP_FILES) {
+			ZipReader reader = null;
+			try {
+				this.zipFile = reader = new ZipReader(file);
+				for (ZipEntry entry : reader.entries()) {
+					if (entry.isDirectory()) {
+						continue;
+					}
+					putResource(entry.getName(), new ZipResource(reader, entry), true);
+				}
+				return this;
+			} catch (IOException e) {
+				// Use ZipFile which also reports any corruption
+				logger.debug("Unable to read {}, falling back to ZipFile", file, e);
+				IO.close(reader);
+				this.zipFile = null;
+				resources.clear();
+				directories.clear();
+			}
+		}
+		ZipFile zipFile = null;
 		try {
-			zipFile = new ZipFile(file);
+			this.zipFile = zipFile = new ZipFile(file);
 			for (ZipEntry entry : Iterables.iterable(zipFile.entries())) {
 				if (entry.isDirectory()) {
 					continue;
@@ -554,16 +590,8 @@ public class Jar implements Closeable {
 			out = digester = SHA256.getDigester(out);
 		}
 
-		ZipOutputStream jout = nomanifest || doNotTouchManifest ? new ZipOutputStream(out) : new JarOutputStream(out);
-
-		switch (compression) {
-			case STORE :
-				jout.setMethod(ZipOutputStream.STORED);
-				break;
-
-			default :
-				// default is DEFLATED
-		}
+		// entries are deflated in parallel but written in order
+		ZipWriter jout = new ZipWriter(out, !(nomanifest || doNotTouchManifest), ForkJoinPool.commonPool());
 
 		Set<String> done = new HashSet<>();
 
@@ -696,7 +724,7 @@ public class Jar implements Closeable {
 		return new String(cs);
 	}
 
-	private void doManifest(ZipOutputStream jout, Set<String> directories, String manifestName) throws Exception {
+	private void doManifest(ZipWriter jout, Set<String> directories, String manifestName) throws Exception {
 		check();
 		createDirectories(directories, jout, manifestName);
 		JarEntry ze = new JarEntry(manifestName);
@@ -716,29 +744,55 @@ public class Jar implements Closeable {
 		putEntry(jout, ze, r);
 	}
 
-	private void putEntry(ZipOutputStream jout, ZipEntry entry, Resource r) throws Exception {
-
-		if (compression == Compression.STORE) {
+	private void putEntry(ZipWriter jout, ZipEntry entry, Resource r) throws Exception {
+		int method = (compression == Compression.STORE) ? ZipEntry.STORED : ZipEntry.DEFLATED;
+		if (r instanceof ZipResource zipResource) {
+			// copy the entry data from the input jar without recompressing it
+			ByteBuffer raw = zipResource.rawData(entry, method);
+			if (raw != null) {
+				jout.putRawEntry(entry, raw);
+				return;
+			}
+		}
+		if (method == ZipEntry.STORED) {
 			ByteBuffer buffer = r.buffer();
 			if (buffer == null) {
 				buffer = IO.copy(r.openInputStream(), new ByteBufferOutputStream())
 					.toByteBuffer();
 			}
-			entry.setMethod(ZipOutputStream.STORED);
-			CRC32 crc = new CRC32();
-			buffer.mark();
-			crc.update(buffer);
-			buffer.reset();
-			entry.setCrc(crc.getValue());
-			entry.setSize(buffer.remaining());
-			entry.setCompressedSize(buffer.remaining());
-			jout.putNextEntry(entry);
-			IO.copy(buffer, jout);
-		} else {
-			jout.putNextEntry(entry);
-			r.write(jout);
+			entry.setMethod(method);
+			jout.putEntry(entry, buffer);
+			return;
+		}
+		ByteBuffer data = deflateData(r);
+		if (data != null) {
+			entry.setMethod(method);
+			jout.putEntry(entry, data);
+			return;
+		}
+		try (OutputStream out = jout.putEntry(entry)) {
+			r.write(out);
 		}
-		jout.closeEntry();
+	}
+
+	/**
+	 * Return the data of a resource to deflate in parallel, or null if the
+	 * resource must be deflated while it is written. Only data that is in
+	 * memory already and small files are deflated in parallel, the file is
+	 * read without keeping its data in the resource.
+	 */
+	private static ByteBuffer deflateData(Resource r) throws Exception {
+		if (r instanceof EmbeddedResource) {
+			return r.buffer();
+		}
+		if (r instanceof FileResource) {
+			long size = r.size();
+			if (size <= PARALLEL_DEFLATE_SIZE) {
+				return IO.copy(r.openInputStream(), ByteBuffer.allocate((int) size))
+					.flip();
+			}
+		}
+		return null;
 	}
 
 	/**
@@ -829,7 +883,7 @@ public class Jar implements Closeable {
 			return s;
 	}
 
-	private void writeResource(ZipOutputStream jout, Set<String> directories, String path, Resource resource)
+	private void writeResource(ZipWriter jout, Set<String> directories, String path, Resource resource)
 		throws Exception {
 		if (resource == null)
 			return;
@@ -858,7 +912,7 @@ public class Jar implements Closeable {
 		}
 	}
 
-	void createDirectories(Set<String> directories, ZipOutputStream zip, String name) throws IOException {
+	void createDirectories(Set<String> directories, ZipWriter zip, String name) throws IOException {
 		int index = name.lastIndexOf('/');
 		if (index > 0) {
 			String path = name.substring(0, index);
@@ -867,14 +921,7 @@ public class Jar implements Closeable {
 			createDirectories(directories, zip, path);
 			ZipEntry ze = new ZipEntry(path + '/');
 			ZipUtil.setModifiedTime(ze, isReproducible() ? zipEntryConstantTime : lastModified());
-			if (compression == Compression.STORE) {
-				ze.setMethod(ZipOutputStream.STORED);
-				ze.setCrc(0L);
-				ze.setSize(0L);
-				ze.setCompressedSize(0L);
-			}
-			zip.putNextEntry(ze);
-			zip.closeEntry();
+			zip.putEntry(ze, ByteBuffer.allocate(0));
 			directories.add(path);
 		}
 	}
@@ -101,6 +101,32 @@ public class Macro {
 	private boolean																	nosystem;
 	public boolean																	inTest;
 	private final Map<Class<?>, Map<String, BiFunction<Object, String[], Object>>>	macrosByClass	= new ConcurrentHashMap<>();
+	private final MacroCache														cache			= new MacroCache();
+
+	/**
+	 * The macros of this class whose result only depends on their arguments and
+	 * on the properties they read.
+	 */
+	private final static Set<String>												PURE			= Set.of("uniq",
+		"removeall", "retainall", "pathseparator", "separator", "filter", "select", "filterout", "reject", "sort",
+		"nsort", "join", "sjoin", "if", "long2date", "literal", "def", "list", "replace", "replacelist",
+		"replacestring", "toclassname", "toclasspath", "version", "versionmask", "range", "unescape", "startswith",
+		"endswith", "extension", "basenameext", "bndversion", "stem", "substring", "length", "get", "sublist",
+		"first", "last", "max", "min", "nmax", "nmin", "vmax", "vmin", "sum", "average", "reverse", "indexof",
+		"lastindexof", "find", "findlast", "split", "toupper", "tolower", "compare", "ncompare", "vcompare",
+		"matches", "subst", "trim", "format", "isempty", "isnumber", "is", "map", "foreach", "apply", "bytes",
+		"glob", "size");
+
+	/**
+	 * The hit and miss counts of the caches of the macro processors.
+	 *
+	 * @param templateHits the number of lines whose parsed template was found
+	 * @param templateMisses the number of lines that had to be parsed
+	 * @param resultHits the number of expansions whose cached result was used
+	 * @param resultMisses the number of expansions that were not cached or
+	 *            whose properties changed
+	 */
+	public record CacheStatistics(long templateHits, long templateMisses, long resultHits, long resultMisses) {}
 
 	public Macro(Processor domain, Object... targets) {
 		this.domain = domain;
@@ -114,12 +140,57 @@ public class Macro {
 	}
 
 	public String process(String line, Processor source) {
-		return process(line, new Link(source, null, line));
+		if (flattening || !MacroCache.isCacheable(line)) {
+			return process(line, new Link(source, null, line));
+		}
+		String result = cache.get(line);
+		if (result != null) {
+			return result;
+		}
+		MessageReporter messages = domain.current().reporter;
+		int sequence = messages.counter.get();
+		MacroCache.Tracker tracker = MacroCache.begin();
+		try {
+			result = process(line, new Link(source, null, line));
+			if (messages.counter.get() != sequence) {
+				// the messages must be reported again
+				tracker.impure = true;
+			}
+			cache.put(line, result, tracker);
+		} finally {
+			MacroCache.end(tracker);
+		}
+		return result;
+	}
+
+	/**
+	 * Return the hit and miss counts of the caches of the macro processors.
+	 *
+	 * @return the counts since the start of this VM
+	 */
+	public static CacheStatistics getCacheStatistics() {
+		return new CacheStatistics(MacroCache.templateHits.sum(), MacroCache.templateMisses.sum(),
+			MacroCache.resultHits.sum(), MacroCache.resultMisses.sum());
 	}
 
 	String process(CharSequence line, Link link) {
+		Object[] template = MacroCache.template(line);
+		if (template == null) {
+			StringBuilder sb = new StringBuilder();
+			process(line, 0, '\u0000', '\u0000', sb, link, false);
+			return sb.toString();
+		}
+		if ((template.length == 1) && (template[0] instanceof String literal)) {
+			return literal;
+		}
 		StringBuilder sb = new StringBuilder();
-		process(line, 0, '\u0000', '\u0000', sb, link, false);
+		for (Object part : template) {
+			if (part instanceof MacroCache.Call call) {
+				sb.append(replace(call.key(), call.args(), link, call.begin(), call.end()));
+			} else {
+				sb.append((String) part);
+			}
+		}
 		return sb.toString();
 	}
 
@@ -163,6 +234,7 @@ public class Macro {
 				// Found the sequence ./
 				if (index == 1 || Character.isWhitespace(line.charAt(index - 2))) {
 					// make sure it is preceded by whitespace or starts at begin
+					MacroCache.impure();
 					index++;
 					variable.append(IO.absolutePath(domain.getBase()));
 					variable.append('/');
@@ -197,8 +269,10 @@ public class Macro {
 	}
 
 	private String getMacro(String key, List<String> args2, Link link, char begin, char end) {
-		if (link != null && link.contains(key))
+		if (link != null && link.contains(key)) {
+			MacroCache.impure();
 			return "${infinite:" + link.toString() + "}";
+		}
 
 		if (key != null) {
 			key = key.trim();
@@ -226,6 +300,7 @@ public class Macro {
 				if (args.length == 1) {
 					Instruction ins = new Instruction(args[0]);
 					if (!ins.isLiteral()) {
+						MacroCache.impure();
 						String keyname = key;
 						return domain.stream()
 							.filter(ins::matches)
@@ -249,6 +324,7 @@ public class Macro {
 				//
 
 				String value = domain.getUnexpandedProperty(args[0]);
+				MacroCache.read(domain, args[0], value);
 				if (value != null) {
 					Link next = new Link(domain, link, key);
 					if (args.length > 1) {
@@ -277,6 +353,7 @@ public class Macro {
 				//
 
 				if (args.length == 1) {
+					MacroCache.impure();
 					value = System.getProperty(args[0]);
 					if (value != null)
 						return value;
@@ -290,11 +367,13 @@ public class Macro {
 				if (!args[0].startsWith("[")) {
 
 					String profile = domain.getUnexpandedProperty(Constants.PROFILE);
+					MacroCache.read(domain, Constants.PROFILE, profile);
 
 					if (profile != null) {
 						profile = process(profile, link);
 						String profiledKey = "[" + profile + "]" + args[0];
 						value = domain.getUnexpandedProperty(profiledKey);
+						MacroCache.read(domain, profiledKey, value);
 						if (value != null) {
 							Link next = new Link(domain, link, key);
 							if (args.length > 1) {
@@ -307,9 +386,11 @@ public class Macro {
 				}
 
 			} else {
+				MacroCache.impure();
 				reporter.warning("Found empty macro key '%s'", key);
 			}
 		} else {
+			MacroCache.impure();
 			reporter.warning("Found null macro key");
 		}
 
@@ -321,7 +402,7 @@ public class Macro {
 	 */
 
 	private String processWithArgs(String template, String[] args, Link next) {
-		try (Processor custom = new Processor(domain)) {
+		try (Processor custom = new Arguments(domain)) {
 
 			for (int i = 0; i < 16; i++) {
 				custom.setProperty(Integer.toString(i), i < args.length ? args[i] : "null");
@@ -347,8 +428,10 @@ public class Macro {
 		if (value != LITERALVALUE) {
 			if (value != null)
 				return value;
-			if (!flattening && !key.startsWith("@"))
+			if (!flattening && !key.startsWith("@")) {
+				MacroCache.impure();
 				reporter.warning("No translation found for macro: %s", key);
+			}
 		}
 		return "$" + begin + key + end;
 	}
@@ -376,6 +459,7 @@ public class Macro {
 			}
 
 		if (args[0].startsWith("^")) {
+			MacroCache.impure();
 			String varname = args[0].substring(1)
 				.trim();
 
@@ -462,6 +546,9 @@ public class Macro {
 			if (invoker == null) {
 				return null;
 			}
+			if ((target != this) || !PURE.contains(macro)) {
+				MacroCache.impure();
+			}
 			try {
 				Object result = invoker.apply(target, args);
 				return result == null ? NULLVALUE : result.toString();
@@ -558,7 +645,7 @@ public class Macro {
 	String filter(String[] args, boolean include) {
 		verifyCommand(args, String.format(_filterHelp, args[0]), null, 3, 3);
 
-		Pattern pattern = Pattern.compile(args[2]);
+		Pattern pattern = MacroCache.pattern(args[2]);
 		String result = Strings.splitQuotedAsStream(args[1])
 			.filter(s -> pattern.matcher(s)
 				.matches() != include)
@@ -733,7 +820,7 @@ public class Macro {
 
 	private String replace0(String help, Function<String, Stream<String>> splitter, String[] args) {
 		verifyCommand(args, help, null, 3, 5);
-		Pattern regex = Pattern.compile(args[2]);
+		Pattern regex = MacroCache.pattern(args[2]);
 		String replace = (args.length > 3) ? args[3] : "";
 		Collector<CharSequence, ?, String> joining = (args.length > 4) ? Collectors.joining(args[4])
 			: Strings.joining();
@@ -749,7 +836,7 @@ public class Macro {
 
 	public String _replacestring(String[] args) {
 		verifyCommand(args, _replacestringHelp, null, 3, 4);
-		Pattern regex = Pattern.compile(args[2]);
+		Pattern regex = MacroCache.pattern(args[2]);
 		String replace = (args.length > 3) ? args[3] : "";
 		String result = regex.matcher(args[1])
 			.replaceAll(replace);
@@ -1345,6 +1432,30 @@ public class Macro {
 		}
 	}
 
+	/**
+	 * The processor holding the arguments of a macro with arguments.
+	 */
+	static final class Arguments extends Processor {
+		Arguments(Processor parent) {
+			super(parent);
+		}
+
+		static boolean isArgument(String key) {
+			if (key.equals("#")) {
+				return true;
+			}
+			if ((key.length() == 0) || (key.length() > 2)) {
+				return false;
+			}
+			for (int i = 0; i < key.length(); i++) {
+				if (!Character.isDigit(key.charAt(i))) {
+					return false;
+				}
+			}
+			return Integer.parseInt(key) < 16;
+		}
+	}
+
 	// Helper class to track expansion of variables
 	// on the stack.
 	static class Link {
@@ -1897,7 +2008,7 @@ public class Macro {
 	public String _split(String[] args) throws Exception {
 		verifyCommand(args, _splitHelp, null, 2, Integer.MAX_VALUE);
 
-		Pattern regex = Pattern.compile(args[1]);
+		Pattern regex = MacroCache.pattern(args[1]);
 		String result = Arrays.stream(args, 2, args.length)
 			.flatMap(regex::splitAsStream)
 			.filter(element -> !element.isEmpty())
@@ -2008,7 +2119,9 @@ public class Macro {
 	public boolean _matches(String[] args) throws Exception {
 		verifyCommand(args, _matchesHelp, null, 3, 3);
 
-		return args[1].matches(args[2]);
+		return MacroCache.pattern(args[2])
+			.matcher(args[1])
+			.matches();
 	}
 
 	static final String _substHelp = "${subst;<target>;<regex>[;<replace>[;count]]}";
@@ -2016,7 +2129,7 @@ public class Macro {
 	public StringBuffer _subst(String[] args) throws Exception {
 		verifyCommand(args, _substHelp, null, 3, 5);
 
-		Pattern p = Pattern.compile(args[2]);
+		Pattern p = MacroCache.pattern(args[2]);
 		Matcher matcher = p.matcher(args[1]);
 		String replace = (args.length > 3) ? args[3] : "";
 		int count = (args.length > 4) ? Integer.parseInt(args[4]) : Integer.MAX_VALUE;
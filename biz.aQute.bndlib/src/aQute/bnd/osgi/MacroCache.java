@@ -0,0 +1,309 @@
+package aQute.bnd.osgi;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * The caches of the {@link Macro} processor.
+ * <p>
+ * A template is a line parsed into its literal text and its macro calls. The
+ * parse does not depend on the properties so templates are shared by all
+ * macro processors.
+ * <p>
+ * A result is the expansion of a line by a macro processor. While a line is
+ * expanded, every property it reads, directly or through a nested expansion,
+ * is recorded with its value. A result is reused while all these properties
+ * still have the same value along the {@link Processor} parent chain. A
+ * result is not cached when the expansion used a macro that is not known to
+ * be pure, like {@code ${tstamp}} or {@code ${system}}, or reported an error
+ * or warning.
+ */
+final class MacroCache {
+	private final static int					MAX_TEMPLATES	= 4096;
+	private final static int					MAX_LENGTH		= 8192;
+	private final static int					MAX_PATTERNS	= 512;
+	private final static int					MAX_RESULTS		= 1024;
+	private final static Object[]				NOT_COMPILABLE	= new Object[0];
+
+	private final static Map<String, Object[]>	templates		= new ConcurrentHashMap<>();
+	private final static Map<String, Pattern>	patterns		= new ConcurrentHashMap<>();
+	private final static ThreadLocal<Tracker>	tracker			= new ThreadLocal<>();
+
+	final static LongAdder						templateHits	= new LongAdder();
+	final static LongAdder						templateMisses	= new LongAdder();
+	final static LongAdder						resultHits		= new LongAdder();
+	final static LongAdder						resultMisses	= new LongAdder();
+
+	private final Map<String, Result>			results			= new ConcurrentHashMap<>();
+
+	/**
+	 * A macro call in a template.
+	 */
+	record Call(char begin, char end, String key, List<String> args) {}
+
+	/**
+	 * A property read while expanding a line.
+	 */
+	record Dependency(Processor processor, String key, boolean literal, boolean inherit, Object value) {
+		boolean isCurrent() {
+			Object current = literal ? processor.getLiteralRawProperty(key, inherit)
+				: processor.getUnexpandedProperty(key);
+			return Objects.equals(current, value);
+		}
+	}
+
+	record Result(String value, Dependency[] dependencies) {
+		boolean isCurrent() {
+			for (Dependency dependency : dependencies) {
+				if (!dependency.isCurrent()) {
+					return false;
+				}
+			}
+			return true;
+		}
+	}
+
+	/**
+	 * The dependencies of the expansion in progress on a thread.
+	 */
+	static final class Tracker {
+		final Tracker			outer;
+		final List<Dependency>	dependencies	= new ArrayList<>();
+		boolean					impure;
+
+		Tracker(Tracker outer) {
+			this.outer = outer;
+		}
+	}
+
+	/**
+	 * Return the cached result of the line if its dependencies did not change.
+	 * The dependencies are added to the expansion in progress.
+	 */
+	String get(String line) {
+		Result result = results.get(line);
+		if ((result == null) || !result.isCurrent()) {
+			resultMisses.increment();
+			return null;
+		}
+		resultHits.increment();
+		Tracker t = tracker.get();
+		if (t != null) {
+			for (Dependency dependency : result.dependencies) {
+				t.dependencies.add(dependency);
+			}
+		}
+		return result.value;
+	}
+
+	/**
+	 * Cache the result of the expansion tracked by the specified tracker
+	 * unless it was impure.
+	 */
+	void put(String line, String value, Tracker t) {
+		if (t.impure || (value == null)) {
+			return;
+		}
+		if (results.size() >= MAX_RESULTS) {
+			results.clear();
+		}
+		results.put(line, new Result(value, t.dependencies.toArray(new Dependency[0])));
+	}
+
+	static boolean isCacheable(String line) {
+		return (line != null) && (line.length() <= MAX_LENGTH) && (line.indexOf('$') >= 0);
+	}
+
+	/**
+	 * Start tracking the dependencies of an expansion on this thread.
+	 */
+	static Tracker begin() {
+		Tracker t = new Tracker(tracker.get());
+		tracker.set(t);
+		return t;
+	}
+
+	/**
+	 * Stop tracking the dependencies of an expansion. The dependencies are
+	 * added to the outer expansion.
+	 */
+	static void end(Tracker t) {
+		Tracker outer = t.outer;
+		if (outer == null) {
+			tracker.remove();
+			return;
+		}
+		tracker.set(outer);
+		outer.dependencies.addAll(t.dependencies);
+		outer.impure |= t.impure;
+	}
+
+	/**
+	 * Mark the expansion in progress as impure, its result cannot be cached.
+	 */
+	static void impure() {
+		Tracker t = tracker.get();
+		if (t != null) {
+			t.impure = true;
+		}
+	}
+
+	/**
+	 * Record a property read with {@link Processor#getUnexpandedProperty}.
+	 */
+	static void read(Processor processor, String key, String value) {
+		Tracker t = tracker.get();
+		if (t != null) {
+			record(t, processor, key, false, true, value);
+		}
+	}
+
+	/**
+	 * Record a property read with {@link Processor#getProperty}.
+	 */
+	static void readLiteral(Processor processor, String key, boolean inherit, Object value) {
+		Tracker t = tracker.get();
+		if (t != null) {
+			record(t, processor, key, true, inherit, value);
+		}
+	}
+
+	private static void record(Tracker t, Processor processor, String key, boolean literal, boolean inherit,
+		Object value) {
+		if (processor instanceof Macro.Arguments) {
+			// the arguments of a macro only live during the expansion, other
+			// properties are read from the processor of the macro
+			if (Macro.Arguments.isArgument(key)) {
+				return;
+			}
+			do {
+				processor = processor.getParent();
+			} while (processor instanceof Macro.Arguments);
+			if (!inherit || (processor == null)) {
+				t.impure = true;
+				return;
+			}
+			Object current = literal ? processor.getLiteralRawProperty(key, true)
+				: processor.getUnexpandedProperty(key);
+			if (!Objects.equals(current, value)) {
+				t.impure = true;
+				return;
+			}
+		}
+		t.dependencies.add(new Dependency(processor, key, literal, inherit, value));
+	}
+
+	/**
+	 * Return a compiled regular expression.
+	 */
+	static Pattern pattern(String regex) {
+		Pattern pattern = patterns.get(regex);
+		if (pattern == null) {
+			pattern = Pattern.compile(regex);
+			if (patterns.size() >= MAX_PATTERNS) {
+				patterns.clear();
+			}
+			patterns.put(regex, pattern);
+		}
+		return pattern;
+	}
+
+	/**
+	 * Return the template of a line, an array of literal {@link String}s and
+	 * {@link Call}s, or {@code null} if the line must be interpreted.
+	 */
+	static Object[] template(CharSequence line) {
+		if (!(line instanceof String string) || (string.length() > MAX_LENGTH)) {
+			return null;
+		}
+		Object[] template = templates.get(string);
+		if (template != null) {
+			templateHits.increment();
+		} else {
+			templateMisses.increment();
+			template = compile(string);
+			if (templates.size() >= MAX_TEMPLATES) {
+				templates.clear();
+			}
+			templates.put(string, template);
+		}
+		return (template == NOT_COMPILABLE) ? null : template;
+	}
+
+	/**
+	 * Parse a line like the macro processor does. A line with a ./ sequence,
+	 * which expands to the base directory, is not compiled.
+	 */
+	private static Object[] compile(String line) {
+		if ((line.indexOf('\u0000') >= 0) || line.contains("./")) {
+			return NOT_COMPILABLE;
+		}
+		List<Object> parts = new ArrayList<>();
+		StringBuilder literal = new StringBuilder();
+		int length = line.length();
+		int index = 0;
+		while (index < length) {
+			char c1 = line.charAt(index++);
+			if ((c1 == '\\') && (index < length - 1)
+				&& ((line.charAt(index) == '$') || (line.charAt(index) == ';'))) {
+				literal.append(line.charAt(index++));
+				continue;
+			}
+			if ((c1 == '$') && (index < length - 2)) {
+				char begin = line.charAt(index);
+				char end = Macro.getTerminator(begin);
+				if (end != 0) {
+					index = compileCall(line, index + 1, begin, end, parts, literal);
+					continue;
+				}
+			}
+			literal.append(c1);
+		}
+		if (literal.length() > 0) {
+			parts.add(literal.toString());
+		}
+		return parts.toArray();
+	}
+
+	private static int compileCall(String line, int index, char begin, char end, List<Object> parts,
+		StringBuilder literal) {
+		int length = line.length();
+		int nesting = 1;
+		List<String> args = new ArrayList<>();
+		StringBuilder variable = new StringBuilder();
+		int pStart = 0;
+		while (index < length) {
+			char c1 = line.charAt(index++);
+			if (c1 == end) {
+				if (--nesting == 0) {
+					args.add(variable.substring(pStart));
+					if (literal.length() > 0) {
+						parts.add(literal.toString());
+						literal.setLength(0);
+					}
+					parts.add(new Call(begin, end, variable.toString(), List.copyOf(args)));
+					return index;
+				}
+			} else if (c1 == begin) {
+				nesting++;
+			} else if ((c1 == '\\') && (index < length - 1)
+				&& ((line.charAt(index) == '$') || (line.charAt(index) == ';'))) {
+				variable.append(line.charAt(index++));
+				continue;
+			} else if ((c1 == ';') && (nesting == 1)) {
+				args.add(variable.substring(pStart));
+				pStart = variable.length() + 1;
+			}
+			variable.append(c1);
+		}
+		// not terminated, the text of the macro is kept without the $ and
+		// the begin character
+		literal.append(variable);
+		return index;
+	}
+}
@@ -1119,6 +1119,8 @@ public class Processor extends Domain implements Reporter, Registry, Constants,
 	}
 
 	private String getWildcardProperty(String deflt, String separator, boolean inherit, Instruction ins) {
+		// the matching keys are not tracked by the macro cache
+		MacroCache.impure();
 		// Handle a wildcard key, make sure they're sorted
 		// for consistency
 		String result = stream(inherit).filter(ins::matches)
@@ -1131,12 +1133,15 @@ public class Processor extends Domain implements Reporter, Registry, Constants,
 
 	private String getLiteralProperty(String key, String deflt, Processor source, boolean inherit) {
 		String value = null;
+		Object found = null;
+		Processor start = source;
 		// Use the key as is first, if found ok
 
 		for (Processor proc = source; proc != null; proc = proc.getParent()) {
 			Object raw = proc.getProperties()
 				.get(key);
 			if (raw != null) {
+				found = raw;
 				if (raw instanceof String string) {
 					value = string;
 				} else if (isPedantic()) {
@@ -1155,6 +1160,7 @@ public class Processor extends Domain implements Reporter, Registry, Constants,
 				break;
 			}
 		}
+		MacroCache.readLiteral(start, key, inherit, found);
 		//
 		// Check if we can find a replacement through the
 		// replacer, which takes profiles into account
@@ -1170,6 +1176,28 @@ public class Processor extends Domain implements Reporter, Registry, Constants,
 			return null;
 	}
 
+	/**
+	 * Return the raw value of a property as it is looked up by getProperty,
+	 * without expanding it.
+	 */
+	Object getLiteralRawProperty(String key, boolean inherit) {
+		for (Processor proc = this; proc != null; proc = proc.getParent()) {
+			Object raw = proc.getProperties()
+				.get(key);
+			if (raw != null) {
+				return raw;
+			}
+			if (!inherit) {
+				break;
+			}
+			Collection<String> keyFilter = proc.filter;
+			if ((keyFilter != null) && (keyFilter.contains(key))) {
+				break;
+			}
+		}
+		return null;
+	}
+
 	/**
 	 * Helper to load a properties file from disk.
 	 *
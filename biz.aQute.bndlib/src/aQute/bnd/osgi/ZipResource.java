@@ -10,16 +10,18 @@ import java.util.zip.ZipEntry;
 import java.util.zip.ZipFile;
 
 import aQute.lib.io.IO;
+import aQute.lib.zip.ZipReader;
 import aQute.lib.zip.ZipUtil;
 
 public class ZipResource implements Resource {
-	private ByteBuffer		buffer;
-	private final ZipFile	zip;
-	private final ZipEntry	entry;
-	private final boolean	closeZipFile;
-	private long			lastModified;
-	private long			size;
-	private String			extra;
+	private ByteBuffer			buffer;
+	private final ZipFile		zip;
+	private final ZipReader		reader;
+	private final ZipEntry		entry;
+	private final boolean		closeZipFile;
+	private long				lastModified;
+	private long				size;
+	private String				extra;
 
 	ZipResource(Path path, String entryName) throws IOException {
 		this(new ZipFile(path.toFile()), entryName);
@@ -38,7 +40,16 @@ public class ZipResource implements Resource {
 	}
 
 	private ZipResource(ZipFile zip, ZipEntry entry, boolean closeZipFile) {
+		this(zip, null, entry, closeZipFile);
+	}
+
+	ZipResource(ZipReader reader, ZipEntry entry) {
+		this(null, reader, entry, false);
+	}
+
+	private ZipResource(ZipFile zip, ZipReader reader, ZipEntry entry, boolean closeZipFile) {
 		this.zip = zip;
+		this.reader = reader;
 		this.entry = entry;
 		this.closeZipFile = closeZipFile;
 		this.lastModified = -11L;
@@ -58,6 +69,9 @@ public class ZipResource implements Resource {
 		if (buffer != null) {
 			return buffer;
 		}
+		if (reader != null) {
+			return buffer = reader.getData(entry);
+		}
 		if (size == -1) {
 			return buffer = ByteBuffer.wrap(IO.read(zip.getInputStream(entry)));
 		}
@@ -66,6 +80,27 @@ public class ZipResource implements Resource {
 		return buffer = bb;
 	}
 
+	/**
+	 * Return the data of the entry as stored in the ZIP file so it can be
+	 * copied without inflating and deflating it again. The method, CRC and
+	 * sizes of the entry are set on the specified entry.
+	 *
+	 * @param to The entry to write.
+	 * @param method The compression method of the entry to write.
+	 * @return The stored data or {@code null} if the data is not available or
+	 *         is stored with another method.
+	 */
+	ByteBuffer rawData(ZipEntry to, int method) throws IOException {
+		if ((reader == null) || (entry.getMethod() != method)) {
+			return null;
+		}
+		to.setMethod(method);
+		to.setCrc(entry.getCrc());
+		to.setSize(entry.getSize());
+		to.setCompressedSize(entry.getCompressedSize());
+		return reader.getRawData(entry);
+	}
+
 	@Override
 	public InputStream openInputStream() throws Exception {
 		return IO.stream(buffer());
@@ -73,12 +108,12 @@ public class ZipResource implements Resource {
 
 	@Override
 	public String toString() {
-		return ":" + zip.getName() + "(" + entry.getName() + "):";
+		return ":" + ((reader != null) ? reader.getName() : zip.getName()) + "(" + entry.getName() + "):";
 	}
 
 	@Override
 	public void write(OutputStream out) throws Exception {
-		if (buffer != null) {
+		if ((buffer != null) || (reader != null)) {
 			IO.copy(buffer(), out);
 		} else {
 			IO.copy(zip.getInputStream(entry), out);
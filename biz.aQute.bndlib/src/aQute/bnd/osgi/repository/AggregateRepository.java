@@ -26,6 +26,15 @@ public class AggregateRepository extends BaseRepository {
 		Collections.addAll(this.repositories, repositories);
 	}
 
+	/**
+	 * Get the aggregated repositories.
+	 *
+	 * @return the aggregated repositories in order
+	 */
+	public List<Repository> getRepositories() {
+		return Collections.unmodifiableList(repositories);
+	}
+
 	@Override
 	public Map<Requirement, Collection<Capability>> findProviders(Collection<? extends Requirement> requirements) {
 		Map<Requirement, Collection<Capability>> result = ResourceUtils.findProviders(requirements,
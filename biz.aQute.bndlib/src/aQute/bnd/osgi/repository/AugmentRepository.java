@@ -36,25 +36,43 @@ public class AugmentRepository extends BaseRepository {
 	public Map<Requirement, Collection<Capability>> findProviders(Collection<? extends Requirement> requirements) {
 		Map<Requirement, Collection<Capability>> fromRepos = repository.findProviders(requirements);
 
-		fromRepos.replaceAll((requirement, capabilities) -> {
-			List<Capability> additional = ResourceUtils.findProviders(requirement, augmentedCapabilities);
-			List<Capability> updated = Stream.concat(capabilities.stream()
-				.map(capability -> {
-					if (isValid(capability)) {
-						Capability wrappedCapability = wrapped.get(capability);
-						if (wrappedCapability != null) {
-							return wrappedCapability;
-						}
-					}
-					return capability;
-				}), additional.stream())
-				.collect(ResourceUtils.toCapabilities());
-			return updated;
-		});
+		fromRepos.replaceAll(this::augment);
 
 		return fromRepos;
 	}
 
+	/**
+	 * Get the repository that is augmented.
+	 *
+	 * @return the augmented repository
+	 */
+	public Repository getRepository() {
+		return repository;
+	}
+
+	/**
+	 * Augment the providers of a requirement found in the augmented
+	 * repository.
+	 *
+	 * @param requirement the requirement
+	 * @param capabilities the providers found in the augmented repository
+	 * @return the providers with the augmented capabilities
+	 */
+	public List<Capability> augment(Requirement requirement, Collection<Capability> capabilities) {
+		List<Capability> additional = ResourceUtils.findProviders(requirement, augmentedCapabilities);
+		return Stream.concat(capabilities.stream()
+			.map(capability -> {
+				if (isValid(capability)) {
+					Capability wrappedCapability = wrapped.get(capability);
+					if (wrappedCapability != null) {
+						return wrappedCapability;
+					}
+				}
+				return capability;
+			}), additional.stream())
+			.collect(ResourceUtils.toCapabilities());
+	}
+
 	public boolean isValid(Capability capability) {
 		return true;
 	}
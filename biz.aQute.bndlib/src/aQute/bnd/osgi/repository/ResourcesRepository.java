@@ -14,6 +14,7 @@ import org.osgi.resource.Capability;
 import org.osgi.resource.Requirement;
 import org.osgi.resource.Resource;
 
+import aQute.bnd.osgi.resource.CapabilityIndex;
 import aQute.bnd.osgi.resource.ResourceUtils;
 import aQute.bnd.service.resource.SupportingResource;
 
@@ -24,6 +25,7 @@ import aQute.bnd.service.resource.SupportingResource;
 public class ResourcesRepository extends BaseRepository {
 	private final Set<Resource>									resources;
 	private final Map<String, Predicate<Map<String, Object>>>	cache;
+	private volatile CapabilityIndex							index;
 
 	/**
 	 * Creates a new resources repository with an empty set of resources.
@@ -71,11 +73,26 @@ public class ResourcesRepository extends BaseRepository {
 	 * @return A list of capabilities that satisfy the requirement.
 	 */
 	public List<Capability> findProvider(Requirement requirement) {
-		String namespace = requirement.getNamespace();
-		return resources.stream()
-			.flatMap(resource -> ResourceUtils.capabilityStream(resource, namespace))
-			.filter(ResourceUtils.matcher(requirement, this::filterPredicate))
-			.collect(ResourceUtils.toCapabilities());
+		return index().findProviders(requirement, this::filterPredicate);
+	}
+
+	/**
+	 * Gets the index of the capabilities of the resources in this repository.
+	 * The index is built on first use after the resources have changed.
+	 *
+	 * @return The capability index.
+	 */
+	private CapabilityIndex index() {
+		CapabilityIndex result = index;
+		if (result == null) {
+			synchronized (resources) {
+				result = index;
+				if (result == null) {
+					index = result = new CapabilityIndex(resources);
+				}
+			}
+		}
+		return result;
 	}
 
 	/**
@@ -100,9 +117,14 @@ public class ResourcesRepository extends BaseRepository {
 	 */
 	public void add(Resource resource) {
 		if (resource != null) {
-			resources.add(resource);
-			if (resource instanceof SupportingResource cr)
-				resources.addAll(cr.getSupportingResources());
+			synchronized (resources) {
+				resources.add(resource);
+				if (resource instanceof SupportingResource cr)
+					resources.addAll(cr.getSupportingResources());
+				// invalidate after the change so that the index is not rebuilt
+				// from the old resources
+				index = null;
+			}
 		}
 	}
 
@@ -122,8 +144,11 @@ public class ResourcesRepository extends BaseRepository {
 	 * @param resources The resources to set.
 	 */
 	protected void set(Collection<? extends Resource> resources) {
-		this.resources.clear();
-		addAll(resources);
+		synchronized (this.resources) {
+			this.resources.clear();
+			addAll(resources);
+			index = null;
+		}
 	}
 
 	/**
@@ -0,0 +1,276 @@
+package aQute.bnd.osgi.repository;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.osgi.framework.Version;
+import org.osgi.resource.Capability;
+import org.osgi.resource.Requirement;
+import org.osgi.resource.Resource;
+
+import aQute.bnd.osgi.resource.CapReqBuilder;
+import aQute.bnd.osgi.resource.ResourceBuilder;
+import aQute.lib.io.ByteBufferDataInput;
+import aQute.lib.io.IO;
+
+/**
+ * A compact binary snapshot of a list of resources, for example the resources
+ * parsed from an OSGi repository index.
+ * <p>
+ * All the strings, namespaces, attribute and directive names and values, are
+ * stored once in a table at the start of the snapshot and are referenced by
+ * their index. Versions, longs and doubles are stored in binary form. Reading a
+ * snapshot therefore does not need to parse any text. Large snapshots are
+ * memory mapped.
+ * <p>
+ * A snapshot carries a key, for example the digest of the index it was made
+ * from. Reading returns {@code null} when the key does not match so that the
+ * caller can parse the index again.
+ */
+public class ResourcesSnapshot {
+	private final static int	MAGIC		= 0xBDD50001;
+
+	private final static int	T_STRING	= 0;
+	private final static int	T_LONG		= 1;
+	private final static int	T_DOUBLE	= 2;
+	private final static int	T_VERSION	= 3;
+	private final static int	T_LIST		= 4;
+
+	private ResourcesSnapshot() {}
+
+	/**
+	 * Write a snapshot of the resources to a file. The file is replaced
+	 * atomically so that concurrent readers never see a partial snapshot.
+	 *
+	 * @param resources The resources.
+	 * @param key The key identifying the source of the resources.
+	 * @param file The snapshot file.
+	 * @throws IOException If the file cannot be written.
+	 * @throws IllegalArgumentException If an attribute has a type which cannot
+	 *             be stored.
+	 */
+	public static void write(Collection<? extends Resource> resources, String key, File file) throws IOException {
+		Map<String, Integer> strings = new HashMap<>();
+		List<String> table = new ArrayList<>();
+		for (Resource resource : resources) {
+			for (Capability capability : resource.getCapabilities(null)) {
+				strings(capability.getNamespace(), capability.getAttributes(), capability.getDirectives(), strings,
+					table);
+			}
+			for (Requirement requirement : resource.getRequirements(null)) {
+				strings(requirement.getNamespace(), requirement.getAttributes(), requirement.getDirectives(), strings,
+					table);
+			}
+		}
+
+		IO.mkdirs(file.getParentFile());
+		File tmp = IO.createTempFile(file.getParentFile(), file.getName(), ".tmp");
+		try {
+			try (OutputStream os = IO.outputStream(tmp); DataOutputStream out = new DataOutputStream(os)) {
+				out.writeInt(MAGIC);
+				writeString(out, key);
+				out.writeInt(table.size());
+				for (String s : table) {
+					writeString(out, s);
+				}
+				out.writeInt(resources.size());
+				for (Resource resource : resources) {
+					List<Capability> capabilities = resource.getCapabilities(null);
+					out.writeInt(capabilities.size());
+					for (Capability capability : capabilities) {
+						write(out, capability.getNamespace(), capability.getAttributes(), capability.getDirectives(),
+							strings);
+					}
+					List<Requirement> requirements = resource.getRequirements(null);
+					out.writeInt(requirements.size());
+					for (Requirement requirement : requirements) {
+						write(out, requirement.getNamespace(), requirement.getAttributes(),
+							requirement.getDirectives(), strings);
+					}
+				}
+			}
+			IO.rename(tmp, file);
+		} finally {
+			IO.delete(tmp);
+		}
+	}
+
+	/**
+	 * Read a snapshot of resources from a file.
+	 *
+	 * @param file The snapshot file.
+	 * @param key The key identifying the source of the resources.
+	 * @return The resources or {@code null} if the file does not exist or is
+	 *         a snapshot for another key.
+	 * @throws IOException If the file is not a valid snapshot.
+	 */
+	public static List<Resource> read(File file, String key) throws IOException {
+		if (!file.isFile()) {
+			return null;
+		}
+		ByteBuffer bb = IO.read(file.toPath());
+		DataInput in = ByteBufferDataInput.wrap(bb);
+		try {
+			if (in.readInt() != MAGIC) {
+				throw new IOException("Not a resources snapshot " + file);
+			}
+			if (!key.equals(readString(in))) {
+				return null;
+			}
+			String[] table = new String[in.readInt()];
+			for (int i = 0; i < table.length; i++) {
+				table[i] = readString(in);
+			}
+			int count = in.readInt();
+			List<Resource> resources = new ArrayList<>(count);
+			for (int r = 0; r < count; r++) {
+				ResourceBuilder rb = new ResourceBuilder();
+				for (int i = in.readInt(); i > 0; i--) {
+					rb.addCapability(read(in, table));
+				}
+				for (int i = in.readInt(); i > 0; i--) {
+					rb.addRequirement(read(in, table));
+				}
+				resources.add(rb.build());
+			}
+			return resources;
+		} catch (RuntimeException e) {
+			// buffer underflow or an index out of bounds
+			throw new IOException("Invalid resources snapshot " + file, e);
+		}
+	}
+
+	private static void strings(String namespace, Map<String, Object> attributes, Map<String, String> directives,
+		Map<String, Integer> strings, List<String> table) {
+		intern(namespace, strings, table);
+		attributes.forEach((k, v) -> {
+			intern(k, strings, table);
+			if (v instanceof Collection<?> list) {
+				list.forEach(e -> internValue(e, strings, table));
+			} else {
+				internValue(v, strings, table);
+			}
+		});
+		directives.forEach((k, v) -> {
+			intern(k, strings, table);
+			intern(v, strings, table);
+		});
+	}
+
+	private static void internValue(Object value, Map<String, Integer> strings, List<String> table) {
+		if (value instanceof String s) {
+			intern(s, strings, table);
+		} else if (value instanceof Version v) {
+			intern(v.getQualifier(), strings, table);
+		}
+	}
+
+	private static void intern(String s, Map<String, Integer> strings, List<String> table) {
+		strings.computeIfAbsent(s, k -> {
+			table.add(k);
+			return table.size() - 1;
+		});
+	}
+
+	private static void write(DataOutput out, String namespace, Map<String, Object> attributes,
+		Map<String, String> directives, Map<String, Integer> strings) throws IOException {
+		out.writeInt(strings.get(namespace));
+		out.writeInt(attributes.size());
+		for (Map.Entry<String, Object> entry : attributes.entrySet()) {
+			out.writeInt(strings.get(entry.getKey()));
+			Object value = entry.getValue();
+			if (value instanceof Collection<?> list) {
+				out.writeByte(T_LIST);
+				out.writeInt(list.size());
+				for (Object element : list) {
+					writeValue(out, element, strings);
+				}
+			} else {
+				writeValue(out, value, strings);
+			}
+		}
+		out.writeInt(directives.size());
+		for (Map.Entry<String, String> entry : directives.entrySet()) {
+			out.writeInt(strings.get(entry.getKey()));
+			out.writeInt(strings.get(entry.getValue()));
+		}
+	}
+
+	private static void writeValue(DataOutput out, Object value, Map<String, Integer> strings) throws IOException {
+		if (value instanceof String s) {
+			out.writeByte(T_STRING);
+			out.writeInt(strings.get(s));
+		} else if (value instanceof Long l) {
+			out.writeByte(T_LONG);
+			out.writeLong(l);
+		} else if (value instanceof Double d) {
+			out.writeByte(T_DOUBLE);
+			out.writeDouble(d);
+		} else if (value instanceof Version v) {
+			out.writeByte(T_VERSION);
+			out.writeInt(v.getMajor());
+			out.writeInt(v.getMinor());
+			out.writeInt(v.getMicro());
+			out.writeInt(strings.get(v.getQualifier()));
+		} else {
+			throw new IllegalArgumentException("Cannot store an attribute of type " + value.getClass());
+		}
+	}
+
+	private static CapReqBuilder read(DataInput in, String[] table) throws IOException {
+		CapReqBuilder builder = new CapReqBuilder(table[in.readInt()]);
+		for (int i = in.readInt(); i > 0; i--) {
+			String name = table[in.readInt()];
+			int type = in.readByte();
+			if (type == T_LIST) {
+				int size = in.readInt();
+				List<Object> list = new ArrayList<>(size);
+				for (int j = 0; j < size; j++) {
+					list.add(readValue(in, in.readByte(), table));
+				}
+				builder.addAttribute(name, list);
+			} else {
+				builder.addAttribute(name, readValue(in, type, table));
+			}
+		}
+		for (int i = in.readInt(); i > 0; i--) {
+			String name = table[in.readInt()];
+			builder.addDirective(name, table[in.readInt()]);
+		}
+		return builder;
+	}
+
+	private static Object readValue(DataInput in, int type, String[] table) throws IOException {
+		return switch (type) {
+			case T_STRING -> table[in.readInt()];
+			case T_LONG -> in.readLong();
+			case T_DOUBLE -> in.readDouble();
+			case T_VERSION -> new Version(in.readInt(), in.readInt(), in.readInt(), table[in.readInt()]);
+			default -> throw new IOException("Unknown attribute type " + type);
+		};
+	}
+
+	private static void writeString(DataOutput out, String s) throws IOException {
+		byte[] bytes = s.getBytes(UTF_8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+
+	private static String readString(DataInput in) throws IOException {
+		byte[] bytes = new byte[in.readInt()];
+		in.readFully(bytes);
+		return new String(bytes, UTF_8);
+	}
+}
@@ -8,20 +8,33 @@ import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.osgi.annotation.versioning.ConsumerType;
+import org.osgi.resource.Capability;
 import org.osgi.resource.Resource;
+import org.osgi.service.repository.ContentNamespace;
 
 import aQute.bnd.exceptions.Exceptions;
 import aQute.bnd.osgi.Domain;
 import aQute.bnd.osgi.resource.ResourceBuilder;
+import aQute.bnd.osgi.resource.ResourceUtils;
+import aQute.bnd.osgi.resource.ResourceUtils.ContentCapability;
 import aQute.lib.io.IO;
+import aQute.libg.cryptography.SHA256;
 import aQute.libg.reporter.slf4j.Slf4jReporter;
 import aQute.service.reporter.Reporter;
 
@@ -73,6 +86,8 @@ public class SimpleIndexer {
 	private String			name;
 	private long			increment	= -1L;
 	private FileAnalyzer	analyzer;
+	private int				parallelism	= 1;
+	private File			previous;
 	private Reporter		reporter	= new Slf4jReporter(SimpleIndexer.class);
 
 	public SimpleIndexer() {}
@@ -123,6 +138,30 @@ public class SimpleIndexer {
 		return this;
 	}
 
+	/**
+	 * @param parallelism the number of files that are indexed at the same
+	 *            time, a value less than 1 uses the number of available
+	 *            processors. When more than one file is indexed at the same
+	 *            time, the analyzer is called concurrently. The resources are
+	 *            always in the order of the files.
+	 */
+	public SimpleIndexer parallelism(int parallelism) {
+		this.parallelism = parallelism;
+		return this;
+	}
+
+	/**
+	 * @param previous an existing index, usually the index that is generated
+	 *            again. The resources in this index are used for the files
+	 *            that did not change instead of indexing these files again. A
+	 *            file did not change when it has the same size and the same
+	 *            SHA-256.
+	 */
+	public SimpleIndexer incremental(File previous) {
+		this.previous = previous;
+		return this;
+	}
+
 	/**
 	 * @param increment the timestamp of the index
 	 */
@@ -157,12 +196,34 @@ public class SimpleIndexer {
 	 * @return the set of resources handled so far.
 	 */
 	public List<Resource> getResources() {
-		List<Resource> resources = files.stream()
-			.filter(f -> f.isFile() && !f.isHidden() && f.canRead())
-			.map(this::indexFile)
-			.filter(Objects::nonNull)
-			.collect(Collectors.toList());
-		return resources;
+		Map<Path, Resource> previousResources = previousResources();
+		Function<File, Resource> indexer = file -> indexFile(file, previousResources);
+		Stream<File> stream = files.stream()
+			.filter(f -> f.isFile() && !f.isHidden() && f.canRead());
+		int threads = (parallelism < 1) ? Runtime.getRuntime()
+			.availableProcessors() : parallelism;
+		if ((threads == 1) || (files.size() < 2)) {
+			return stream.map(indexer)
+				.filter(Objects::nonNull)
+				.collect(Collectors.toList());
+		}
+		// a parallel stream runs in the pool of the task that starts it
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			return pool.submit(() -> stream.parallel()
+				.map(indexer)
+				.filter(Objects::nonNull)
+				.collect(Collectors.toList()))
+				.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread()
+				.interrupt();
+			throw Exceptions.duck(e);
+		} catch (ExecutionException e) {
+			throw Exceptions.duck(Exceptions.unrollCause(e, ExecutionException.class));
+		} finally {
+			pool.shutdown();
+		}
 	}
 
 	public SimpleIndexer reporter(Reporter reporter) {
@@ -187,21 +248,105 @@ public class SimpleIndexer {
 		return repository;
 	}
 
-	private Resource indexFile(File file) {
+	private Resource indexFile(File file, Map<Path, Resource> previousResources) {
 		try {
+			URI uri = relativize(file);
+			Path path = file.toPath()
+				.toAbsolutePath()
+				.normalize();
+			Resource previousResource = previousResources.get(path);
+			if (previousResource != null) {
+				Resource resource = reuse(file, path, uri, previousResource);
+				if (resource != null) {
+					return resource;
+				}
+			}
 			ResourceBuilder resourceBuilder = new ResourceBuilder();
-			if (resourceBuilder.addFile(file, relativize(file))) {
+			if (resourceBuilder.addFile(file, uri)) {
 				if (analyzer != null) {
 					analyzer.analyzeFile(file, resourceBuilder.safeResourceBuilder());
 				}
 				return resourceBuilder.build();
 			}
 		} catch (Exception e) {
-			reporter.exception(e, "Could not index file %s", file);
+			// the reporter does not have to be thread safe
+			synchronized (reporter) {
+				reporter.exception(e, "Could not index file %s", file);
+			}
 		}
 		return null;
 	}
 
+	/**
+	 * Read the resources of the previous index by the path of their file.
+	 */
+	private Map<Path, Resource> previousResources() {
+		if ((previous == null) || !previous.isFile()) {
+			return Collections.emptyMap();
+		}
+		Map<Path, Resource> resources = new HashMap<>();
+		try {
+			URI uri = (base != null) ? base.toUri() : previous.toURI();
+			for (Resource resource : XMLResourceParser.getResources(previous, uri)) {
+				for (Capability capability : resource.getCapabilities(ContentNamespace.CONTENT_NAMESPACE)) {
+					Path path = toPath(ResourceUtils.as(capability, ContentCapability.class));
+					if (path != null) {
+						resources.put(path, resource);
+					}
+				}
+			}
+		} catch (Exception e) {
+			reporter.warning("Could not read the previous index %s, all files are indexed: %s", previous, e);
+			return Collections.emptyMap();
+		}
+		return resources;
+	}
+
+	/**
+	 * Return the resource of the previous index with the URI of the file, or
+	 * null if the file changed.
+	 */
+	private Resource reuse(File file, Path path, URI uri, Resource previousResource) throws Exception {
+		ResourceBuilder resourceBuilder = new ResourceBuilder();
+		boolean unchanged = false;
+		for (Capability capability : previousResource.getCapabilities(null)) {
+			if (capability.getNamespace()
+				.equals(ContentNamespace.CONTENT_NAMESPACE)) {
+				ContentCapability content = ResourceUtils.as(capability, ContentCapability.class);
+				if (path.equals(toPath(content))) {
+					// the modification time cannot be trusted, a copy can keep
+					// the time of the original
+					if ((content.size() != file.length()) || !SHA256.digest(file)
+						.asHex()
+						.equalsIgnoreCase(content.osgi_content())) {
+						return null;
+					}
+					unchanged = true;
+					resourceBuilder.addContentCapability(uri, content.osgi_content(), content.size(),
+						content.mime());
+					continue;
+				}
+			}
+			resourceBuilder.addCapability(capability);
+		}
+		if (!unchanged) {
+			return null;
+		}
+		resourceBuilder.addRequirements(previousResource.getRequirements(null));
+		trace("Using the previous index for unchanged file %s", file);
+		return resourceBuilder.build();
+	}
+
+	private static Path toPath(ContentCapability content) {
+		URI url = content.url();
+		if ((url == null) || !"file".equalsIgnoreCase(url.getScheme())) {
+			return null;
+		}
+		return Paths.get(url)
+			.toAbsolutePath()
+			.normalize();
+	}
+
 	private URI relativize(File file) {
 		if (base == null) {
 			return file.toURI();
@@ -218,9 +363,15 @@ public class SimpleIndexer {
 		} catch (URISyntaxException e) {
 			throw Exceptions.duck(e);
 		}
-		reporter.trace("Resolving %s relative to %s; Relative Path: %s, URI: %s", filePath, base, relativePath,
-			relativeURI);
+		trace("Resolving %s relative to %s; Relative Path: %s, URI: %s", filePath, base, relativePath, relativeURI);
 		return relativeURI;
 	}
 
+	private void trace(String format, Object... args) {
+		// the reporter does not have to be thread safe
+		synchronized (reporter) {
+			reporter.trace(format, args);
+		}
+	}
+
 }
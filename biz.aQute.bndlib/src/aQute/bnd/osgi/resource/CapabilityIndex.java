@@ -0,0 +1,175 @@
+package aQute.bnd.osgi.resource;
+
+import java.lang.reflect.Array;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import org.osgi.framework.InvalidSyntaxException;
+import org.osgi.resource.Capability;
+import org.osgi.resource.Namespace;
+import org.osgi.resource.Requirement;
+import org.osgi.resource.Resource;
+
+/**
+ * An index of the capabilities of a set of resources.
+ * <p>
+ * The capabilities are indexed by namespace and by the value of the attribute
+ * with the name of the namespace, for example the package name of an
+ * {@code osgi.wiring.package} capability or the symbolic name of an
+ * {@code osgi.identity} capability. A requirement whose filter requires an
+ * exact value for this attribute is only matched against the capabilities
+ * with that value instead of all the capabilities in the namespace.
+ * <p>
+ * The capabilities are returned in the order of the added resources. Adding
+ * resources is not thread safe but finding providers is.
+ */
+public class CapabilityIndex {
+	private final Map<String, NamespaceIndex> namespaces = new HashMap<>();
+
+	/**
+	 * Creates an empty index.
+	 */
+	public CapabilityIndex() {}
+
+	/**
+	 * Creates an index of the capabilities of the specified resources.
+	 *
+	 * @param resources The resources to index.
+	 */
+	public CapabilityIndex(Collection<? extends Resource> resources) {
+		resources.forEach(this::add);
+	}
+
+	/**
+	 * Adds the capabilities of a resource to this index.
+	 *
+	 * @param resource The resource to add.
+	 */
+	public void add(Resource resource) {
+		for (Capability capability : resource.getCapabilities(null)) {
+			namespaces.computeIfAbsent(capability.getNamespace(), NamespaceIndex::new)
+				.add(capability);
+		}
+	}
+
+	/**
+	 * Finds the capabilities which satisfy the specified requirement.
+	 *
+	 * @param requirement The requirement to find providers for.
+	 * @param filter The function to create the predicate for the filter
+	 *            directive of the requirement.
+	 * @return A list of capabilities that satisfy the requirement.
+	 */
+	public List<Capability> findProviders(Requirement requirement,
+		Function<String, Predicate<Map<String, Object>>> filter) {
+		return candidates(requirement).stream()
+			.filter(ResourceUtils.matcher(requirement, filter))
+			.collect(ResourceUtils.toCapabilities());
+	}
+
+	/**
+	 * Returns the capabilities which may satisfy the specified requirement.
+	 * All the capabilities which satisfy the requirement are included but the
+	 * requirement still has to be matched against them.
+	 *
+	 * @param requirement The requirement.
+	 * @return The candidate capabilities in the order of the added resources.
+	 */
+	public List<Capability> candidates(Requirement requirement) {
+		NamespaceIndex index = namespaces.get(requirement.getNamespace());
+		if (index == null) {
+			return Collections.emptyList();
+		}
+		return index.candidates(requirement.getDirectives()
+			.get(Namespace.REQUIREMENT_FILTER_DIRECTIVE));
+	}
+
+	private static final class NamespaceIndex {
+		private final String							namespace;
+		private final List<Capability>					all			= new ArrayList<>();
+		private final Map<String, List<Capability>>		byValue		= new HashMap<>();
+		private final Map<String, Optional<String>>		required	= new ConcurrentHashMap<>();
+		/* set when a capability has no String value for the attribute */
+		private boolean									unindexed;
+
+		NamespaceIndex(String namespace) {
+			this.namespace = namespace;
+		}
+
+		void add(Capability capability) {
+			all.add(capability);
+			Set<String> values = values(capability.getAttributes()
+				.get(namespace));
+			if (values == null) {
+				unindexed = true;
+				return;
+			}
+			for (String value : values) {
+				byValue.computeIfAbsent(value, k -> new ArrayList<>())
+					.add(capability);
+			}
+		}
+
+		List<Capability> candidates(String filterString) {
+			if (unindexed || (filterString == null)) {
+				return all;
+			}
+			Optional<String> value = required.computeIfAbsent(filterString, this::requiredValue);
+			if (value.isEmpty()) {
+				return all;
+			}
+			return byValue.getOrDefault(value.get(), Collections.emptyList());
+		}
+
+		private Optional<String> requiredValue(String filterString) {
+			try {
+				return Optional.ofNullable(FilterImpl.createFilter(filterString)
+					.requiredValue(namespace));
+			} catch (InvalidSyntaxException e) {
+				return Optional.empty();
+			}
+		}
+
+		/**
+		 * The String values of the attribute or {@code null} if the value is
+		 * not a String or a collection or array of Strings.
+		 */
+		private static Set<String> values(Object value) {
+			if (value instanceof String string) {
+				return Collections.singleton(string);
+			}
+			if (value instanceof Collection<?> collection) {
+				Set<String> values = new LinkedHashSet<>();
+				for (Object element : collection) {
+					if (!(element instanceof String string)) {
+						return null;
+					}
+					values.add(string);
+				}
+				return values;
+			}
+			if ((value != null) && value.getClass()
+				.isArray()) {
+				Set<String> values = new LinkedHashSet<>();
+				for (int i = 0, length = Array.getLength(value); i < length; i++) {
+					if (!(Array.get(value, i) instanceof String string)) {
+						return null;
+					}
+					values.add(string);
+				}
+				return values;
+			}
+			return null;
+		}
+	}
+}
@@ -0,0 +1,68 @@
+package aQute.bnd.osgi.resource;
+
+import static java.util.Objects.requireNonNull;
+
+import java.util.Map;
+import java.util.function.Predicate;
+
+import org.osgi.framework.Filter;
+import org.osgi.framework.InvalidSyntaxException;
+
+import aQute.bnd.unmodifiable.Maps;
+
+/**
+ * An LDAP filter compiled into a predicate over attribute maps.
+ * <p>
+ * A {@link Filter} interprets its parse tree for every match. A compiled
+ * filter is built once from the parse tree. The attribute keys are interned,
+ * version literals are parsed up front and the operands of an and are
+ * evaluated starting with the most selective ones, like an exact match on a
+ * package name before the version range. The result of {@link #test(Map)} is
+ * the same as {@link Filter#matches(Map)} of the parsed filter.
+ */
+public final class CompiledFilter implements Predicate<Map<String, ?>> {
+	private final FilterImpl				filter;
+	private final Predicate<Map<String, ?>>	predicate;
+
+	private CompiledFilter(FilterImpl filter) {
+		this.filter = filter;
+		this.predicate = filter.compile();
+	}
+
+	/**
+	 * Parse and compile a filter string.
+	 *
+	 * @param filterString The filter string.
+	 * @return The compiled filter.
+	 * @throws InvalidSyntaxException If the filter string cannot be parsed.
+	 */
+	public static CompiledFilter compile(String filterString) throws InvalidSyntaxException {
+		return new CompiledFilter(FilterImpl.createFilter(requireNonNull(filterString)));
+	}
+
+	/**
+	 * Test the attributes against the filter. The keys are looked up in a
+	 * normal manner respecting case.
+	 *
+	 * @param map The attributes, {@code null} is treated as no attributes.
+	 * @return {@code true} if the attributes match this filter.
+	 */
+	@Override
+	public boolean test(Map<String, ?> map) {
+		return predicate.test((map != null) ? map : Maps.of());
+	}
+
+	/**
+	 * Returns the parsed filter which interprets the filter on each match.
+	 *
+	 * @return The parsed filter.
+	 */
+	public Filter getFilter() {
+		return filter;
+	}
+
+	@Override
+	public String toString() {
+		return filter.toString();
+	}
+}
@@ -25,13 +25,16 @@ import java.lang.reflect.Modifier;
 import java.security.PrivilegedAction;
 import java.util.AbstractMap;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.Comparator;
 import java.util.Dictionary;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Function;
+import java.util.function.Predicate;
 
 import org.osgi.framework.Filter;
 import org.osgi.framework.InvalidSyntaxException;
@@ -273,6 +276,50 @@ abstract class FilterImpl implements Filter {
 	 */
 	abstract StringBuilder normalize(StringBuilder sb);
 
+	/**
+	 * Returns the value the specified attribute must be equal to for this
+	 * filter to match a String valued attribute.
+	 *
+	 * @param attr The attribute name.
+	 * @return The required value or {@code null} if this filter does not
+	 *         require an exact value for the attribute.
+	 */
+	String requiredValue(String attr) {
+		return null;
+	}
+
+	/**
+	 * Compiles this filter into a predicate which returns the same result as
+	 * {@link #matches0(Map)}. Attribute keys are interned, literal values are
+	 * converted once and the operands of an and are reordered so that the
+	 * most selective ones are evaluated first.
+	 *
+	 * @return The compiled predicate.
+	 */
+	Predicate<Map<String, ?>> compile() {
+		return this::matches0;
+	}
+
+	/**
+	 * Returns the rank of this filter as an operand of an and. Operands with a
+	 * lower rank are expected to be cheaper and more selective and are
+	 * evaluated first.
+	 */
+	int rank() {
+		return 4;
+	}
+
+	@SuppressWarnings({
+		"unchecked", "rawtypes"
+	})
+	static Predicate<Map<String, ?>>[] compile(FilterImpl[] filters) {
+		Predicate<Map<String, ?>>[] predicates = new Predicate[filters.length];
+		for (int i = 0; i < filters.length; i++) {
+			predicates[i] = filters[i].compile();
+		}
+		return predicates;
+	}
+
 	/**
 	 * Compares this {@code Filter} to another {@code Filter}.
 	 * <p>
@@ -329,6 +376,40 @@ abstract class FilterImpl implements Filter {
 			return true;
 		}
 
+		@Override
+		Predicate<Map<String, ?>> compile() {
+			FilterImpl[] sorted = operands.clone();
+			Arrays.sort(sorted, Comparator.comparingInt(FilterImpl::rank));
+			if (sorted.length == 1) {
+				return sorted[0].compile();
+			}
+			if (sorted.length == 2) {
+				Predicate<Map<String, ?>> first = sorted[0].compile();
+				Predicate<Map<String, ?>> second = sorted[1].compile();
+				return map -> first.test(map) && second.test(map);
+			}
+			Predicate<Map<String, ?>>[] predicates = compile(sorted);
+			return map -> {
+				for (Predicate<Map<String, ?>> predicate : predicates) {
+					if (!predicate.test(map)) {
+						return false;
+					}
+				}
+				return true;
+			};
+		}
+
+		@Override
+		String requiredValue(String attr) {
+			for (FilterImpl operand : operands) {
+				String value = operand.requiredValue(attr);
+				if (value != null) {
+					return value;
+				}
+			}
+			return null;
+		}
+
 		@Override
 		StringBuilder normalize(StringBuilder sb) {
 			sb.append('(')
@@ -357,6 +438,19 @@ abstract class FilterImpl implements Filter {
 			return false;
 		}
 
+		@Override
+		Predicate<Map<String, ?>> compile() {
+			Predicate<Map<String, ?>>[] predicates = compile(operands);
+			return map -> {
+				for (Predicate<Map<String, ?>> predicate : predicates) {
+					if (predicate.test(map)) {
+						return true;
+					}
+				}
+				return false;
+			};
+		}
+
 		@Override
 		StringBuilder normalize(StringBuilder sb) {
 			sb.append('(')
@@ -380,6 +474,12 @@ abstract class FilterImpl implements Filter {
 			return !operand.matches0(map);
 		}
 
+		@Override
+		Predicate<Map<String, ?>> compile() {
+			return operand.compile()
+				.negate();
+		}
+
 		@Override
 		StringBuilder normalize(StringBuilder sb) {
 			sb.append('(')
@@ -401,7 +501,18 @@ abstract class FilterImpl implements Filter {
 			return compare(map.get(attr));
 		}
 
-		private boolean compare(Object value1) {
+		@Override
+		Predicate<Map<String, ?>> compile() {
+			String key = attr.intern();
+			return map -> compare(map.get(key));
+		}
+
+		@Override
+		int rank() {
+			return 1;
+		}
+
+		boolean compare(Object value1) {
 			if (value1 == null) {
 				return false;
 			}
@@ -611,6 +722,17 @@ abstract class FilterImpl implements Filter {
 			return map.get(attr) != null;
 		}
 
+		@Override
+		Predicate<Map<String, ?>> compile() {
+			String key = attr.intern();
+			return map -> map.get(key) != null;
+		}
+
+		@Override
+		int rank() {
+			return 3;
+		}
+
 		@Override
 		StringBuilder normalize(StringBuilder sb) {
 			return sb.append('(')
@@ -710,6 +832,41 @@ abstract class FilterImpl implements Filter {
 			return compare == 0;
 		}
 
+		@Override
+		Predicate<Map<String, ?>> compile() {
+			String key = attr.intern();
+			Version version = versionValue();
+			return map -> {
+				Object value1 = map.get(key);
+				if (value1 instanceof String stringValue) {
+					return compare_String(stringValue);
+				}
+				if (value1 instanceof Version versionValue) {
+					return (version != null) && comparison(versionValue.compareTo(version));
+				}
+				return compare(value1);
+			};
+		}
+
+		@Override
+		int rank() {
+			return 0;
+		}
+
+		private Version versionValue() {
+			try {
+				return Version.valueOf(value.trim());
+			} catch (Exception e) {
+				return null;
+			}
+		}
+
+		@Override
+		String requiredValue(String attr) {
+			// subclasses are not an exact comparison
+			return (getClass() == Equal.class) && this.attr.equals(attr) ? value : null;
+		}
+
 		@Override
 		boolean compare_String(String string) {
 			return comparison((string == value) ? 0 : string.compareTo(value));
@@ -870,6 +1027,11 @@ abstract class FilterImpl implements Filter {
 			super(attr, value);
 		}
 
+		@Override
+		int rank() {
+			return 2;
+		}
+
 		@Override
 		boolean comparison(int compare) {
 			return compare <= 0;
@@ -890,6 +1052,11 @@ abstract class FilterImpl implements Filter {
 			super(attr, value);
 		}
 
+		@Override
+		int rank() {
+			return 2;
+		}
+
 		@Override
 		boolean comparison(int compare) {
 			return compare >= 0;
@@ -913,6 +1080,11 @@ abstract class FilterImpl implements Filter {
 			this.approx = approxString(value);
 		}
 
+		@Override
+		int rank() {
+			return 1;
+		}
+
 		@Override
 		boolean compare_String(String string) {
 			string = approxString(string);
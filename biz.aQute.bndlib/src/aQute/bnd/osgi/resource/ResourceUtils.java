@@ -38,7 +38,6 @@ import java.util.regex.Pattern;
 import java.util.stream.Collector;
 import java.util.stream.Stream;
 
-import org.osgi.framework.Filter;
 import org.osgi.framework.InvalidSyntaxException;
 import org.osgi.framework.namespace.AbstractWiringNamespace;
 import org.osgi.framework.namespace.BundleNamespace;
@@ -424,8 +423,8 @@ public abstract class ResourceUtils {
 			return m -> true;
 		}
 		try {
-			Filter filter = FilterImpl.createFilter(filterString);
-			return filter::matches;
+			CompiledFilter filter = CompiledFilter.compile(filterString);
+			return filter::test;
 		} catch (InvalidSyntaxException e) {
 			return m -> false;
 		}
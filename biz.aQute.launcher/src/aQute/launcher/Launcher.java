@@ -53,8 +53,13 @@ import java.util.Optional;
 import java.util.Properties;
 import java.util.ServiceLoader;
 import java.util.StringTokenizer;
+import java.util.TreeMap;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
@@ -79,6 +84,7 @@ import org.osgi.framework.connect.ConnectFrameworkFactory;
 import org.osgi.framework.connect.ModuleConnector;
 import org.osgi.framework.launch.Framework;
 import org.osgi.framework.launch.FrameworkFactory;
+import org.osgi.framework.startlevel.BundleStartLevel;
 import org.osgi.framework.wiring.BundleRevision;
 import org.osgi.framework.wiring.FrameworkWiring;
 import org.osgi.service.permissionadmin.PermissionInfo;
@@ -124,6 +130,7 @@ public class Launcher implements ServiceListener, FrameworkListener {
 	private boolean							frameworkInited			= false;
 
 	private ServiceRegistration<?>			launcherServiceRegistraion;
+	private volatile StartupProfiler		profiler;
 
 	enum EmbeddedActivatorPhase {
 
@@ -389,6 +396,9 @@ public class Launcher implements ServiceListener, FrameworkListener {
 		try {
 			setSystemProperties();
 			this.parms = new LauncherConstants(properties);
+			if (parms.profile != null) {
+				profiler = new StartupProfiler(new File(parms.profile));
+			}
 			setupComms();
 
 			this.startLevelhandler = StartLevelRuntimeHandler.create(this::trace, properties);
@@ -400,7 +410,14 @@ public class Launcher implements ServiceListener, FrameworkListener {
 			trace("inited runbundles=%s activators=%s timeout=%s", parms.runbundles, parms.activators, parms.timeout);
 			trace("version %s", getVersion());
 
-			int status = activate(args);
+			int status;
+			StartupProfiler.Span span = span("launcher", "activate");
+			try {
+				status = activate(args);
+			} finally {
+				end(span);
+			}
+			writeProfile();
 			if (status != 0) {
 				report(out);
 				System.exit(status);
@@ -492,13 +509,22 @@ public class Launcher implements ServiceListener, FrameworkListener {
 	private int activate(String[] args) throws Exception {
 		java.security.Policy.setPolicy(new AllPolicy());
 
-		systemBundle = createFramework();
+		StartupProfiler.Span createSpan = span("framework", "create framework");
+		try {
+			systemBundle = createFramework();
+		} finally {
+			end(createSpan);
+		}
 		if (systemBundle == null)
 			return LauncherConstants.ERROR;
 
 		BundleContext systemContext = systemBundle.getBundleContext();
 
 		systemContext.addFrameworkListener(this);
+		if (profiler != null) {
+			systemContext.addBundleListener(profiler);
+			systemContext.addServiceListener(profiler);
+		}
 
 		if (parms.services) { // Does not work for our dummy framework
 
@@ -572,9 +598,20 @@ public class Launcher implements ServiceListener, FrameworkListener {
 				throw new IllegalArgumentException("Embedded Bundle Activator incorrect: " + token, e);
 			}
 		}
-		List<Bundle> tobestarted = update(System.currentTimeMillis() + 100);
+		List<Bundle> tobestarted;
+		StartupProfiler.Span installSpan = span("launcher", "install bundles");
+		try {
+			tobestarted = update(System.currentTimeMillis() + 100);
+		} finally {
+			end(installSpan);
+		}
 
-		systemBundle.start();
+		StartupProfiler.Span startSpan = span("framework", "start framework");
+		try {
+			systemBundle.start();
+		} finally {
+			end(startSpan);
+		}
 
 		trace("system bundle started ok");
 
@@ -582,7 +619,12 @@ public class Launcher implements ServiceListener, FrameworkListener {
 			result = start(systemContext, result, activator);
 		}
 
-		startBundles(tobestarted);
+		StartupProfiler.Span bundlesSpan = span("launcher", "start bundles");
+		try {
+			startBundles(tobestarted);
+		} finally {
+			end(bundlesSpan);
+		}
 
 		for (BundleActivator activator : startAfterBundleStart) {
 			result = start(systemContext, result, activator);
@@ -646,7 +688,14 @@ public class Launcher implements ServiceListener, FrameworkListener {
 			policy.setDefaultPermissions(null);
 
 		// Get the resolved status
-		if (frameworkWiring.resolveBundles(null) == false) {
+		boolean resolved;
+		StartupProfiler.Span span = span("framework", "resolve bundles");
+		try {
+			resolved = frameworkWiring.resolveBundles(null);
+		} finally {
+			end(span);
+		}
+		if (resolved == false) {
 			List<String> failed = new ArrayList<>();
 
 			for (Bundle b : installedBundles.values()) {
@@ -673,17 +722,135 @@ public class Launcher implements ServiceListener, FrameworkListener {
 		all.addAll(wantsToBeStarted);
 		wantsToBeStarted.clear();
 
-		for (Bundle b : all) {
-			try {
-				trace("starting %s", b.getSymbolicName());
-				start(b);
-				trace("started  %s", b.getSymbolicName());
-			} catch (BundleException e) {
+		if (parms.parallel) {
+			// Bundles with the same start level are started concurrently,
+			// lower start levels first
+			Map<Integer, List<Bundle>> levels = new TreeMap<>();
+			for (Bundle b : all) {
+				levels.computeIfAbsent(getStartLevel(b), k -> new ArrayList<>())
+					.add(b);
+			}
+			for (List<Bundle> level : levels.values()) {
+				forEach(level, this::startBundle);
+			}
+		} else {
+			for (Bundle b : all) {
+				startBundle(b);
+			}
+		}
+	}
+
+	private void startBundle(Bundle b) {
+		StartupProfiler.Span span = span("start", b.getSymbolicName());
+		try {
+			trace("starting %s", b.getSymbolicName());
+			start(b);
+			trace("started  %s", b.getSymbolicName());
+		} catch (BundleException e) {
+			synchronized (wantsToBeStarted) {
 				wantsToBeStarted.add(b);
-				error("Failed to start bundle %s-%s, exception %s", b.getSymbolicName(), b.getVersion(), e);
 			}
+			error("Failed to start bundle %s-%s, exception %s", b.getSymbolicName(), b.getVersion(), e);
+		} finally {
+			end(span);
+		}
+	}
+
+	private int getStartLevel(Bundle b) {
+		BundleStartLevel startLevel = b.adapt(BundleStartLevel.class);
+		return (startLevel != null) ? startLevel.getStartLevel() : 0;
+	}
+
+	/*
+	 * Perform the action on each of the elements. When the parallel run option
+	 * is set, the actions are performed concurrently and this method returns
+	 * when they have all completed. The first exception thrown by an action is
+	 * rethrown.
+	 */
+	private <T> void forEach(List<T> elements, Action<T> action) throws Exception {
+		if (!parms.parallel || (elements.size() < 2)) {
+			for (T element : elements) {
+				action.perform(element);
+			}
+			return;
+		}
+		int threads = Math.min(elements.size(), Runtime.getRuntime()
+			.availableProcessors());
+		ExecutorService executor = Executors.newFixedThreadPool(threads, r -> {
+			Thread t = new Thread(r, "bnd launcher");
+			t.setDaemon(true);
+			return t;
+		});
+		try {
+			List<Future<?>> futures = new ArrayList<>(elements.size());
+			for (T element : elements) {
+				futures.add(executor.submit(() -> {
+					action.perform(element);
+					return null;
+				}));
+			}
+			for (Future<?> future : futures) {
+				try {
+					future.get();
+				} catch (ExecutionException e) {
+					Throwable cause = e.getCause();
+					if (cause instanceof Exception) {
+						throw (Exception) cause;
+					}
+					throw (Error) cause;
+				}
+			}
+		} finally {
+			executor.shutdown();
 		}
+	}
 
+	@FunctionalInterface
+	private interface Action<T> {
+		void perform(T element) throws Exception;
+	}
+
+	/*
+	 * Start a span of the startup profile, null if not profiling
+	 */
+	private StartupProfiler.Span span(String category, String name) {
+		StartupProfiler profiler = this.profiler;
+		return (profiler != null) ? profiler.span(category, name) : null;
+	}
+
+	private static void end(StartupProfiler.Span span) {
+		if (span != null) {
+			span.end();
+		}
+	}
+
+	private void writeProfile() {
+		StartupProfiler profiler = this.profiler;
+		if (profiler == null) {
+			return;
+		}
+		// the startup is over, stop recording
+		this.profiler = null;
+		if (systemBundle != null) {
+			BundleContext systemContext = systemBundle.getBundleContext();
+			if (systemContext != null) {
+				systemContext.removeBundleListener(profiler);
+				systemContext.removeServiceListener(profiler);
+			}
+		}
+		try {
+			profiler.write();
+			CharArrayWriter sb = new CharArrayWriter();
+			try (Formatter f = new Formatter(sb)) {
+				profiler.summary(f, 20);
+			}
+			synchronized (out) {
+				out.print(sb.toString());
+				out.flush();
+			}
+		} catch (Exception e) {
+			error("Cannot write the startup profile %s: %s", parms.profile, e);
+		}
 	}
 
 	void start(Bundle b) throws BundleException {
@@ -706,6 +873,15 @@ public class Launcher implements ServiceListener, FrameworkListener {
 	}
 
 	private void refresh() throws InterruptedException {
+		StartupProfiler.Span span = span("framework", "refresh bundles");
+		try {
+			refresh0();
+		} finally {
+			end(span);
+		}
+	}
+
+	private void refresh0() throws InterruptedException {
 		Semaphore semaphore = new Semaphore(0);
 
 		frameworkWiring.refreshBundles(null, e -> {
@@ -726,7 +902,7 @@ public class Launcher implements ServiceListener, FrameworkListener {
 	/**
 	 * @param tobestarted
 	 */
-	private void synchronizeFiles(List<Bundle> tobestarted, long before) {
+	private void synchronizeFiles(List<Bundle> tobestarted, long before) throws Exception {
 		// Turn the bundle location paths into files
 		Map<File, Integer> desired = new LinkedHashMap<>();
 
@@ -762,21 +938,36 @@ public class Launcher implements ServiceListener, FrameworkListener {
 				error("Failed to uninstall bundle %s, exception %s", f, e);
 			}
 
-		for (File f : tobeinstalled)
+		// the bundles may be installed and updated concurrently, the results
+		// are added in the order of the run bundles
+		Map<File, Bundle> installed = new ConcurrentHashMap<>();
+		forEach(tobeinstalled, f -> {
+			StartupProfiler.Span span = span("install", f.getName());
 			try {
 				int index = desired.get(f);
 				trace("installing %s", f);
 				if (f.exists()) {
 					Bundle b = install(f);
-					installedBundles.put(f, b);
-					tobestarted.add(b);
+					installed.put(f, b);
 				} else
 					error("should install %s but file does not exist", f);
 			} catch (Exception e) {
 				error("Failed to install bundle %s, exception %s", f, e);
+			} finally {
+				end(span);
+			}
+		});
+		for (File f : tobeinstalled) {
+			Bundle b = installed.get(f);
+			if (b != null) {
+				installedBundles.put(f, b);
+				tobestarted.add(b);
 			}
+		}
 
-		for (File f : tobeupdated)
+		Map<File, Bundle> restart = new ConcurrentHashMap<>();
+		forEach(tobeupdated, f -> {
+			StartupProfiler.Span span = span("update", f.getName());
 			try {
 				Integer index = desired.get(f);
 				if (f.exists()) {
@@ -792,7 +983,7 @@ public class Launcher implements ServiceListener, FrameworkListener {
 						if (b.getLastModified() < f.lastModified()) {
 							trace("updating %s", f);
 							if ((b.getState() & (Bundle.ACTIVE | Bundle.STARTING)) != 0) {
-								tobestarted.add(b);
+								restart.put(f, b);
 								stop(b);
 							}
 							b.update();
@@ -803,7 +994,16 @@ public class Launcher implements ServiceListener, FrameworkListener {
 					error("should update %s but file does not exist", f);
 			} catch (Exception e) {
 				error("Failed to update bundle %s, exception %s", f, e);
+			} finally {
+				end(span);
+			}
+		});
+		for (File f : tobeupdated) {
+			Bundle b = restart.get(f);
+			if (b != null) {
+				tobestarted.add(b);
 			}
+		}
 	}
 
 	/**
@@ -895,65 +1095,77 @@ public class Launcher implements ServiceListener, FrameworkListener {
 	 */
 	private void installEmbedded(List<Bundle> tobestarted) throws Exception {
 		trace("starting in embedded mode");
-		BundleContext context = systemBundle.getBundleContext();
-		int n = 0;
-		for (Object o : parms.runbundles) {
+		List<String> paths = new ArrayList<>(parms.runbundles);
+		Bundle[] bundles = new Bundle[paths.size()];
+		List<Integer> indexes = new ArrayList<>(paths.size());
+		for (int n = 0; n < paths.size(); n++) {
+			indexes.add(n);
+		}
+		// the bundles may be installed concurrently, they are started in the
+		// order of the run bundles
+		forEach(indexes, n -> {
+			StartupProfiler.Span span = span("install", paths.get(n));
+			try {
+				bundles[n] = installEmbedded(paths.get(n));
+			} finally {
+				end(span);
+			}
+		});
+		Collections.addAll(tobestarted, bundles);
+	}
 
-			String path = (String) o;
-			String digest = getDigest(path);
+	private Bundle installEmbedded(String path) throws Exception {
+		BundleContext context = systemBundle.getBundleContext();
+		String digest = getDigest(path);
+
+		URL resource = getClass().getClassLoader()
+			.getResource(path);
+		Bundle bundle;
+		if (connect) {
+			if (parms.embedded && JRT_PROTOCOL.equals(resource.getProtocol())) {
+				path = resource.toString();
+			}
+			trace("installing %s by connect", path);
+			bundle = context.installBundle(path);
+			updateDigest(digest, bundle);
+		} else if (useReferences() && resource.getProtocol()
+			.equalsIgnoreCase("file")) {
+			trace("installing %s by reference", path);
 
-			URL resource = getClass().getClassLoader()
-				.getResource(path);
-			Bundle bundle;
-			if (connect) {
-				if (parms.embedded && JRT_PROTOCOL.equals(resource.getProtocol())) {
-					path = resource.toString();
-				}
-				trace("installing %s by connect", path);
-				bundle = context.installBundle(path);
-				updateDigest(digest, bundle);
-				tobestarted.add(bundle);
-			} else if (useReferences() && resource.getProtocol()
-				.equalsIgnoreCase("file")) {
-				trace("installing %s by reference", path);
-
-				//
-				// Install by reference
-				//
-
-				File file = new File(resource.toURI());
-				bundle = context.installBundle(getReferenceUrl(file));
-				updateDigest(digest, bundle);
-				tobestarted.add(bundle);
+			//
+			// Install by reference
+			//
 
-			} else {
+			File file = new File(resource.toURI());
+			bundle = context.installBundle(getReferenceUrl(file));
+			updateDigest(digest, bundle);
 
-				//
-				// Install by copying since the URL we got
-				// is not a file url.
-				//
+		} else {
 
-				try (InputStream in = resource.openStream()) {
-					bundle = getBundleByLocation(path);
-					if (bundle == null) {
-						trace("installing %s", path);
-						bundle = context.installBundle(path, in);
+			//
+			// Install by copying since the URL we got
+			// is not a file url.
+			//
+
+			try (InputStream in = resource.openStream()) {
+				bundle = getBundleByLocation(path);
+				if (bundle == null) {
+					trace("installing %s", path);
+					bundle = context.installBundle(path, in);
+					updateDigest(digest, bundle);
+				} else {
+					if (mustUpdate(digest, bundle)) {
+						trace("updating %s, digest=%s", path, digest);
+						stop(bundle);
+						bundle.update(in);
 						updateDigest(digest, bundle);
 					} else {
-						if (mustUpdate(digest, bundle)) {
-							trace("updating %s, digest=%s", path, digest);
-							stop(bundle);
-							bundle.update(in);
-							updateDigest(digest, bundle);
-						} else {
-							trace("not updating %s because identical digest=%s", path, digest);
-						}
+						trace("not updating %s because identical digest=%s", path, digest);
 					}
-					tobestarted.add(bundle);
 				}
 			}
-			n++;
 		}
+		return bundle;
 	}
 
 	/*
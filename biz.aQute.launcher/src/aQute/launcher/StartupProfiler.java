@@ -0,0 +1,252 @@
+package aQute.launcher;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Formatter;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import org.osgi.framework.Bundle;
+import org.osgi.framework.BundleEvent;
+import org.osgi.framework.Constants;
+import org.osgi.framework.ServiceEvent;
+import org.osgi.framework.ServiceListener;
+import org.osgi.framework.SynchronousBundleListener;
+
+import aQute.lib.io.IO;
+
+/**
+ * Records the timings of the startup of the framework and writes them as a
+ * file in the Chrome trace event format. This file can be opened in
+ * {@code chrome://tracing} or in Perfetto.
+ * <p>
+ * The launcher records spans for its own work, like installing and starting
+ * bundles. The activation of the bundles and the registration of services are
+ * recorded from the framework events so they are also recorded when a bundle
+ * is started by the framework, for example when the start level changes. The
+ * time stamps are relative to the start of the JVM when it is known.
+ */
+class StartupProfiler implements SynchronousBundleListener, ServiceListener {
+	private final File						file;
+	private final long						origin		= System.nanoTime();
+	private final long						offset;
+	private final List<String>				events		= new ArrayList<>();
+	private final Map<Bundle, Long>			starting	= new ConcurrentHashMap<>();
+	private final Map<String, Long>			activators	= new LinkedHashMap<>();
+
+	StartupProfiler(File file) {
+		this.file = file;
+		long uptime;
+		try {
+			uptime = ManagementFactory.getRuntimeMXBean()
+				.getUptime();
+		} catch (Throwable e) {
+			// java.management is not available
+			uptime = 0L;
+		}
+		this.offset = TimeUnit.MILLISECONDS.toMicros(uptime);
+		if (uptime > 0L) {
+			event("jvm", "JVM startup", 0L, offset, null);
+		}
+	}
+
+	/**
+	 * A span of work, it is recorded when it is ended.
+	 */
+	class Span {
+		private final String	category;
+		private final String	name;
+		private final long		start	= now();
+
+		Span(String category, String name) {
+			this.category = category;
+			this.name = String.valueOf(name);
+		}
+
+		void end() {
+			event(category, name, start, now() - start, null);
+		}
+	}
+
+	Span span(String category, String name) {
+		return new Span(category, name);
+	}
+
+	@Override
+	public void bundleChanged(BundleEvent event) {
+		Bundle bundle = event.getBundle();
+		switch (event.getType()) {
+			case BundleEvent.STARTING :
+				starting.put(bundle, now());
+				break;
+			case BundleEvent.STARTED :
+				Long start = starting.remove(bundle);
+				if (start != null) {
+					long duration = now() - start;
+					String name = name(bundle);
+					event("activator", name, start, duration, null);
+					synchronized (activators) {
+						activators.merge(name, duration, Long::sum);
+					}
+				}
+				break;
+			case BundleEvent.RESOLVED :
+				instant("resolved", name(bundle), null);
+				break;
+			default :
+				break;
+		}
+	}
+
+	@Override
+	public void serviceChanged(ServiceEvent event) {
+		if (event.getType() != ServiceEvent.REGISTERED) {
+			return;
+		}
+		Object objectClass = event.getServiceReference()
+			.getProperty(Constants.OBJECTCLASS);
+		String name = (objectClass instanceof String[] names) ? String.join(",", names) : String.valueOf(objectClass);
+		instant("service", name, name(event.getServiceReference()
+			.getBundle()));
+	}
+
+	/**
+	 * Write the trace file. This can be called several times, the file
+	 * contains all the events recorded so far.
+	 */
+	void write() throws IOException {
+		List<String> copy;
+		synchronized (events) {
+			copy = new ArrayList<>(events);
+		}
+		IO.mkdirs(file.getAbsoluteFile()
+			.getParentFile());
+		try (Writer w = IO.writer(file)) {
+			w.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[\n");
+			String del = "";
+			for (String event : copy) {
+				w.write(del);
+				w.write(event);
+				del = ",\n";
+			}
+			w.write("\n]}\n");
+		}
+	}
+
+	/**
+	 * Format a table of the slowest bundle activators.
+	 *
+	 * @param f the formatter
+	 * @param max the maximum number of activators
+	 */
+	void summary(Formatter f, int max) {
+		List<Map.Entry<String, Long>> slowest;
+		synchronized (activators) {
+			slowest = new ArrayList<>(activators.entrySet());
+		}
+		slowest.sort(Map.Entry.<String, Long> comparingByValue()
+			.reversed());
+		f.format("Startup %d ms, %d bundles activated, slowest activators:%n",
+			TimeUnit.MICROSECONDS.toMillis(now()), slowest.size());
+		slowest.stream()
+			.limit(max)
+			.forEachOrdered(e -> f.format("  %8.1f ms  %s%n", e.getValue() / 1000d, e.getKey()));
+		f.format("Trace written to %s%n", file.getAbsolutePath());
+	}
+
+	/*
+	 * Microseconds since the start of the JVM
+	 */
+	private long now() {
+		return TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - origin) + offset;
+	}
+
+	private void event(String category, String name, long start, long duration, String bundle) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\"ph\":\"X\",\"cat\":");
+		quote(sb, category);
+		sb.append(",\"name\":");
+		quote(sb, name);
+		sb.append(",\"ts\":")
+			.append(start)
+			.append(",\"dur\":")
+			.append(duration);
+		thread(sb, bundle);
+		add(sb);
+	}
+
+	private void instant(String category, String name, String bundle) {
+		StringBuilder sb = new StringBuilder();
+		sb.append("{\"ph\":\"i\",\"s\":\"t\",\"cat\":");
+		quote(sb, category);
+		sb.append(",\"name\":");
+		quote(sb, name);
+		sb.append(",\"ts\":")
+			.append(now());
+		thread(sb, bundle);
+		add(sb);
+	}
+
+	private void thread(StringBuilder sb, String bundle) {
+		Thread thread = Thread.currentThread();
+		sb.append(",\"pid\":1,\"tid\":")
+			.append(thread.getId());
+		sb.append(",\"args\":{\"thread\":");
+		quote(sb, thread.getName());
+		if (bundle != null) {
+			sb.append(",\"bundle\":");
+			quote(sb, bundle);
+		}
+		sb.append("}}");
+	}
+
+	private void add(StringBuilder sb) {
+		synchronized (events) {
+			events.add(sb.toString());
+		}
+	}
+
+	private static String name(Bundle bundle) {
+		if (bundle == null) {
+			return "<unknown>";
+		}
+		String bsn = bundle.getSymbolicName();
+		return (bsn != null) ? bsn + "-" + bundle.getVersion() : bundle.getLocation();
+	}
+
+	private static void quote(StringBuilder sb, String s) {
+		sb.append('"');
+		for (int i = 0; i < s.length(); i++) {
+			char c = s.charAt(i);
+			switch (c) {
+				case '"' :
+				case '\\' :
+					sb.append('\\')
+						.append(c);
+					break;
+				case '\n' :
+					sb.append("\\n");
+					break;
+				case '\r' :
+					sb.append("\\r");
+					break;
+				case '\t' :
+					sb.append("\\t");
+					break;
+				default :
+					if (c < 0x20) {
+						sb.append(String.format("\\u%04x", (int) c));
+					} else {
+						sb.append(c);
+					}
+			}
+		}
+		sb.append('"');
+	}
+}
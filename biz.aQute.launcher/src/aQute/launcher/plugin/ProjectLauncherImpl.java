@@ -240,6 +240,8 @@ public class ProjectLauncherImpl extends ProjectLauncher {
 		lc.name = getProject().getName();
 		lc.activationEager = launcherInstrs.runoptions()
 			.contains(RunOption.eager);
+		lc.parallel = launcherInstrs.runoptions()
+			.contains(RunOption.parallel);
 		lc.frameworkRestart = isRunFrameworkRestart();
 
 		if (!exported && !getNotificationListeners().isEmpty()) {
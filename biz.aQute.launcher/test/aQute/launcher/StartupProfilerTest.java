@@ -0,0 +1,55 @@
+package aQute.launcher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.Formatter;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
+import aQute.lib.io.IO;
+import aQute.lib.json.JSONCodec;
+
+public class StartupProfilerTest {
+
+	@InjectTemporaryDirectory
+	File tmp;
+
+	@Test
+	public void testTrace() throws Exception {
+		File file = new File(tmp, "profile/startup.json");
+		StartupProfiler profiler = new StartupProfiler(file);
+		StartupProfiler.Span span = profiler.span("install", "a \"quoted\"\nname");
+		Thread.sleep(2);
+		span.end();
+		profiler.span("start", null)
+			.end();
+		profiler.write();
+
+		@SuppressWarnings("unchecked")
+		Map<String, Object> trace = (Map<String, Object>) new JSONCodec().dec()
+			.from(IO.collect(file))
+			.get();
+		@SuppressWarnings("unchecked")
+		List<Map<String, Object>> events = (List<Map<String, Object>>) trace.get("traceEvents");
+		assertThat(events).filteredOn(e -> "install".equals(e.get("cat")))
+			.singleElement()
+			.satisfies(e -> {
+				assertThat(e.get("name")).isEqualTo("a \"quoted\"\nname");
+				assertThat(e.get("ph")).isEqualTo("X");
+				assertThat(((Number) e.get("dur")).longValue()).isGreaterThanOrEqualTo(2000L);
+			});
+		assertThat(events).filteredOn(e -> "start".equals(e.get("cat")))
+			.hasSize(1);
+
+		StringBuilder sb = new StringBuilder();
+		try (Formatter f = new Formatter(sb)) {
+			profiler.summary(f, 10);
+		}
+		assertThat(sb.toString()).contains("0 bundles activated")
+			.contains(file.getAbsolutePath());
+	}
+}
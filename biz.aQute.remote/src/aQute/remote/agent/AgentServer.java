@@ -99,7 +99,8 @@ public class AgentServer implements Agent, Closeable, FrameworkListener {
 	private Supervisor										remote;
 	private BundleContext									context;
 	private final ShaCache									cache;
-	private ShaSource										source;
+	private final ChunkStore								chunks;
+	private ShaSource[]										sources				= new ShaSource[0];
 	private final Map<String, String>						installed			= new HashMap<>();
 	volatile boolean										quit;
 	private Redirector										redirector			= new NullRedirector();
@@ -128,6 +129,7 @@ public class AgentServer implements Agent, Closeable, FrameworkListener {
 		startOptions = eager ? 0 : Bundle.START_ACTIVATION_POLICY;
 
 		this.cache = new ShaCache(cache);
+		this.chunks = new ChunkStore(new File(cache, "chunks"));
 		this.startlevels = startlevels;
 		if (this.context != null)
 			this.context.addFrameworkListener(this);
@@ -159,6 +161,13 @@ public class AgentServer implements Agent, Closeable, FrameworkListener {
 			location = getLocation(data);
 		}
 
+		try {
+			// so a later update of this bundle only needs the changed chunks
+			chunks.add(data);
+		} catch (Exception e) {
+			printStack(e);
+		}
+
 		try (InputStream stream = new ByteBufferInputStream(data)) {
 			installedBundle = context.getBundle(location);
 			if (installedBundle == null) {
@@ -173,7 +182,7 @@ public class AgentServer implements Agent, Closeable, FrameworkListener {
 
 	@Override
 	public BundleDTO install(String location, String sha) throws Exception {
-		InputStream in = cache.getStream(sha, source);
+		InputStream in = cache.getStream(sha, sources);
 		if (in == null)
 			return null;
 
@@ -306,7 +315,7 @@ public class AgentServer implements Agent, Closeable, FrameworkListener {
 			String sha = bundles.get(location);
 
 			try {
-				InputStream in = cache.getStream(sha, source);
+				InputStream in = cache.getStream(sha, sources);
 				if (in == null) {
 					out.format("Could not find file with sha %s for bundle %s", sha, location);
 					continue;
@@ -327,7 +336,7 @@ public class AgentServer implements Agent, Closeable, FrameworkListener {
 			String sha = e.getValue();
 
 			try {
-				InputStream in = cache.getStream(sha, source);
+				InputStream in = cache.getStream(sha, sources);
 				if (in == null) {
 					out.format("Cannot find file for sha %s to update %s", sha, location);
 					continue;
@@ -371,7 +380,7 @@ public class AgentServer implements Agent, Closeable, FrameworkListener {
 
 	@Override
 	public String update(long id, String sha) throws Exception {
-		InputStream in = cache.getStream(sha, source);
+		InputStream in = cache.getStream(sha, sources);
 		if (in == null)
 			return null;
 
@@ -605,7 +614,23 @@ public class AgentServer implements Agent, Closeable, FrameworkListener {
 
 	public void setRemote(Supervisor supervisor) {
 		this.remote = supervisor;
-		this.source = new ShaSource() {
+		ShaSource chunked = new ShaSource() {
+
+			@Override
+			public boolean isFast() {
+				return false;
+			}
+
+			@Override
+			public InputStream get(String sha) throws Exception {
+				byte[] data = chunks.get(sha, remote);
+				if (data == null)
+					return null;
+
+				return new ByteArrayInputStream(data);
+			}
+		};
+		ShaSource source = new ShaSource() {
 
 			@Override
 			public boolean isFast() {
@@ -621,6 +646,9 @@ public class AgentServer implements Agent, Closeable, FrameworkListener {
 				return new ByteArrayInputStream(data);
 			}
 		};
+		this.sources = new ShaSource[] {
+			chunked, source
+		};
 
 	}
 
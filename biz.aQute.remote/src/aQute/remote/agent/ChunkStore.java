@@ -0,0 +1,181 @@
+package aQute.remote.agent;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import aQute.lib.io.IO;
+import aQute.lib.regex.PatternConstants;
+import aQute.libg.cryptography.SHA1;
+import aQute.remote.api.Chunk;
+import aQute.remote.api.Supervisor;
+import aQute.remote.util.Chunker;
+
+/**
+ * A store of the chunks of the files received from a supervisor. When a file
+ * is needed, only the chunks that are not in the store are retrieved from the
+ * supervisor. A new version of a bundle therefore only costs the chunks that
+ * changed.
+ * <p>
+ * The store is limited in size. When it grows beyond its limit, the chunks
+ * that were used least recently are deleted.
+ */
+class ChunkStore {
+	private final static Pattern	SHA_P		= Pattern.compile(PatternConstants.SHA1);
+	final static long				MAX_SIZE	= 256L * 1024 * 1024;
+	private final File				root;
+	private final long				maxSize;
+
+	ChunkStore(File root) {
+		this(root, MAX_SIZE);
+	}
+
+	ChunkStore(File root, long maxSize) {
+		this.root = root;
+		this.maxSize = maxSize;
+	}
+
+	/**
+	 * Get the content of a file from its chunks.
+	 *
+	 * @param sha the SHA-1 of the file
+	 * @param remote the supervisor
+	 * @return the content or null if the supervisor cannot provide the chunks
+	 *         of the file
+	 */
+	byte[] get(String sha, Supervisor remote) throws Exception {
+		List<Chunk> chunks = remote.getChunks(sha);
+		if (chunks == null)
+			return null;
+
+		for (Chunk chunk : chunks) {
+			if (chunk.sha == null || !SHA_P.matcher(chunk.sha)
+				.matches())
+				return null;
+		}
+
+		Set<String> missing = chunks.stream()
+			.filter(chunk -> !getFile(chunk.sha).isFile())
+			.map(chunk -> chunk.sha)
+			.collect(Collectors.toCollection(LinkedHashSet::new));
+		if (!missing.isEmpty()) {
+			Map<String, Integer> lengths = chunks.stream()
+				.collect(Collectors.toMap(chunk -> chunk.sha, chunk -> chunk.length, (a, b) -> a));
+			byte[] data = remote.getChunkData(sha, new ArrayList<>(missing));
+			if (data == null)
+				return null;
+
+			int offset = 0;
+			for (String chunk : missing) {
+				int length = lengths.get(chunk);
+				if (offset + length > data.length)
+					return null;
+				if (!put(chunk, Arrays.copyOfRange(data, offset, offset + length)))
+					return null;
+				offset += length;
+			}
+		}
+
+		ByteArrayOutputStream bout = new ByteArrayOutputStream();
+		for (Chunk chunk : chunks) {
+			File f = getFile(chunk.sha);
+			if (!f.isFile())
+				return null;
+			IO.copy(f, bout);
+			used(f);
+		}
+		prune();
+		return bout.toByteArray();
+	}
+
+	/**
+	 * Add the chunks of a file that did not come from the store, e.g. a bundle
+	 * that was installed with its data, so later versions of it only need the
+	 * changed chunks.
+	 *
+	 * @param data the content of the file
+	 */
+	void add(byte[] data) throws Exception {
+		int offset = 0;
+		for (Chunk chunk : Chunker.chunk(data)) {
+			File f = getFile(chunk.sha);
+			if (f.isFile()) {
+				used(f);
+			} else {
+				put(chunk.sha, Arrays.copyOfRange(data, offset, offset + chunk.length));
+			}
+			offset += chunk.length;
+		}
+		prune();
+	}
+
+	/*
+	 * The modification time of a chunk is the last time it was used.
+	 */
+	private void used(File f) {
+		f.setLastModified(System.currentTimeMillis());
+	}
+
+	/*
+	 * Delete the least recently used chunks until the store is within its
+	 * limit.
+	 */
+	synchronized void prune() {
+		File[] files = root.listFiles((dir, name) -> SHA_P.matcher(name)
+			.matches());
+		if (files == null)
+			return;
+
+		long size = 0;
+		for (File f : files) {
+			size += f.length();
+		}
+		if (size <= maxSize)
+			return;
+
+		Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+		for (File f : files) {
+			if (size <= maxSize)
+				break;
+			long length = f.length();
+			if (f.delete())
+				size -= length;
+		}
+	}
+
+	private boolean put(String sha, byte[] data) throws Exception {
+		if (!SHA1.digest(data)
+			.asHex()
+			.equalsIgnoreCase(sha))
+			return false;
+
+		File f = getFile(sha);
+		if (f.isFile())
+			return true;
+
+		IO.mkdirs(root);
+		File tmp = IO.createTempFile(root, sha.toLowerCase(Locale.ROOT), ".chunk");
+		try {
+			IO.copy(data, tmp);
+			IO.rename(tmp, f);
+		} catch (IOException e) {
+			IO.delete(tmp);
+			throw e;
+		}
+		return true;
+	}
+
+	private File getFile(String sha) {
+		return new File(root, sha.toUpperCase(Locale.ROOT));
+	}
+}
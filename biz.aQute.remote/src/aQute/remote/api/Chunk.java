@@ -0,0 +1,19 @@
+package aQute.remote.api;
+
+import aQute.bnd.util.dto.DTO;
+
+/**
+ * A chunk of a file. A file is split in chunks at positions that depend on its
+ * content so that a small change in a file only changes a few of its chunks.
+ */
+public class Chunk extends DTO {
+	/**
+	 * The SHA-1 of the content of the chunk
+	 */
+	public String	sha;
+
+	/**
+	 * The length of the chunk
+	 */
+	public int		length;
+}
@@ -1,5 +1,7 @@
 package aQute.remote.api;
 
+import java.util.List;
+
 /**
  * A Supervisor handles the initiating side of a session with a remote agent.
  * The methods defined in this interface are intended to be called by the remote
@@ -41,4 +43,32 @@ public interface Supervisor {
 	 * @return the contents of that file or null if no such file exists.
 	 */
 	byte[] getFile(String sha) throws Exception;
+
+	/**
+	 * Return the chunks of the file that has the given SHA-1. The agent uses
+	 * this to only retrieve the chunks it does not already have with
+	 * {@link #getChunkData(String, List)}, a new version of a bundle usually
+	 * shares most of its chunks with the previous version.
+	 *
+	 * @param sha the SHA-1 of the file
+	 * @return the chunks of the file in order or null if the file is not known
+	 *         or cannot be chunked, the agent then uses
+	 *         {@link #getFile(String)}
+	 */
+	default List<Chunk> getChunks(String sha) throws Exception {
+		return null;
+	}
+
+	/**
+	 * Return the content of chunks of the file that has the given SHA-1.
+	 *
+	 * @param sha the SHA-1 of the file
+	 * @param chunks the SHA-1s of the chunks as returned by
+	 *            {@link #getChunks(String)}
+	 * @return the content of the chunks concatenated in the given order or
+	 *         null if the file is not known
+	 */
+	default byte[] getChunkData(String sha, List<String> chunks) throws Exception {
+		return null;
+	}
 }
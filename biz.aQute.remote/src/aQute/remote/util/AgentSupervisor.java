@@ -1,12 +1,15 @@
 package aQute.remote.util;
 
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
+import java.io.RandomAccessFile;
 import java.net.ConnectException;
 import java.net.InetSocketAddress;
 import java.net.Socket;
 import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -17,6 +20,7 @@ import aQute.bnd.util.dto.DTO;
 import aQute.lib.collections.MultiMap;
 import aQute.lib.io.IO;
 import aQute.libg.cryptography.SHA1;
+import aQute.remote.api.Chunk;
 
 /**
  * This is a base class that provides the basic functionality of a supervisor.
@@ -29,6 +33,7 @@ import aQute.libg.cryptography.SHA1;
 public class AgentSupervisor<Supervisor, Agent> {
 	private static final Map<File, Info>			fileInfo	= new ConcurrentHashMap<>();
 	private static final MultiMap<String, String>	shaInfo		= new MultiMap<>();
+	private static final Map<String, List<Chunk>>	shaChunks	= new ConcurrentHashMap<>();
 	private static final int						connectWait	= 200;
 	private static byte[]							EMPTY		= new byte[0];
 	private Agent									agent;
@@ -75,22 +80,99 @@ public class AgentSupervisor<Supervisor, Agent> {
 	}
 
 	public byte[] getFile(String sha) throws Exception {
+		File f = findFile(sha);
+		if (f == null)
+			return EMPTY;
+
+		byte[] data = IO.read(f);
+		return data;
+	}
+
+	/*
+	 * Find a file that was added with the given SHA-1.
+	 */
+	private File findFile(String sha) {
 		List<String> copy;
 		synchronized (shaInfo) {
 			List<String> list = shaInfo.get(sha);
 			if (list == null)
-				return EMPTY;
+				return null;
 
 			copy = new ArrayList<>(list);
 		}
 		for (String path : copy) {
 			File f = new File(path);
 			if (f.isFile()) {
-				byte[] data = IO.read(f);
-				return data;
+				return f;
 			}
 		}
-		return EMPTY;
+		return null;
+	}
+
+	public List<Chunk> getChunks(String sha) throws Exception {
+		List<Chunk> chunks = shaChunks.get(sha);
+		if (chunks != null)
+			return chunks;
+
+		byte[] data = getFile(sha);
+		if (data.length == 0)
+			return null;
+
+		// the file may have changed since it was added
+		if (!SHA1.digest(data)
+			.asHex()
+			.equalsIgnoreCase(sha))
+			return null;
+
+		chunks = List.copyOf(Chunker.chunk(data));
+		synchronized (shaInfo) {
+			// only keep the chunks while a file has this SHA-1
+			if (shaInfo.containsKey(sha))
+				shaChunks.put(sha, chunks);
+		}
+		return chunks;
+	}
+
+	public byte[] getChunkData(String sha, List<String> chunks) throws Exception {
+		List<Chunk> all = getChunks(sha);
+		if (all == null)
+			return null;
+
+		Map<String, long[]> offsets = new HashMap<>();
+		long offset = 0;
+		for (Chunk chunk : all) {
+			offsets.putIfAbsent(chunk.sha, new long[] {
+				offset, chunk.length
+			});
+			offset += chunk.length;
+		}
+
+		int size = 0;
+		for (String chunk : chunks) {
+			long[] range = offsets.get(chunk);
+			if (range == null)
+				return null;
+			size += (int) range[1];
+		}
+
+		File f = findFile(sha);
+		if (f == null)
+			return null;
+
+		byte[] data = new byte[size];
+		int position = 0;
+		try (RandomAccessFile in = new RandomAccessFile(f, "r")) {
+			for (String chunk : chunks) {
+				long[] range = offsets.get(chunk);
+				in.seek(range[0]);
+				in.readFully(data, position, (int) range[1]);
+				position += (int) range[1];
+			}
+		} catch (EOFException e) {
+			// the file was truncated since it was added
+			return null;
+		}
+		return data;
 	}
 
 	public void setAgent(Link<Supervisor, Agent> link) {
@@ -140,8 +222,11 @@ public class AgentSupervisor<Supervisor, Agent> {
 			if (info.lastModified != file.lastModified()) {
 				String sha = SHA1.digest(file)
 					.asHex();
-				if (info.sha != null && !sha.equals(info.sha))
+				if (info.sha != null && !sha.equals(info.sha)) {
 					shaInfo.removeValue(info.sha, file.getAbsolutePath());
+					if (!shaInfo.containsKey(info.sha))
+						shaChunks.remove(info.sha);
+				}
 				info.sha = sha;
 				info.lastModified = file.lastModified();
 				shaInfo.add(sha, file.getAbsolutePath());
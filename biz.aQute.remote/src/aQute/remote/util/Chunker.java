@@ -0,0 +1,74 @@
+package aQute.remote.util;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import aQute.libg.cryptography.SHA1;
+import aQute.remote.api.Chunk;
+
+/**
+ * Splits data in chunks at positions that depend on the content. A rolling
+ * hash over the last bytes decides where a chunk ends, so an insertion or a
+ * deletion only changes the chunks around it. For a JAR file this works well
+ * since every entry is compressed on its own, a changed class only changes the
+ * chunks of its own entry and the central directory.
+ * <p>
+ * The chunks are between {@value #MIN} and {@value #MAX} bytes, around 8k on
+ * average.
+ */
+public final class Chunker {
+	static final int			MIN		= 2 * 1024;
+	static final int			MAX		= 64 * 1024;
+	private static final int	MASK	= (1 << 13) - 1;
+	private static final int[]	GEAR	= new int[256];
+
+	static {
+		// must be the same everywhere to find the same chunks
+		Random random = new Random(0x62_6e_64L);
+		for (int i = 0; i < GEAR.length; i++) {
+			GEAR[i] = random.nextInt();
+		}
+	}
+
+	private Chunker() {}
+
+	/**
+	 * Split the data in chunks.
+	 *
+	 * @param data the data
+	 * @return the chunks in order, their lengths add up to the length of the
+	 *         data
+	 */
+	public static List<Chunk> chunk(byte[] data) throws Exception {
+		List<Chunk> chunks = new ArrayList<>();
+		int start = 0;
+		while (start < data.length) {
+			int end = boundary(data, start);
+			Chunk chunk = new Chunk();
+			chunk.sha = SHA1.digest(Arrays.copyOfRange(data, start, end))
+				.asHex();
+			chunk.length = end - start;
+			chunks.add(chunk);
+			start = end;
+		}
+		return chunks;
+	}
+
+	private static int boundary(byte[] data, int start) {
+		int limit = Math.min(data.length, start + MAX);
+		int i = start + MIN;
+		if (i >= limit) {
+			return limit;
+		}
+		int hash = 0;
+		for (; i < limit; i++) {
+			hash = (hash << 1) + GEAR[data[i] & 0xFF];
+			if ((hash & MASK) == 0) {
+				return i + 1;
+			}
+		}
+		return limit;
+	}
+}
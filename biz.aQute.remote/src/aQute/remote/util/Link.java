@@ -1,5 +1,7 @@
 package aQute.remote.util;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.DataInputStream;
@@ -7,13 +9,16 @@ import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
 import java.lang.reflect.Type;
 import java.net.Socket;
 import java.net.SocketTimeoutException;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -22,6 +27,9 @@ import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
 
 import aQute.bnd.exceptions.Exceptions;
 import aQute.lib.json.JSONCodec;
@@ -31,12 +39,35 @@ import aQute.lib.json.JSONCodec;
  * implemented on the remote side. The methods on this subclass are then
  * available remotely. I.e. this is a two way street. Void messages are
  * asynchronous, other messages block to a reply.
+ * <p>
+ * Each message is a binary frame with the method name, a message id and the
+ * arguments. Byte array arguments and results are sent as is, other values
+ * are encoded as JSON. Since replies are matched to requests by their message
+ * id, calls from different threads are pipelined over the link.
+ * <p>
+ * When the link starts, each side announces the features it supports in a
+ * hello message. Peers that do not know this message ignore it. Large
+ * arguments are deflated when compression is enabled, see
+ * {@link #setCompression(boolean)}, and the peer announced that it can inflate
+ * them.
+ * <p>
+ * A default method of the remote interface is invoked locally when the peer
+ * does not implement it, for example because it was built against an older
+ * version of the interface. This allows methods to be added to the remote
+ * interface without breaking older peers.
  *
  * @param <R>
  */
 public class Link<L, R> extends Thread implements Closeable {
 	private static final String[]			EMPTY		= new String[] {};
 	static JSONCodec						codec		= new JSONCodec();
+	private static final String				HELLO		= "\u0000hello";
+	private static final String				NO_METHOD	= "\u0000no such method";
+	private static final int				F_INFLATE	= 1;
+	private static final int				F_METHODS	= 2;
+	private static final int				FEATURES	= F_INFLATE | F_METHODS;
+	private static final int				COMPRESS	= 8192;
+	private static final int				BUFFER		= 64 * 1024;
 
 	final DataInputStream					in;
 	final DataOutputStream					out;
@@ -47,6 +78,8 @@ public class Link<L, R> extends Thread implements Closeable {
 	final boolean							tracing;
 	volatile boolean						transfer	= false;
 	private ThreadLocal<Integer>			msgid		= new ThreadLocal<>();
+	volatile int							peerFeatures;
+	volatile boolean						compression	= Boolean.getBoolean(Link.class.getName() + ".compress");
 
 	R										remote;
 	L										local;
@@ -68,8 +101,8 @@ public class Link<L, R> extends Thread implements Closeable {
 		setDaemon(true);
 		this.remoteClass = remoteType;
 		this.local = local == null ? (L) this : local;
-		this.in = new DataInputStream(in);
-		this.out = new DataOutputStream(out);
+		this.in = new DataInputStream(new BufferedInputStream(in, BUFFER));
+		this.out = new DataOutputStream(new BufferedOutputStream(out, BUFFER));
 		this.tracing = Boolean.getBoolean(Link.class.getName() + ".trace");
 
 	}
@@ -124,6 +157,10 @@ public class Link<L, R> extends Thread implements Closeable {
 					if (method.getDeclaringClass() == Object.class)
 						return method.invoke(hash, args);
 
+					// an older peer ignores methods it does not know
+					if (method.isDefault() && (peerFeatures & F_METHODS) == 0)
+						return InvocationHandler.invokeDefault(target, method, args);
+
 					int msgId;
 					try {
 						msgId = send(id.getAndIncrement(), method, args);
@@ -136,7 +173,13 @@ public class Link<L, R> extends Thread implements Closeable {
 						return null;
 					}
 
-					return waitForResult(msgId, method.getGenericReturnType());
+					try {
+						return waitForResult(msgId, method.getGenericReturnType());
+					} catch (RuntimeException e) {
+						if (method.isDefault() && NO_METHOD.equals(e.getMessage()))
+							return InvocationHandler.invokeDefault(target, method, args);
+						throw e;
+					}
 				} catch (InvocationTargetException e2) {
 					throw Exceptions.unrollCause(e2, InvocationTargetException.class);
 				} catch (InterruptedException e3) {
@@ -149,8 +192,27 @@ public class Link<L, R> extends Thread implements Closeable {
 		return remote;
 	}
 
+	/**
+	 * Deflate large arguments sent to the peer if the peer supports it.
+	 * Compression is disabled by default since bundles are usually already
+	 * compressed. It can also be enabled with the
+	 * {@code aQute.remote.util.Link.compress} system property.
+	 *
+	 * @param compression {@code true} to enable compression
+	 */
+	public void setCompression(boolean compression) {
+		this.compression = compression;
+	}
+
 	@Override
 	public void run() {
+		try {
+			// the peer could already be running, e.g. after a transfer
+			hello(FEATURES, true);
+		} catch (Exception e) {
+			terminate(e);
+			return;
+		}
 		while (!isInterrupted() && !transfer && !quit.get())
 			try {
 				final String cmd = in.readUTF();
@@ -160,10 +222,17 @@ public class Link<L, R> extends Thread implements Closeable {
 				int count = in.readShort();
 				final List<byte[]> args = new ArrayList<>(count);
 				for (int i = 0; i < count; i++) {
-					int length = in.readInt();
-					byte[] data = new byte[length];
-					in.readFully(data);
-					args.add(data);
+					args.add(readArgument());
+				}
+
+				// handled in order, before any later message
+				if (HELLO.equals(cmd)) {
+					peerFeatures = (args.size() >= 1 && args.get(0).length == 4) ? ByteBuffer.wrap(args.get(0))
+						.getInt() : 0;
+					trace("peer features " + peerFeatures);
+					if (args.size() >= 2 && args.get(1).length == 1 && args.get(1)[0] != 0)
+						hello(FEATURES, false);
+					continue;
 				}
 
 				Runnable r = () -> {
@@ -213,27 +282,48 @@ public class Link<L, R> extends Thread implements Closeable {
 	int send(int msgId, Method m, Object args[]) throws Exception {
 		if (m != null)
 			promises.put(msgId, new Result());
+		return sendMessage(msgId, m != null ? m.getName() : "", args);
+	}
+
+	private int sendMessage(int msgId, String cmd, Object args[]) throws Exception {
 		trace("send");
+		if (args == null)
+			args = EMPTY;
+
+		// encode outside the lock so other messages are not held up
+		List<byte[]> data = new ArrayList<>(args.length);
+		for (Object arg : args) {
+			if (arg instanceof byte[]) {
+				data.add((byte[]) arg);
+			} else {
+				ByteArrayOutputStream bout = new ByteArrayOutputStream();
+				codec.enc()
+					.to(bout)
+					.put(arg);
+				data.add(bout.toByteArray());
+			}
+		}
+		boolean deflate = compression && (peerFeatures & F_INFLATE) != 0;
+		List<byte[]> deflated = new ArrayList<>(data.size());
+		for (byte[] d : data) {
+			deflated.add(deflate && d.length >= COMPRESS ? deflate(d) : null);
+		}
+
 		synchronized (out) {
-			out.writeUTF(m != null ? m.getName() : "");
+			out.writeUTF(cmd);
 			out.writeInt(msgId);
-			if (args == null)
-				args = EMPTY;
-
-			out.writeShort(args.length);
-			for (Object arg : args) {
-				if (arg instanceof byte[]) {
-					byte[] data = (byte[]) arg;
-					out.writeInt(data.length);
-					out.write(data);
+			out.writeShort(data.size());
+			for (int i = 0; i < data.size(); i++) {
+				byte[] d = data.get(i);
+				byte[] z = deflated.get(i);
+				if (z != null) {
+					// a negative length marks a deflated argument
+					out.writeInt(-z.length);
+					out.writeInt(d.length);
+					out.write(z);
 				} else {
-					ByteArrayOutputStream bout = new ByteArrayOutputStream();
-					codec.enc()
-						.to(bout)
-						.put(arg);
-					byte[] data = bout.toByteArray();
-					out.writeInt(data.length);
-					out.write(data);
+					out.writeInt(d.length);
+					out.write(d);
 				}
 			}
 			out.flush();
@@ -242,6 +332,66 @@ public class Link<L, R> extends Thread implements Closeable {
 		return msgId;
 	}
 
+	private void hello(int features, boolean reply) throws Exception {
+		sendMessage(0, HELLO, new Object[] {
+			ByteBuffer.allocate(4)
+				.putInt(features)
+				.array(), new byte[] {
+					(byte) (reply ? 1 : 0)
+			}
+		});
+	}
+
+	private byte[] readArgument() throws IOException {
+		int length = in.readInt();
+		if (length >= 0) {
+			byte[] data = new byte[length];
+			in.readFully(data);
+			return data;
+		}
+		byte[] data = new byte[in.readInt()];
+		byte[] z = new byte[-length];
+		in.readFully(z);
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(z);
+			int n = 0;
+			while (n < data.length) {
+				int r = inflater.inflate(data, n, data.length - n);
+				if (r == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary()))
+					break;
+				n += r;
+			}
+			if (n != data.length)
+				throw new IOException("Invalid deflated argument, expected " + data.length + " bytes, got " + n);
+			return data;
+		} catch (DataFormatException e) {
+			throw new IOException("Invalid deflated argument", e);
+		} finally {
+			inflater.end();
+		}
+	}
+
+	/*
+	 * Deflate the data, null if this does not make it smaller
+	 */
+	private static byte[] deflate(byte[] data) {
+		Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+		try {
+			deflater.setInput(data);
+			deflater.finish();
+			// not worth it if it does not save at least 1/8
+			byte[] z = new byte[data.length - (data.length >>> 3)];
+			int n = 0;
+			while (!deflater.finished() && n < z.length) {
+				n += deflater.deflate(z, n, z.length - n);
+			}
+			return deflater.finished() ? Arrays.copyOf(z, n) : null;
+		} finally {
+			deflater.end();
+		}
+	}
+
 	void response(int msgId, byte[] data) {
 		boolean exception = false;
 		if (msgId < 0) {
@@ -325,6 +475,13 @@ public class Link<L, R> extends Thread implements Closeable {
 
 			Method m = getMethod(cmd, args.size());
 			if (m == null) {
+				try {
+					send(-id, null, new Object[] {
+						NO_METHOD
+					});
+				} catch (Exception e) {
+					terminate(e);
+				}
 				return;
 			}
 
@@ -393,6 +550,9 @@ public class Link<L, R> extends Thread implements Closeable {
 		quit.set(true);
 		interrupt();
 		join();
+		// the peer must not use our features with the next owner of the
+		// streams until it says hello
+		hello(0, false);
 		if (result != null)
 			send(msgid.get(), null, new Object[] {
 				result
@@ -0,0 +1,161 @@
+package aQute.remote.agent;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.File;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+import aQute.bnd.test.jupiter.InjectTemporaryDirectory;
+import aQute.lib.io.IO;
+import aQute.remote.api.Chunk;
+import aQute.remote.api.Event;
+import aQute.remote.api.Supervisor;
+import aQute.remote.util.AgentSupervisor;
+
+public class ChunkStoreTest {
+
+	@InjectTemporaryDirectory
+	File tmp;
+
+	static class TestSupervisor extends AgentSupervisor<Supervisor, Object> implements Supervisor {
+		int transferred;
+
+		@Override
+		public byte[] getChunkData(String sha, List<String> chunks) throws Exception {
+			byte[] data = super.getChunkData(sha, chunks);
+			transferred += data.length;
+			return data;
+		}
+
+		@Override
+		public void event(Event e) throws Exception {}
+
+		@Override
+		public boolean stdout(String out) throws Exception {
+			return true;
+		}
+
+		@Override
+		public boolean stderr(String out) throws Exception {
+			return true;
+		}
+	}
+
+	@Test
+	public void testOnlyChangedChunks() throws Exception {
+		byte[] data = new byte[500_000];
+		new Random(1).nextBytes(data);
+		File v1 = IO.copy(data, new File(tmp, "v1.jar"));
+		// change a few bytes in the middle
+		data[250_000] ^= 1;
+		data[250_001] ^= 1;
+		File v2 = IO.copy(data, new File(tmp, "v2.jar"));
+
+		TestSupervisor supervisor = new TestSupervisor();
+		ChunkStore store = new ChunkStore(new File(tmp, "chunks"));
+
+		String sha1 = supervisor.addFile(v1);
+		assertArrayEquals(IO.read(v1), store.get(sha1, supervisor));
+		assertEquals(500_000, supervisor.transferred);
+
+		supervisor.transferred = 0;
+		String sha2 = supervisor.addFile(v2);
+		assertArrayEquals(IO.read(v2), store.get(sha2, supervisor));
+		assertTrue(supervisor.transferred > 0);
+		assertTrue(supervisor.transferred < 100_000, "transferred " + supervisor.transferred);
+
+		supervisor.transferred = 0;
+		assertArrayEquals(IO.read(v1), store.get(sha1, supervisor));
+		assertEquals(0, supervisor.transferred);
+	}
+
+	@Test
+	public void testAdd() throws Exception {
+		byte[] data = new byte[200_000];
+		new Random(2).nextBytes(data);
+		TestSupervisor supervisor = new TestSupervisor();
+		ChunkStore store = new ChunkStore(new File(tmp, "chunks"));
+		store.add(data);
+
+		String sha = supervisor.addFile(IO.copy(data, new File(tmp, "added.jar")));
+		assertArrayEquals(data, store.get(sha, supervisor));
+		assertEquals(0, supervisor.transferred);
+	}
+
+	@Test
+	public void testPrune() throws Exception {
+		byte[] data = new byte[500_000];
+		new Random(3).nextBytes(data);
+		TestSupervisor supervisor = new TestSupervisor();
+		File root = new File(tmp, "chunks");
+		ChunkStore store = new ChunkStore(root, 300_000);
+
+		String sha = supervisor.addFile(IO.copy(data, new File(tmp, "pruned.jar")));
+		assertArrayEquals(data, store.get(sha, supervisor));
+		long size = 0;
+		for (File f : root.listFiles()) {
+			size += f.length();
+		}
+		assertTrue(size <= 300_000, "size " + size);
+		assertTrue(size > 0, "size " + size);
+
+		// the deleted chunks are retrieved again
+		supervisor.transferred = 0;
+		assertArrayEquals(data, store.get(sha, supervisor));
+		assertTrue(supervisor.transferred > 0);
+		assertTrue(supervisor.transferred < 500_000, "transferred " + supervisor.transferred);
+	}
+
+	@Test
+	public void testChunksAreCached() throws Exception {
+		byte[] data = new byte[100_000];
+		new Random(4).nextBytes(data);
+		File f = IO.copy(data, new File(tmp, "cached.jar"));
+		TestSupervisor supervisor = new TestSupervisor();
+
+		String sha = supervisor.addFile(f);
+		List<Chunk> chunks = supervisor.getChunks(sha);
+		assertSame(chunks, supervisor.getChunks(sha));
+
+		// a changed file has other chunks
+		data[0] ^= 1;
+		IO.copy(data, f);
+		f.setLastModified(f.lastModified() + 2000);
+		String changed = supervisor.addFile(f);
+		assertNull(supervisor.getChunks(sha));
+		assertNotSame(chunks, supervisor.getChunks(changed));
+	}
+
+	@Test
+	public void testNotSupported() throws Exception {
+		Supervisor supervisor = new Supervisor() {
+			@Override
+			public void event(Event e) throws Exception {}
+
+			@Override
+			public boolean stdout(String out) throws Exception {
+				return true;
+			}
+
+			@Override
+			public boolean stderr(String out) throws Exception {
+				return true;
+			}
+
+			@Override
+			public byte[] getFile(String sha) throws Exception {
+				return null;
+			}
+		};
+		ChunkStore store = new ChunkStore(new File(tmp, "chunks"));
+		assertNull(store.get("0123456789012345678901234567890123456789", supervisor));
+	}
+}
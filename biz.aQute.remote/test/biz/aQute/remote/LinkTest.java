@@ -1,5 +1,6 @@
 package biz.aQute.remote;
 
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
@@ -11,6 +12,8 @@ import java.io.OutputStream;
 import java.net.InetAddress;
 import java.net.ServerSocket;
 import java.net.Socket;
+import java.util.Arrays;
+import java.util.Random;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.junit.jupiter.api.AfterEach;
@@ -49,9 +52,21 @@ public class LinkTest {
 	interface Remote {
 		int foo();
 
+		byte[] echo(byte[] data);
+
 		void abort() throws IOException;
 	}
 
+	public interface Extended extends Remote {
+		default int added() {
+			return 7;
+		}
+
+		default int foo2() {
+			return foo() * 2;
+		}
+	}
+
 	interface Local {
 		int bar();
 
@@ -97,6 +112,11 @@ public class LinkTest {
 			return -42;
 		}
 
+		@Override
+		public byte[] echo(byte[] data) {
+			return data;
+		}
+
 		@Override
 		public void close() throws IOException {
 			System.out.println("remote closed");
@@ -138,6 +158,48 @@ public class LinkTest {
 		newer.close();
 	}
 
+	@Test
+	public void testCompression() throws Exception {
+		localImpl.link.setCompression(true);
+		remoteImpl.link.setCompression(true);
+		localImpl.link.open();
+		remoteImpl.link.open();
+
+		byte[] compressible = new byte[100_000];
+		Arrays.fill(compressible, (byte) 'x');
+		byte[] random = new byte[100_000];
+		new Random(42).nextBytes(random);
+		for (int i = 0; i < 3; i++) {
+			assertArrayEquals(compressible, localImpl.link.getRemote()
+				.echo(compressible));
+			assertArrayEquals(random, localImpl.link.getRemote()
+				.echo(random));
+			assertArrayEquals(new byte[0], localImpl.link.getRemote()
+				.echo(new byte[0]));
+		}
+		assertEquals(-42, localImpl.link.getRemote()
+			.foo());
+	}
+
+	@Test
+	public void testDefaultMethod() throws Exception {
+		Link<Local, Extended> link = new Link<>(Extended.class, localImpl, localSocket.getInputStream(),
+			localSocket.getOutputStream());
+		link.open();
+		remoteImpl.link.open();
+		try {
+			assertEquals(-42, link.getRemote()
+				.foo());
+			// not implemented by the remote, invoked locally
+			assertEquals(7, link.getRemote()
+				.added());
+			assertEquals(-84, link.getRemote()
+				.foo2());
+		} finally {
+			link.close();
+		}
+	}
+
 	/**
 	 * Test simple
 	 *
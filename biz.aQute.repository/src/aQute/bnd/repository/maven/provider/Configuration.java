@@ -76,4 +76,16 @@ public interface Configuration {
 	 * Extensions for files that contain multiple JARs
 	 */
 	String multi();
+
+	/**
+	 * The maximum number of concurrent archive downloads
+	 */
+	// default: 16
+	int downloads(int deflt);
+
+	/**
+	 * The maximum number of concurrent archive downloads from the same host
+	 */
+	// default: 8
+	int downloads_per_host(int deflt);
 }
@@ -0,0 +1,194 @@
+package aQute.bnd.repository.maven.provider;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.osgi.util.promise.Deferred;
+import org.osgi.util.promise.Promise;
+import org.osgi.util.promise.PromiseFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import aQute.bnd.exceptions.SupplierWithException;
+import aQute.bnd.service.progress.ProgressPlugin;
+import aQute.bnd.service.progress.ProgressPlugin.Task;
+
+/**
+ * Schedules the downloads of archives with a limit on the number of
+ * concurrent downloads in total and per host.
+ * <p>
+ * A download is started as soon as a slot is free. Waiting downloads are
+ * queued and no thread is blocked waiting for a slot. The downloads which run
+ * without the scheduler becoming idle are reported as a single task to the
+ * progress plugins, ending with the aggregate throughput. Archives served from
+ * the local repository, which are available as soon as they are requested,
+ * are not reported.
+ */
+class DownloadScheduler {
+	private final static Logger						logger		= LoggerFactory.getLogger(DownloadScheduler.class);
+
+	private final String							name;
+	private final PromiseFactory					promiseFactory;
+	private final int								maxDownloads;
+	private final int								maxPerHost;
+	private final Supplier<List<ProgressPlugin>>	progress;
+
+	private final Deque<Download>					queue		= new ArrayDeque<>();
+	private final Map<String, Integer>				perHost		= new HashMap<>();
+	private int										running;
+
+	private List<Task>								tasks;
+	private long									started;
+	private int										downloads;
+	private long									bytes;
+
+	/**
+	 * @param name the name of the repository used in the progress task
+	 * @param promiseFactory the promise factory
+	 * @param maxDownloads the maximum number of concurrent downloads, if less
+	 *            than 1 there is no limit
+	 * @param maxPerHost the maximum number of concurrent downloads from the same
+	 *            host, if less than 1 there is no limit
+	 * @param progress the progress plugins
+	 */
+	DownloadScheduler(String name, PromiseFactory promiseFactory, int maxDownloads, int maxPerHost,
+		Supplier<List<ProgressPlugin>> progress) {
+		this.name = name;
+		this.promiseFactory = promiseFactory;
+		this.maxDownloads = (maxDownloads < 1) ? Integer.MAX_VALUE : maxDownloads;
+		this.maxPerHost = (maxPerHost < 1) ? Integer.MAX_VALUE : maxPerHost;
+		this.progress = progress;
+	}
+
+	/**
+	 * Schedule a download.
+	 *
+	 * @param host the host the download is from, may be {@code null} if not
+	 *            known
+	 * @param download starts the download when a slot is free
+	 * @return a promise resolved with the result of the download
+	 */
+	Promise<File> download(String host, SupplierWithException<Promise<File>> download) {
+		Download d = new Download((host != null) ? host : "", download);
+		List<Download> start;
+		synchronized (this) {
+			if ((running == 0) && queue.isEmpty()) {
+				started = System.nanoTime();
+				downloads = 0;
+				bytes = 0L;
+			}
+			queue.addLast(d);
+			start = next();
+		}
+		start.forEach(Download::start);
+		return d.deferred.getPromise();
+	}
+
+	/*
+	 * Take the downloads from the queue that can be started. Must be called
+	 * while synchronized.
+	 */
+	private List<Download> next() {
+		List<Download> start = new ArrayList<>();
+		for (Iterator<Download> iter = queue.iterator(); iter.hasNext() && (running < maxDownloads);) {
+			Download d = iter.next();
+			int active = perHost.getOrDefault(d.host, 0);
+			if (active < maxPerHost) {
+				iter.remove();
+				perHost.put(d.host, active + 1);
+				running++;
+				start.add(d);
+			}
+		}
+		return start;
+	}
+
+	private void finished(Download d, File file) {
+		List<Download> start;
+		List<Task> done = null;
+		String message = null;
+		synchronized (this) {
+			running--;
+			perHost.computeIfPresent(d.host, (k, v) -> (v > 1) ? v - 1 : null);
+			if (d.remote) {
+				downloads++;
+				if (file != null) {
+					bytes += file.length();
+				}
+				tasks.forEach(task -> task.worked(1));
+			}
+			start = next();
+			if ((running == 0) && queue.isEmpty() && (tasks != null)) {
+				done = tasks;
+				message = summary();
+				tasks = null;
+			}
+		}
+		if (done != null) {
+			logger.debug("{}: {}", name, message);
+			for (Task task : done) {
+				task.done(message, null);
+			}
+		}
+		start.forEach(Download::start);
+	}
+
+	/*
+	 * Start the progress task of the busy period if not started yet.
+	 */
+	private synchronized void begin() {
+		if (tasks != null) {
+			return;
+		}
+		List<ProgressPlugin> plugins = progress.get();
+		List<Task> tasks = new ArrayList<>(plugins.size());
+		for (ProgressPlugin plugin : plugins) {
+			tasks.add(plugin.startTask("Downloading archives for " + name, -1));
+		}
+		this.tasks = tasks;
+	}
+
+	private String summary() {
+		long millis = Math.max(1L, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+		long kb = bytes / 1024L;
+		return String.format("Downloaded %d archives, %d KB in %d ms (%d KB/s)", downloads, kb, millis,
+			(kb * 1000L) / millis);
+	}
+
+	private class Download {
+		final String								host;
+		final SupplierWithException<Promise<File>>	download;
+		final Deferred<File>						deferred	= promiseFactory.deferred();
+		boolean										remote;
+
+		Download(String host, SupplierWithException<Promise<File>> download) {
+			this.host = host;
+			this.download = download;
+		}
+
+		void start() {
+			Promise<File> promise;
+			try {
+				promise = download.get();
+			} catch (Exception e) {
+				promise = promiseFactory.failed(e);
+			}
+			if (!promise.isDone()) {
+				// not served from the local repository
+				remote = true;
+				begin();
+			}
+			promise.onSuccess(file -> finished(this, file))
+				.onFailure(failure -> finished(this, null));
+			deferred.resolveWith(promise);
+		}
+	}
+}
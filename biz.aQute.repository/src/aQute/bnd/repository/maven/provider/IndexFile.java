@@ -77,6 +77,7 @@ class IndexFile {
 
 	final Reporter								reporter;
 	final PromiseFactory						promiseFactory;
+	final DownloadScheduler						scheduler;
 	final Map<Archive, Resource>				archives	= new ConcurrentHashMap<>();
 	final Set<String>							multi;
 	final String								source;
@@ -92,7 +93,7 @@ class IndexFile {
 	 * Constructor
 	 */
 	IndexFile(Processor domain, Reporter reporter, File file, String source, IMavenRepo repo,
-		PromiseFactory promiseFactory, Set<String> multi) throws Exception {
+		PromiseFactory promiseFactory, DownloadScheduler scheduler, Set<String> multi) throws Exception {
 		this.source = source;
 		this.domain = (domain != null) ? domain : new Processor();
 		this.replacer = this.domain.getReplacer();
@@ -100,6 +101,7 @@ class IndexFile {
 		this.indexFile = file;
 		this.repo = repo;
 		this.promiseFactory = promiseFactory;
+		this.scheduler = scheduler;
 		this.multi = multi;
 		this.updateSerializer = promiseFactory.resolved(Boolean.TRUE);
 		this.bridge = Memoize.supplier(BridgeRepository::new);
@@ -264,14 +266,10 @@ class IndexFile {
 								.recover(p -> failed(archive, p.getFailure()));
 						}
 					}
-					try {
-						return repo.get(archive)
-							.map(file -> (file == null) ? failed(archive, "Not found")
-								: parseSingleOrMultiFile(archive, file))
-							.recover(p -> failed(archive, p.getFailure()));
-					} catch (Exception e) {
-						return promiseFactory.resolved(failed(archive, e));
-					}
+					return download(archive, false)
+						.map(file -> (file == null) ? failed(archive, "Not found")
+							: parseSingleOrMultiFile(archive, file))
+						.recover(p -> failed(archive, p.getFailure()));
 				})
 				.collect(toList());
 		}
@@ -286,6 +284,21 @@ class IndexFile {
 			});
 	}
 
+	/*
+	 * Download an archive through the scheduler which limits the number of
+	 * concurrent downloads
+	 */
+	private Promise<File> download(Archive archive, boolean force) {
+		String host;
+		try {
+			host = repo.toRemoteURI(archive)
+				.getHost();
+		} catch (Exception e) {
+			host = null;
+		}
+		return scheduler.download(host, () -> repo.get(archive, force));
+	}
+
 	private Map<Archive, Resource> failed(Archive archive, Throwable t) {
 		Throwable failure = Exceptions.unrollCause(t, InvocationTargetException.class);
 		String message = getMessage(failure);
@@ -387,7 +400,7 @@ class IndexFile {
 	}
 
 	Promise<Boolean> refresh(Archive archive) {
-		return serialize(() -> repo.get(archive, true)
+		return serialize(() -> download(archive, true)
 			.map(file -> {
 				removeWithDerived(archive);
 				if (file == null) {
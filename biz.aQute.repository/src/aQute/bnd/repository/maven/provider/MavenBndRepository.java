@@ -71,6 +71,7 @@ import aQute.bnd.service.RepositoryPlugin;
 import aQute.bnd.service.clipboard.Clipboard;
 import aQute.bnd.service.maven.PomOptions;
 import aQute.bnd.service.maven.ToDependencyPom;
+import aQute.bnd.service.progress.ProgressPlugin;
 import aQute.bnd.service.release.ReleaseBracketingPlugin;
 import aQute.bnd.unmodifiable.Sets;
 import aQute.bnd.util.repository.DownloadListenerPromise;
@@ -102,6 +103,8 @@ public class MavenBndRepository extends BaseRepository implements RepositoryPlug
 
 	private final static Logger					logger				= LoggerFactory.getLogger(MavenBndRepository.class);
 	private static final int					DEFAULT_POLL_TIME	= 5;
+	private static final int					DEFAULT_DOWNLOADS	= 16;
+	private static final int					DEFAULT_PER_HOST	= 8;
 
 	private static final String					NONE				= "NONE";
 	private static final String					MAVEN_REPO_LOCAL	= System.getProperty("maven.repo.local",
@@ -680,7 +683,11 @@ public class MavenBndRepository extends BaseRepository implements RepositoryPlug
 			}
 			Set<String> multi = Strings.splitAsStream(configuration.multi())
 				.collect(Sets.toSet());
-			this.index = new IndexFile(domain, reporter, indexFile, source, storage, client.promiseFactory(), multi);
+			DownloadScheduler scheduler = new DownloadScheduler(name, client.promiseFactory(),
+				configuration.downloads(DEFAULT_DOWNLOADS), configuration.downloads_per_host(DEFAULT_PER_HOST),
+				() -> (registry != null) ? registry.getPlugins(ProgressPlugin.class) : Collections.emptyList());
+			this.index = new IndexFile(domain, reporter, indexFile, source, storage, client.promiseFactory(), scheduler,
+				multi);
 			this.index.open();
 
 			try (Formatter f = new Formatter()) {
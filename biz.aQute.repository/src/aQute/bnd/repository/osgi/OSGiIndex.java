@@ -28,8 +28,10 @@ import org.slf4j.LoggerFactory;
 
 import aQute.bnd.http.HttpClient;
 import aQute.bnd.http.HttpRequest;
+import aQute.bnd.http.URLCache.InfoDTO;
 import aQute.bnd.osgi.repository.BridgeRepository;
 import aQute.bnd.osgi.repository.ResourcesRepository;
+import aQute.bnd.osgi.repository.ResourcesSnapshot;
 import aQute.bnd.osgi.repository.XMLResourceParser;
 import aQute.bnd.osgi.resource.ResourceUtils;
 import aQute.bnd.osgi.resource.ResourceUtils.ContentCapability;
@@ -100,34 +102,66 @@ class OSGiIndex {
 					this.status = "Not Found " + uri;
 					return Collections.emptyList();
 				}
-				// file could be xml, gzipped xml, OR zip with index.xml or
-				// index.xml.gz entry
-				try (InputStream in = new BufferedInputStream(IO.stream(file))) {
-					in.mark(2);
-					int magic = readUnsignedShort(in);
-					in.reset();
-					if (magic == 0x504b) { // "PK" means a zip file
-						try (ZipInputStream zin = new ZipInputStream(in)) {
-							for (ZipEntry entry; (entry = zin.getNextEntry()) != null;) {
-								switch (entry.getName()) {
-									case "index.xml" :
-									case "index.xml.gz" :
-										try (XMLResourceParser xrp = new XMLResourceParser(zin, name, uri)) {
-											return xrp.parse();
-										}
-									default :
-										break;
+				return parse(file, uri);
+			});
+	}
+
+	/**
+	 * Parse the downloaded index. The parsed resources are kept in a binary
+	 * snapshot next to the index file which is used instead of parsing as
+	 * long as the index file has the same digest.
+	 */
+	private List<Resource> parse(File file, URI uri) throws Exception {
+		File snapshot = new File(file.getParentFile(), file.getName() + ".snapshot");
+		String key = sha256(file) + " " + uri;
+		try {
+			List<Resource> resources = ResourcesSnapshot.read(snapshot, key);
+			if (resources != null) {
+				logger.debug("{}: Read {} resources from snapshot {}", name, resources.size(), snapshot);
+				return resources;
+			}
+		} catch (Exception e) {
+			logger.debug("{}: Ignoring invalid snapshot {}", name, snapshot, e);
+		}
+		List<Resource> resources = parseIndex(file, uri);
+		if (resources != null) {
+			try {
+				ResourcesSnapshot.write(resources, key, snapshot);
+			} catch (Exception e) {
+				logger.debug("{}: Failed to write snapshot {}", name, snapshot, e);
+			}
+		}
+		return resources;
+	}
+
+	private List<Resource> parseIndex(File file, URI uri) throws Exception {
+		// file could be xml, gzipped xml, OR zip with index.xml or
+		// index.xml.gz entry
+		try (InputStream in = new BufferedInputStream(IO.stream(file))) {
+			in.mark(2);
+			int magic = readUnsignedShort(in);
+			in.reset();
+			if (magic == 0x504b) { // "PK" means a zip file
+				try (ZipInputStream zin = new ZipInputStream(in)) {
+					for (ZipEntry entry; (entry = zin.getNextEntry()) != null;) {
+						switch (entry.getName()) {
+							case "index.xml" :
+							case "index.xml.gz" :
+								try (XMLResourceParser xrp = new XMLResourceParser(zin, name, uri)) {
+									return xrp.parse();
 								}
-							}
-							logger.debug("{}: No index.xml or index.xml.gz entry found in zip file {}", name, uri);
-							return Collections.emptyList();
+							default :
+								break;
 						}
 					}
-					try (XMLResourceParser xrp = new XMLResourceParser(in, name, uri)) {
-						return xrp.parse();
-					}
+					logger.debug("{}: No index.xml or index.xml.gz entry found in zip file {}", name, uri);
+					return Collections.emptyList();
 				}
-			});
+			}
+			try (XMLResourceParser xrp = new XMLResourceParser(in, name, uri)) {
+				return xrp.parse();
+			}
+		}
 	}
 
 	private static final int readUnsignedShort(InputStream in) throws IOException {
@@ -171,8 +205,7 @@ class OSGiIndex {
 			if (tag.getState() != State.UPDATED) {
 				return;
 			}
-			String fileDigest = SHA256.digest(file)
-				.asHex();
+			String fileDigest = sha256(file);
 			int start = 0;
 			while (start < remoteDigest.length() && Character.isWhitespace(remoteDigest.charAt(start))) {
 				start++;
@@ -203,6 +236,19 @@ class OSGiIndex {
 			}));
 	}
 
+	/*
+	 * Use the digest calculated while the file was downloaded
+	 */
+	private String sha256(File file) throws Exception {
+		InfoDTO digests = client.cache()
+			.getDigests(file);
+		if (digests != null && digests.sha_256 != null) {
+			return digests.sha_256;
+		}
+		return SHA256.digest(file)
+			.asHex();
+	}
+
 	BridgeRepository getBridge() throws Exception {
 		return repository.getValue();
 	}
@@ -16,6 +16,7 @@ import org.slf4j.LoggerFactory;
 
 import aQute.bnd.http.HttpClient;
 import aQute.bnd.http.HttpRequestException;
+import aQute.bnd.http.URLCache.InfoDTO;
 import aQute.bnd.service.url.State;
 import aQute.bnd.service.url.TaggedData;
 import aQute.bnd.exceptions.Exceptions;
@@ -62,6 +63,7 @@ public class MavenRemoteRepository extends MavenBackingRepository {
 
 	private Promise<TaggedData> fetch(String path, File file, int retries, long delay, boolean force) throws Exception {
 		logger.debug("Fetching {}", path);
+		boolean metadata = path.endsWith("/maven-metadata.xml");
 		return client.build()
 			.headers("User-Agent", "Bnd")
 			.useCache(file, force ? -1 : DEFAULT_MAX_STALE)
@@ -69,34 +71,32 @@ public class MavenRemoteRepository extends MavenBackingRepository {
 			.async(new URL(base + path))
 			.then(success -> success.flatMap(tag -> {
 				logger.debug("Fetched {}", tag);
-				if ((tag.getState() != State.UPDATED) || path.endsWith("/maven-metadata.xml")) {
+				if ((tag.getState() != State.UPDATED) || metadata) {
 					return success;
 				}
 				// https://issues.sonatype.org/browse/NEXUS-4900
-				return client.build()
-					.asString()
-					.timeout(15000)
-					.async(new URL(base + path + ".sha1"))
-					.flatMap(sha -> {
-						if (sha != null) {
-							String fileSha = SHA1.digest(file)
+				return checksum(path, ".sha1").flatMap(sha -> {
+					if (sha != null) {
+						InfoDTO digests = client.cache()
+							.getDigests(file);
+						String fileSha = (digests != null) ? digests.sha_1
+							: SHA1.digest(file)
 								.asHex();
-							checkDigest(fileSha, sha, file);
-							return success;
+						checkDigest(fileSha, sha, file);
+						return success;
+					}
+					return checksum(path, ".md5").flatMap(md5 -> {
+						if (md5 != null) {
+							InfoDTO digests = client.cache()
+								.getDigests(file);
+							String fileMD5 = (digests != null && digests.md5 != null) ? digests.md5
+								: MD5.digest(file)
+									.asHex();
+							checkDigest(fileMD5, md5, file);
 						}
-						return client.build()
-							.asString()
-							.timeout(15000)
-							.async(new URL(base + path + ".md5"))
-							.flatMap(md5 -> {
-								if (md5 != null) {
-									String fileMD5 = MD5.digest(file)
-										.asHex();
-									checkDigest(fileMD5, md5, file);
-								}
-								return success;
-							});
+						return success;
 					});
+				});
 			})
 				.recoverWith(failed -> {
 					if (retries < 1) {
@@ -111,6 +111,13 @@ public class MavenRemoteRepository extends MavenBackingRepository {
 				}));
 	}
 
+	private Promise<String> checksum(String path, String extension) throws Exception {
+		return client.build()
+			.asString()
+			.timeout(15000)
+			.async(new URL(base + path + extension));
+	}
+
 	@Override
 	public void store(File file, String path) throws Exception {
 
@@ -0,0 +1,131 @@
+package aQute.bnd.repository.maven.provider;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.osgi.util.promise.Deferred;
+import org.osgi.util.promise.Promise;
+import org.osgi.util.promise.PromiseFactory;
+
+import aQute.bnd.service.progress.ProgressPlugin;
+
+public class DownloadSchedulerTest {
+	final PromiseFactory promiseFactory = new PromiseFactory(PromiseFactory.inlineExecutor());
+
+	@Test
+	public void testLimits() throws Exception {
+		List<String> messages = new ArrayList<>();
+		ProgressPlugin progress = (name, size) -> new ProgressPlugin.Task() {
+			@Override
+			public void worked(int units) {}
+
+			@Override
+			public void done(String message, Throwable e) {
+				messages.add(message);
+			}
+
+			@Override
+			public boolean isCanceled() {
+				return false;
+			}
+		};
+		DownloadScheduler scheduler = new DownloadScheduler("test", promiseFactory, 3, 2,
+			() -> Collections.singletonList(progress));
+
+		List<Deferred<File>> started = new ArrayList<>();
+		List<Promise<File>> promises = new ArrayList<>();
+		for (String host : new String[] {
+			"a", "a", "a", "b", "b"
+		}) {
+			promises.add(scheduler.download(host, () -> {
+				Deferred<File> deferred = promiseFactory.deferred();
+				started.add(deferred);
+				return deferred.getPromise();
+			}));
+		}
+		// at most 2 from host a and 3 in total
+		assertThat(started).hasSize(3);
+		assertThat(promises).noneMatch(Promise::isDone);
+
+		File file = new File("testresources/mavenrepo/index.maven");
+		started.get(0)
+			.resolve(file);
+		assertThat(promises.get(0)
+			.getValue()).isEqualTo(file);
+		// the second b can start but the third a has to wait for the second
+		assertThat(started).hasSize(4);
+		started.get(1)
+			.fail(new Exception("failed"));
+		assertThat(promises.get(1)
+			.getFailure()).hasMessage("failed");
+		assertThat(started).hasSize(5);
+		assertThat(messages).isEmpty();
+
+		for (int i = 2; i < 5; i++) {
+			started.get(i)
+				.resolve(file);
+		}
+		assertThat(promises).allMatch(Promise::isDone);
+		assertThat(messages).hasSize(1);
+		assertThat(messages.get(0)).startsWith("Downloaded 5 archives");
+	}
+
+	@Test
+	public void testLocalNotReported() throws Exception {
+		List<String> tasks = new ArrayList<>();
+		ProgressPlugin progress = (name, size) -> {
+			tasks.add(name);
+			return new ProgressPlugin.Task() {
+				@Override
+				public void worked(int units) {}
+
+				@Override
+				public void done(String message, Throwable e) {
+					tasks.add(message);
+				}
+
+				@Override
+				public boolean isCanceled() {
+					return false;
+				}
+			};
+		};
+		DownloadScheduler scheduler = new DownloadScheduler("test", promiseFactory, 3, 2,
+			() -> Collections.singletonList(progress));
+
+		File file = new File("testresources/mavenrepo/index.maven");
+		for (int i = 0; i < 5; i++) {
+			assertThat(scheduler.download("a", () -> promiseFactory.resolved(file))
+				.getValue()).isEqualTo(file);
+		}
+		assertThat(tasks).isEmpty();
+
+		Deferred<File> deferred = promiseFactory.deferred();
+		Promise<File> local = scheduler.download("a", () -> promiseFactory.resolved(file));
+		scheduler.download("a", deferred::getPromise);
+		assertThat(local.isDone()).isTrue();
+		assertThat(tasks).hasSize(1);
+		deferred.resolve(file);
+		assertThat(tasks).hasSize(2);
+		assertThat(tasks.get(1)).startsWith("Downloaded 1 archives");
+	}
+
+	@Test
+	public void testUnlimited() throws Exception {
+		DownloadScheduler scheduler = new DownloadScheduler("test", promiseFactory, 0, 0, Collections::emptyList);
+		List<Deferred<File>> started = new ArrayList<>();
+		for (int i = 0; i < 100; i++) {
+			scheduler.download("a", () -> {
+				Deferred<File> deferred = promiseFactory.deferred();
+				started.add(deferred);
+				return deferred.getPromise();
+			});
+		}
+		assertThat(started).hasSize(100);
+	}
+}
@@ -95,6 +95,42 @@ public class OSGiRepositoryTest {
 		});
 	}
 
+	@Test
+	public void testSnapshot() throws Exception {
+		List<String> bsns = listWithSnapshot();
+		assertThat(bsns).isNotEmpty();
+		List<File> snapshots = IO.listFiles(IO.getFile(cache, "shas"), (dir, name) -> name.endsWith(".snapshot"));
+		assertThat(snapshots).hasSize(1);
+		File snapshot = snapshots.get(0);
+		assertTrue(snapshot.setLastModified(0L));
+
+		// the second load reads the snapshot instead of parsing the index
+		assertThat(listWithSnapshot()).isEqualTo(bsns);
+		assertThat(snapshot.lastModified()).isZero();
+	}
+
+	private List<String> listWithSnapshot() throws Exception {
+		try (Processor p = new Processor(); HttpClient httpClient = new HttpClient();
+			Workspace workspace = Workspace.createStandaloneWorkspace(p, ws.toURI());
+			OSGiRepository r = new OSGiRepository()) {
+			Map<String, String> map = new HashMap<>();
+			map.put("locations", fnx.getBaseURI("/repo/minir5.xml")
+				.toString());
+			map.put("cache", cache.getPath());
+			r.setProperties(map);
+			httpClient.setCache(cache);
+			httpClient.setRegistry(p);
+			p.addBasicPlugin(httpClient);
+			p.setBase(ws);
+			p.addBasicPlugin(workspace);
+			r.setRegistry(p);
+			r.setReporter(p);
+			List<String> bsns = r.list(null);
+			assertThat(p.check()).isTrue();
+			return bsns;
+		}
+	}
+
 	private void workspaceSetup(ConsumerWithException<OSGiRepository> test) throws Exception {
 		try (Processor p = new Processor(); HttpClient httpClient = new HttpClient()) {
 			httpClient.setCache(cache);
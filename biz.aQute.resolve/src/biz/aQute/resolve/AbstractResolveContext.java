@@ -104,6 +104,7 @@ public abstract class AbstractResolveContext extends ResolveContext {
 	private int										level									= 0;
 	private Resource								framework;
 	private final AtomicBoolean						reported								= new AtomicBoolean();
+	private ProviderIndex							providerIndex							= new ProviderIndex();
 
 	public AbstractResolveContext(LogService log) {
 		this.log = log;
@@ -284,12 +285,42 @@ public abstract class AbstractResolveContext extends ResolveContext {
 	 *         that are skipped.
 	 */
 	protected Collection<Capability> findProviders(Repository repo, Requirement requirement) {
-		Map<Requirement, Collection<Capability>> map = repo.findProviders(Collections.singleton(requirement));
-		Collection<Capability> caps = map.get(requirement);
+		Collection<Capability> caps = providerIndex.findProviders(repo, requirement, getBatch(requirement));
 		caps.removeIf(capability -> isBlacklisted(capability));
 		return caps;
 	}
 
+	/*
+	 * The requirements that are looked up together with a requirement. These
+	 * are the other requirements of the same resource that the resolver will
+	 * ask for.
+	 */
+	private List<Requirement> getBatch(Requirement requirement) {
+		Resource resource = requirement.getResource();
+		if ((resource == null) || isInputResource(resource) || isSystemResource(resource)) {
+			return Collections.emptyList();
+		}
+		List<Requirement> batch = new ArrayList<>();
+		for (Requirement r : resource.getRequirements(null)) {
+			if (isEffective(r) && !Namespace.RESOLUTION_OPTIONAL.equals(r.getDirectives()
+				.get(Namespace.REQUIREMENT_RESOLUTION_DIRECTIVE))) {
+				batch.add(r);
+			}
+		}
+		return batch;
+	}
+
+	/**
+	 * Set the index used to find the providers in the repositories. This
+	 * allows resolve contexts to share the providers found in the same
+	 * repositories.
+	 *
+	 * @param providerIndex the index
+	 */
+	void setProviderIndex(ProviderIndex providerIndex) {
+		this.providerIndex = requireNonNull(providerIndex);
+	}
+
 	private boolean isBlacklisted(Capability capability) {
 
 		boolean contains = blacklistedResources.contains(capability.getResource());
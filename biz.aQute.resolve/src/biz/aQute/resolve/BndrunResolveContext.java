@@ -380,6 +380,10 @@ public class BndrunResolveContext extends AbstractResolveContext {
 			}
 		}
 
+		if (project != null && !project.isStandalone()) {
+			setProviderIndex(ProviderIndex.getIndex(project.getWorkspace()));
+		}
+
 		Processor repositoryAugments = findRepositoryAugments(orderedRepositories);
 
 		Parameters augments = new Parameters(repositoryAugments.mergeProperties(Constants.AUGMENT), project);
@@ -404,8 +408,8 @@ public class BndrunResolveContext extends AbstractResolveContext {
 			allRepos = project.getWorkspace()
 				.getPlugins(Repository.class);
 			allRepos.removeIf(WorkspaceRepositoryMarker.class::isInstance);
-			WorkspaceResourcesRepository wr = new WorkspaceResourcesRepository(project.getWorkspace());
-			allRepos.add(wr);
+			allRepos.add(ProviderIndex.getIndex(project.getWorkspace())
+				.getWorkspaceRepository(project.getWorkspace()));
 		} else {
 			allRepos = registry.getPlugins(Repository.class);
 		}
@@ -0,0 +1,205 @@
+package biz.aQute.resolve;
+
+import static java.util.Objects.requireNonNull;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.osgi.resource.Capability;
+import org.osgi.resource.Requirement;
+import org.osgi.service.repository.Repository;
+
+import aQute.bnd.build.Project;
+import aQute.bnd.build.Workspace;
+import aQute.bnd.osgi.Jar;
+import aQute.bnd.osgi.repository.AggregateRepository;
+import aQute.bnd.osgi.repository.AugmentRepository;
+import aQute.bnd.osgi.resource.ResourceUtils;
+import aQute.bnd.service.RepositoryListenerPlugin;
+import aQute.bnd.service.RepositoryPlugin;
+
+/**
+ * An index of the providers found in repositories for requirements.
+ * <p>
+ * A workspace has a single index that is shared by the resolve contexts of its
+ * projects and bndrun files, see {@link #getIndex(Workspace)}. The index is
+ * registered as a plugin of the workspace and the providers of a repository
+ * are dropped when the repository reports a change. When the workspace is
+ * refreshed, its repositories are created again and the providers of the old
+ * repositories are garbage collected.
+ * <p>
+ * The providers are looked up in batches. When a requirement is not in the
+ * index, it is looked up together with the other requirements of its resource
+ * that are not in the index, in a single call to
+ * {@link Repository#findProviders(Collection)}.
+ * <p>
+ * The providers are kept for the repositories of the workspace. An
+ * {@link AugmentRepository} or {@link AggregateRepository} created for a
+ * resolve context is not kept itself, the providers are found in the
+ * repositories it wraps and then augmented. The repository of the workspace
+ * projects is shared, see {@link #getWorkspaceRepository(Workspace)}.
+ */
+class ProviderIndex implements RepositoryListenerPlugin {
+	private final Map<Repository, Map<Key, List<Capability>>>	repositories	= Collections
+		.synchronizedMap(new WeakHashMap<>());
+	private WorkspaceResourcesRepository						workspaceRepository;
+	private List<Object>										workspaceStamp;
+
+	/**
+	 * Get the index shared by all the resolve contexts of a workspace.
+	 */
+	static ProviderIndex getIndex(Workspace workspace) {
+		synchronized (workspace) {
+			ProviderIndex index = workspace.getPlugin(ProviderIndex.class);
+			if (index == null) {
+				index = new ProviderIndex();
+				workspace.addBasicPlugin(index);
+			}
+			return index;
+		}
+	}
+
+	/**
+	 * Find the providers of a requirement in a repository.
+	 *
+	 * @param repository the repository
+	 * @param requirement the requirement
+	 * @param batch other requirements that are likely to be needed soon, they
+	 *            are looked up together with the requirement if they are not
+	 *            in the index
+	 * @return a modifiable copy of the providers
+	 */
+	List<Capability> findProviders(Repository repository, Requirement requirement,
+		Collection<? extends Requirement> batch) {
+		if (repository instanceof AugmentRepository augment) {
+			return augment.augment(requirement, findProviders(augment.getRepository(), requirement, batch));
+		}
+		if (repository instanceof AggregateRepository aggregate) {
+			List<Capability> capabilities = new ArrayList<>();
+			for (Repository r : aggregate.getRepositories()) {
+				capabilities = ResourceUtils.capabilitiesCombiner(capabilities, findProviders(r, requirement, batch));
+			}
+			return capabilities;
+		}
+		Map<Key, List<Capability>> providers = repositories.computeIfAbsent(requireNonNull(repository),
+			k -> new ConcurrentHashMap<>());
+		Key key = new Key(requirement);
+		List<Capability> capabilities = providers.get(key);
+		if (capabilities == null) {
+			List<Requirement> requirements = new ArrayList<>(batch.size() + 1);
+			requirements.add(requirement);
+			for (Requirement r : batch) {
+				if ((r != requirement) && !providers.containsKey(new Key(r))) {
+					requirements.add(r);
+				}
+			}
+			Map<Requirement, Collection<Capability>> found = repository.findProviders(requirements);
+			for (Requirement r : requirements) {
+				Collection<Capability> c = found.get(r);
+				providers.putIfAbsent(new Key(r), (c != null) ? List.copyOf(c) : List.of());
+			}
+			capabilities = providers.get(key);
+		}
+		return new ArrayList<>(capabilities);
+	}
+
+	/**
+	 * Get the repository of the resources built by the workspace projects.
+	 * <p>
+	 * The same repository is returned, and its providers are shared, until
+	 * the projects or their build files change.
+	 */
+	synchronized WorkspaceResourcesRepository getWorkspaceRepository(Workspace workspace) {
+		Map<Project, List<File>> buildFiles = WorkspaceResourcesRepository.getBuildFiles(workspace);
+		List<Object> stamp = new ArrayList<>();
+		buildFiles.forEach((project, files) -> {
+			stamp.add(project);
+			for (File file : files) {
+				stamp.add(file);
+				stamp.add(file.lastModified());
+				stamp.add(file.length());
+			}
+		});
+		if ((workspaceRepository == null) || !stamp.equals(workspaceStamp)) {
+			workspaceRepository = new WorkspaceResourcesRepository(workspace, buildFiles);
+			workspaceStamp = stamp;
+		}
+		return workspaceRepository;
+	}
+
+	/**
+	 * Drop the providers of all repositories.
+	 */
+	void clear() {
+		synchronized (this) {
+			workspaceRepository = null;
+			workspaceStamp = null;
+		}
+		repositories.clear();
+	}
+
+	@Override
+	public void bundleAdded(RepositoryPlugin repository, Jar jar, File file) {
+		repositoryRefreshed(repository);
+	}
+
+	@Override
+	public void bundleRemoved(RepositoryPlugin repository, Jar jar, File file) {
+		repositoryRefreshed(repository);
+	}
+
+	@Override
+	public void repositoryRefreshed(RepositoryPlugin repository) {
+		if (repository instanceof Repository) {
+			repositories.remove(repository);
+		} else {
+			// we cannot tell which repository it is
+			clear();
+		}
+	}
+
+	@Override
+	public void repositoriesRefreshed() {
+		clear();
+	}
+
+	/*
+	 * The providers in a repository only depend on the namespace, directives
+	 * and attributes of a requirement, not on the resource declaring it.
+	 */
+	private static final class Key {
+		final String				namespace;
+		final Map<String, String>	directives;
+		final Map<String, Object>	attributes;
+		final int					hashcode;
+
+		Key(Requirement requirement) {
+			this.namespace = requirement.getNamespace();
+			this.directives = requirement.getDirectives();
+			this.attributes = requirement.getAttributes();
+			this.hashcode = Objects.hash(namespace, directives, attributes);
+		}
+
+		@Override
+		public int hashCode() {
+			return hashcode;
+		}
+
+		@Override
+		public boolean equals(Object obj) {
+			if (this == obj)
+				return true;
+			if (!(obj instanceof Key other))
+				return false;
+			return Objects.equals(namespace, other.namespace) && Objects.equals(directives, other.directives)
+				&& Objects.equals(attributes, other.attributes);
+		}
+	}
+}
@@ -0,0 +1,273 @@
+package biz.aQute.resolve;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import org.osgi.resource.Capability;
+import org.osgi.resource.Requirement;
+import org.osgi.resource.Resource;
+import org.osgi.resource.Wire;
+import org.osgi.service.repository.ContentNamespace;
+import org.osgi.service.repository.Repository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import aQute.bnd.build.Project;
+import aQute.bnd.osgi.Constants;
+import aQute.bnd.osgi.Processor;
+import aQute.bnd.osgi.repository.ResourcesSnapshot;
+import aQute.bnd.osgi.resource.ResourceUtils;
+import aQute.bnd.osgi.resource.WireImpl;
+import aQute.bnd.service.Registry;
+import aQute.bnd.service.resolve.hook.ResolverHook;
+import aQute.lib.io.IO;
+import aQute.libg.cryptography.Digester;
+import aQute.libg.cryptography.SHA256;
+
+/**
+ * A persistent cache of the wiring calculated by the {@link ResolveProcess}.
+ * <p>
+ * A wiring is stored with a key that is a digest of everything the resolver
+ * uses: the input requirements, the system resource, the blacklist, the
+ * effective set, the resolve instructions and the capabilities and
+ * requirements of all the resources in the repositories of the resolve
+ * context. When any of them changes, the key changes and the wiring is
+ * calculated again. The resources of the wiring are stored as a
+ * {@link ResourcesSnapshot} and the wires as indexes in the capabilities and
+ * requirements of these resources.
+ */
+class ResolutionCache {
+	private final static Logger		logger			= LoggerFactory.getLogger(ResolutionCache.class);
+	private final static String		VERSION			= "1";
+	private final static String[]	INSTRUCTIONS	= {
+		Constants.RESOLVE_EFFECTIVE, Constants.RESOLVE_EXCLUDESYSTEM, Constants.RESOLVE_PREFERENCES,
+		Constants.RESOLVE_REJECT
+	};
+
+	private final File				resources;
+	private final File				wires;
+	private final String			key;
+	Map<Resource, List<Wire>>		required;
+	Map<Resource, List<Wire>>		optional;
+
+	private ResolutionCache(File resources, File wires, String key) {
+		this.resources = resources;
+		this.wires = wires;
+		this.key = key;
+	}
+
+	/**
+	 * Create the cache for a resolve context.
+	 *
+	 * @return the cache or {@code null} if the resolution cannot be cached
+	 */
+	static ResolutionCache create(Processor properties, Project project, Registry registry,
+		BndrunResolveContext context, Collection<ResolutionCallback> callbacks) {
+		if ((project == null) || (project.getPropertiesFile() == null) || !callbacks.isEmpty()
+			|| !Processor.isTrue(properties.getProperty(Constants.RESOLVE_CACHE, "true"))) {
+			return null;
+		}
+		// hooks and callbacks can change the outcome in ways we cannot digest
+		if ((registry != null) && !registry.getPlugins(ResolverHook.class)
+			.isEmpty()) {
+			return null;
+		}
+		try {
+			String key = key(properties, context);
+			String id = IO.toSafeFileName(project.getPropertiesFile()
+				.getAbsolutePath());
+			return new ResolutionCache(project.getWorkspace()
+				.getCache("resolutions/" + id + ".resources"),
+				project.getWorkspace()
+					.getCache("resolutions/" + id + ".wires"),
+				key);
+		} catch (Exception e) {
+			logger.debug("Cannot cache the resolution of {}", project, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Read the cached wiring into {@link #required} and {@link #optional}.
+	 *
+	 * @return {@code true} if there is a cached wiring for the key
+	 */
+	boolean read() {
+		if (!wires.isFile()) {
+			return false;
+		}
+		try (InputStream stream = IO.stream(wires); DataInputStream in = new DataInputStream(stream)) {
+			if (!key.equals(in.readUTF())) {
+				return false;
+			}
+			List<Resource> list = ResourcesSnapshot.read(resources, key);
+			if (list == null) {
+				return false;
+			}
+			required = readWiring(in, list);
+			optional = readWiring(in, list);
+			logger.debug("Read the resolution from {}", wires);
+			return true;
+		} catch (Exception e) {
+			logger.debug("Cannot read the resolution from {}", wires, e);
+			required = null;
+			optional = null;
+			return false;
+		}
+	}
+
+	/**
+	 * Store a wiring.
+	 */
+	void write(Map<Resource, List<Wire>> required, Map<Resource, List<Wire>> optional) {
+		try {
+			Map<Resource, Integer> index = new LinkedHashMap<>();
+			ByteArrayOutputStream bout = new ByteArrayOutputStream();
+			try (DataOutputStream out = new DataOutputStream(bout)) {
+				out.writeUTF(key);
+				writeWiring(out, required, index);
+				writeWiring(out, optional, index);
+			}
+			ResourcesSnapshot.write(index.keySet(), key, resources);
+			File tmp = IO.createTempFile(wires.getParentFile(), wires.getName(), ".tmp");
+			try {
+				IO.write(bout.toByteArray(), tmp);
+				IO.rename(tmp, wires);
+			} finally {
+				IO.delete(tmp);
+			}
+		} catch (Exception e) {
+			logger.debug("Cannot cache the resolution in {}", wires, e);
+			IO.delete(wires);
+		}
+	}
+
+	private static String key(Processor properties, BndrunResolveContext context) throws Exception {
+		context.init();
+		Digester<SHA256> digester = SHA256.getDigester();
+		try (Writer w = new BufferedWriter(new OutputStreamWriter(digester, UTF_8))) {
+			w.append(VERSION)
+				.append('\n');
+			for (String instruction : INSTRUCTIONS) {
+				w.append(instruction)
+					.append('=')
+					.append(Objects.toString(properties.mergeProperties(instruction), ""))
+					.append('\n');
+			}
+			w.append("effective=")
+				.append(String.valueOf(new TreeMap<>(context.getEffectiveSet())))
+				.append('\n');
+			digest(w, "input", context.getInputResource());
+			digest(w, "system", context.getSystemResource());
+			for (Resource resource : context.getBlackList()) {
+				digest(w, "blacklisted", resource);
+			}
+			for (Repository repository : context.getRepositories()) {
+				w.append("repository\n");
+				for (Resource resource : ResourceUtils.getAllResources(repository)) {
+					digest(w, "resource", resource);
+				}
+			}
+		}
+		return digester.digest()
+			.asHex();
+	}
+
+	private static void digest(Writer w, String kind, Resource resource) throws IOException {
+		w.append(kind)
+			.append('\n');
+		if (resource == null) {
+			return;
+		}
+		for (Capability capability : resource.getCapabilities(null)) {
+			// the content is not used to resolve and may need a download
+			if (ContentNamespace.CONTENT_NAMESPACE.equals(capability.getNamespace())) {
+				continue;
+			}
+			w.append("c ")
+				.append(capability.getNamespace())
+				.append(String.valueOf(capability.getAttributes()))
+				.append(String.valueOf(capability.getDirectives()))
+				.append('\n');
+		}
+		for (Requirement requirement : resource.getRequirements(null)) {
+			w.append("r ")
+				.append(requirement.getNamespace())
+				.append(String.valueOf(requirement.getAttributes()))
+				.append(String.valueOf(requirement.getDirectives()))
+				.append('\n');
+		}
+	}
+
+	private static void writeWiring(DataOutput out, Map<Resource, List<Wire>> wiring, Map<Resource, Integer> index)
+		throws IOException {
+		out.writeInt(wiring.size());
+		for (Map.Entry<Resource, List<Wire>> entry : wiring.entrySet()) {
+			out.writeInt(index(entry.getKey(), index));
+			out.writeInt(entry.getValue()
+				.size());
+			for (Wire wire : entry.getValue()) {
+				Resource requirer = wire.getRequirement()
+					.getResource();
+				Resource provider = wire.getCapability()
+					.getResource();
+				out.writeInt(index(requirer, index));
+				out.writeInt(indexOf(requirer.getRequirements(null), wire.getRequirement()));
+				out.writeInt(index(provider, index));
+				out.writeInt(indexOf(provider.getCapabilities(null), wire.getCapability()));
+			}
+		}
+	}
+
+	private static Map<Resource, List<Wire>> readWiring(DataInput in, List<Resource> resources) throws IOException {
+		int size = in.readInt();
+		Map<Resource, List<Wire>> wiring = new LinkedHashMap<>(size);
+		for (int i = 0; i < size; i++) {
+			Resource resource = resources.get(in.readInt());
+			int count = in.readInt();
+			List<Wire> list = new ArrayList<>(count);
+			for (int j = 0; j < count; j++) {
+				Requirement requirement = resources.get(in.readInt())
+					.getRequirements(null)
+					.get(in.readInt());
+				Capability capability = resources.get(in.readInt())
+					.getCapabilities(null)
+					.get(in.readInt());
+				list.add(new WireImpl(capability, requirement));
+			}
+			wiring.put(resource, list);
+		}
+		return wiring;
+	}
+
+	private static int index(Resource resource, Map<Resource, Integer> index) {
+		return index.computeIfAbsent(resource, k -> index.size());
+	}
+
+	private static int indexOf(List<?> list, Object element) {
+		int i = list.indexOf(element);
+		if (i < 0) {
+			// for example a capability hosted by another resource
+			throw new IllegalArgumentException("Not declared by its resource " + element);
+		}
+		return i;
+	}
+}
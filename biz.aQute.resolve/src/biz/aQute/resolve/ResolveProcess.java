@@ -80,6 +80,15 @@ public class ResolveProcess {
 
 		BndrunResolveContext rc = new BndrunResolveContext(properties, project, plugins, log);
 		rc.addCallbacks(callbacks);
+
+		ResolutionCache cache = ResolutionCache.create(properties, project, plugins, rc, callbacks);
+		if ((cache != null) && cache.read()) {
+			log.log(LogService.LOG_INFO, "Using the cached resolution of " + project);
+			required = cache.required;
+			optional = cache.optional;
+			return required;
+		}
+
 		// 1. Resolve initial requirements
 		Map<Resource, List<Wire>> wirings;
 		try {
@@ -201,6 +210,9 @@ public class ResolveProcess {
 			removeFrameworkAndInputResources(result, rc2);
 		required.putAll(result);
 		optional = tidyUpOptional(wirings, discoveredOptional, log);
+		if (cache != null) {
+			cache.write(required, optional);
+		}
 		return result;
 	}
 
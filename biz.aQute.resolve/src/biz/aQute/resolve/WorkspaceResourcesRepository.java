@@ -1,11 +1,14 @@
 package biz.aQute.resolve;
 
-import static aQute.bnd.exceptions.SupplierWithException.asSupplierOrElse;
 import static java.util.stream.Collectors.toList;
 
 import java.io.BufferedReader;
 import java.io.File;
+import java.io.IOException;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.function.BiFunction;
 
 import aQute.bnd.build.Project;
@@ -21,26 +24,36 @@ public class WorkspaceResourcesRepository extends AbstractIndexingRepository<Pro
 	private final Workspace workspace;
 
 	public WorkspaceResourcesRepository(Workspace workspace) {
+		this(workspace, getBuildFiles(workspace));
+	}
+
+	WorkspaceResourcesRepository(Workspace workspace, Map<Project, List<File>> buildFiles) {
 		super();
 		this.workspace = workspace;
-		initialize();
+		buildFiles.forEach(this::index);
 	}
 
-	private void initialize() {
+	/*
+	 * The files built by the projects of the workspace, as listed in their
+	 * buildfiles.
+	 */
+	static Map<Project, List<File>> getBuildFiles(Workspace workspace) {
+		Map<Project, List<File>> buildFiles = new LinkedHashMap<>();
 		for (Project project : workspace.getAllProjects()) {
 			File target = project.getTargetDir();
 			File buildfiles = new File(target, Constants.BUILDFILES);
 			if (buildfiles.isFile()) {
-				index(project, asSupplierOrElse(() -> {
-					try (BufferedReader rdr = IO.reader(buildfiles)) {
-						return rdr.lines()
-							.map(line -> IO.getFile(target, line.trim()))
-							.filter(File::isFile)
-							.collect(toList());
-					}
-				}, Collections.emptyList()));
+				try (BufferedReader rdr = IO.reader(buildfiles)) {
+					buildFiles.put(project, rdr.lines()
+						.map(line -> IO.getFile(target, line.trim()))
+						.filter(File::isFile)
+						.collect(toList()));
+				} catch (IOException e) {
+					buildFiles.put(project, Collections.emptyList());
+				}
 			}
 		}
+		return buildFiles;
 	}
 
 	@Override
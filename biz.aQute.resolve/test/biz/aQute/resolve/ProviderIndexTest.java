@@ -0,0 +1,110 @@
+package biz.aQute.resolve;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.osgi.resource.Capability;
+import org.osgi.resource.Requirement;
+import org.osgi.resource.Resource;
+
+import aQute.bnd.header.Parameters;
+import aQute.bnd.osgi.repository.AggregateRepository;
+import aQute.bnd.osgi.repository.AugmentRepository;
+import aQute.bnd.osgi.repository.ResourcesRepository;
+import aQute.bnd.osgi.resource.CapReqBuilder;
+import aQute.bnd.osgi.resource.ResourceBuilder;
+
+public class ProviderIndexTest {
+
+	static class CountingRepository extends ResourcesRepository {
+		final List<Integer> calls = new ArrayList<>();
+
+		CountingRepository(Resource resource) {
+			super(resource);
+		}
+
+		@Override
+		public Map<Requirement, Collection<Capability>> findProviders(Collection<? extends Requirement> requirements) {
+			calls.add(requirements.size());
+			return super.findProviders(requirements);
+		}
+	}
+
+	@Test
+	public void testBatchAndShare() throws Exception {
+		ResourceBuilder provider = new ResourceBuilder();
+		provider.addCapability(new CapReqBuilder("test").addAttribute("test", "a"));
+		provider.addCapability(new CapReqBuilder("test").addAttribute("test", "b"));
+		CountingRepository repository = new CountingRepository(provider.build());
+
+		ResourceBuilder requirer = new ResourceBuilder();
+		requirer.addRequirement(new CapReqBuilder("test").addDirective("filter", "(test=a)"));
+		requirer.addRequirement(new CapReqBuilder("test").addDirective("filter", "(test=b)"));
+		requirer.addRequirement(new CapReqBuilder("test").addDirective("filter", "(test=c)"));
+		List<Requirement> requirements = requirer.build()
+			.getRequirements(null);
+
+		ProviderIndex index = new ProviderIndex();
+		assertThat(index.findProviders(repository, requirements.get(0), requirements)).hasSize(1);
+		assertThat(repository.calls).containsExactly(3);
+
+		// found in the batch of the first lookup
+		assertThat(index.findProviders(repository, requirements.get(1), requirements)).hasSize(1);
+		assertThat(index.findProviders(repository, requirements.get(2), requirements)).isEmpty();
+		assertThat(repository.calls).containsExactly(3);
+
+		// the same requirement from another resource
+		Requirement synthetic = new CapReqBuilder("test").addDirective("filter", "(test=a)")
+			.buildSyntheticRequirement();
+		List<Capability> providers = index.findProviders(repository, synthetic, List.of());
+		assertThat(providers).hasSize(1);
+		assertThat(repository.calls).containsExactly(3);
+
+		// the result is a copy
+		providers.clear();
+		assertThat(index.findProviders(repository, synthetic, List.of())).hasSize(1);
+
+		index.repositoriesRefreshed();
+		assertThat(index.findProviders(repository, synthetic, List.of())).hasSize(1);
+		assertThat(repository.calls).containsExactly(3, 1);
+	}
+
+	@Test
+	public void testAugmentedRepositoriesShareProviders() throws Exception {
+		ResourceBuilder provider = new ResourceBuilder();
+		provider.addCapability(new CapReqBuilder("osgi.identity").addAttribute("osgi.identity", "p"));
+		provider.addCapability(new CapReqBuilder("test").addAttribute("test", "a"));
+		CountingRepository repository = new CountingRepository(provider.build());
+		CountingRepository other = new CountingRepository(new ResourceBuilder().build());
+
+		Requirement a = new CapReqBuilder("test").addDirective("filter", "(test=a)")
+			.buildSyntheticRequirement();
+		Requirement b = new CapReqBuilder("test").addDirective("filter", "(test=b)")
+			.buildSyntheticRequirement();
+
+		ProviderIndex index = new ProviderIndex();
+		Parameters augments = new Parameters("p;capability:='test;test=b'");
+		for (int i = 0; i < 2; i++) {
+			// each resolve context creates its own augment and aggregate
+			AugmentRepository augment = new AugmentRepository(augments,
+				new AggregateRepository(repository, other));
+			repository.calls.clear();
+			other.calls.clear();
+			assertThat(index.findProviders(augment, a, List.of())).hasSize(1);
+			// the augmented capability
+			assertThat(index.findProviders(augment, b, List.of())).hasSize(1);
+			if (i == 0) {
+				assertThat(repository.calls).containsExactly(1, 1);
+				assertThat(other.calls).containsExactly(1, 1);
+			} else {
+				assertThat(repository.calls).isEmpty();
+				assertThat(other.calls).isEmpty();
+			}
+		}
+	}
+}
@@ -75,6 +75,49 @@ public class RunResolutionTest {
 		assertThat(withFramework).hasSize(1);
 	}
 
+	@Test
+	public void testResolutionCache() throws Exception {
+		Bndrun bndrun = Bndrun.createBndrun(workspace, IO.getFile(ws.toFile(), "test.simple/resolve.bndrun"));
+		RunResolution.clearCache(workspace);
+		RunResolution resolved = RunResolution.resolve(bndrun, null);
+		assertThat(resolved.isOK()).isTrue();
+
+		// the cached wiring consists of resources read from the cache
+		RunResolution cached = RunResolution.resolve(bndrun, null);
+		assertThat(cached.isOK()).isTrue();
+		assertThat(cached.getRunBundles()).isEqualTo(resolved.getRunBundles());
+		assertThat(cached.getRequired()).hasSameSizeAs(resolved.getRequired());
+		assertThat(cached.getRequired()
+			.keySet()).noneMatch(r -> isSame(r, resolved.getRequired()
+				.keySet()));
+		assertThat(cached.getRequired()
+			.values()
+			.stream()
+			.flatMap(Collection::stream)).allMatch(wire -> cached.getRequired()
+				.containsKey(wire.getProvider()) || cached.getRequired()
+					.containsKey(wire.getRequirer()));
+
+		// a changed instruction resolves again, with the resources from the
+		// repositories
+		bndrun.setProperty(Constants.RESOLVE_PREFERENCES, "foo.bar");
+		RunResolution changed = RunResolution.resolve(bndrun, null);
+		assertThat(changed.getRunBundles()).isEqualTo(resolved.getRunBundles());
+		assertThat(changed.getRequired()
+			.keySet()).anyMatch(r -> isSame(r, resolved.getRequired()
+				.keySet()));
+
+		bndrun.setProperty(Constants.RESOLVE_CACHE, "false");
+		RunResolution uncached = RunResolution.resolve(bndrun, null);
+		assertThat(uncached.getRequired()
+			.keySet()).anyMatch(r -> isSame(r, resolved.getRequired()
+				.keySet()));
+	}
+
+	private static boolean isSame(Resource resource, Collection<Resource> resources) {
+		return resources.stream()
+			.anyMatch(r -> r == resource);
+	}
+
 	@Test
 	public void testOrdering() throws Exception {
 		Bndrun bndrun = Bndrun.createBndrun(workspace, IO.getFile("testdata/ordering.bndrun"));
@@ -268,6 +268,7 @@ public class Index extends DefaultTask {
 				.files(sortedBundles)
 				.base(unwrap(getBase()))
 				.name(unwrap(getRepositoryName()))
+				.parallelism(0)
 				.index(indexUncompressedFile);
 
 			logReport(processor, getLogger());
@@ -1,18 +1,26 @@
 package aQute.bnd.maven.indexer.plugin;
 
+import static aQute.bnd.exceptions.FunctionWithException.asFunction;
 import static aQute.bnd.maven.lib.resolve.LocalURLs.ALLOWED;
 import static aQute.bnd.maven.lib.resolve.LocalURLs.REQUIRED;
+import static java.util.stream.Collectors.toList;
 import static org.apache.maven.plugins.annotations.LifecyclePhase.PACKAGE;
 import static org.apache.maven.plugins.annotations.ResolutionScope.TEST;
 
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
 
+import aQute.bnd.exceptions.Exceptions;
 import aQute.bnd.maven.lib.resolve.DependencyResolver;
 import aQute.bnd.maven.lib.resolve.LocalURLs;
 import aQute.bnd.maven.lib.resolve.RemotePostProcessor;
@@ -45,6 +53,7 @@ import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.artifact.Artifact;
 import org.eclipse.aether.artifact.ArtifactProperties;
 import org.eclipse.aether.resolution.ArtifactResult;
+import org.osgi.resource.Resource;
 import org.osgi.service.repository.ContentNamespace;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -89,6 +98,13 @@ public class IndexerMojo extends AbstractMojo {
 	@Parameter(property = "bnd.indexer.include.gzip", defaultValue = "true")
 	private boolean						includeGzip;
 
+	/**
+	 * The number of artifacts that are indexed at the same time. A value less
+	 * than 1 uses the number of available processors.
+	 */
+	@Parameter(property = "bnd.indexer.parallelism", defaultValue = "0")
+	private int							parallelism;
+
 	@Parameter(property = "bnd.indexer.skip", defaultValue = "false")
 	private boolean						skip;
 
@@ -135,7 +151,7 @@ public class IndexerMojo extends AbstractMojo {
 	@Component
 	private MavenProjectHelper			projectHelper;
 
-	private boolean						fail;
+	private volatile boolean			fail;
 
 	@Override
 	public void execute() throws MojoExecutionException, MojoFailureException {
@@ -176,28 +192,16 @@ public class IndexerMojo extends AbstractMojo {
 		logger.debug("Indexing artifacts: {}", dependencies.keySet());
 		try {
 			IO.mkdirs(outputFile.getParentFile());
+			List<Entry<File, ArtifactResult>> jars = new ArrayList<>();
 			for (Entry<File, ArtifactResult> entry : dependencies.entrySet()) {
-				File file = entry.getKey();
-
 				if (!"jar".equals(entry.getValue().getArtifact().getExtension())) {
-					logger.debug("Skipping: {}", file);
+					logger.debug("Skipping: {}", entry.getKey());
 					continue;
 				}
-
-				ResourceBuilder resourceBuilder = new ResourceBuilder();
-				resourceBuilder.addFile(entry.getKey(), repositoryURLResolver.resolver(file, entry.getValue()));
-
-				if (addMvnURLs) {
-					CapabilityBuilder c = new CapabilityBuilder(ContentNamespace.CONTENT_NAMESPACE);
-					c.addAttribute(ContentNamespace.CONTENT_NAMESPACE, SHA256.digest(file)
-						.asHex());
-					c.addAttribute(ContentNamespace.CAPABILITY_URL_ATTRIBUTE,
-						mavenURLResolver.resolver(file, entry.getValue()));
-					c.addAttribute(ContentNamespace.CAPABILITY_SIZE_ATTRIBUTE, file.length());
-					c.addAttribute(ContentNamespace.CAPABILITY_MIME_ATTRIBUTE, MavenURLResolver.MIME);
-					resourceBuilder.addCapability(c);
-				}
-				resourcesRepository.add(resourceBuilder.build());
+				jars.add(entry);
+			}
+			for (Resource resource : index(jars, repositoryURLResolver, mavenURLResolver)) {
+				resourcesRepository.add(resource);
 			}
 			if (includeJar && project.getPackaging()
 				.equals("jar")) {
@@ -234,6 +238,56 @@ public class IndexerMojo extends AbstractMojo {
 
 	}
 
+	/*
+	 * Index the jars in the order of the list, a number of jars are indexed at
+	 * the same time.
+	 */
+	private List<Resource> index(List<Entry<File, ArtifactResult>> jars, RepositoryURLResolver repositoryURLResolver,
+		MavenURLResolver mavenURLResolver) throws Exception {
+		Function<Entry<File, ArtifactResult>, Resource> indexer = asFunction(
+			entry -> index(entry.getKey(), entry.getValue(), repositoryURLResolver, mavenURLResolver));
+		int threads = (parallelism < 1) ? Runtime.getRuntime()
+			.availableProcessors() : parallelism;
+		if ((threads == 1) || (jars.size() < 2)) {
+			return jars.stream()
+				.map(indexer)
+				.collect(toList());
+		}
+		// a parallel stream runs in the pool of the task that starts it
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try {
+			return pool.submit(() -> jars.parallelStream()
+				.map(indexer)
+				.collect(toList()))
+				.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread()
+				.interrupt();
+			throw e;
+		} catch (ExecutionException e) {
+			throw Exceptions.duck(Exceptions.unrollCause(e, ExecutionException.class));
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private Resource index(File file, ArtifactResult artifactResult, RepositoryURLResolver repositoryURLResolver,
+		MavenURLResolver mavenURLResolver) throws Exception {
+		ResourceBuilder resourceBuilder = new ResourceBuilder();
+		resourceBuilder.addFile(file, repositoryURLResolver.resolver(file, artifactResult));
+
+		if (addMvnURLs) {
+			CapabilityBuilder c = new CapabilityBuilder(ContentNamespace.CONTENT_NAMESPACE);
+			c.addAttribute(ContentNamespace.CONTENT_NAMESPACE, SHA256.digest(file)
+				.asHex());
+			c.addAttribute(ContentNamespace.CAPABILITY_URL_ATTRIBUTE, mavenURLResolver.resolver(file, artifactResult));
+			c.addAttribute(ContentNamespace.CAPABILITY_SIZE_ATTRIBUTE, file.length());
+			c.addAttribute(ContentNamespace.CAPABILITY_MIME_ATTRIBUTE, MavenURLResolver.MIME);
+			resourceBuilder.addCapability(c);
+		}
+		return resourceBuilder.build();
+	}
+
 	private ArtifactRepository parseAltDistRepo(String repo, boolean releases, boolean snapshots) {
 
 		if (repo == null) {
@@ -49,6 +49,21 @@ public class LocalIndexerMojo extends AbstractMojo {
 	@Parameter(property = "bnd.indexer.absolute", defaultValue = "false")
 	private boolean				absolute;
 
+	/**
+	 * The number of files that are indexed at the same time. A value less than
+	 * 1 uses the number of available processors.
+	 */
+	@Parameter(property = "bnd.indexer.parallelism", defaultValue = "0")
+	private int					parallelism;
+
+	/**
+	 * Reuse the entries of the existing output file for the files that have
+	 * the same size and SHA-256 as the indexed file. Only the other files are
+	 * indexed.
+	 */
+	@Parameter(property = "bnd.indexer.incremental", defaultValue = "false")
+	private boolean				incremental;
+
 	/**
 	 * This configuration parameter is used to set the name of the repository in
 	 * the generated index
@@ -93,10 +108,14 @@ public class LocalIndexerMojo extends AbstractMojo {
 			logger.debug("Included files: {}", toIndex);
 			IO.mkdirs(outputFile.getParentFile());
 			final SimpleIndexer simpleIndexer = new SimpleIndexer().reporter(processor)
-				.files(toIndex);
+				.files(toIndex)
+				.parallelism(parallelism);
 			if (!absolute) {
 				simpleIndexer.base(baseFile.toURI());
 			}
+			if (incremental) {
+				simpleIndexer.incremental(outputFile);
+			}
 			simpleIndexer.name(indexName)
 				.index(outputFile);
 			reportErrorsAndWarnings(processor);